@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * UW SPF - The University of Washington Semantic Parsing Framework
+ * <p>
+ * Copyright (C) 2013 Yoav Artzi
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ ******************************************************************************/
+package edu.uw.cs.lil.tiny.benchmarks;
+
+/**
+ * Timings of a single benchmark.
+ * 
+ * @author Yoav Artzi
+ */
+public class BenchmarkResult {
+	private final long[]	iterationTimes;
+	private final String	name;
+	private final long		operations;
+	
+	/**
+	 * @param name
+	 *            Benchmark name.
+	 * @param operations
+	 *            Total number of operations over all measured iterations.
+	 * @param iterationTimes
+	 *            Duration of each measured iteration (nanoseconds).
+	 */
+	public BenchmarkResult(String name, long operations, long[] iterationTimes) {
+		this.name = name;
+		this.operations = operations;
+		this.iterationTimes = iterationTimes;
+	}
+	
+	public String getName() {
+		return name;
+	}
+	
+	/**
+	 * Average nanoseconds per operation.
+	 */
+	public double getNanosPerOperation() {
+		return operations == 0 ? 0.0 : (double) getTotalTime() / operations;
+	}
+	
+	public long getOperations() {
+		return operations;
+	}
+	
+	public double getOperationsPerSecond() {
+		final long totalTime = getTotalTime();
+		return totalTime == 0 ? 0.0 : operations * 1000000000.0 / totalTime;
+	}
+	
+	/**
+	 * Standard deviation of the per-iteration time per operation
+	 * (nanoseconds).
+	 */
+	public double getStdDevNanosPerOperation() {
+		if (operations == 0) {
+			return 0.0;
+		}
+		final double opsPerIteration = (double) operations
+				/ iterationTimes.length;
+		final double mean = getNanosPerOperation();
+		double sum = 0.0;
+		for (final long time : iterationTimes) {
+			final double diff = time / opsPerIteration - mean;
+			sum += diff * diff;
+		}
+		return Math.sqrt(sum / iterationTimes.length);
+	}
+	
+	/**
+	 * Total measured time (nanoseconds).
+	 */
+	public long getTotalTime() {
+		long total = 0;
+		for (final long time : iterationTimes) {
+			total += time;
+		}
+		return total;
+	}
+	
+	public String toJson() {
+		final StringBuilder sb = new StringBuilder();
+		sb.append("{\"benchmark\": \"").append(escape(name)).append('"');
+		sb.append(", \"iterations\": ").append(iterationTimes.length);
+		sb.append(", \"operations\": ").append(operations);
+		sb.append(", \"nsPerOp\": ").append(getNanosPerOperation());
+		sb.append(", \"nsPerOpStdDev\": ").append(getStdDevNanosPerOperation());
+		sb.append(", \"opsPerSec\": ").append(getOperationsPerSecond());
+		sb.append(", \"iterationTimesNs\": [");
+		for (int i = 0; i < iterationTimes.length; ++i) {
+			if (i > 0) {
+				sb.append(", ");
+			}
+			sb.append(iterationTimes[i]);
+		}
+		sb.append("]}");
+		return sb.toString();
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("%s: %.1f ns/op (+-%.1f), %.2f ops/sec", name,
+				getNanosPerOperation(), getStdDevNanosPerOperation(),
+				getOperationsPerSecond());
+	}
+	
+	private static String escape(String string) {
+		final StringBuilder sb = new StringBuilder();
+		for (final char c : string.toCharArray()) {
+			if (c == '"' || c == '\\') {
+				sb.append('\\').append(c);
+			} else if (c < ' ') {
+				sb.append(String.format("\\u%04x", (int) c));
+			} else {
+				sb.append(c);
+			}
+		}
+		return sb.toString();
+	}
+	
+}
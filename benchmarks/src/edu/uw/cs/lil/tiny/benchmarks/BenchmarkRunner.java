@@ -0,0 +1,136 @@
+/*******************************************************************************
+ * UW SPF - The University of Washington Semantic Parsing Framework
+ * <p>
+ * Copyright (C) 2013 Yoav Artzi
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ ******************************************************************************/
+package edu.uw.cs.lil.tiny.benchmarks;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import edu.uw.cs.utils.log.ILogger;
+import edu.uw.cs.utils.log.LoggerFactory;
+
+/**
+ * Runs benchmarks: a number of un-timed warm-up iterations, followed by timed
+ * measurement iterations. Results can be written as JSON, to track
+ * regressions between releases.
+ * 
+ * @author Yoav Artzi
+ */
+public class BenchmarkRunner {
+	public static final ILogger	LOG	= LoggerFactory
+											.create(BenchmarkRunner.class);
+	
+	private final int			measurementIterations;
+	private final int			warmupIterations;
+	
+	private BenchmarkRunner(int warmupIterations, int measurementIterations) {
+		this.warmupIterations = warmupIterations;
+		this.measurementIterations = measurementIterations;
+	}
+	
+	/**
+	 * Writes the results as a JSON object with some information about the
+	 * environment and a 'results' array.
+	 */
+	public static void writeJson(List<BenchmarkResult> results, File file)
+			throws IOException {
+		final Writer writer = new FileWriter(file);
+		try {
+			writer.write("{\n");
+			writer.write(String.format("  \"timestamp\": %d,\n",
+					System.currentTimeMillis()));
+			writer.write(String.format("  \"javaVersion\": \"%s\",\n",
+					System.getProperty("java.version")));
+			writer.write(String.format("  \"processors\": %d,\n", Runtime
+					.getRuntime().availableProcessors()));
+			writer.write("  \"results\": [");
+			boolean first = true;
+			for (final BenchmarkResult result : results) {
+				writer.write(first ? "\n    " : ",\n    ");
+				writer.write(result.toJson());
+				first = false;
+			}
+			writer.write("\n  ]\n}\n");
+		} finally {
+			writer.close();
+		}
+	}
+	
+	public BenchmarkResult run(IBenchmark benchmark) {
+		LOG.info("Running %s ...", benchmark.getName());
+		benchmark.setUp();
+		try {
+			for (int i = 0; i < warmupIterations; ++i) {
+				benchmark.run();
+			}
+			final long[] times = new long[measurementIterations];
+			long operations = 0;
+			for (int i = 0; i < measurementIterations; ++i) {
+				final long start = System.nanoTime();
+				operations += benchmark.run();
+				times[i] = System.nanoTime() - start;
+			}
+			final BenchmarkResult result = new BenchmarkResult(
+					benchmark.getName(), operations, times);
+			LOG.info(result);
+			return result;
+		} finally {
+			benchmark.tearDown();
+		}
+	}
+	
+	/**
+	 * Runs all benchmarks with a name matching the filter.
+	 */
+	public List<BenchmarkResult> run(List<IBenchmark> benchmarks,
+			Pattern filter) {
+		final List<BenchmarkResult> results = new ArrayList<BenchmarkResult>(
+				benchmarks.size());
+		for (final IBenchmark benchmark : benchmarks) {
+			if (filter.matcher(benchmark.getName()).find()) {
+				results.add(run(benchmark));
+			}
+		}
+		return results;
+	}
+	
+	public static class Builder {
+		private int	measurementIterations	= 5;
+		private int	warmupIterations		= 3;
+		
+		public BenchmarkRunner build() {
+			return new BenchmarkRunner(warmupIterations, measurementIterations);
+		}
+		
+		public Builder setMeasurementIterations(int measurementIterations) {
+			this.measurementIterations = measurementIterations;
+			return this;
+		}
+		
+		public Builder setWarmupIterations(int warmupIterations) {
+			this.warmupIterations = warmupIterations;
+			return this;
+		}
+	}
+	
+}
@@ -0,0 +1,127 @@
+/*******************************************************************************
+ * UW SPF - The University of Washington Semantic Parsing Framework
+ * <p>
+ * Copyright (C) 2013 Yoav Artzi
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ ******************************************************************************/
+package edu.uw.cs.lil.tiny.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import edu.uw.cs.lil.tiny.base.concurrency.TinyExecutorService;
+import edu.uw.cs.lil.tiny.base.hashvector.HashVectorFactory;
+import edu.uw.cs.lil.tiny.benchmarks.exec.EvaluationBenchmark;
+import edu.uw.cs.lil.tiny.benchmarks.hashvector.HashVectorBenchmark;
+import edu.uw.cs.lil.tiny.benchmarks.hashvector.HashVectorBenchmark.Operation;
+import edu.uw.cs.lil.tiny.benchmarks.lambda.ApplyAndSimplifyBenchmark;
+import edu.uw.cs.lil.tiny.benchmarks.lambda.LogicalExpressionComparatorBenchmark;
+import edu.uw.cs.lil.tiny.benchmarks.lambda.LogicalExpressionReaderBenchmark;
+import edu.uw.cs.lil.tiny.benchmarks.parser.CKYParseBenchmark;
+import edu.uw.cs.utils.log.ILogger;
+import edu.uw.cs.utils.log.Log;
+import edu.uw.cs.utils.log.LogLevel;
+import edu.uw.cs.utils.log.Logger;
+import edu.uw.cs.utils.log.LoggerFactory;
+
+/**
+ * Runs the SPF benchmark suite and writes the results as JSON. Arguments:
+ * [geoquery directory] [output JSON file] [optional benchmark name filter
+ * (regular expression)]. The number of iterations is controlled by the
+ * system properties 'benchmark.warmup' and 'benchmark.iterations'.
+ * 
+ * @author Yoav Artzi
+ */
+public class BenchmarkSuite {
+	public static final ILogger	LOG		= LoggerFactory
+												.create(BenchmarkSuite.class);
+	private static final int[]	BEAMS	= { 10, 50, 100 };
+	
+	private BenchmarkSuite() {
+		// Service class. Not instantiatable.
+	}
+	
+	public static void main(String[] args) throws IOException {
+		Logger.DEFAULT_LOG = new Log(System.err);
+		Logger.setSkipPrefix(true);
+		LogLevel.setLogLevel(LogLevel.INFO);
+		
+		if (args.length < 2) {
+			LOG.error("Usage: BenchmarkSuite <geoquery dir> <output file> [filter]");
+			System.exit(1);
+		}
+		
+		final File geoqueryDir = new File(args[0]);
+		final File outputFile = new File(args[1]);
+		final Pattern filter = Pattern.compile(args.length > 2 ? args[2] : "");
+		
+		final BenchmarkRunner runner = new BenchmarkRunner.Builder()
+				.setWarmupIterations(Integer.getInteger("benchmark.warmup", 3))
+				.setMeasurementIterations(
+						Integer.getInteger("benchmark.iterations", 5)).build();
+		
+		final GeoQueryFixture fixture = new GeoQueryFixture(geoqueryDir);
+		final TinyExecutorService executor = new TinyExecutorService(Runtime
+				.getRuntime().availableProcessors());
+		try {
+			final List<IBenchmark> benchmarks = new ArrayList<IBenchmark>();
+			
+			// Parsing
+			for (final int beam : BEAMS) {
+				benchmarks.add(new CKYParseBenchmark("parser.CKYParser.beam"
+						+ beam, fixture, fixture.createCKYParser(beam)));
+			}
+			for (final int beam : BEAMS) {
+				benchmarks.add(new CKYParseBenchmark(
+						"parser.MultiCKYParser.beam" + beam, fixture, fixture
+								.createMultiCKYParser(beam, executor)));
+			}
+			for (final int beam : BEAMS) {
+				benchmarks.add(new CKYParseBenchmark(
+						"parser.AgendaCKYParser.beam" + beam, fixture, fixture
+								.createAgendaCKYParser(beam)));
+			}
+			
+			// Lambda calculus operations
+			benchmarks.add(new ApplyAndSimplifyBenchmark(fixture));
+			benchmarks.add(new LogicalExpressionComparatorBenchmark(fixture));
+			benchmarks.add(new LogicalExpressionReaderBenchmark(fixture));
+			
+			// Hash vectors
+			for (final HashVectorFactory.Type type : new HashVectorFactory.Type[] {
+					HashVectorFactory.Type.TREE, HashVectorFactory.Type.TROVE }) {
+				for (final Operation operation : Operation.values()) {
+					benchmarks.add(new HashVectorBenchmark(type, operation,
+							1000));
+				}
+			}
+			
+			// Execution
+			benchmarks.add(new EvaluationBenchmark(30, 10, false));
+			benchmarks.add(new EvaluationBenchmark(30, 10, true));
+			
+			final List<BenchmarkResult> results = runner.run(benchmarks,
+					filter);
+			BenchmarkRunner.writeJson(results, outputFile);
+			LOG.info("Wrote %d results to %s", results.size(), outputFile);
+		} finally {
+			executor.shutdown();
+		}
+	}
+	
+}
@@ -0,0 +1,265 @@
+/*******************************************************************************
+ * UW SPF - The University of Washington Semantic Parsing Framework
+ * <p>
+ * Copyright (C) 2013 Yoav Artzi
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ ******************************************************************************/
+package edu.uw.cs.lil.tiny.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import edu.uw.cs.lil.tiny.base.concurrency.ITinyExecutor;
+import edu.uw.cs.lil.tiny.base.string.StubStringFilter;
+import edu.uw.cs.lil.tiny.ccg.categories.syntax.Syntax;
+import edu.uw.cs.lil.tiny.ccg.lexicon.ILexicon;
+import edu.uw.cs.lil.tiny.ccg.lexicon.LexicalEntry;
+import edu.uw.cs.lil.tiny.ccg.lexicon.LexicalEntry.Origin;
+import edu.uw.cs.lil.tiny.ccg.lexicon.Lexicon;
+import edu.uw.cs.lil.tiny.ccg.lexicon.factored.lambda.FactoredLexicon;
+import edu.uw.cs.lil.tiny.ccg.lexicon.factored.lambda.FactoredLexicon.FactoredLexicalEntry;
+import edu.uw.cs.lil.tiny.ccg.lexicon.factored.lambda.FactoredLexiconServices;
+import edu.uw.cs.lil.tiny.data.sentence.Sentence;
+import edu.uw.cs.lil.tiny.data.singlesentence.SingleSentence;
+import edu.uw.cs.lil.tiny.data.singlesentence.SingleSentenceDataset;
+import edu.uw.cs.lil.tiny.mr.lambda.FlexibleTypeComparator;
+import edu.uw.cs.lil.tiny.mr.lambda.LogicLanguageServices;
+import edu.uw.cs.lil.tiny.mr.lambda.LogicalConstant;
+import edu.uw.cs.lil.tiny.mr.lambda.LogicalExpression;
+import edu.uw.cs.lil.tiny.mr.lambda.ccg.LogicalExpressionCategoryServices;
+import edu.uw.cs.lil.tiny.mr.lambda.ccg.SimpleFullParseFilter;
+import edu.uw.cs.lil.tiny.mr.language.type.TypeRepository;
+import edu.uw.cs.lil.tiny.parser.ccg.cky.CKYBinaryParsingRule;
+import edu.uw.cs.lil.tiny.parser.ccg.cky.CKYUnaryParsingRule;
+import edu.uw.cs.lil.tiny.parser.ccg.cky.agenda.AgendaCKYParser;
+import edu.uw.cs.lil.tiny.parser.ccg.cky.multi.MultiCKYParser;
+import edu.uw.cs.lil.tiny.parser.ccg.cky.single.CKYParser;
+import edu.uw.cs.lil.tiny.parser.ccg.factoredlex.features.LexemeFeatureSet;
+import edu.uw.cs.lil.tiny.parser.ccg.factoredlex.features.LexicalTemplateFeatureSet;
+import edu.uw.cs.lil.tiny.parser.ccg.features.basic.LexicalFeatureSet;
+import edu.uw.cs.lil.tiny.parser.ccg.features.basic.LexicalFeaturesInit;
+import edu.uw.cs.lil.tiny.parser.ccg.features.basic.scorer.ExpLengthLexicalEntryScorer;
+import edu.uw.cs.lil.tiny.parser.ccg.features.basic.scorer.SkippingSensitiveLexicalEntryScorer;
+import edu.uw.cs.lil.tiny.parser.ccg.features.basic.scorer.UniformScorer;
+import edu.uw.cs.lil.tiny.parser.ccg.features.lambda.LogicalExpressionCoordinationFeatureSet;
+import edu.uw.cs.lil.tiny.parser.ccg.model.LexiconModelInit;
+import edu.uw.cs.lil.tiny.parser.ccg.model.Model;
+import edu.uw.cs.lil.tiny.parser.ccg.rules.lambda.PluralExistentialTypeShifting;
+import edu.uw.cs.lil.tiny.parser.ccg.rules.lambda.ThatlessRelative;
+import edu.uw.cs.lil.tiny.parser.ccg.rules.lambda.typeraising.ForwardTypeRaisedComposition;
+import edu.uw.cs.lil.tiny.parser.ccg.rules.lambda.typeshifting.PrepositionTypeShifting;
+import edu.uw.cs.lil.tiny.parser.ccg.rules.primitivebinary.application.BackwardApplication;
+import edu.uw.cs.lil.tiny.parser.ccg.rules.primitivebinary.application.ForwardApplication;
+import edu.uw.cs.lil.tiny.parser.ccg.rules.primitivebinary.composition.BackwardComposition;
+import edu.uw.cs.lil.tiny.parser.ccg.rules.primitivebinary.composition.ForwardComposition;
+import edu.uw.cs.lil.tiny.parser.ccg.rules.skipping.BackwardSkippingRule;
+import edu.uw.cs.lil.tiny.parser.ccg.rules.skipping.ForwardSkippingRule;
+import edu.uw.cs.utils.collections.ISerializableScorer;
+import edu.uw.cs.utils.collections.SetUtils;
+
+/**
+ * GeoQuery setup shared by the benchmarks: the logical language, an initial
+ * model (seed and NP lexicons with their initial feature weights) and CKY
+ * parsers with the rules of the GeoQuery experiments. Mirrors the setup in
+ * GeoExpSimple, but uses the complete ontology and lexicons (the '*initial*'
+ * resources), which cover the GeoQuery data. Since the logical language
+ * services are global, create a single fixture per JVM.
+ * 
+ * @author Yoav Artzi
+ */
+public class GeoQueryFixture {
+	private final LogicalExpressionCategoryServices		categoryServices;
+	private final Model<Sentence, LogicalExpression>	model;
+	private final List<SingleSentence>					sentences;
+	
+	/**
+	 * @param geoqueryDir
+	 *            The GeoQuery directory, containing the 'resources' and
+	 *            'experiments' directories.
+	 */
+	public GeoQueryFixture(File geoqueryDir) {
+		final File resourceDir = new File(geoqueryDir, "resources");
+		final File dataDir = new File(new File(geoqueryDir, "experiments"),
+				"data");
+		
+		// Init the logical expression type system
+		try {
+			LogicLanguageServices.setInstance(new LogicLanguageServices.Builder(
+					new TypeRepository(new File(resourceDir, "geo.types")),
+					new FlexibleTypeComparator())
+					.addConstantsToOntology(
+							new File(resourceDir, "geo.consts_initial.ont"))
+					.addConstantsToOntology(
+							new File(resourceDir, "geo.preds-initial.ont"))
+					.setNumeralTypeName("i").closeOntology(true).build());
+		} catch (final IOException e) {
+			throw new RuntimeException(e);
+		}
+		
+		this.categoryServices = new LogicalExpressionCategoryServices(true,
+				true);
+		
+		final Set<LogicalConstant> unfactoredConstants = new HashSet<LogicalConstant>();
+		unfactoredConstants.add(LogicalConstant.read("the:<<e,t>,e>"));
+		unfactoredConstants.add(LogicalConstant.read("exists:<<e,t>,t>"));
+		FactoredLexiconServices.set(unfactoredConstants);
+		
+		// Read the seed lexicon and the NP list
+		final Lexicon<LogicalExpression> readLexicon = new Lexicon<LogicalExpression>();
+		readLexicon.addEntriesFromFile(
+				new File(resourceDir, "seed_initial.lex"), categoryServices,
+				Origin.FIXED_DOMAIN);
+		final Lexicon<LogicalExpression> semiFactored = new Lexicon<LogicalExpression>();
+		for (final LexicalEntry<LogicalExpression> entry : readLexicon
+				.toCollection()) {
+			for (final FactoredLexicalEntry factoredEntry : FactoredLexicon
+					.factor(entry, true, true, 2)) {
+				semiFactored.add(FactoredLexicon.factor(factoredEntry));
+			}
+		}
+		final ILexicon<LogicalExpression> npLexicon = new FactoredLexicon();
+		npLexicon.addEntriesFromFile(new File(resourceDir,
+				"np-list-initial.lex"), categoryServices, Origin.FIXED_DOMAIN);
+		
+		// Create and init the model
+		final ISerializableScorer<LexicalEntry<LogicalExpression>> uniform0Scorer = new UniformScorer<LexicalEntry<LogicalExpression>>(
+				0.0);
+		final SkippingSensitiveLexicalEntryScorer<LogicalExpression> skippingScorer = new SkippingSensitiveLexicalEntryScorer<LogicalExpression>(
+				categoryServices.getEmptyCategory(), -1.0, uniform0Scorer);
+		this.model = new Model.Builder<Sentence, LogicalExpression>()
+				.setLexicon(new FactoredLexicon())
+				.addLexicalFeatureSet(
+						new LexicalFeatureSet.Builder<Sentence, LogicalExpression>()
+								.setInitialScorer(skippingScorer).build())
+				.addLexicalFeatureSet(
+						new LexemeFeatureSet.Builder<Sentence>().build())
+				.addLexicalFeatureSet(
+						new LexicalTemplateFeatureSet.Builder<Sentence>()
+								.setScale(0.1).build())
+				.addParseFeatureSet(
+						new LogicalExpressionCoordinationFeatureSet<Sentence>(
+								true, true, true)).build();
+		new LexiconModelInit<Sentence, LogicalExpression>(semiFactored)
+				.init(model);
+		new LexiconModelInit<Sentence, LogicalExpression>(npLexicon)
+				.init(model);
+		new LexicalFeaturesInit<Sentence, LogicalExpression>(semiFactored,
+				"LEX", new ExpLengthLexicalEntryScorer<LogicalExpression>(10.0,
+						1.1)).init(model);
+		new LexicalFeaturesInit<Sentence, LogicalExpression>(npLexicon, "LEX",
+				new ExpLengthLexicalEntryScorer<LogicalExpression>(10.0, 1.1))
+				.init(model);
+		new LexicalFeaturesInit<Sentence, LogicalExpression>(semiFactored,
+				"XEME", 10.0).init(model);
+		new LexicalFeaturesInit<Sentence, LogicalExpression>(npLexicon, "XEME",
+				10.0).init(model);
+		
+		// Read the sentences of the first fold
+		this.sentences = new ArrayList<SingleSentence>();
+		for (final SingleSentence sentence : SingleSentenceDataset.read(
+				new File(dataDir, "fold0.ccg"), new StubStringFilter())) {
+			sentences.add(sentence);
+		}
+	}
+	
+	public AgendaCKYParser<LogicalExpression> createAgendaCKYParser(int beam) {
+		final AgendaCKYParser.Builder<LogicalExpression> builder = new AgendaCKYParser.Builder<LogicalExpression>(
+				categoryServices, new SimpleFullParseFilter(
+						SetUtils.createSingleton((Syntax) Syntax.S)))
+				.setPruneLexicalCells(true).setMaxNumberOfCellsInSpan(beam);
+		for (final CKYBinaryParsingRule<LogicalExpression> rule : createBinaryRules()) {
+			builder.addParseRule(rule);
+		}
+		for (final CKYUnaryParsingRule<LogicalExpression> rule : createUnaryRules()) {
+			builder.addParseRule(rule);
+		}
+		return builder.build();
+	}
+	
+	public CKYParser<LogicalExpression> createCKYParser(int beam) {
+		final CKYParser.Builder<LogicalExpression> builder = new CKYParser.Builder<LogicalExpression>(
+				categoryServices, new SimpleFullParseFilter(
+						SetUtils.createSingleton((Syntax) Syntax.S)))
+				.setPruneLexicalCells(true).setMaxNumberOfCellsInSpan(beam);
+		for (final CKYBinaryParsingRule<LogicalExpression> rule : createBinaryRules()) {
+			builder.addBinaryParseRule(rule);
+		}
+		for (final CKYUnaryParsingRule<LogicalExpression> rule : createUnaryRules()) {
+			builder.addBinaryParseRule(rule);
+		}
+		return builder.build();
+	}
+	
+	public MultiCKYParser<LogicalExpression> createMultiCKYParser(int beam,
+			ITinyExecutor executor) {
+		final MultiCKYParser.Builder<LogicalExpression> builder = new MultiCKYParser.Builder<LogicalExpression>(
+				categoryServices, executor, new SimpleFullParseFilter(
+						SetUtils.createSingleton((Syntax) Syntax.S)))
+				.setPruneLexicalCells(true).setMaxNumberOfCellsInSpan(beam);
+		for (final CKYBinaryParsingRule<LogicalExpression> rule : createBinaryRules()) {
+			builder.addParseRule(rule);
+		}
+		for (final CKYUnaryParsingRule<LogicalExpression> rule : createUnaryRules()) {
+			builder.addParseRule(rule);
+		}
+		return builder.build();
+	}
+	
+	public LogicalExpressionCategoryServices getCategoryServices() {
+		return categoryServices;
+	}
+	
+	public Model<Sentence, LogicalExpression> getModel() {
+		return model;
+	}
+	
+	public List<SingleSentence> getSentences() {
+		return sentences;
+	}
+	
+	private List<CKYBinaryParsingRule<LogicalExpression>> createBinaryRules() {
+		final List<CKYBinaryParsingRule<LogicalExpression>> rules = new ArrayList<CKYBinaryParsingRule<LogicalExpression>>();
+		rules.add(new CKYBinaryParsingRule<LogicalExpression>(
+				new ForwardComposition<LogicalExpression>(categoryServices, 0)));
+		rules.add(new CKYBinaryParsingRule<LogicalExpression>(
+				new BackwardComposition<LogicalExpression>(categoryServices, 0)));
+		rules.add(new CKYBinaryParsingRule<LogicalExpression>(
+				new ForwardApplication<LogicalExpression>(categoryServices)));
+		rules.add(new CKYBinaryParsingRule<LogicalExpression>(
+				new BackwardApplication<LogicalExpression>(categoryServices)));
+		rules.add(new CKYBinaryParsingRule<LogicalExpression>(
+				new ForwardSkippingRule<LogicalExpression>(categoryServices)));
+		rules.add(new CKYBinaryParsingRule<LogicalExpression>(
+				new BackwardSkippingRule<LogicalExpression>(categoryServices)));
+		rules.add(new CKYBinaryParsingRule<LogicalExpression>(
+				new ForwardTypeRaisedComposition(categoryServices)));
+		rules.add(new CKYBinaryParsingRule<LogicalExpression>(
+				new ThatlessRelative(categoryServices)));
+		rules.add(new CKYBinaryParsingRule<LogicalExpression>(
+				new PluralExistentialTypeShifting(categoryServices)));
+		return rules;
+	}
+	
+	private List<CKYUnaryParsingRule<LogicalExpression>> createUnaryRules() {
+		final List<CKYUnaryParsingRule<LogicalExpression>> rules = new ArrayList<CKYUnaryParsingRule<LogicalExpression>>();
+		rules.add(new CKYUnaryParsingRule<LogicalExpression>(
+				new PrepositionTypeShifting()));
+		return rules;
+	}
+}
@@ -0,0 +1,51 @@
+/*******************************************************************************
+ * UW SPF - The University of Washington Semantic Parsing Framework
+ * <p>
+ * Copyright (C) 2013 Yoav Artzi
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ ******************************************************************************/
+package edu.uw.cs.lil.tiny.benchmarks;
+
+/**
+ * A micro-benchmark executed by {@link BenchmarkRunner}. Each invocation of
+ * {@link #run()} is a single timed iteration.
+ * 
+ * @author Yoav Artzi
+ */
+public interface IBenchmark {
+	
+	/**
+	 * Unique name, used to filter benchmarks and to identify the results.
+	 */
+	String getName();
+	
+	/**
+	 * Executes a single iteration.
+	 * 
+	 * @return Number of operations performed during the iteration.
+	 */
+	long run();
+	
+	/**
+	 * Called once before the warm-up iterations.
+	 */
+	void setUp();
+	
+	/**
+	 * Called once after the last measured iteration.
+	 */
+	void tearDown();
+	
+}
@@ -0,0 +1,100 @@
+/*******************************************************************************
+ * UW SPF - The University of Washington Semantic Parsing Framework
+ * <p>
+ * Copyright (C) 2013 Yoav Artzi
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ ******************************************************************************/
+package edu.uw.cs.lil.tiny.benchmarks.exec;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.uw.cs.lil.tiny.benchmarks.IBenchmark;
+import edu.uw.cs.lil.tiny.benchmarks.exec.SyntheticGeoEvaluationServices.Entity;
+import edu.uw.cs.lil.tiny.mr.lambda.LogicalExpression;
+import edu.uw.cs.lil.tiny.mr.lambda.LogicalExpressionReader;
+import edu.uw.cs.lil.tiny.mr.lambda.exec.naive.Evaluation;
+import edu.uw.cs.lil.tiny.mr.lambda.exec.naive.PlannedEvaluation;
+
+/**
+ * Evaluates GeoQuery-style queries against a synthetic database. Each query is
+ * evaluated with fresh evaluation services, so the evaluation cache starts
+ * empty. Queries are evaluated either with {@link Evaluation} or with
+ * {@link PlannedEvaluation}. An operation is a single query. Requires the
+ * GeoQuery ontology.
+ * 
+ * @author Yoav Artzi
+ */
+public class EvaluationBenchmark implements IBenchmark {
+	private static final String[]			QUERIES	= {
+			"(count:<<e,t>,i> (lambda $0:e (and:<t*,t> (city:<c,t> $0) (>:<i,<i,t>> (population:<lo,i> $0) 500000:i))))",
+			"(lambda $0:e (and:<t*,t> (state:<s,t> $0) (exists:<<e,t>,t> (lambda $1:e (and:<t*,t> (city:<c,t> $1) (loc:<lo,<lo,t>> $1 $0) (>:<i,<i,t>> (population:<lo,i> $1) 1000000:i))))))",
+			"(argmax:<<e,t>,<<e,i>,e>> (lambda $0:e (state:<s,t> $0)) (lambda $1:e (population:<lo,i> $1)))",
+			"(argmin:<<e,t>,<<e,i>,e>> (lambda $0:e (and:<t*,t> (city:<c,t> $0) (not:<t,t> (loc:<lo,<lo,t>> $0 (argmax:<<e,t>,<<e,i>,e>> (lambda $1:e (state:<s,t> $1)) (lambda $2:e (population:<lo,i> $2))))))) (lambda $3:e (population:<lo,i> $3)))",
+			"(count:<<e,t>,i> (lambda $0:e (and:<t*,t> (state:<s,t> $0) (exists:<<e,t>,t> (lambda $1:e (and:<t*,t> (state:<s,t> $1) (next_to:<lo,<lo,t>> $0 $1) (>:<i,<i,t>> (population:<lo,i> $1) (population:<lo,i> $0))))))))" };
+	
+	private final int						citiesPerState;
+	private List<Entity>					database;
+	private final int						numStates;
+	
+	/**
+	 * Evaluate with {@link PlannedEvaluation} instead of {@link Evaluation}.
+	 */
+	private final boolean					planned;
+	private final List<LogicalExpression>	queries	= new ArrayList<LogicalExpression>();
+	
+	public EvaluationBenchmark(int numStates, int citiesPerState,
+			boolean planned) {
+		this.numStates = numStates;
+		this.citiesPerState = citiesPerState;
+		this.planned = planned;
+	}
+	
+	@Override
+	public String getName() {
+		return String.format("exec.%s.of.states%d.cities%d",
+				planned ? "PlannedEvaluation" : "Evaluation", numStates,
+				citiesPerState);
+	}
+	
+	@Override
+	public long run() {
+		for (final LogicalExpression query : queries) {
+			final SyntheticGeoEvaluationServices services = new SyntheticGeoEvaluationServices(
+					database);
+			if ((planned ? PlannedEvaluation.of(query, services) : Evaluation
+					.of(query, services)) == null) {
+				throw new IllegalStateException("failed to evaluate: " + query);
+			}
+		}
+		return queries.size();
+	}
+	
+	@Override
+	public void setUp() {
+		database = SyntheticGeoEvaluationServices.createDatabase(numStates,
+				citiesPerState, 1L);
+		for (final String query : QUERIES) {
+			queries.add(LogicalExpressionReader.from(query));
+		}
+	}
+	
+	@Override
+	public void tearDown() {
+		database = null;
+		queries.clear();
+	}
+	
+}
@@ -0,0 +1,299 @@
+/*******************************************************************************
+ * UW SPF - The University of Washington Semantic Parsing Framework
+ * <p>
+ * Copyright (C) 2013 Yoav Artzi
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ ******************************************************************************/
+package edu.uw.cs.lil.tiny.benchmarks.exec;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import edu.uw.cs.lil.tiny.mr.lambda.LogicalConstant;
+import edu.uw.cs.lil.tiny.mr.lambda.LogicalExpression;
+import edu.uw.cs.lil.tiny.mr.lambda.Variable;
+import edu.uw.cs.lil.tiny.mr.lambda.exec.naive.AbstractEvaluationServices;
+import edu.uw.cs.lil.tiny.mr.lambda.exec.naive.ILambdaResult;
+import edu.uw.cs.lil.tiny.mr.lambda.exec.naive.ILiteralEvaluator;
+import edu.uw.cs.lil.tiny.mr.lambda.exec.naive.PlannedEvaluation;
+import edu.uw.cs.lil.tiny.mr.lambda.exec.naive.evaluators.ArgMax;
+import edu.uw.cs.lil.tiny.mr.lambda.exec.naive.evaluators.ArgMin;
+import edu.uw.cs.lil.tiny.mr.lambda.exec.naive.evaluators.Equals;
+import edu.uw.cs.lil.tiny.mr.lambda.exec.naive.evaluators.Exists;
+import edu.uw.cs.lil.tiny.mr.lambda.exec.naive.evaluators.Not;
+
+/**
+ * Evaluation services over a randomly generated GeoQuery-like database of
+ * states and cities. Supports the predicates state, city, loc, next_to,
+ * population, count, exists, argmax, argmin, equals, not, &lt; and &gt;. The
+ * predicates state, city, loc and next_to are indexed for
+ * {@link PlannedEvaluation}.
+ * 
+ * @author Yoav Artzi
+ */
+public class SyntheticGeoEvaluationServices extends
+		AbstractEvaluationServices<Object> {
+	private static final Object								STATE			= new Object();
+	
+	private final List<Entity>								cities			= new ArrayList<Entity>();
+	private final LogicalExpression							cityPredicate	= LogicalConstant
+																					.read("city:<c,t>");
+	
+	/**
+	 * Index of the cities located in each state.
+	 */
+	private final Map<Entity, List<Entity>>					citiesByState	= new HashMap<Entity, List<Entity>>();
+	private final List<Entity>								entities;
+	private final Map<LogicalExpression, ILiteralEvaluator>	evaluators;
+	private final LogicalExpression							locPredicate	= LogicalConstant
+																					.read("loc:<lo,<lo,t>>");
+	private final LogicalExpression							nextToPredicate	= LogicalConstant
+																					.read("next_to:<lo,<lo,t>>");
+	private final List<Entity>								states			= new ArrayList<Entity>();
+	private final LogicalExpression							statePredicate	= LogicalConstant
+																					.read("state:<s,t>");
+	
+	public SyntheticGeoEvaluationServices(List<Entity> entities) {
+		this.entities = entities;
+		this.evaluators = createEvaluators();
+		for (final Entity entity : entities) {
+			if (entity.isState) {
+				states.add(entity);
+			} else {
+				cities.add(entity);
+				List<Entity> stateCities = citiesByState.get(entity.state);
+				if (stateCities == null) {
+					stateCities = new ArrayList<Entity>();
+					citiesByState.put(entity.state, stateCities);
+				}
+				stateCities.add(entity);
+			}
+		}
+	}
+	
+	/**
+	 * Creates a random database.
+	 * 
+	 * @param numStates
+	 *            Number of states. Each state borders its successor and a
+	 *            random other state.
+	 * @param citiesPerState
+	 *            Number of cities located in each state.
+	 */
+	public static List<Entity> createDatabase(int numStates,
+			int citiesPerState, long seed) {
+		final Random random = new Random(seed);
+		final List<Entity> entities = new ArrayList<Entity>();
+		final List<Entity> states = new ArrayList<Entity>(numStates);
+		for (int i = 0; i < numStates; ++i) {
+			final Entity state = new Entity("state" + i, true, null,
+					random.nextInt(10000000));
+			states.add(state);
+			entities.add(state);
+			for (int j = 0; j < citiesPerState; ++j) {
+				entities.add(new Entity("city" + i + "_" + j, false, state,
+						random.nextInt(2000000)));
+			}
+		}
+		for (int i = 0; i < numStates; ++i) {
+			final Entity state = states.get(i);
+			if (i + 1 < numStates) {
+				state.addNeighbor(states.get(i + 1));
+			}
+			final Entity other = states.get(random.nextInt(numStates));
+			if (other != state) {
+				state.addNeighbor(other);
+			}
+		}
+		return Collections.unmodifiableList(entities);
+	}
+	
+	@Override
+	public Object evaluateLiteral(LogicalExpression predicate, Object[] args) {
+		final ILiteralEvaluator evaluator = evaluators.get(predicate);
+		return evaluator == null ? null : evaluator.evaluate(args);
+	}
+	
+	@Override
+	public List<?> getAllDenotations(Variable variable) {
+		return entities;
+	}
+	
+	@Override
+	public List<?> getSatisfyingDenotations(LogicalExpression predicate,
+			Object[] args, int position) {
+		if (statePredicate.equals(predicate)) {
+			return states;
+		} else if (cityPredicate.equals(predicate)) {
+			return cities;
+		} else if (locPredicate.equals(predicate) && args[1 - position] instanceof Entity) {
+			final Entity other = (Entity) args[1 - position];
+			if (position == 0) {
+				// Cities located in the given state
+				final List<Entity> stateCities = citiesByState.get(other);
+				return stateCities == null ? Collections.<Entity> emptyList()
+						: stateCities;
+			} else {
+				// The state of the given entity
+				return other.state == null ? Collections.<Entity> emptyList()
+						: Collections.singletonList(other.state);
+			}
+		} else if (nextToPredicate.equals(predicate)
+				&& args[1 - position] instanceof Entity) {
+			// The relation is symmetric
+			return new ArrayList<Entity>(
+					((Entity) args[1 - position]).neighbors);
+		} else {
+			return null;
+		}
+	}
+	
+	@Override
+	public boolean isDenotable(Variable variable) {
+		return !variable.getType().isComplex();
+	}
+	
+	@Override
+	public boolean isInterpretable(LogicalConstant constant) {
+		return super.isInterpretable(constant)
+				|| evaluators.containsKey(constant);
+	}
+	
+	private Map<LogicalExpression, ILiteralEvaluator> createEvaluators() {
+		final Map<LogicalExpression, ILiteralEvaluator> map = new HashMap<LogicalExpression, ILiteralEvaluator>();
+		map.put(LogicalConstant.read("state:<s,t>"), new ILiteralEvaluator() {
+			@Override
+			public Object evaluate(Object[] args) {
+				return args.length == 1 && args[0] instanceof Entity ? ((Entity) args[0]).isState
+						: null;
+			}
+		});
+		map.put(LogicalConstant.read("city:<c,t>"), new ILiteralEvaluator() {
+			@Override
+			public Object evaluate(Object[] args) {
+				return args.length == 1 && args[0] instanceof Entity ? !((Entity) args[0]).isState
+						: null;
+			}
+		});
+		map.put(LogicalConstant.read("loc:<lo,<lo,t>>"),
+				new ILiteralEvaluator() {
+					@Override
+					public Object evaluate(Object[] args) {
+						if (args.length == 2 && args[0] instanceof Entity
+								&& args[1] instanceof Entity) {
+							return ((Entity) args[0]).state == args[1];
+						} else {
+							return null;
+						}
+					}
+				});
+		map.put(LogicalConstant.read("next_to:<lo,<lo,t>>"),
+				new ILiteralEvaluator() {
+					@Override
+					public Object evaluate(Object[] args) {
+						if (args.length == 2 && args[0] instanceof Entity
+								&& args[1] instanceof Entity) {
+							return ((Entity) args[0]).neighbors
+									.contains(args[1]);
+						} else {
+							return null;
+						}
+					}
+				});
+		map.put(LogicalConstant.read("population:<lo,i>"),
+				new ILiteralEvaluator() {
+					@Override
+					public Object evaluate(Object[] args) {
+						return args.length == 1 && args[0] instanceof Entity ? ((Entity) args[0]).population
+								: null;
+					}
+				});
+		map.put(LogicalConstant.read("count:<<e,t>,i>"),
+				new ILiteralEvaluator() {
+					@Override
+					public Object evaluate(Object[] args) {
+						return args.length == 1
+								&& args[0] instanceof ILambdaResult ? (double) ((ILambdaResult) args[0])
+								.size() : null;
+					}
+				});
+		map.put(LogicalConstant.read(">:<i,<i,t>>"), new ILiteralEvaluator() {
+			@Override
+			public Object evaluate(Object[] args) {
+				if (args.length == 2 && args[0] instanceof Double
+						&& args[1] instanceof Double) {
+					return (Double) args[0] > (Double) args[1];
+				} else {
+					return null;
+				}
+			}
+		});
+		map.put(LogicalConstant.read("<:<i,<i,t>>"), new ILiteralEvaluator() {
+			@Override
+			public Object evaluate(Object[] args) {
+				if (args.length == 2 && args[0] instanceof Double
+						&& args[1] instanceof Double) {
+					return (Double) args[0] < (Double) args[1];
+				} else {
+					return null;
+				}
+			}
+		});
+		map.put(LogicalConstant.read("exists:<<e,t>,t>"), new Exists());
+		map.put(LogicalConstant.read("argmax:<<e,t>,<<e,i>,e>>"), new ArgMax());
+		map.put(LogicalConstant.read("argmin:<<e,t>,<<e,i>,e>>"), new ArgMin());
+		map.put(LogicalConstant.read("equals:<e,<e,t>>"), new Equals());
+		map.put(LogicalConstant.read("not:<t,t>"), new Not());
+		return map;
+	}
+	
+	@Override
+	protected Object currentState() {
+		return STATE;
+	}
+	
+	public static class Entity {
+		private final boolean		isState;
+		private final String		name;
+		private final Set<Entity>	neighbors	= new HashSet<Entity>();
+		private final Double		population;
+		private final Entity		state;
+		
+		public Entity(String name, boolean isState, Entity state,
+				double population) {
+			this.name = name;
+			this.isState = isState;
+			this.state = state;
+			this.population = population;
+		}
+		
+		@Override
+		public String toString() {
+			return name;
+		}
+		
+		private void addNeighbor(Entity other) {
+			neighbors.add(other);
+			other.neighbors.add(this);
+		}
+	}
+	
+}
@@ -0,0 +1,147 @@
+/*******************************************************************************
+ * UW SPF - The University of Washington Semantic Parsing Framework
+ * <p>
+ * Copyright (C) 2013 Yoav Artzi
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ ******************************************************************************/
+package edu.uw.cs.lil.tiny.benchmarks.hashvector;
+
+import java.util.Random;
+
+import edu.uw.cs.lil.tiny.base.hashvector.HashVectorFactory;
+import edu.uw.cs.lil.tiny.base.hashvector.IHashVector;
+import edu.uw.cs.lil.tiny.base.hashvector.KeyArgs;
+import edu.uw.cs.lil.tiny.benchmarks.IBenchmark;
+
+/**
+ * Single hash vector operation on randomly generated feature vectors (fixed
+ * seed), for a given vector implementation. For {@link Operation#GET} and
+ * {@link Operation#SET} an operation is a single key access, otherwise it's a
+ * complete vector operation.
+ * 
+ * @author Yoav Artzi
+ */
+public class HashVectorBenchmark implements IBenchmark {
+	private static final int				ROUNDS	= 100;
+	
+	private IHashVector						first;
+	private KeyArgs[]						keys;
+	private final Operation					operation;
+	private IHashVector						second;
+	
+	/**
+	 * Sink for computed values, so the JIT can't remove the work.
+	 */
+	private double							sink;
+	private final int						size;
+	private IHashVector						target;
+	private final HashVectorFactory.Type	type;
+	private double[]						values;
+	
+	public HashVectorBenchmark(HashVectorFactory.Type type,
+			Operation operation, int size) {
+		this.type = type;
+		this.operation = operation;
+		this.size = size;
+	}
+	
+	@Override
+	public String getName() {
+		return String.format("hashvector.%s.%s.size%d", type.name()
+				.toLowerCase(), operation.name().toLowerCase(), size);
+	}
+	
+	@Override
+	public long run() {
+		switch (operation) {
+			case GET:
+				for (int round = 0; round < ROUNDS; ++round) {
+					for (final KeyArgs key : keys) {
+						sink += first.get(key);
+					}
+				}
+				return ROUNDS * keys.length;
+			case SET:
+				for (int round = 0; round < ROUNDS; ++round) {
+					final IHashVector vector = create();
+					for (int i = 0; i < keys.length; ++i) {
+						vector.set(keys[i], values[i]);
+					}
+				}
+				return ROUNDS * keys.length;
+			case ADD_TIMES_INTO:
+				for (int round = 0; round < ROUNDS; ++round) {
+					first.addTimesInto(0.5, target);
+				}
+				return ROUNDS;
+			case VECTOR_MULTIPLY:
+				for (int round = 0; round < ROUNDS; ++round) {
+					sink += first.vectorMultiply(second);
+				}
+				return ROUNDS;
+			default:
+				throw new IllegalStateException("unhandled operation: "
+						+ operation);
+		}
+	}
+	
+	@Override
+	public void setUp() {
+		final Random random = new Random(size);
+		keys = new KeyArgs[size];
+		values = new double[size];
+		first = create();
+		second = create();
+		target = create();
+		for (int i = 0; i < size; ++i) {
+			// Keys are spread over four times as many feature names as the
+			// size of the vector, so the two vectors partially overlap
+			keys[i] = new KeyArgs("F" + random.nextInt(10), "k"
+					+ random.nextInt(size * 4), "v" + random.nextInt(3));
+			values[i] = random.nextGaussian();
+			first.set(keys[i], values[i]);
+			second.set(new KeyArgs("F" + random.nextInt(10), "k"
+					+ random.nextInt(size * 4), "v" + random.nextInt(3)),
+					random.nextGaussian());
+		}
+	}
+	
+	@Override
+	public void tearDown() {
+		first = null;
+		second = null;
+		target = null;
+		keys = null;
+		values = null;
+	}
+	
+	private IHashVector create() {
+		switch (type) {
+			case TREE:
+				return HashVectorFactory.createTree();
+			case TROVE:
+				return HashVectorFactory.createTrove();
+			case INDEXED:
+				return HashVectorFactory.createIndexed();
+			default:
+				throw new IllegalStateException("unhandled type: " + type);
+		}
+	}
+	
+	public static enum Operation {
+		ADD_TIMES_INTO, GET, SET, VECTOR_MULTIPLY;
+	}
+	
+}
@@ -0,0 +1,81 @@
+/*******************************************************************************
+ * UW SPF - The University of Washington Semantic Parsing Framework
+ * <p>
+ * Copyright (C) 2013 Yoav Artzi
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ ******************************************************************************/
+package edu.uw.cs.lil.tiny.benchmarks.lambda;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.uw.cs.lil.tiny.benchmarks.GeoQueryFixture;
+import edu.uw.cs.lil.tiny.benchmarks.IBenchmark;
+import edu.uw.cs.lil.tiny.data.singlesentence.SingleSentence;
+import edu.uw.cs.lil.tiny.mr.lambda.Lambda;
+import edu.uw.cs.lil.tiny.mr.lambda.LogicalExpression;
+import edu.uw.cs.lil.tiny.mr.lambda.Variable;
+import edu.uw.cs.lil.tiny.mr.lambda.visitor.AllSubExpressions;
+import edu.uw.cs.lil.tiny.mr.lambda.visitor.ApplyAndSimplify;
+import edu.uw.cs.utils.composites.Pair;
+
+/**
+ * Applies every lambda sub-expression of the GeoQuery labels to a fresh
+ * variable of its argument type, which requires a full substitution and
+ * simplification pass. An operation is a single application.
+ * 
+ * @author Yoav Artzi
+ */
+public class ApplyAndSimplifyBenchmark implements IBenchmark {
+	private final List<Pair<LogicalExpression, LogicalExpression>>	applications	= new ArrayList<Pair<LogicalExpression, LogicalExpression>>();
+	private final GeoQueryFixture									fixture;
+	
+	public ApplyAndSimplifyBenchmark(GeoQueryFixture fixture) {
+		this.fixture = fixture;
+	}
+	
+	@Override
+	public String getName() {
+		return "lambda.ApplyAndSimplify.of";
+	}
+	
+	@Override
+	public long run() {
+		for (final Pair<LogicalExpression, LogicalExpression> application : applications) {
+			ApplyAndSimplify.of(application.first(), application.second());
+		}
+		return applications.size();
+	}
+	
+	@Override
+	public void setUp() {
+		for (final SingleSentence sentence : fixture.getSentences()) {
+			for (final LogicalExpression sub : AllSubExpressions.of(sentence
+					.getLabel())) {
+				if (sub instanceof Lambda) {
+					applications.add(Pair.of(sub,
+							(LogicalExpression) new Variable(((Lambda) sub)
+									.getArgument().getType())));
+				}
+			}
+		}
+	}
+	
+	@Override
+	public void tearDown() {
+		applications.clear();
+	}
+	
+}
@@ -0,0 +1,77 @@
+/*******************************************************************************
+ * UW SPF - The University of Washington Semantic Parsing Framework
+ * <p>
+ * Copyright (C) 2013 Yoav Artzi
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ ******************************************************************************/
+package edu.uw.cs.lil.tiny.benchmarks.lambda;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.uw.cs.lil.tiny.benchmarks.GeoQueryFixture;
+import edu.uw.cs.lil.tiny.benchmarks.IBenchmark;
+import edu.uw.cs.lil.tiny.data.singlesentence.SingleSentence;
+import edu.uw.cs.lil.tiny.mr.lambda.LogicalExpression;
+import edu.uw.cs.lil.tiny.mr.lambda.LogicalExpressionComparator;
+import edu.uw.cs.lil.tiny.mr.lambda.LogicalExpressionReader;
+import edu.uw.cs.utils.composites.Pair;
+
+/**
+ * Compares each GeoQuery label to a separately read copy of itself, so the
+ * comparison traverses the complete expression. An operation is a single
+ * comparison.
+ * 
+ * @author Yoav Artzi
+ */
+public class LogicalExpressionComparatorBenchmark implements IBenchmark {
+	private final LogicalExpressionComparator						comparator	= new LogicalExpressionComparator();
+	private final GeoQueryFixture									fixture;
+	private final List<Pair<LogicalExpression, LogicalExpression>>	pairs		= new ArrayList<Pair<LogicalExpression, LogicalExpression>>();
+	
+	public LogicalExpressionComparatorBenchmark(GeoQueryFixture fixture) {
+		this.fixture = fixture;
+	}
+	
+	@Override
+	public String getName() {
+		return "lambda.LogicalExpressionComparator.compare";
+	}
+	
+	@Override
+	public long run() {
+		for (final Pair<LogicalExpression, LogicalExpression> pair : pairs) {
+			if (!comparator.compare(pair.first(), pair.second())) {
+				throw new IllegalStateException("comparison failed: "
+						+ pair.first());
+			}
+		}
+		return pairs.size();
+	}
+	
+	@Override
+	public void setUp() {
+		for (final SingleSentence sentence : fixture.getSentences()) {
+			pairs.add(Pair.of(sentence.getLabel(), LogicalExpressionReader
+					.from(sentence.getLabel().toString())));
+		}
+	}
+	
+	@Override
+	public void tearDown() {
+		pairs.clear();
+	}
+	
+}
@@ -0,0 +1,68 @@
+/*******************************************************************************
+ * UW SPF - The University of Washington Semantic Parsing Framework
+ * <p>
+ * Copyright (C) 2013 Yoav Artzi
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ ******************************************************************************/
+package edu.uw.cs.lil.tiny.benchmarks.lambda;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.uw.cs.lil.tiny.benchmarks.GeoQueryFixture;
+import edu.uw.cs.lil.tiny.benchmarks.IBenchmark;
+import edu.uw.cs.lil.tiny.data.singlesentence.SingleSentence;
+import edu.uw.cs.lil.tiny.mr.lambda.LogicalExpressionReader;
+
+/**
+ * Reads the string forms of the GeoQuery labels. An operation is a single
+ * expression.
+ * 
+ * @author Yoav Artzi
+ */
+public class LogicalExpressionReaderBenchmark implements IBenchmark {
+	private final GeoQueryFixture	fixture;
+	private final List<String>		strings	= new ArrayList<String>();
+	
+	public LogicalExpressionReaderBenchmark(GeoQueryFixture fixture) {
+		this.fixture = fixture;
+	}
+	
+	@Override
+	public String getName() {
+		return "lambda.LogicalExpressionReader.from";
+	}
+	
+	@Override
+	public long run() {
+		for (final String string : strings) {
+			LogicalExpressionReader.from(string);
+		}
+		return strings.size();
+	}
+	
+	@Override
+	public void setUp() {
+		for (final SingleSentence sentence : fixture.getSentences()) {
+			strings.add(sentence.getLabel().toString());
+		}
+	}
+	
+	@Override
+	public void tearDown() {
+		strings.clear();
+	}
+	
+}
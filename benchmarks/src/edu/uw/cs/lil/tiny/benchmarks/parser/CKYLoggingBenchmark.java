@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * UW SPF - The University of Washington Semantic Parsing Framework
+ * <p>
+ * Copyright (C) 2013 Yoav Artzi
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ ******************************************************************************/
+package edu.uw.cs.lil.tiny.benchmarks.parser;
+
+import java.io.File;
+
+import edu.uw.cs.lil.tiny.benchmarks.GeoQueryFixture;
+import edu.uw.cs.lil.tiny.data.singlesentence.SingleSentence;
+import edu.uw.cs.lil.tiny.mr.lambda.LogicalExpression;
+import edu.uw.cs.lil.tiny.parser.ccg.cky.CKYLogging;
+import edu.uw.cs.lil.tiny.parser.ccg.cky.single.CKYParser;
+import edu.uw.cs.utils.log.ILogger;
+import edu.uw.cs.utils.log.Log;
+import edu.uw.cs.utils.log.LogLevel;
+import edu.uw.cs.utils.log.Logger;
+import edu.uw.cs.utils.log.LoggerFactory;
+
+/**
+ * Measures the CKY parse throughput on GeoQuery sentences with the log level
+ * set to info, to compare the cost of the debug logging calls on the parser's
+ * hot paths. Run it twice:
+ * <ul>
+ * <li>With -Dtiny.parser.cky.debug=true, the logging calls are executed and
+ * filtered by the logger, as they were before {@link CKYLogging} guarded them.
+ * </li>
+ * <li>Without it, the guarded code is removed by the JIT.</li>
+ * </ul>
+ * Arguments: [geoquery directory (default: geoquery)] [iterations (default:
+ * 5)] [beam (default: 50)].
+ * 
+ * @author Yoav Artzi
+ */
+public class CKYLoggingBenchmark {
+	public static final ILogger	LOG	= LoggerFactory
+											.create(CKYLoggingBenchmark.class);
+	
+	private CKYLoggingBenchmark() {
+		// Service class. Not instantiatable.
+	}
+	
+	public static void main(String[] args) {
+		Logger.DEFAULT_LOG = new Log(System.err);
+		Logger.setSkipPrefix(true);
+		LogLevel.setLogLevel(LogLevel.INFO);
+		
+		final File geoqueryDir = new File(args.length > 0 ? args[0]
+				: "geoquery");
+		final int iterations = args.length > 1 ? Integer.valueOf(args[1]) : 5;
+		final int beam = args.length > 2 ? Integer.valueOf(args[2]) : 50;
+		
+		final GeoQueryFixture fixture = new GeoQueryFixture(geoqueryDir);
+		final CKYParser<LogicalExpression> parser = fixture
+				.createCKYParser(beam);
+		
+		// Warm up
+		parseAll(fixture, parser);
+		
+		final long start = System.nanoTime();
+		int numParsed = 0;
+		for (int i = 0; i < iterations; ++i) {
+			numParsed += parseAll(fixture, parser);
+		}
+		final double seconds = (System.nanoTime() - start) / 1000000000.0;
+		
+		LOG.info(
+				"CKY parsing with guarded debug logging %s: %d sentences in %.3f sec, %.2f sentences/sec",
+				CKYLogging.DEBUG ? "enabled" : "disabled", numParsed, seconds,
+				numParsed / seconds);
+	}
+	
+	private static int parseAll(GeoQueryFixture fixture,
+			CKYParser<LogicalExpression> parser) {
+		for (final SingleSentence sentence : fixture.getSentences()) {
+			parser.parse(sentence.getSample(), fixture.getModel()
+					.createDataItemModel(sentence.getSample()));
+		}
+		return fixture.getSentences().size();
+	}
+}
@@ -0,0 +1,69 @@
+/*******************************************************************************
+ * UW SPF - The University of Washington Semantic Parsing Framework
+ * <p>
+ * Copyright (C) 2013 Yoav Artzi
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ ******************************************************************************/
+package edu.uw.cs.lil.tiny.benchmarks.parser;
+
+import edu.uw.cs.lil.tiny.benchmarks.GeoQueryFixture;
+import edu.uw.cs.lil.tiny.benchmarks.IBenchmark;
+import edu.uw.cs.lil.tiny.data.singlesentence.SingleSentence;
+import edu.uw.cs.lil.tiny.mr.lambda.LogicalExpression;
+import edu.uw.cs.lil.tiny.parser.ccg.cky.AbstractCKYParser;
+
+/**
+ * Parses all GeoQuery sentences of the fixture. An operation is a single
+ * sentence.
+ * 
+ * @author Yoav Artzi
+ */
+public class CKYParseBenchmark implements IBenchmark {
+	private final GeoQueryFixture						fixture;
+	private final String								name;
+	private final AbstractCKYParser<LogicalExpression>	parser;
+	
+	public CKYParseBenchmark(String name, GeoQueryFixture fixture,
+			AbstractCKYParser<LogicalExpression> parser) {
+		this.name = name;
+		this.fixture = fixture;
+		this.parser = parser;
+	}
+	
+	@Override
+	public String getName() {
+		return name;
+	}
+	
+	@Override
+	public long run() {
+		for (final SingleSentence sentence : fixture.getSentences()) {
+			parser.parse(sentence.getSample(), fixture.getModel()
+					.createDataItemModel(sentence.getSample()));
+		}
+		return fixture.getSentences().size();
+	}
+	
+	@Override
+	public void setUp() {
+		// Nothing to do
+	}
+	
+	@Override
+	public void tearDown() {
+		// Nothing to do
+	}
+	
+}
@@ -22,12 +22,14 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -59,32 +61,73 @@ import edu.uw.cs.utils.log.LoggerFactory;
  * @author Luke Zettlemoyer
  */
 public class FactoredLexicon implements ILexicon<LogicalExpression> {
-	public static final String							FACTORING_LEXICAL_ORIGIN	= "factoring";
+	public static final String										FACTORING_LEXICAL_ORIGIN	= "factoring";
 	
-	public static final ILogger							LOG							= LoggerFactory
-																							.create(FactoredLexicon.class);
+	public static final ILogger										LOG							= LoggerFactory
+																										.create(FactoredLexicon.class);
 	
-	private static final long							serialVersionUID			= -9133601778066386561L;
+	/**
+	 * Default maximum number of token sequences to keep materialized entries
+	 * for.
+	 */
+	public static final int											DEFAULT_CACHE_SIZE			= 10000;
+	
+	private static final long										serialVersionUID			= -9133601778066386561L;
+	
+	/**
+	 * Maximum number of token sequences to keep materialized entries for. If
+	 * negative, the cache is unbounded. If zero, the cache is disabled. Not
+	 * serialized, a de-serialized lexicon uses the default size.
+	 */
+	private transient int											cacheSize;
 	
-	private final String								entriesOrigin;
+	private final String											entriesOrigin;
+	
+	/**
+	 * Materialized lexical entries, indexed by token sequence. Entries are
+	 * invalidated incrementally when lexemes or templates that generate them
+	 * are added or removed. Access to the cache is synchronized, since the
+	 * lexicon is read concurrently by parsers.
+	 */
+	private transient Map<List<String>, List<FactoredLexicalEntry>>	entryCache;
+	
+	/**
+	 * Version of the lexicon, incremented on every invalidation of the entry
+	 * cache. Entries materialized by a reader are only cached if the version
+	 * didn't change since the reader's cache miss, so entries computed before
+	 * a concurrent update are never stored. Guarded by the cache lock.
+	 */
+	private transient long											entryCacheVersion;
 	
 	/** Lexemes are grouped by their strings, for quick indexing */
-	private final Map<List<String>, Set<Lexeme>>		lexemes						= new HashMap<List<String>, Set<Lexeme>>();
+	private final Map<List<String>, Set<Lexeme>>					lexemes						= new HashMap<List<String>, Set<Lexeme>>();
 	
 	/**
 	 * Maintain all lexemes indexed by type for quick access for a given
 	 * template
 	 */
-	private final Map<List<Type>, Set<Lexeme>>			lexemesByType				= new HashMap<List<Type>, Set<Lexeme>>();
+	private final Map<List<Type>, Set<Lexeme>>						lexemesByType				= new HashMap<List<Type>, Set<Lexeme>>();
 	
 	/**
 	 * Templates are group by the types of their input arguments, for quick
 	 * indexing
 	 */
-	private final Map<List<Type>, Set<LexicalTemplate>>	templates					= new HashMap<List<Type>, Set<LexicalTemplate>>();
+	private final Map<List<Type>, Set<LexicalTemplate>>				templates					= new HashMap<List<Type>, Set<LexicalTemplate>>();
 	
 	public FactoredLexicon() {
-		this.entriesOrigin = FACTORING_LEXICAL_ORIGIN;
+		this(DEFAULT_CACHE_SIZE);
+	}
+	
+	/**
+	 * @param cacheSize
+	 *            Maximum number of token sequences to cache materialized
+	 *            lexical entries for. Negative for an unbounded cache, zero to
+	 *            disable caching.
+	 */
+	public FactoredLexicon(int cacheSize) {
+		this(Collections.<Lexeme> emptySet(), Collections
+				.<LexicalTemplate> emptySet(), FACTORING_LEXICAL_ORIGIN,
+				cacheSize);
 	}
 	
 	public FactoredLexicon(Set<Lexeme> inputLexemes,
@@ -94,7 +137,15 @@ public class FactoredLexicon implements ILexicon<LogicalExpression> {
 	
 	public FactoredLexicon(Set<Lexeme> inputLexemes,
 			Set<LexicalTemplate> inputTemplates, String entriesOrigin) {
+		this(inputLexemes, inputTemplates, entriesOrigin, DEFAULT_CACHE_SIZE);
+	}
+	
+	public FactoredLexicon(Set<Lexeme> inputLexemes,
+			Set<LexicalTemplate> inputTemplates, String entriesOrigin,
+			int cacheSize) {
 		this.entriesOrigin = entriesOrigin;
+		this.cacheSize = cacheSize;
+		this.entryCache = createEntryCache(cacheSize);
 		for (final Lexeme lexeme : inputLexemes) {
 			addLexeme(lexeme);
 		}
@@ -247,12 +298,17 @@ public class FactoredLexicon implements ILexicon<LogicalExpression> {
 	
 	@Override
 	public FactoredLexicon copy() {
-		final FactoredLexicon newLexicon = new FactoredLexicon();
+		final FactoredLexicon newLexicon = new FactoredLexicon(cacheSize);
 		for (final Map.Entry<List<String>, Set<Lexeme>> lexemeIndex : lexemes
 				.entrySet()) {
 			newLexicon.lexemes.put(lexemeIndex.getKey(), new HashSet<Lexeme>(
 					lexemeIndex.getValue()));
 		}
+		for (final Map.Entry<List<Type>, Set<Lexeme>> lexemeIndex : lexemesByType
+				.entrySet()) {
+			newLexicon.lexemesByType.put(lexemeIndex.getKey(),
+					new HashSet<Lexeme>(lexemeIndex.getValue()));
+		}
 		for (final Map.Entry<List<Type>, Set<LexicalTemplate>> templateIndex : templates
 				.entrySet()) {
 			newLexicon.templates.put(templateIndex.getKey(),
@@ -264,22 +320,35 @@ public class FactoredLexicon implements ILexicon<LogicalExpression> {
 	
 	@Override
 	public List<FactoredLexicalEntry> getLexEntries(List<String> tokens) {
-		final List<FactoredLexicalEntry> newLexicalEntries = new LinkedList<FactoredLexicalEntry>();
-		final Set<Lexeme> lexemeSet = lexemes.get(tokens);
-		if (lexemeSet == null) {
+		if (entryCache == null) {
+			return materializeEntries(tokens);
+		}
+		
+		// Misses are not cached, to avoid filling the cache with the many
+		// token sequences that have no lexemes
+		if (!lexemes.containsKey(tokens)) {
 			return Collections.emptyList();
 		}
-		for (final Lexeme lexeme : lexemeSet) {
-			final Set<LexicalTemplate> temps = templates.get(lexeme
-					.getTypeSignature());
-			for (final LexicalTemplate template : temps) {
-				final FactoredLexicalEntry lex = applyTemplate(template, lexeme);
-				if (lex != null) {
-					newLexicalEntries.add(lex);
-				}
+		
+		final List<FactoredLexicalEntry> cached;
+		final long version;
+		synchronized (entryCache) {
+			cached = entryCache.get(tokens);
+			version = entryCacheVersion;
+		}
+		if (cached != null) {
+			return cached;
+		}
+		
+		final List<FactoredLexicalEntry> entries = Collections
+				.unmodifiableList(materializeEntries(tokens));
+		synchronized (entryCache) {
+			// Skip caching if the lexicon was updated while materializing
+			if (version == entryCacheVersion) {
+				entryCache.put(tokens, entries);
 			}
 		}
-		return newLexicalEntries;
+		return entries;
 	}
 	
 	@Override
@@ -319,8 +388,11 @@ public class FactoredLexicon implements ILexicon<LogicalExpression> {
 							}
 						}
 					});
-					somethingRemoved |= lexemeEntry.getValue().retainAll(
-							factoredLexicon.lexemes.get(lexemeEntry.getKey()));
+					if (lexemeEntry.getValue().retainAll(
+							factoredLexicon.lexemes.get(lexemeEntry.getKey()))) {
+						invalidateTokens(lexemeEntry.getKey());
+						somethingRemoved = true;
+					}
 				} else {
 					// Case this string sequence is not present, remove all its
 					// lexemes
@@ -334,6 +406,7 @@ public class FactoredLexicon implements ILexicon<LogicalExpression> {
 						}
 					});
 					lexemeIterator.remove();
+					invalidateTokens(lexemeEntry.getKey());
 					somethingRemoved = true;
 				}
 			}
@@ -362,9 +435,12 @@ public class FactoredLexicon implements ILexicon<LogicalExpression> {
 							}
 						}
 					});
-					somethingRemoved |= templateEntry.getValue().retainAll(
+					if (templateEntry.getValue().retainAll(
 							factoredLexicon.templates.get(templateEntry
-									.getKey()));
+									.getKey()))) {
+						invalidateTypeSignature(templateEntry.getKey());
+						somethingRemoved = true;
+					}
 				} else {
 					// Case type signature not present, remove all templates
 					LOG.debug(new Runnable() {
@@ -378,6 +454,7 @@ public class FactoredLexicon implements ILexicon<LogicalExpression> {
 						}
 					});
 					templateIterator.remove();
+					invalidateTypeSignature(templateEntry.getKey());
 					somethingRemoved = true;
 				}
 			}
@@ -459,6 +536,8 @@ public class FactoredLexicon implements ILexicon<LogicalExpression> {
 		
 		final Set<LexicalEntry<LogicalExpression>> added = new HashSet<LexicalEntry<LogicalExpression>>();
 		if (addedLexeme) {
+			invalidateTokens(lexeme.getTokens());
+			
 			// Update lexeme indexing by type signature
 			final List<Type> typeSignature = lexeme.getTypeSignature();
 			if (!lexemesByType.containsKey(typeSignature)) {
@@ -497,6 +576,8 @@ public class FactoredLexicon implements ILexicon<LogicalExpression> {
 		
 		final Set<LexicalEntry<LogicalExpression>> added = new HashSet<LexicalEntry<LogicalExpression>>();
 		if (addedTemplate) {
+			invalidateTypeSignature(template.getTypeSignature());
+			
 			// Get all new lexical entries
 			if (lexemesByType.containsKey(template.getTypeSignature())) {
 				for (final Lexeme lexeme : lexemesByType.get(template
@@ -523,13 +604,96 @@ public class FactoredLexicon implements ILexicon<LogicalExpression> {
 				lexeme, template, entriesOrigin);
 	}
 	
+	private static Map<List<String>, List<FactoredLexicalEntry>> createEntryCache(
+			final int cacheSize) {
+		if (cacheSize == 0) {
+			return null;
+		} else if (cacheSize < 0) {
+			return new HashMap<List<String>, List<FactoredLexicalEntry>>();
+		} else {
+			return new LinkedHashMap<List<String>, List<FactoredLexicalEntry>>(
+					16, 0.75f, true) {
+				private static final long	serialVersionUID	= 4380553419311040154L;
+				
+				@Override
+				protected boolean removeEldestEntry(
+						Map.Entry<List<String>, List<FactoredLexicalEntry>> eldest) {
+					return size() > cacheSize;
+				}
+			};
+		}
+	}
+	
+	/**
+	 * Invalidate the cached entries of the given token sequence.
+	 */
+	private void invalidateTokens(List<String> tokens) {
+		if (entryCache != null) {
+			synchronized (entryCache) {
+				++entryCacheVersion;
+				entryCache.remove(tokens);
+			}
+		}
+	}
+	
+	/**
+	 * Invalidate the cached entries of all token sequences with lexemes of
+	 * the given type signature.
+	 */
+	private void invalidateTypeSignature(List<Type> typeSignature) {
+		if (entryCache != null) {
+			synchronized (entryCache) {
+				++entryCacheVersion;
+				if (lexemesByType.containsKey(typeSignature)) {
+					for (final Lexeme lexeme : lexemesByType
+							.get(typeSignature)) {
+						entryCache.remove(lexeme.getTokens());
+					}
+				}
+			}
+		}
+	}
+	
+	private List<FactoredLexicalEntry> materializeEntries(List<String> tokens) {
+		final Set<Lexeme> lexemeSet = lexemes.get(tokens);
+		if (lexemeSet == null) {
+			return Collections.emptyList();
+		}
+		final List<FactoredLexicalEntry> newLexicalEntries = new ArrayList<FactoredLexicalEntry>();
+		for (final Lexeme lexeme : lexemeSet) {
+			final Set<LexicalTemplate> temps = templates.get(lexeme
+					.getTypeSignature());
+			if (temps != null) {
+				for (final LexicalTemplate template : temps) {
+					final FactoredLexicalEntry lex = applyTemplate(template,
+							lexeme);
+					if (lex != null) {
+						newLexicalEntries.add(lex);
+					}
+				}
+			}
+		}
+		return newLexicalEntries;
+	}
+	
+	private void readObject(ObjectInputStream in) throws IOException,
+			ClassNotFoundException {
+		in.defaultReadObject();
+		this.cacheSize = DEFAULT_CACHE_SIZE;
+		this.entryCache = createEntryCache(cacheSize);
+	}
+	
 	public static class Creator implements
 			IResourceObjectCreator<FactoredLexicon> {
 		
 		@Override
 		public FactoredLexicon create(Parameters parameters,
 				IResourceRepository resourceRepo) {
-			return new FactoredLexicon();
+			if (parameters.contains("cacheSize")) {
+				return new FactoredLexicon(parameters.getAsInteger("cacheSize"));
+			} else {
+				return new FactoredLexicon();
+			}
 		}
 		
 		@Override
@@ -542,6 +706,12 @@ public class FactoredLexicon implements ILexicon<LogicalExpression> {
 			return new ResourceUsage.Builder(type(), FactoredLexicon.class)
 					.setDescription(
 							"Lexicon that contains factored entries. Entries are factored as they are added. The lexicon contains all entries that can be generated by its templates and lexeme")
+					.addParam(
+							"cacheSize",
+							Integer.class,
+							"Maximum number of token sequences to cache materialized entries for, least recently used are evicted first (default: "
+									+ DEFAULT_CACHE_SIZE
+									+ "; -1 for unbounded, 0 disables caching)")
 					.build();
 		}
 		
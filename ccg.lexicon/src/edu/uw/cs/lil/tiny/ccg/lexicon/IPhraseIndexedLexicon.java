@@ -0,0 +1,45 @@
+/*******************************************************************************
+ * UW SPF - The University of Washington Semantic Parsing Framework
+ * <p>
+ * Copyright (C) 2013 Yoav Artzi
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ ******************************************************************************/
+package edu.uw.cs.lil.tiny.ccg.lexicon;
+
+import java.util.List;
+
+/**
+ * Lexicon that indexes its entries by their token sequences. Allows the parser
+ * to query for the longest phrase that may be matched starting at a given
+ * token, so spans that can't be matched by any entry are skipped.
+ * 
+ * @author Yoav Artzi
+ * @param <MR>
+ *            Meaning representation type.
+ */
+public interface IPhraseIndexedLexicon<MR> extends ILexiconImmutable<MR> {
+	
+	/**
+	 * @param tokens
+	 *            Sequence of tokens (e.g., the complete sentence).
+	 * @param start
+	 *            Index of the first token of the phrase.
+	 * @return Number of tokens in the longest phrase that starts at 'start' and
+	 *         has at least one lexical entry. Zero if no phrase starting at
+	 *         'start' has any entries.
+	 */
+	int getLongestPhraseLength(List<String> tokens, int start);
+	
+}
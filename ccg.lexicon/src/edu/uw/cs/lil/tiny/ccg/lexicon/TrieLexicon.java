@@ -0,0 +1,334 @@
+/*******************************************************************************
+ * UW SPF - The University of Washington Semantic Parsing Framework
+ * <p>
+ * Copyright (C) 2013 Yoav Artzi
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ ******************************************************************************/
+package edu.uw.cs.lil.tiny.ccg.lexicon;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import edu.uw.cs.lil.tiny.base.string.IStringFilter;
+import edu.uw.cs.lil.tiny.base.string.StubStringFilter;
+import edu.uw.cs.lil.tiny.ccg.categories.ICategoryServices;
+import edu.uw.cs.lil.tiny.explat.IResourceRepository;
+import edu.uw.cs.lil.tiny.explat.ParameterizedExperiment.Parameters;
+import edu.uw.cs.lil.tiny.explat.resources.IResourceObjectCreator;
+import edu.uw.cs.lil.tiny.explat.resources.usage.ResourceUsage;
+import edu.uw.cs.utils.collections.SetUtils;
+
+/**
+ * Lexicon that indexes lexical entries in a trie over their tokens. Retrieving
+ * the entries for a sequence of tokens takes time linear in the length of the
+ * sequence, independent of the size of the lexicon.
+ * 
+ * @author Yoav Artzi
+ * @param <MR>
+ *            Meaning representation type.
+ */
+public class TrieLexicon<MR> implements ILexicon<MR>,
+		IPhraseIndexedLexicon<MR> {
+	private static final long			serialVersionUID	= 4862117337512908817L;
+	
+	private final Set<LexicalEntry<MR>>	emptySet			= Collections
+																	.emptySet();
+	
+	private final Set<LexicalEntry<MR>>	entries				= new HashSet<LexicalEntry<MR>>();
+	
+	/**
+	 * Root of the tokens trie. The root itself never holds entries, since
+	 * lexical entries always have at least one token.
+	 */
+	private final TrieNode<MR>			root				= new TrieNode<MR>();
+	
+	public TrieLexicon() {
+	}
+	
+	public TrieLexicon(ILexicon<MR> lexicon) {
+		addAll(lexicon.toCollection());
+	}
+	
+	public TrieLexicon(Set<LexicalEntry<MR>> entries) {
+		addAll(entries);
+	}
+	
+	@Override
+	public Set<LexicalEntry<MR>> add(LexicalEntry<MR> lex) {
+		if (entries.add(lex)) {
+			TrieNode<MR> node = root;
+			for (final String token : lex.getTokens()) {
+				node = node.getOrAddChild(token);
+			}
+			node.addEntry(lex);
+			return SetUtils.createSingleton(lex);
+		} else {
+			return emptySet;
+		}
+	}
+	
+	@Override
+	public Set<LexicalEntry<MR>> addAll(Collection<LexicalEntry<MR>> newEntries) {
+		final Set<LexicalEntry<MR>> added = new HashSet<LexicalEntry<MR>>();
+		for (final LexicalEntry<MR> entry : newEntries) {
+			added.addAll(add(entry));
+		}
+		return added;
+	}
+	
+	@Override
+	public Set<LexicalEntry<MR>> addAll(ILexicon<MR> lexicon) {
+		return addAll(lexicon.toCollection());
+	}
+	
+	@Override
+	public Set<LexicalEntry<MR>> addEntriesFromFile(File file,
+			ICategoryServices<MR> categoryServices, String origin) {
+		return addEntriesFromFile(file, new StubStringFilter(),
+				categoryServices, origin);
+	}
+	
+	/**
+	 * Read entries from a file, one per line, of the form
+	 * 
+	 * <pre>
+	 *  Tokens  :-  Cat
+	 * </pre>
+	 */
+	@Override
+	public Set<LexicalEntry<MR>> addEntriesFromFile(File file,
+			IStringFilter textFilter, ICategoryServices<MR> categoryServices,
+			String origin) {
+		try {
+			final Set<LexicalEntry<MR>> added = new HashSet<LexicalEntry<MR>>();
+			final BufferedReader in = new BufferedReader(new FileReader(file));
+			int lineCounter = 0;
+			try {
+				String line;
+				// For each line in the file
+				while ((line = in.readLine()) != null) {
+					++lineCounter;
+					line = line.trim();
+					// Ignore blank lines and comments
+					if (!line.equals("") && !line.startsWith("//")) {
+						added.addAll(add(LexicalEntry.parse(line, textFilter,
+								categoryServices, origin)));
+					}
+				}
+			} catch (final RuntimeException e) {
+				throw new RuntimeException(String.format(
+						"Reading of input file %s failed at line %d",
+						file.getName(), lineCounter), e);
+			} finally {
+				in.close();
+			}
+			return added;
+		} catch (final IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+	
+	@Override
+	public boolean contains(LexicalEntry<MR> lex) {
+		return entries.contains(lex);
+	}
+	
+	@Override
+	public TrieLexicon<MR> copy() {
+		return new TrieLexicon<MR>(this);
+	}
+	
+	/**
+	 * Get all lexical entries that match a given sequence of words.
+	 */
+	@Override
+	public List<LexicalEntry<MR>> getLexEntries(List<String> words) {
+		TrieNode<MR> node = root;
+		for (final String word : words) {
+			node = node.getChild(word);
+			if (node == null) {
+				return Collections.emptyList();
+			}
+		}
+		return node.entries == null ? Collections
+				.<LexicalEntry<MR>> emptyList() : new ArrayList<LexicalEntry<MR>>(
+				node.entries);
+	}
+	
+	@Override
+	public int getLongestPhraseLength(List<String> tokens, int start) {
+		int longest = 0;
+		TrieNode<MR> node = root;
+		final int numTokens = tokens.size();
+		for (int i = start; i < numTokens; ++i) {
+			node = node.getChild(tokens.get(i));
+			if (node == null) {
+				break;
+			}
+			if (node.entries != null) {
+				longest = i - start + 1;
+			}
+		}
+		return longest;
+	}
+	
+	@Override
+	public boolean retainAll(Collection<LexicalEntry<MR>> toKeepEntries) {
+		final Set<LexicalEntry<MR>> toKeep = toKeepEntries instanceof Set ? (Set<LexicalEntry<MR>>) toKeepEntries
+				: new HashSet<LexicalEntry<MR>>(toKeepEntries);
+		boolean removed = false;
+		final Iterator<LexicalEntry<MR>> iterator = entries.iterator();
+		while (iterator.hasNext()) {
+			final LexicalEntry<MR> entry = iterator.next();
+			if (!toKeep.contains(entry)) {
+				iterator.remove();
+				root.removeEntry(entry, 0);
+				removed = true;
+			}
+		}
+		return removed;
+	}
+	
+	@Override
+	public boolean retainAll(ILexicon<MR> lexicon) {
+		return retainAll(lexicon.toCollection());
+	}
+	
+	@Override
+	public int size() {
+		return entries.size();
+	}
+	
+	@Override
+	public Collection<LexicalEntry<MR>> toCollection() {
+		return Collections.unmodifiableCollection(entries);
+	}
+	
+	@Override
+	public String toString() {
+		final StringBuilder result = new StringBuilder();
+		for (final LexicalEntry<MR> entry : entries) {
+			result.append(entry).append("\n");
+		}
+		return result.toString();
+	}
+	
+	public static class Creator<MR> implements
+			IResourceObjectCreator<TrieLexicon<MR>> {
+		
+		@Override
+		public TrieLexicon<MR> create(Parameters parameters,
+				IResourceRepository resourceRepo) {
+			return new TrieLexicon<MR>();
+		}
+		
+		@Override
+		public String type() {
+			return "lexicon.trie";
+		}
+		
+		@Override
+		public ResourceUsage usage() {
+			return new ResourceUsage.Builder(type(), TrieLexicon.class)
+					.setDescription(
+							"Collection of lexical entries indexed by their tokens for fast retrieval")
+					.build();
+		}
+		
+	}
+	
+	/**
+	 * A single node in the tokens trie. Children and entries are created
+	 * lazily, since most nodes in a large lexicon are leaves.
+	 * 
+	 * @author Yoav Artzi
+	 */
+	private static class TrieNode<MR> implements Serializable {
+		private static final long			serialVersionUID	= -2470317712416521542L;
+		
+		private Map<String, TrieNode<MR>>	children			= null;
+		
+		private Set<LexicalEntry<MR>>		entries				= null;
+		
+		public void addEntry(LexicalEntry<MR> entry) {
+			if (entries == null) {
+				entries = new HashSet<LexicalEntry<MR>>();
+			}
+			entries.add(entry);
+		}
+		
+		public TrieNode<MR> getChild(String token) {
+			return children == null ? null : children.get(token);
+		}
+		
+		public TrieNode<MR> getOrAddChild(String token) {
+			if (children == null) {
+				children = new HashMap<String, TrieNode<MR>>();
+			}
+			TrieNode<MR> child = children.get(token);
+			if (child == null) {
+				child = new TrieNode<MR>();
+				children.put(token, child);
+			}
+			return child;
+		}
+		
+		public boolean isEmpty() {
+			return children == null && entries == null;
+		}
+		
+		/**
+		 * Remove the entry from the sub-trie rooted at this node, and remove
+		 * any nodes left empty.
+		 * 
+		 * @param depth
+		 *            Depth of this node, equals to the index of the next token
+		 *            to follow.
+		 */
+		public void removeEntry(LexicalEntry<MR> entry, int depth) {
+			final List<String> tokens = entry.getTokens();
+			if (depth == tokens.size()) {
+				if (entries != null && entries.remove(entry)
+						&& entries.isEmpty()) {
+					entries = null;
+				}
+			} else {
+				final TrieNode<MR> child = getChild(tokens.get(depth));
+				if (child != null) {
+					child.removeEntry(entry, depth + 1);
+					if (child.isEmpty()) {
+						children.remove(tokens.get(depth));
+						if (children.isEmpty()) {
+							children = null;
+						}
+					}
+				}
+			}
+		}
+	}
+	
+}
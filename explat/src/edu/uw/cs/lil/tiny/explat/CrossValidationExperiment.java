@@ -0,0 +1,308 @@
+/*******************************************************************************
+ * UW SPF - The University of Washington Semantic Parsing Framework
+ * <p>
+ * Copyright (C) 2013 Yoav Artzi
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ ******************************************************************************/
+package edu.uw.cs.lil.tiny.explat;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import edu.uw.cs.lil.tiny.explat.resources.ResourceCreatorRepository;
+import edu.uw.cs.utils.collections.ListUtils;
+import edu.uw.cs.utils.composites.Pair;
+import edu.uw.cs.utils.log.ILogger;
+import edu.uw.cs.utils.log.LoggerFactory;
+
+/**
+ * Distributed experiment that runs all jobs for multiple cross-validation
+ * folds concurrently in a single process. Folds are given as a comma-separated
+ * list in the global parameter 'folds'. Resources listed in the global
+ * parameter 'sharedResources', and all resources stored by the experiment
+ * itself, are created once and shared by all folds. All other resources and
+ * all jobs are created separately for each fold. Job IDs and dependencies are
+ * prefixed with the name of the fold, so each fold gets its own log and
+ * output files. The variables %{fold} and %{trainFolds} resolve to the name
+ * of the current fold and to the names of all other folds. When the
+ * experiment ends, the run time of each fold and the numeric values in the
+ * jobs' output files, averaged over folds, are logged. Without folds, this is
+ * a plain {@link DistributedExperiment}.
+ * 
+ * @author Yoav Artzi
+ */
+public abstract class CrossValidationExperiment extends DistributedExperiment {
+	public static final ILogger				LOG				= LoggerFactory
+																	.create(CrossValidationExperiment.class);
+	
+	private static final String				FOLD_VAR		= "fold";
+	
+	private static final String				TRAIN_FOLDS_VAR	= "trainFolds";
+	
+	/** Jobs of each fold, in the order of the folds. */
+	private final Map<String, List<Job>>	foldJobs		= new LinkedHashMap<String, List<Job>>();
+	
+	private final List<String>				folds;
+	
+	public CrossValidationExperiment(File initFile,
+			Map<String, String> envParams,
+			ResourceCreatorRepository creatorRepo) throws IOException {
+		super(initFile, envParams, creatorRepo);
+		this.folds = globalParams.getSplit("folds");
+	}
+	
+	public CrossValidationExperiment(File initFile,
+			ResourceCreatorRepository creatorRepo) throws IOException {
+		this(initFile, Collections.<String, String> emptyMap(), creatorRepo);
+	}
+	
+	@Override
+	public void end() {
+		if (!folds.isEmpty()) {
+			logFoldsSummary();
+		}
+		super.end();
+	}
+	
+	private Parameters createFoldParams(Parameters params, String fold,
+			boolean job) {
+		final Map<String, String> foldParams = new HashMap<String, String>();
+		for (final Pair<String, String> param : params) {
+			foldParams.put(param.first(), param.second());
+		}
+		
+		final List<String> trainFolds = new ArrayList<String>(folds);
+		trainFolds.remove(fold);
+		foldParams.put(FOLD_VAR, fold);
+		foldParams.put(TRAIN_FOLDS_VAR, ListUtils.join(trainFolds, ","));
+		
+		if (job) {
+			// Prefix the job ID and its dependencies with the fold name
+			foldParams.put("id", fold + "." + params.get("id"));
+			final List<String> dependencyIds = new LinkedList<String>();
+			for (final String dependencyId : params.getSplit("dep")) {
+				dependencyIds.add(fold + "." + dependencyId);
+			}
+			if (!dependencyIds.isEmpty()) {
+				foldParams.put("dep", ListUtils.join(dependencyIds, ","));
+			}
+		}
+		
+		return new Parameters(foldParams);
+	}
+	
+	private Object createResource(Parameters params, IResourceRepository repo) {
+		final String type = params.get("type");
+		if (getCreator(type) == null) {
+			throw new IllegalArgumentException("Invalid resource type: " + type);
+		}
+		final Object resource = getCreator(type).create(params, repo);
+		LOG.info("Created resources %s of type %s", params.get("id"), type);
+		return resource;
+	}
+	
+	private void logFoldsSummary() {
+		LOG.info("Cross-validation summary (%d folds):", folds.size());
+		final Map<String, List<Double>> metrics = new LinkedHashMap<String, List<Double>>();
+		for (final Entry<String, List<Job>> entry : foldJobs.entrySet()) {
+			final String fold = entry.getKey();
+			long startTime = Long.MAX_VALUE;
+			long endTime = -1;
+			boolean completed = true;
+			for (final Job job : entry.getValue()) {
+				if (job.isCompleted()) {
+					startTime = Math.min(startTime, job.getStartTime());
+					endTime = Math.max(endTime, job.getEndTime());
+					readMetrics(job.getId().substring(fold.length() + 1),
+							createJobOutputFile(job.getId()), metrics);
+				} else {
+					completed = false;
+				}
+			}
+			if (completed) {
+				LOG.info("Fold %s: %.4f seconds", fold,
+						(endTime - startTime) / 1000.0);
+			} else {
+				LOG.info("Fold %s: incomplete", fold);
+			}
+		}
+		
+		for (final Entry<String, List<Double>> entry : metrics.entrySet()) {
+			double sum = 0.0;
+			double min = Double.MAX_VALUE;
+			double max = -Double.MAX_VALUE;
+			for (final Double value : entry.getValue()) {
+				sum += value;
+				min = Math.min(min, value);
+				max = Math.max(max, value);
+			}
+			LOG.info("%s: mean=%.4f, min=%.4f, max=%.4f, folds=%d",
+					entry.getKey(), sum / entry.getValue().size(), min, max,
+					entry.getValue().size());
+		}
+	}
+	
+	/**
+	 * Reads machine readable statistics from a job output file. Each line is
+	 * of the form <key>=<value>\t<key>=<value>... . Numeric values are
+	 * collected by job ID, metric name (if given) and key.
+	 */
+	private void readMetrics(String jobId, File outputFile,
+			Map<String, List<Double>> metrics) {
+		if (!outputFile.exists()) {
+			return;
+		}
+		
+		try {
+			final BufferedReader reader = new BufferedReader(new FileReader(
+					outputFile));
+			try {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					final Map<String, String> values = new LinkedHashMap<String, String>();
+					for (final String token : line.split("\t")) {
+						final String[] split = token.split("=", 2);
+						if (split.length == 2) {
+							values.put(split[0], split[1]);
+						}
+					}
+					final String prefix = values.containsKey("metric") ? jobId
+							+ "." + values.get("metric") + "." : jobId + ".";
+					for (final Entry<String, String> entry : values.entrySet()) {
+						final double value;
+						try {
+							value = Double.valueOf(entry.getValue());
+						} catch (final NumberFormatException e) {
+							continue;
+						}
+						final String key = prefix + entry.getKey();
+						if (!metrics.containsKey(key)) {
+							metrics.put(key, new LinkedList<Double>());
+						}
+						metrics.get(key).add(value);
+					}
+				}
+			} finally {
+				reader.close();
+			}
+		} catch (final IOException e) {
+			LOG.warn("Failed to read job output: %s", outputFile);
+		}
+	}
+	
+	/**
+	 * Create a job.
+	 * 
+	 * @param params
+	 *            Job parameters.
+	 * @param repo
+	 *            Repository to get resources from. Resolves fold resources
+	 *            before shared ones.
+	 */
+	protected abstract Job createJob(Parameters params, IResourceRepository repo)
+			throws FileNotFoundException;
+	
+	/**
+	 * Create all resources and jobs of the experiment. Resources stored by the
+	 * experiment before calling this method are shared by all folds, and are
+	 * frozen once the shared resources from the experiment file are created.
+	 */
+	protected void createResourcesAndJobs() throws FileNotFoundException {
+		if (folds.isEmpty()) {
+			for (final Parameters params : resourceParams) {
+				storeResource(params.get("id"), createResource(params, this));
+			}
+			for (final Parameters params : jobParams) {
+				addJob(createJob(params, this));
+			}
+			return;
+		}
+		
+		// Shared resources, created once
+		final Set<String> sharedIds = new HashSet<String>(
+				globalParams.getSplit("sharedResources"));
+		for (final Parameters params : resourceParams) {
+			if (sharedIds.contains(params.get("id"))) {
+				storeResource(params.get("id"), createResource(params, this));
+			}
+		}
+		freezeResources();
+		
+		// Resources and jobs for each fold
+		for (final String fold : folds) {
+			LOG.info("Creating fold %s", fold);
+			final FoldRepository repo = new FoldRepository();
+			for (final Parameters params : resourceParams) {
+				if (!sharedIds.contains(params.get("id"))) {
+					final Parameters foldParams = createFoldParams(params, fold,
+							false);
+					repo.storeResource(foldParams.get("id"),
+							createResource(foldParams, repo));
+				}
+			}
+			
+			final List<Job> jobs = new LinkedList<Job>();
+			for (final Parameters params : jobParams) {
+				final Job job = createJob(createFoldParams(params, fold, true),
+						repo);
+				jobs.add(job);
+				addJob(job);
+			}
+			foldJobs.put(fold, jobs);
+		}
+	}
+	
+	/**
+	 * Resources of a single fold. Falls back to the shared resources of the
+	 * experiment.
+	 * 
+	 * @author Yoav Artzi
+	 */
+	private class FoldRepository implements IResourceRepository {
+		private final Map<String, Object>	resources	= new HashMap<String, Object>();
+		
+		@SuppressWarnings("unchecked")
+		@Override
+		public <T> T getResource(String id) {
+			if (resources.containsKey(id)) {
+				return (T) resources.get(id);
+			} else {
+				return CrossValidationExperiment.this.getResource(id);
+			}
+		}
+		
+		private void storeResource(String id, Object resource) {
+			if (resources.containsKey(id)) {
+				throw new IllegalStateException("Resource already exists: "
+						+ id);
+			} else {
+				resources.put(id, resource);
+			}
+		}
+	}
+}
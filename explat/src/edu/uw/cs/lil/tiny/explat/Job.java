@@ -31,10 +31,12 @@ public abstract class Job extends LoggingRunnable {
 	
 	private boolean				completed	= false;
 	private final Set<String>	dependencyIds;
+	private long				endTime		= -1;
 	private final String		id;
 	private final IJobListener	jobListener;
 	private final boolean		openedOutputStream;
 	private final PrintStream	outputStream;
+	private long				startTime	= -1;
 	
 	public Job(String id, Set<String> dependencyIds, IJobListener jobListener,
 			File outputFile, File logFile) throws FileNotFoundException {
@@ -66,6 +68,13 @@ public abstract class Job extends LoggingRunnable {
 		return dependencyIds;
 	}
 	
+	/**
+	 * @return Time the job completed (msec), or -1 if it didn't complete.
+	 */
+	public long getEndTime() {
+		return endTime;
+	}
+	
 	public String getId() {
 		return id;
 	}
@@ -74,6 +83,13 @@ public abstract class Job extends LoggingRunnable {
 		return outputStream;
 	}
 	
+	/**
+	 * @return Time the job started running (msec), or -1 if it didn't start.
+	 */
+	public long getStartTime() {
+		return startTime;
+	}
+	
 	public boolean isCompleted() {
 		return completed;
 	}
@@ -81,6 +97,7 @@ public abstract class Job extends LoggingRunnable {
 	@Override
 	public final void loggedRun() {
 		// Do the actual job
+		startTime = System.currentTimeMillis();
 		try {
 			doJob();
 		} catch (final Exception e) {
@@ -89,6 +106,7 @@ public abstract class Job extends LoggingRunnable {
 		}
 		
 		// Mark job as completed
+		endTime = System.currentTimeMillis();
 		completed = true;
 		
 		// Close output and log streams, if non standard
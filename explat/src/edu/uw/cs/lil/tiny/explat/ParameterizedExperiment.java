@@ -62,6 +62,7 @@ public abstract class ParameterizedExperiment implements IResourceRepository {
 																				"%\\{({var}[\\w@]+)\\}");
 	private final ResourceCreatorRepository	creatorRepo;
 	private final Map<String, Object>		resources					= new HashMap<String, Object>();
+	private boolean							resourcesFrozen				= false;
 	private final File						rootDir;
 	
 	protected final Parameters				globalParams;
@@ -258,8 +259,18 @@ public abstract class ParameterizedExperiment implements IResourceRepository {
 		return Collections.unmodifiableList(ret);
 	}
 	
+	/**
+	 * Disallow storing any further resources. Used when the stored resources
+	 * are shared by concurrently running jobs.
+	 */
+	protected void freezeResources() {
+		resourcesFrozen = true;
+	}
+	
 	protected <T> void storeResource(String id, T resource) {
-		if (resources.containsKey(id)) {
+		if (resourcesFrozen) {
+			throw new IllegalStateException("Resources are frozen: " + id);
+		} else if (resources.containsKey(id)) {
 			throw new IllegalStateException("Resource already exists: " + id);
 		} else {
 			resources.put(id, resource);
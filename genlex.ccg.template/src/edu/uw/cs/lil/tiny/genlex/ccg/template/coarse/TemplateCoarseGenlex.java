@@ -247,10 +247,9 @@ public class TemplateCoarseGenlex<DI extends Sentence>
 		}
 		
 		private static LogicalConstant createConstant(int num, Type type) {
-			return LogicalConstant
-					.createDynamic(
-							LogicalConstant.makeName(String.format("%s_%d",
-									CONST_SEED_NAME, num), type), type);
+			return LogicalConstant.createDynamic(
+					LogicalConstant.makeName(CONST_SEED_NAME + "_" + num, type),
+					type);
 		}
 		
 		public Builder<DI> addConstants(
@@ -18,11 +18,18 @@
  ******************************************************************************/
 package edu.uw.cs.lil.tiny.genlex.ccg.unification;
 
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 import edu.uw.cs.lil.tiny.ccg.categories.Category;
 import edu.uw.cs.lil.tiny.ccg.categories.ICategoryServices;
@@ -59,6 +66,7 @@ import edu.uw.cs.utils.collections.CollectionUtils;
 import edu.uw.cs.utils.filter.IFilter;
 import edu.uw.cs.utils.log.ILogger;
 import edu.uw.cs.utils.log.LoggerFactory;
+import edu.uw.cs.utils.log.thread.LoggingThreadFactory;
 
 /**
  * Unification-based GENLEX method. See Kwiatkowski et al. 2010 for details.
@@ -75,15 +83,51 @@ public class UnificationGenlex<DI extends SingleSentence>
 	
 	public static final String							SPLITTING_LEXICAL_ORIGIN	= "splitting";
 	private final boolean								conservative;
+	
+	/**
+	 * Dedicated pool to evaluate candidate splits concurrently. The experiment
+	 * executor is not used, since the parser submits its own tasks to it and
+	 * blocking on it from here may starve or deadlock it. Split evaluation
+	 * tasks never wait on this pool, so the callers of this object can't
+	 * deadlock it. The threads are daemons, so the pool doesn't need to be
+	 * shut down. null to evaluate the splits sequentially.
+	 */
+	private final ExecutorService						executor;
+	
 	private final AbstractCKYParser<LogicalExpression>	parser;
 	
 	private final IUnificationSplitter					splitter;
 	
 	public UnificationGenlex(AbstractCKYParser<LogicalExpression> parser,
 			IUnificationSplitter splitter, boolean conservative) {
+		this(parser, splitter, conservative, 1);
+	}
+	
+	/**
+	 * @param numThreads
+	 *            Number of threads used to evaluate candidate splits. 1 to
+	 *            evaluate them sequentially.
+	 */
+	public UnificationGenlex(AbstractCKYParser<LogicalExpression> parser,
+			IUnificationSplitter splitter, boolean conservative,
+			int numThreads) {
 		this.parser = parser;
 		this.splitter = splitter;
 		this.conservative = conservative;
+		this.executor = numThreads > 1 ? Executors.newFixedThreadPool(
+				numThreads, new ThreadFactory() {
+					private final ThreadFactory	threadFactory	= new LoggingThreadFactory();
+					
+					@Override
+					public Thread newThread(Runnable r) {
+						final Thread thread = threadFactory.newThread(r);
+						thread.setDaemon(true);
+						return thread;
+					}
+				}) : null;
+		LOG.info("Init :: %s: conservative=%s, numThreads=%d",
+				UnificationGenlex.class.getSimpleName(), conservative,
+				numThreads);
 	}
 	
 	@Override
@@ -187,11 +231,12 @@ public class UnificationGenlex<DI extends SingleSentence>
 	 * For a given cell, create all possible splits and take the ones with the
 	 * maximum score increase.
 	 */
-	private double collectBestSplits(Cell<LogicalExpression> cell, int begin,
-			int end, List<Split> maxEntries, Chart<LogicalExpression> chart,
-			ILabeledDataItem<Sentence, LogicalExpression> dataItem,
+	private double collectBestSplits(final Cell<LogicalExpression> cell,
+			final int begin, final int end, List<Split> maxEntries,
+			final Chart<LogicalExpression> chart,
+			final ILabeledDataItem<Sentence, LogicalExpression> dataItem,
 			double mostImproved,
-			IModelImmutable<Sentence, LogicalExpression> model) {
+			final IModelImmutable<Sentence, LogicalExpression> model) {
 		
 		// Cell category and tokens
 		final Category<LogicalExpression> rootCategory = cell.getCategory();
@@ -201,127 +246,41 @@ public class UnificationGenlex<DI extends SingleSentence>
 		// Score of best split found so far
 		double currentMaxImprovement = mostImproved;
 		
-		// Cell factory to create new cells
-		final AbstractCellFactory<LogicalExpression> cellFactory = chart
-				.getCellFactory();
-		
 		// Get all splits for the root category
 		final Set<SplittingPair> allSplits = splitter.getSplits(rootCategory);
 		
-		// Iterate over all possible splits
-		for (final SplittingPair split : allSplits) {
-			final Category<LogicalExpression> left = split.getLeft();
-			final Category<LogicalExpression> right = split.getRight();
-			
-			// Iterate over all breaking points for dividing the phrase
-			// (tokens), create new lexical entries and cells
-			for (int splittingPoint = begin; splittingPoint < end; splittingPoint++) {
-				// Create new lexical entries
-				
-				// TODO [yoav] [limitation] Factoring so templates and lexemes
-				// participating
-				// can be scored by the relevant feature sets. However, this
-				// gives only the maximal factoring, which misses the option of
-				// adding non maximal ones.
-				final LexicalEntry<LogicalExpression> leftEntry = FactoredLexicon
-						.factor(new LexicalEntry<LogicalExpression>(
-								CollectionUtils.subList(rootTokens, 0,
-										(splittingPoint - begin) + 1), left,
-								SPLITTING_LEXICAL_ORIGIN));
-				final LexicalEntry<LogicalExpression> rightEntry = FactoredLexicon
-						.factor(new LexicalEntry<LogicalExpression>(
-								CollectionUtils.subList(rootTokens,
-										(splittingPoint - begin) + 1,
-										rootTokens.size()), right,
-								SPLITTING_LEXICAL_ORIGIN));
-				
-				// If both created lexical entries exist in the model, skip this
-				// split
-				if (model.getLexicon().contains(leftEntry)
-						&& model.getLexicon().contains(rightEntry)) {
-					continue;
-				}
-				
-				// NOTE: we do not add the cell to the chart below. this is
-				// because we will be doing lots of splits and evaluating how
-				// much each would help on the same chart, without actually
-				// adding each potential option (or rebuilding the chart each
-				// time, etc).
-				
-				final IDataItemModel<LogicalExpression> dataItemModel = model
-						.createDataItemModel(dataItem.getSample());
-				
-				// Create cells using the new lexical entries
-				final Cell<LogicalExpression> newLeftCell = cellFactory.create(
-						new CKYLexicalStep<LogicalExpression>(leftEntry, false,
-								dataItemModel), begin, splittingPoint);
-				final Cell<LogicalExpression> newRightCell = cellFactory
-						.create(new CKYLexicalStep<LogicalExpression>(
-								rightEntry, false, dataItemModel),
-								splittingPoint + 1, end);
-				
-				// If equivalent cells exist in the chart and they have a higher
-				// max score, reuse them
-				final Cell<LogicalExpression> leftCell;
-				final boolean reusingLeft;
-				final Cell<LogicalExpression> chartLeftCell = chart
-						.getCell(newLeftCell);
-				if (chartLeftCell == null
-						|| chartLeftCell.getViterbiScore() >= newLeftCell
-								.getViterbiScore()) {
-					leftCell = newLeftCell;
-					reusingLeft = false;
-				} else {
-					leftCell = chartLeftCell;
-					reusingLeft = true;
-				}
-				
-				final Cell<LogicalExpression> rightCell;
-				final boolean reusingRight;
-				final Cell<LogicalExpression> chartRightCell = chart
-						.getCell(newRightCell);
-				if (chartRightCell == null
-						|| chartRightCell.getViterbiScore() >= newRightCell
-								.getViterbiScore()) {
-					rightCell = newRightCell;
-					reusingRight = false;
-				} else {
-					rightCell = chartRightCell;
-					reusingRight = true;
-				}
-				
-				// Only consider this split if it adds a new lexical entry
-				if ((reusingLeft || model.getLexicon().contains(leftEntry))
-						&& (reusingRight || model.getLexicon().contains(
-								rightEntry))) {
-					continue;
-				}
-				
-				// Create the new root cell
-				final Cell<LogicalExpression> newRootCell = cellFactory.create(
-						new CKYParseStep<LogicalExpression>(rootCategory,
-								leftCell, rightCell, cell.isFullParse(),
-								RuleName.create("splitMerge", null),
-								dataItemModel), leftCell.getStart(), rightCell
-								.getEnd());
-				
-				// Compute the score improvement
-				final double improvement = newRootCell.getViterbiScore()
-						- cell.getViterbiScore();
-				
-				// Create the split object
-				final Split splitCell = new Split(leftCell, reusingLeft,
-						rightCell, reusingRight, cell, improvement);
-				LOG.debug("Split under consideration:\n%s", splitCell);
-				
-				// If the score is higher, retain this split. Adding to the
-				// chart will be done later.
-				if (improvement >= currentMaxImprovement) {
-					if (improvement > currentMaxImprovement) {
-						maxEntries.clear();
-						currentMaxImprovement = improvement;
+		if (executor == null) {
+			// Iterate over all possible splits
+			for (final SplittingPair split : allSplits) {
+				currentMaxImprovement = retainBestSplits(
+						evaluateSplit(split, cell, begin, end, rootTokens,
+								chart, dataItem, model), maxEntries,
+						currentMaxImprovement);
+			}
+		} else {
+			// Evaluate each split in a separate task. The chart and the model
+			// are only read. Candidates are reduced in the order of the
+			// splits, so the result is identical to the sequential case.
+			final List<Future<List<Split>>> futures = new ArrayList<Future<List<Split>>>(
+					allSplits.size());
+			for (final SplittingPair split : allSplits) {
+				futures.add(executor.submit(new Callable<List<Split>>() {
+					
+					@Override
+					public List<Split> call() throws Exception {
+						return evaluateSplit(split, cell, begin, end,
+								rootTokens, chart, dataItem, model);
 					}
-					maxEntries.add(splitCell);
+				}));
+			}
+			for (final Future<List<Split>> future : futures) {
+				try {
+					currentMaxImprovement = retainBestSplits(future.get(),
+							maxEntries, currentMaxImprovement);
+				} catch (final InterruptedException e) {
+					throw new RuntimeException(e);
+				} catch (final ExecutionException e) {
+					throw new RuntimeException(e.getCause());
 				}
 			}
 		}
@@ -356,6 +315,156 @@ public class UnificationGenlex<DI extends SingleSentence>
 		}
 	}
 	
+	/**
+	 * Create the cells of the given split for every splitting point of the
+	 * cell's span.
+	 * 
+	 * @return Splits that add a new lexical entry, in the order of the
+	 *         splitting points.
+	 */
+	private List<Split> evaluateSplit(SplittingPair split,
+			Cell<LogicalExpression> cell, int begin, int end,
+			List<String> rootTokens, Chart<LogicalExpression> chart,
+			ILabeledDataItem<Sentence, LogicalExpression> dataItem,
+			IModelImmutable<Sentence, LogicalExpression> model) {
+		final List<Split> candidates = new LinkedList<Split>();
+		final Category<LogicalExpression> rootCategory = cell.getCategory();
+		final Category<LogicalExpression> left = split.getLeft();
+		final Category<LogicalExpression> right = split.getRight();
+		
+		// Cell factory to create new cells
+		final AbstractCellFactory<LogicalExpression> cellFactory = chart
+				.getCellFactory();
+		
+		// Iterate over all breaking points for dividing the phrase (tokens),
+		// create new lexical entries and cells
+		for (int splittingPoint = begin; splittingPoint < end; splittingPoint++) {
+			// Create new lexical entries
+			
+			// TODO [yoav] [limitation] Factoring so templates and lexemes
+			// participating
+			// can be scored by the relevant feature sets. However, this
+			// gives only the maximal factoring, which misses the option of
+			// adding non maximal ones.
+			final LexicalEntry<LogicalExpression> leftEntry = FactoredLexicon
+					.factor(new LexicalEntry<LogicalExpression>(
+							CollectionUtils.subList(rootTokens, 0,
+									(splittingPoint - begin) + 1), left,
+							SPLITTING_LEXICAL_ORIGIN));
+			final LexicalEntry<LogicalExpression> rightEntry = FactoredLexicon
+					.factor(new LexicalEntry<LogicalExpression>(
+							CollectionUtils.subList(rootTokens,
+									(splittingPoint - begin) + 1,
+									rootTokens.size()), right,
+							SPLITTING_LEXICAL_ORIGIN));
+			
+			// If both created lexical entries exist in the model, skip this
+			// split
+			if (model.getLexicon().contains(leftEntry)
+					&& model.getLexicon().contains(rightEntry)) {
+				continue;
+			}
+			
+			// NOTE: we do not add the cell to the chart below. this is
+			// because we will be doing lots of splits and evaluating how
+			// much each would help on the same chart, without actually
+			// adding each potential option (or rebuilding the chart each
+			// time, etc).
+			
+			final IDataItemModel<LogicalExpression> dataItemModel = model
+					.createDataItemModel(dataItem.getSample());
+			
+			// Create cells using the new lexical entries
+			final Cell<LogicalExpression> newLeftCell = cellFactory.create(
+					new CKYLexicalStep<LogicalExpression>(leftEntry, false,
+							dataItemModel), begin, splittingPoint);
+			final Cell<LogicalExpression> newRightCell = cellFactory
+					.create(new CKYLexicalStep<LogicalExpression>(
+							rightEntry, false, dataItemModel),
+							splittingPoint + 1, end);
+			
+			// If equivalent cells exist in the chart and they have a higher
+			// max score, reuse them
+			final Cell<LogicalExpression> leftCell;
+			final boolean reusingLeft;
+			final Cell<LogicalExpression> chartLeftCell = chart
+					.getCell(newLeftCell);
+			if (chartLeftCell == null
+					|| chartLeftCell.getViterbiScore() >= newLeftCell
+							.getViterbiScore()) {
+				leftCell = newLeftCell;
+				reusingLeft = false;
+			} else {
+				leftCell = chartLeftCell;
+				reusingLeft = true;
+			}
+			
+			final Cell<LogicalExpression> rightCell;
+			final boolean reusingRight;
+			final Cell<LogicalExpression> chartRightCell = chart
+					.getCell(newRightCell);
+			if (chartRightCell == null
+					|| chartRightCell.getViterbiScore() >= newRightCell
+							.getViterbiScore()) {
+				rightCell = newRightCell;
+				reusingRight = false;
+			} else {
+				rightCell = chartRightCell;
+				reusingRight = true;
+			}
+			
+			// Only consider this split if it adds a new lexical entry
+			if ((reusingLeft || model.getLexicon().contains(leftEntry))
+					&& (reusingRight || model.getLexicon().contains(
+							rightEntry))) {
+				continue;
+			}
+			
+			// Create the new root cell
+			final Cell<LogicalExpression> newRootCell = cellFactory.create(
+					new CKYParseStep<LogicalExpression>(rootCategory,
+							leftCell, rightCell, cell.isFullParse(),
+							RuleName.create("splitMerge", null),
+							dataItemModel), leftCell.getStart(), rightCell
+							.getEnd());
+			
+			// Compute the score improvement
+			final double improvement = newRootCell.getViterbiScore()
+					- cell.getViterbiScore();
+			
+			// Create the split object
+			final Split splitCell = new Split(leftCell, reusingLeft,
+					rightCell, reusingRight, cell, improvement);
+			LOG.debug("Split under consideration:\n%s", splitCell);
+			
+			candidates.add(splitCell);
+		}
+		return candidates;
+	}
+	
+	/**
+	 * Retain the given candidate splits if their score improvement is at least
+	 * as high as the best improvement so far.
+	 * 
+	 * @return The best improvement.
+	 */
+	private static double retainBestSplits(List<Split> candidates,
+			List<Split> maxEntries, double mostImproved) {
+		double currentMaxImprovement = mostImproved;
+		for (final Split candidate : candidates) {
+			// If the score is higher, retain this split. Adding to the chart
+			// will be done later.
+			if (candidate.scoreImprovement >= currentMaxImprovement) {
+				if (candidate.scoreImprovement > currentMaxImprovement) {
+					maxEntries.clear();
+					currentMaxImprovement = candidate.scoreImprovement;
+				}
+				maxEntries.add(candidate);
+			}
+		}
+		return currentMaxImprovement;
+	}
+	
 	public static class Creator<DI extends SingleSentence> implements
 			IResourceObjectCreator<UnificationGenlex<DI>> {
 		
@@ -378,7 +487,9 @@ public class UnificationGenlex<DI extends SingleSentence>
 							.getResource(ParameterizedExperiment.PARSER_RESOURCE),
 					(IUnificationSplitter) repo.getResource(params
 							.get("splitter")), "true".equals(params
-							.get("conservative")));
+							.get("conservative")),
+					params.contains("threads") ? Integer.valueOf(params
+							.get("threads")) : 1);
 		}
 		
 		@Override
@@ -393,6 +504,8 @@ public class UnificationGenlex<DI extends SingleSentence>
 							"Category splitter")
 					.addParam("convervative", "boolean",
 							"If 'true' only use splits if there's a single best split.")
+					.addParam("threads", "int",
+							"Number of threads used to evaluate candidate splits, in a pool dedicated to this object (default: 1, sequential)")
 					.build();
 		}
 		
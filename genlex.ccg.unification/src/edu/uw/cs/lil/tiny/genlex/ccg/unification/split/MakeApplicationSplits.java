@@ -25,6 +25,10 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import edu.uw.cs.lil.tiny.base.PowerSet;
 import edu.uw.cs.lil.tiny.ccg.categories.Category;
@@ -474,9 +478,65 @@ public class MakeApplicationSplits {
 	
 	static Set<SplittingPair> of(Category<LogicalExpression> originalCategory,
 			ICategoryServices<LogicalExpression> categoryServices) {
-		// Get all sub-expressions and predicates
-		final Map<LogicalExpression, Counter> subExpressions = new HashMap<LogicalExpression, Counter>();
+		// Accumulates all possible splits
+		final Set<SplittingPair> splits = new HashSet<SplittingServices.SplittingPair>();
 		
+		// Iterate over the sub-expressions, generating splits from each one in
+		// turn
+		for (final Map.Entry<LogicalExpression, Counter> entry : countSubExpressions(
+				originalCategory).entrySet()) {
+			splits.addAll(doSubExpressionSplits(entry.getKey(), entry
+					.getValue().value(), originalCategory, categoryServices));
+		}
+		
+		return splits;
+	}
+	
+	/**
+	 * Generate the splits of each sub-expression in a separate task. The
+	 * result is identical to {@link #of(Category, ICategoryServices)}.
+	 */
+	static Set<SplittingPair> of(
+			final Category<LogicalExpression> originalCategory,
+			final ICategoryServices<LogicalExpression> categoryServices,
+			ExecutorService executor) {
+		final List<Future<Set<SplittingPair>>> futures = new LinkedList<Future<Set<SplittingPair>>>();
+		for (final Map.Entry<LogicalExpression, Counter> entry : countSubExpressions(
+				originalCategory).entrySet()) {
+			final LogicalExpression subExpression = entry.getKey();
+			final int count = entry.getValue().value();
+			futures.add(executor.submit(new Callable<Set<SplittingPair>>() {
+				
+				@Override
+				public Set<SplittingPair> call() throws Exception {
+					return doSubExpressionSplits(subExpression, count,
+							originalCategory, categoryServices);
+				}
+			}));
+		}
+		
+		// Accumulates all possible splits
+		final Set<SplittingPair> splits = new HashSet<SplittingServices.SplittingPair>();
+		for (final Future<Set<SplittingPair>> future : futures) {
+			try {
+				splits.addAll(future.get());
+			} catch (final InterruptedException e) {
+				throw new RuntimeException(e);
+			} catch (final ExecutionException e) {
+				throw new RuntimeException(e.getCause());
+			}
+		}
+		
+		return splits;
+	}
+	
+	/**
+	 * Get all sub-expressions and predicates, with the number of times each
+	 * appears.
+	 */
+	private static Map<LogicalExpression, Counter> countSubExpressions(
+			Category<LogicalExpression> originalCategory) {
+		final Map<LogicalExpression, Counter> subExpressions = new HashMap<LogicalExpression, Counter>();
 		for (final LogicalExpression subExpression : AllSubExpressions
 				.of(originalCategory.getSem())) {
 			if (subExpressions.containsKey(subExpression)) {
@@ -485,65 +545,67 @@ public class MakeApplicationSplits {
 				subExpressions.put(subExpression, new Counter(1));
 			}
 		}
-		
-		// Accumulates all possible splits
+		return subExpressions;
+	}
+	
+	/**
+	 * Generate all splits that extract the given sub-expression. Also handle
+	 * special cases (See upper part of the method).
+	 * 
+	 * @param count
+	 *            The number of times the sub-expression appears in
+	 *            originalCategory.getSem()
+	 */
+	private static Set<SplittingPair> doSubExpressionSplits(
+			LogicalExpression subExpression, int count,
+			Category<LogicalExpression> originalCategory,
+			ICategoryServices<LogicalExpression> categoryServices) {
 		final Set<SplittingPair> splits = new HashSet<SplittingServices.SplittingPair>();
 		
-		// Iterate over the sub-expressions, generating splits from each one in
-		// turn. Also handle special cases (See upper part of the loop).
-		for (final Map.Entry<LogicalExpression, Counter> entry : subExpressions
-				.entrySet()) {
-			final LogicalExpression subExpression = entry.getKey();
-			final int count = entry.getValue().value();
-			
-			if (LogicLanguageServices.isCoordinationPredicate(subExpression)) {
-				// Skip extracting coordination predicates
-				continue;
-			}
+		if (LogicLanguageServices.isCoordinationPredicate(subExpression)) {
+			// Skip extracting coordination predicates
+			return splits;
+		}
+		
+		if (subExpression instanceof Literal) {
+			// Case Literal, so try the various special cases
+			final Literal literal = (Literal) subExpression;
 			
-			if (subExpression instanceof Literal) {
-				// Case Literal, so try the various special cases
-				final Literal literal = (Literal) subExpression;
-				
-				if (literal.getPredicate() instanceof Variable) {
-					// If the predicate is a variable, we completely skip
-					// processing it (we might still extract its arguments)
-					continue;
-				} else if (literal.getPredicateType() instanceof RecursiveComplexType) {
-					// If this the predicate is a recursive predicate, handle it
-					// with respect to its order sensitivity. Here we handle
-					// with pulling out subsets of the arguments, but not the
-					// entire literal
-					final int minArgs = ((RecursiveComplexType) literal
-							.getPredicateType()).getMinArgs();
-					if (literal.getPredicateType().isOrderSensitive()) {
-						// Case order sensitive
-						splits.addAll(doOrderSensitiveSplits(originalCategory,
-								literal, count, categoryServices, minArgs));
-					} else {
-						// Case order insensitive
-						splits.addAll(doOrderInsensitiveSplits(
-								originalCategory, literal, count,
-								categoryServices, minArgs));
-					}
+			if (literal.getPredicate() instanceof Variable) {
+				// If the predicate is a variable, we completely skip
+				// processing it (we might still extract its arguments)
+				return splits;
+			} else if (literal.getPredicateType() instanceof RecursiveComplexType) {
+				// If this the predicate is a recursive predicate, handle it
+				// with respect to its order sensitivity. Here we handle
+				// with pulling out subsets of the arguments, but not the
+				// entire literal
+				final int minArgs = ((RecursiveComplexType) literal
+						.getPredicateType()).getMinArgs();
+				if (literal.getPredicateType().isOrderSensitive()) {
+					// Case order sensitive
+					splits.addAll(doOrderSensitiveSplits(originalCategory,
+							literal, count, categoryServices, minArgs));
+				} else {
+					// Case order insensitive
+					splits.addAll(doOrderInsensitiveSplits(originalCategory,
+							literal, count, categoryServices, minArgs));
 				}
 			}
+		}
+		
+		final Set<Variable> freeVars = GetAllFreeVariables.of(subExpression);
+		if (freeVars.size() <= SplittingServices.MAX_NUM_VARS) {
+			// Do all possible orderings of variables, if there are more
+			// than the limit of variables, just ignore this split
 			
-			final Set<Variable> freeVars = GetAllFreeVariables
-					.of(subExpression);
-			if (freeVars.size() <= SplittingServices.MAX_NUM_VARS) {
-				// Do all possible orderings of variables, if there are more
-				// than the limit of variables, just ignore this split
-				
-				for (final List<Variable> order : SplittingServices
-						.allOrders(freeVars)) {
-					// Extract the sub-expression with the given order of
-					// variables. Also handles repeating sub-expressions.
-					splits.addAll(doSplits(subExpression, order,
-							originalCategory, count, categoryServices));
-				}
+			for (final List<Variable> order : SplittingServices
+					.allOrders(freeVars)) {
+				// Extract the sub-expression with the given order of
+				// variables. Also handles repeating sub-expressions.
+				splits.addAll(doSplits(subExpression, order, originalCategory,
+						count, categoryServices));
 			}
-			
 		}
 		
 		return splits;
@@ -0,0 +1,161 @@
+/*******************************************************************************
+ * UW SPF - The University of Washington Semantic Parsing Framework
+ * <p>
+ * Copyright (C) 2013 Yoav Artzi
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ ******************************************************************************/
+package edu.uw.cs.lil.tiny.genlex.ccg.unification.split;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import edu.uw.cs.lil.tiny.ccg.categories.Category;
+import edu.uw.cs.lil.tiny.genlex.ccg.unification.split.SplittingServices.SplittingPair;
+import edu.uw.cs.lil.tiny.mr.lambda.LogicalExpression;
+
+/**
+ * Bounded memoization table for the splits of categories. The size of the
+ * table is accounted by the total number of cached splitting pairs, which
+ * dominate its memory footprint, rather than by the number of categories. The
+ * table is split into independently locked segments, each evicting in LRU
+ * order.
+ * 
+ * @author Yoav Artzi
+ */
+class SplitCache {
+	private static final int	NUM_SEGMENTS	= 16;
+	
+	private final AtomicLong	hits			= new AtomicLong();
+	private final AtomicLong	misses			= new AtomicLong();
+	private final Segment[]		segments;
+	
+	/**
+	 * @param maxPairs
+	 *            The maximum number of splitting pairs stored in the cache.
+	 */
+	SplitCache(int maxPairs) {
+		final int segmentPairs = Math.max(1, maxPairs / NUM_SEGMENTS);
+		this.segments = new Segment[NUM_SEGMENTS];
+		for (int i = 0; i < NUM_SEGMENTS; ++i) {
+			segments[i] = new Segment(segmentPairs);
+		}
+	}
+	
+	public void clear() {
+		for (final Segment segment : segments) {
+			synchronized (segment) {
+				segment.clear();
+				segment.numPairs = 0;
+			}
+		}
+		hits.set(0);
+		misses.set(0);
+	}
+	
+	public long getHits() {
+		return hits.get();
+	}
+	
+	public long getMisses() {
+		return misses.get();
+	}
+	
+	/**
+	 * @return The number of splitting pairs currently stored.
+	 */
+	public long numPairs() {
+		long numPairs = 0;
+		for (final Segment segment : segments) {
+			synchronized (segment) {
+				numPairs += segment.numPairs;
+			}
+		}
+		return numPairs;
+	}
+	
+	public int size() {
+		int size = 0;
+		for (final Segment segment : segments) {
+			synchronized (segment) {
+				size += segment.size();
+			}
+		}
+		return size;
+	}
+	
+	/**
+	 * @return The cached splits, or null if the category is not cached.
+	 */
+	Set<SplittingPair> get(Category<LogicalExpression> category) {
+		final Segment segment = segmentFor(category);
+		final Set<SplittingPair> cached;
+		synchronized (segment) {
+			cached = segment.get(category);
+		}
+		if (cached == null) {
+			misses.incrementAndGet();
+		} else {
+			hits.incrementAndGet();
+		}
+		return cached;
+	}
+	
+	/**
+	 * @param splits
+	 *            Immutable set of splits. Not cached if it's larger than a
+	 *            single segment.
+	 */
+	void put(Category<LogicalExpression> category, Set<SplittingPair> splits) {
+		final Segment segment = segmentFor(category);
+		synchronized (segment) {
+			if (splits.size() > segment.maxPairs) {
+				return;
+			}
+			final Set<SplittingPair> previous = segment.put(category, splits);
+			if (previous != null) {
+				segment.numPairs -= previous.size();
+			}
+			segment.numPairs += splits.size();
+			
+			// Evict in LRU order until the segment is within its budget
+			final Iterator<Set<SplittingPair>> iterator = segment.values()
+					.iterator();
+			while (segment.numPairs > segment.maxPairs) {
+				segment.numPairs -= iterator.next().size();
+				iterator.remove();
+			}
+		}
+	}
+	
+	private Segment segmentFor(Category<LogicalExpression> category) {
+		// Spread the hash bits before selecting a segment
+		final int hash = category.hashCode();
+		return segments[(hash ^ (hash >>> 16)) & (NUM_SEGMENTS - 1)];
+	}
+	
+	private static class Segment extends
+			LinkedHashMap<Category<LogicalExpression>, Set<SplittingPair>> {
+		private static final long	serialVersionUID	= 2391508374163320734L;
+		private final int			maxPairs;
+		private long				numPairs			= 0;
+		
+		public Segment(int maxPairs) {
+			super(16, 0.75f, true);
+			this.maxPairs = maxPairs;
+		}
+	}
+}
@@ -18,8 +18,15 @@
  ******************************************************************************/
 package edu.uw.cs.lil.tiny.genlex.ccg.unification.split;
 
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 import edu.uw.cs.lil.tiny.ccg.categories.Category;
 import edu.uw.cs.lil.tiny.ccg.categories.ICategoryServices;
@@ -30,6 +37,9 @@ import edu.uw.cs.lil.tiny.explat.resources.IResourceObjectCreator;
 import edu.uw.cs.lil.tiny.explat.resources.usage.ResourceUsage;
 import edu.uw.cs.lil.tiny.genlex.ccg.unification.split.SplittingServices.SplittingPair;
 import edu.uw.cs.lil.tiny.mr.lambda.LogicalExpression;
+import edu.uw.cs.utils.log.ILogger;
+import edu.uw.cs.utils.log.LoggerFactory;
+import edu.uw.cs.utils.log.thread.LoggingThreadFactory;
 
 /**
  * Splitting service object.
@@ -37,19 +47,142 @@ import edu.uw.cs.lil.tiny.mr.lambda.LogicalExpression;
  * @author Yoav Artzi
  */
 public class Splitter implements IUnificationSplitter {
+	public static final ILogger							LOG	= LoggerFactory
+																.create(Splitter.class);
+	
+	/**
+	 * Memoized splits, shared by all users of this object. null if caching is
+	 * disabled.
+	 */
+	private final SplitCache							cache;
+	
 	private final ICategoryServices<LogicalExpression>	categoryServices;
 	
+	/**
+	 * Pool used to enumerate the splits of a single category. Created once and
+	 * shared by all calls. Its tasks never wait on the pool itself, so
+	 * concurrent callers can't deadlock it. The threads are daemons, so the
+	 * pool doesn't need to be shut down. null if splitting is sequential.
+	 */
+	private final ExecutorService						executor;
+	
 	public Splitter(ICategoryServices<LogicalExpression> categoryServices) {
+		this(categoryServices, 0, 1);
+	}
+	
+	/**
+	 * @param cacheSize
+	 *            Maximum number of splitting pairs to memoize, summed over all
+	 *            cached categories. 0 disables caching.
+	 * @param numThreads
+	 *            Number of threads used to enumerate the splits of a category
+	 *            that is not cached. Each sub-expression is processed in a
+	 *            separate task.
+	 */
+	public Splitter(ICategoryServices<LogicalExpression> categoryServices,
+			int cacheSize, int numThreads) {
 		this.categoryServices = categoryServices;
+		this.cache = cacheSize > 0 ? new SplitCache(cacheSize) : null;
+		this.executor = numThreads > 1 ? Executors.newFixedThreadPool(
+				numThreads, new ThreadFactory() {
+					private final ThreadFactory	threadFactory	= new LoggingThreadFactory();
+					
+					@Override
+					public Thread newThread(Runnable r) {
+						final Thread thread = threadFactory.newThread(r);
+						thread.setDaemon(true);
+						return thread;
+					}
+				}) : null;
+		LOG.info("Init :: %s: cacheSize=%d, numThreads=%d",
+				Splitter.class.getSimpleName(), cacheSize, numThreads);
+	}
+	
+	public void clearCache() {
+		if (cache != null) {
+			cache.clear();
+		}
+	}
+	
+	/**
+	 * Number of categories answered from the cache since it was last cleared.
+	 */
+	public long getCacheHits() {
+		return cache == null ? 0 : cache.getHits();
+	}
+	
+	/**
+	 * Number of categories split since the cache was last cleared. Always 0
+	 * when caching is disabled.
+	 */
+	public long getCacheMisses() {
+		return cache == null ? 0 : cache.getMisses();
+	}
+	
+	/**
+	 * Number of splitting pairs currently cached.
+	 */
+	public long getCacheNumPairs() {
+		return cache == null ? 0 : cache.numPairs();
 	}
 	
+	public int getCacheSize() {
+		return cache == null ? 0 : cache.size();
+	}
+	
+	/**
+	 * @return Immutable set of splits.
+	 */
 	public Set<SplittingPair> getSplits(Category<LogicalExpression> category) {
+		if (cache != null) {
+			final Set<SplittingPair> cached = cache.get(category);
+			if (cached != null) {
+				return cached;
+			}
+		}
+		
+		final Set<SplittingPair> splits = Collections
+				.unmodifiableSet(executor == null ? doSplits(category)
+						: doSplitsConcurrently(category));
+		if (cache != null) {
+			cache.put(category, splits);
+		}
+		return splits;
+	}
+	
+	private Set<SplittingPair> doSplits(Category<LogicalExpression> category) {
 		final Set<SplittingPair> splits = new HashSet<SplittingPair>();
 		splits.addAll(MakeApplicationSplits.of(category, categoryServices));
 		splits.addAll(MakeCompositionSplits.of(category, categoryServices));
 		return splits;
 	}
 	
+	private Set<SplittingPair> doSplitsConcurrently(
+			final Category<LogicalExpression> category) {
+		// Composition splits are generated in a single task, in parallel to
+		// the application splits of each sub-expression
+		final Future<Set<SplittingPair>> compositionSplits = executor
+				.submit(new Callable<Set<SplittingPair>>() {
+					
+					@Override
+					public Set<SplittingPair> call() throws Exception {
+						return MakeCompositionSplits.of(category,
+								categoryServices);
+					}
+				});
+		final Set<SplittingPair> splits = new HashSet<SplittingPair>();
+		splits.addAll(MakeApplicationSplits.of(category, categoryServices,
+				executor));
+		try {
+			splits.addAll(compositionSplits.get());
+		} catch (final InterruptedException e) {
+			throw new RuntimeException(e);
+		} catch (final ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		}
+		return splits;
+	}
+	
 	public static class Creator implements IResourceObjectCreator<Splitter> {
 		
 		@SuppressWarnings("unchecked")
@@ -58,7 +191,11 @@ public class Splitter implements IUnificationSplitter {
 				IResourceRepository resourceRepo) {
 			return new Splitter(
 					(ICategoryServices<LogicalExpression>) resourceRepo
-							.getResource(ParameterizedExperiment.CATEGORY_SERVICES_RESOURCE));
+							.getResource(ParameterizedExperiment.CATEGORY_SERVICES_RESOURCE),
+					parameters.contains("cacheSize") ? Integer
+							.valueOf(parameters.get("cacheSize")) : 0,
+					parameters.contains("threads") ? Integer
+							.valueOf(parameters.get("threads")) : 1);
 		}
 		
 		@Override
@@ -71,6 +208,10 @@ public class Splitter implements IUnificationSplitter {
 			return new ResourceUsage.Builder(type(), Splitter.class)
 					.setDescription(
 							"Logical expression splitter for unification-based GENLEX")
+					.addParam("cacheSize", "int",
+							"Maximum number of splitting pairs to memoize, summed over all categories (default: 0, no caching)")
+					.addParam("threads", "int",
+							"Number of threads used to split a single category (default: 1)")
 					.build();
 		}
 		
@@ -38,7 +38,8 @@ import edu.uw.cs.lil.tiny.ccg.lexicon.factored.lambda.FactoredLexicon.FactoredLe
 import edu.uw.cs.lil.tiny.ccg.lexicon.factored.lambda.FactoredLexiconServices;
 import edu.uw.cs.lil.tiny.data.sentence.Sentence;
 import edu.uw.cs.lil.tiny.data.singlesentence.SingleSentence;
-import edu.uw.cs.lil.tiny.explat.DistributedExperiment;
+import edu.uw.cs.lil.tiny.explat.CrossValidationExperiment;
+import edu.uw.cs.lil.tiny.explat.IResourceRepository;
 import edu.uw.cs.lil.tiny.explat.Job;
 import edu.uw.cs.lil.tiny.explat.resources.ResourceCreatorRepository;
 import edu.uw.cs.lil.tiny.learn.ILearner;
@@ -60,7 +61,7 @@ import edu.uw.cs.utils.log.LogLevel;
 import edu.uw.cs.utils.log.Logger;
 import edu.uw.cs.utils.log.LoggerFactory;
 
-public class GeoExp extends DistributedExperiment {
+public class GeoExp extends CrossValidationExperiment {
 	public static final ILogger						LOG	= LoggerFactory
 																.create(GeoExp.class);
 	
@@ -84,6 +85,9 @@ public class GeoExp extends DistributedExperiment {
 		final File typesFile = globalParams.getAsFile("types");
 		final List<File> seedLexiconFiles = globalParams.getAsFiles("seedlex");
 		final List<File> npLexiconFiles = globalParams.getAsFiles("nplist");
+		final int categoryCacheSize = globalParams
+				.contains("categoryCacheSize") ? Integer.valueOf(globalParams
+				.get("categoryCacheSize")) : 0;
 		
 		// //////////////////////////////////////////
 		// Executor resource
@@ -124,7 +128,7 @@ public class GeoExp extends DistributedExperiment {
 		// //////////////////////////////////////////////////
 		
 		this.categoryServices = new LogicalExpressionCategoryServices(true,
-				true);
+				true, true, categoryCacheSize, true);
 		storeResource(CATEGORY_SERVICES_RESOURCE, categoryServices);
 		
 		// //////////////////////////////////////////////////
@@ -170,52 +174,17 @@ public class GeoExp extends DistributedExperiment {
 		storeResource("npLexicon", npLexicon);
 		
 		// //////////////////////////////////////////////////
-		// Read resources
+		// Read resources and create jobs
 		// //////////////////////////////////////////////////
 		
-		for (final Parameters params : resourceParams) {
-			final String type = params.get("type");
-			final String id = params.get("id");
-			if (getCreator(type) == null) {
-				throw new IllegalArgumentException("Invalid resource type: "
-						+ type);
-			} else {
-				storeResource(id, getCreator(type).create(params, this));
-			}
-			LOG.info("Created resources %s of type %s", id, type);
-		}
-		
-		// //////////////////////////////////////////////////
-		// Create jobs
-		// //////////////////////////////////////////////////
+		createResourcesAndJobs();
 		
-		for (final Parameters params : jobParams) {
-			addJob(createJob(params));
-		}
-		
-	}
-	
-	private Job createJob(Parameters params) throws FileNotFoundException {
-		final String type = params.get("type");
-		if (type.equals("train")) {
-			return createTrainJob(params);
-		} else if (type.equals("test")) {
-			return createTestJob(params);
-		} else if (type.equals("save")) {
-			return createSaveJob(params);
-		} else if (type.equals("log")) {
-			return createModelLoggingJob(params);
-		} else if ("init".equals(type)) {
-			return createModelInitJob(params);
-		} else {
-			throw new RuntimeException("Unsupported job type: " + type);
-		}
 	}
 	
-	private Job createModelInitJob(Parameters params)
-			throws FileNotFoundException {
-		final Model<Sentence, LogicalExpression> model = getResource(params
-				.get("model"));
+	private Job createModelInitJob(Parameters params,
+			final IResourceRepository repo) throws FileNotFoundException {
+		final Model<Sentence, LogicalExpression> model = repo
+				.getResource(params.get("model"));
 		final List<IModelInit<Sentence, LogicalExpression>> modelInits = ListUtils
 				.map(params.getSplit("init"),
 						new ListUtils.Mapper<String, IModelInit<Sentence, LogicalExpression>>() {
@@ -223,7 +192,7 @@ public class GeoExp extends DistributedExperiment {
 							@Override
 							public IModelInit<Sentence, LogicalExpression> process(
 									String obj) {
-								return getResource(obj);
+								return repo.getResource(obj);
 							}
 						});
 		
@@ -241,10 +210,11 @@ public class GeoExp extends DistributedExperiment {
 		};
 	}
 	
-	private Job createModelLoggingJob(Parameters params)
-			throws FileNotFoundException {
-		final IModelImmutable<?, ?> model = getResource(params.get("model"));
-		final ModelLogger modelLogger = getResource(params.get("logger"));
+	private Job createModelLoggingJob(Parameters params,
+			IResourceRepository repo) throws FileNotFoundException {
+		final IModelImmutable<?, ?> model = repo.getResource(params
+				.get("model"));
+		final ModelLogger modelLogger = repo.getResource(params.get("logger"));
 		return new Job(params.get("id"), new HashSet<String>(
 				params.getSplit("dep")), this,
 				createJobOutputFile(params.get("id")),
@@ -257,8 +227,8 @@ public class GeoExp extends DistributedExperiment {
 		};
 	}
 	
-	private Job createSaveJob(final Parameters params)
-			throws FileNotFoundException {
+	private Job createSaveJob(final Parameters params,
+			final IResourceRepository repo) throws FileNotFoundException {
 		return new Job(params.get("id"), new HashSet<String>(
 				params.getSplit("dep")), this,
 				createJobOutputFile(params.get("id")),
@@ -272,9 +242,14 @@ public class GeoExp extends DistributedExperiment {
 					LOG.info("Saving model (id=%s) to: %s",
 							params.get("model"), params.getAsFile("file")
 									.getAbsolutePath());
-					Model.write(
-							(Model<Sentence, LogicalExpression>) getResource(params
-									.get("model")), params.getAsFile("file"));
+					final Model<Sentence, LogicalExpression> model = (Model<Sentence, LogicalExpression>) repo
+							.getResource(params.get("model"));
+					if (params.contains("binary")
+							&& params.getAsBoolean("binary")) {
+						Model.writeBinary(model, params.getAsFile("file"));
+					} else {
+						Model.write(model, params.getAsFile("file"));
+					}
 				} catch (final IOException e) {
 					LOG.error("Failed to save model to: %s", params.get("file"));
 					throw new RuntimeException(e);
@@ -284,18 +259,19 @@ public class GeoExp extends DistributedExperiment {
 		};
 	}
 	
-	private Job createTestJob(Parameters params) throws FileNotFoundException {
+	private Job createTestJob(Parameters params, IResourceRepository repo)
+			throws FileNotFoundException {
 		
 		// Make the stats
 		final ExactMatchTestingStatistics<Sentence, LogicalExpression> stats = new ExactMatchTestingStatistics<Sentence, LogicalExpression>();
 		
 		// Get the tester
-		final Tester<Sentence, LogicalExpression> tester = getResource(params
-				.get("tester"));
+		final Tester<Sentence, LogicalExpression> tester = repo
+				.getResource(params.get("tester"));
 		
 		// The model to use
-		final Model<Sentence, LogicalExpression> model = getResource(params
-				.get("model"));
+		final Model<Sentence, LogicalExpression> model = repo
+				.getResource(params.get("model"));
 		
 		// Create and return the job
 		return new Job(params.get("id"), new HashSet<String>(
@@ -329,14 +305,15 @@ public class GeoExp extends DistributedExperiment {
 	}
 	
 	@SuppressWarnings("unchecked")
-	private Job createTrainJob(Parameters params) throws FileNotFoundException {
+	private Job createTrainJob(Parameters params, IResourceRepository repo)
+			throws FileNotFoundException {
 		// The model to use
-		final Model<Sentence, LogicalExpression> model = (Model<Sentence, LogicalExpression>) getResource(params
-				.get("model"));
+		final Model<Sentence, LogicalExpression> model = (Model<Sentence, LogicalExpression>) repo
+				.getResource(params.get("model"));
 		
 		// The learning
-		final ILearner<Sentence, SingleSentence, Model<Sentence, LogicalExpression>> learner = (ILearner<Sentence, SingleSentence, Model<Sentence, LogicalExpression>>) getResource(params
-				.get("learner"));
+		final ILearner<Sentence, SingleSentence, Model<Sentence, LogicalExpression>> learner = (ILearner<Sentence, SingleSentence, Model<Sentence, LogicalExpression>>) repo
+				.getResource(params.get("learner"));
 		
 		return new Job(params.get("id"), new HashSet<String>(
 				params.getSplit("dep")), this,
@@ -367,4 +344,23 @@ public class GeoExp extends DistributedExperiment {
 		};
 	}
 	
+	@Override
+	protected Job createJob(Parameters params, IResourceRepository repo)
+			throws FileNotFoundException {
+		final String type = params.get("type");
+		if (type.equals("train")) {
+			return createTrainJob(params, repo);
+		} else if (type.equals("test")) {
+			return createTestJob(params, repo);
+		} else if (type.equals("save")) {
+			return createSaveJob(params, repo);
+		} else if (type.equals("log")) {
+			return createModelLoggingJob(params, repo);
+		} else if ("init".equals(type)) {
+			return createModelInitJob(params, repo);
+		} else {
+			throw new RuntimeException("Unsupported job type: " + type);
+		}
+	}
+	
 }
@@ -18,6 +18,7 @@
  ******************************************************************************/
 package edu.uw.cs.lil.tiny.geoquery;
 
+import edu.uw.cs.lil.tiny.ccg.lexicon.TrieLexicon;
 import edu.uw.cs.lil.tiny.ccg.lexicon.factored.lambda.FactoredLexicon;
 import edu.uw.cs.lil.tiny.data.collection.CompositeDataCollection;
 import edu.uw.cs.lil.tiny.data.sentence.Sentence;
@@ -33,7 +34,9 @@ import edu.uw.cs.lil.tiny.genlex.ccg.unification.split.Splitter;
 import edu.uw.cs.lil.tiny.learn.validation.perceptron.ValidationPerceptron;
 import edu.uw.cs.lil.tiny.learn.validation.stocgrad.ValidationStocGrad;
 import edu.uw.cs.lil.tiny.mr.lambda.LogicalExpression;
+import edu.uw.cs.lil.tiny.mr.lambda.ccg.InternSemanticsTransformation;
 import edu.uw.cs.lil.tiny.mr.lambda.ccg.SimpleFullParseFilter;
+import edu.uw.cs.lil.tiny.parser.ccg.cky.agenda.AgendaCKYParser;
 import edu.uw.cs.lil.tiny.parser.ccg.cky.multi.MultiCKYParser;
 import edu.uw.cs.lil.tiny.parser.ccg.factoredlex.features.LexemeFeatureSet;
 import edu.uw.cs.lil.tiny.parser.ccg.factoredlex.features.LexicalTemplateFeatureSet;
@@ -68,7 +71,9 @@ public class GeoResourceRepo extends ResourceCreatorRepository {
 		registerResourceCreator(new ThatlessRelative.Creator());
 		registerResourceCreator(new PluralExistentialTypeShifting.Creator());
 		registerResourceCreator(new MultiCKYParser.Creator<LogicalExpression>());
+		registerResourceCreator(new AgendaCKYParser.Creator<LogicalExpression>());
 		registerResourceCreator(new SimpleFullParseFilter.Creator());
+		registerResourceCreator(new InternSemanticsTransformation.Creator());
 		
 		registerResourceCreator(new ExpLengthLexicalEntryScorer.Creator<LogicalExpression>());
 		registerResourceCreator(new LexicalFeaturesInit.Creator<Sentence, LogicalExpression>());
@@ -83,6 +88,7 @@ public class GeoResourceRepo extends ResourceCreatorRepository {
 		registerResourceCreator(new SkippingSensitiveLexicalEntryScorer.Creator<LogicalExpression>());
 		registerResourceCreator(new LogicalExpressionCoordinationFeatureSet.Creator<Sentence>());
 		registerResourceCreator(new FactoredLexicon.Creator());
+		registerResourceCreator(new TrieLexicon.Creator<LogicalExpression>());
 		registerResourceCreator(new SingleSentenceDataset.Creator());
 		registerResourceCreator(new TemplateSupervisedGenlex.Creator<SingleSentence>());
 		registerResourceCreator(new SingleSentenceDataset.Creator());
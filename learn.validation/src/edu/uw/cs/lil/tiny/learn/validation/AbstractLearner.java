@@ -18,10 +18,18 @@
  ******************************************************************************/
 package edu.uw.cs.lil.tiny.learn.validation;
 
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import edu.uw.cs.lil.tiny.base.hashvector.IHashVector;
 import edu.uw.cs.lil.tiny.ccg.categories.ICategoryServices;
 import edu.uw.cs.lil.tiny.ccg.lexicon.ILexicon;
 import edu.uw.cs.lil.tiny.ccg.lexicon.LexicalEntry;
@@ -49,6 +57,7 @@ import edu.uw.cs.utils.collections.ListUtils;
 import edu.uw.cs.utils.filter.IFilter;
 import edu.uw.cs.utils.log.ILogger;
 import edu.uw.cs.utils.log.LoggerFactory;
+import edu.uw.cs.utils.log.thread.LoggingThreadFactory;
 
 /**
  * Validation-based learner. See Artzi and Zettlemoyer 2013 for detailed
@@ -69,6 +78,19 @@ public abstract class AbstractLearner<SAMPLE extends IDataItem<?>, DI extends IL
 	public static final ILogger												LOG	= LoggerFactory
 																						.create(AbstractLearner.class);
 	
+	/**
+	 * Average the parameter updates of each mini-batch, instead of summing
+	 * them.
+	 */
+	private final boolean													averageBatchUpdates;
+	
+	/**
+	 * Number of samples processed in parallel against a fixed model. The model
+	 * is updated after each batch. If 1, the model is updated after each
+	 * sample.
+	 */
+	private final int														batchSize;
+	
 	private final ICategoryServices<MR>										categoryServices;
 	
 	/**
@@ -98,6 +120,11 @@ public abstract class AbstractLearner<SAMPLE extends IDataItem<?>, DI extends IL
 	 */
 	private final int														lexiconGenerationBeamSize;
 	
+	/**
+	 * Number of worker threads for mini-batch training.
+	 */
+	private final int														numThreads;
+	
 	private final IFilter<DI>												processingFilter;
 	
 	/**
@@ -132,7 +159,8 @@ public abstract class AbstractLearner<SAMPLE extends IDataItem<?>, DI extends IL
 			boolean conflateGenlexAndPrunedParses, boolean errorDriven,
 			ICategoryServices<MR> categoryServices,
 			ILexiconGenerator<DI, MR, IModelImmutable<SAMPLE, MR>> genlex,
-			IFilter<DI> processingFilter) {
+			IFilter<DI> processingFilter, int batchSize, int numThreads,
+			boolean averageBatchUpdates) {
 		this.epochs = numIterations;
 		this.trainingData = trainingData;
 		this.trainingDataDebug = trainingDataDebug;
@@ -144,143 +172,113 @@ public abstract class AbstractLearner<SAMPLE extends IDataItem<?>, DI extends IL
 		this.categoryServices = categoryServices;
 		this.genlex = genlex;
 		this.processingFilter = processingFilter;
+		this.batchSize = batchSize;
+		this.numThreads = numThreads;
+		this.averageBatchUpdates = averageBatchUpdates;
+		LOG.info(
+				"Init :: %s: batchSize=%d, numThreads=%d, averageBatchUpdates=%s",
+				AbstractLearner.class.getSimpleName(), batchSize, numThreads,
+				averageBatchUpdates);
 		this.stats = new OnlineLearningStats(numIterations, trainingData.size());
 	}
 	
 	@Override
 	public void train(Model<SAMPLE, MR> model) {
-		// Epochs
-		for (int epochNumber = 0; epochNumber < epochs; ++epochNumber) {
-			// Training epoch, iterate over all training samples
-			LOG.info("=========================");
-			LOG.info("Training epoch %d", epochNumber);
-			LOG.info("=========================");
-			int itemCounter = -1;
-			
-			// Iterating over training data
-			for (final DI dataItem : trainingData) {
-				// Process a single training sample
-				
-				// Record start time
-				final long startTime = System.currentTimeMillis();
+		// Workers for mini-batch training. The model is only modified between
+		// batches, so workers parse against a read-only model.
+		final ExecutorService executor = batchSize > 1 ? Executors
+				.newFixedThreadPool(numThreads, new LoggingThreadFactory())
+				: null;
+		try {
+			// Epochs
+			for (int epochNumber = 0; epochNumber < epochs; ++epochNumber) {
+				// Training epoch, iterate over all training samples
+				LOG.info("=========================");
+				LOG.info("Training epoch %d", epochNumber);
+				LOG.info("=========================");
+				int itemCounter = -1;
 				
-				// Log sample header
-				LOG.info("%d : ================== [%d]", ++itemCounter,
-						epochNumber);
-				LOG.info("Sample type: %s", dataItem.getClass().getSimpleName());
-				LOG.info("%s", dataItem);
-				
-				// Skip sample, if over the length limit
-				if (!processingFilter.isValid(dataItem)) {
-					LOG.info("Skipped training sample, due to processing filter");
-					continue;
-				}
-				
-				try {
-					// Data item model
-					final IDataItemModel<MR> dataItemModel = model
-							.createDataItemModel(dataItem.getSample());
-					
-					// ///////////////////////////
-					// Step I: Parse with current model. If we get a valid
-					// parse, update parameters.
-					// ///////////////////////////
-					
-					// Parse with current model and record some statistics
-					final PO parserOutput = parse(dataItem, dataItemModel);
-					stats.recordModelParsing(parserOutput.getParsingTime());
-					parserOutputLogger.log(parserOutput, dataItemModel);
-					
-					final List<? extends IDerivation<MR>> modelParses = parserOutput
-							.getAllParses();
-					final List<? extends IDerivation<MR>> bestModelParses = parserOutput
-							.getBestParses();
-					
-					LOG.info("Model parsing time: %.4fsec",
-							parserOutput.getParsingTime() / 1000.0);
-					LOG.info("Output is %s", parserOutput.isExact() ? "exact"
-							: "approximate");
-					LOG.info("Created %d model parses for training sample:",
-							modelParses.size());
-					for (final IDerivation<MR> parse : modelParses) {
-						logParse(dataItem, parse,
-								validate(dataItem, parse.getSemantics()), true,
-								dataItemModel);
-					}
-					
-					// Record if the best is the gold standard, if such debug
-					// information is available
-					if (bestModelParses.size() == 1
-							&& isGoldDebugCorrect(dataItem, bestModelParses
-									.get(0).getSemantics())) {
-						stats.goldIsOptimal(itemCounter, epochNumber);
-					}
-					
-					// Create a list of all valid parses
-					final List<? extends IDerivation<MR>> validParses = getValidParses(
-							parserOutput, dataItem);
-					
-					// If has a valid parse, call parameter update procedure
-					// and continue
-					if (!validParses.isEmpty() && errorDriven) {
-						parameterUpdate(dataItem, parserOutput, parserOutput,
-								model, itemCounter, epochNumber);
-						continue;
+				if (executor == null) {
+					// Iterating over training data, updating the model after
+					// each sample
+					for (final DI dataItem : trainingData) {
+						final ItemUpdate itemUpdate = processItem(
+								dataItem, model, ++itemCounter, epochNumber,
+								false);
+						if (itemUpdate != null) {
+							applyItemUpdate(itemUpdate, model, 1.0);
+						}
 					}
-					
-					// ///////////////////////////
-					// Step II: Generate new lexical entries, prune and update
-					// the model. Keep the parser output for Step III.
-					// ///////////////////////////
-					
-					if (genlex == null) {
-						// Skip the example if not doing lexicon learning
-						continue;
+				} else {
+					// Iterating over training data in mini-batches
+					final List<DI> batch = new ArrayList<DI>(batchSize);
+					for (final DI dataItem : trainingData) {
+						batch.add(dataItem);
+						if (batch.size() == batchSize) {
+							processBatch(batch, itemCounter + 1, model,
+									epochNumber, executor);
+							itemCounter += batch.size();
+							batch.clear();
+						}
 					}
-					
-					final PO generationParserOutput = lexicalInduction(
-							dataItem, dataItemModel, model, itemCounter,
-							epochNumber);
-					
-					// ///////////////////////////
-					// Step III: Update parameters
-					// ///////////////////////////
-					
-					if (conflateGenlexAndPrunedParses
-							&& generationParserOutput != null) {
-						parameterUpdate(dataItem, parserOutput,
-								generationParserOutput, model, itemCounter,
-								epochNumber);
-					} else {
-						final PO prunedParserOutput = parse(dataItem,
-								createPruningFilter(dataItem), dataItemModel);
-						LOG.info("Constrained parsing time: %.4fsec",
-								prunedParserOutput.getParsingTime() / 1000.0);
-						parameterUpdate(dataItem, parserOutput,
-								prunedParserOutput, model, itemCounter,
-								epochNumber);
+					if (!batch.isEmpty()) {
+						processBatch(batch, itemCounter + 1, model,
+								epochNumber, executor);
 					}
-					
-				} finally {
-					// Record statistics
-					stats.processed(itemCounter, epochNumber);
-					LOG.info("Total sample handling time: %.4fsec",
-							(System.currentTimeMillis() - startTime) / 1000.0);
 				}
+				
+				// Output epoch statistics
+				LOG.info("Epoch stats:");
+				LOG.info(stats);
+				
+				// Intermediate testing with exact match statistics only
+				if (tester != null) {
+					LOG.info("Testing:");
+					final ExactMatchTestingStatistics<SAMPLE, MR> testingStats = new ExactMatchTestingStatistics<SAMPLE, MR>();
+					tester.test(model, testingStats);
+					LOG.info("%s", testingStats);
+				}
+				
 			}
-			
-			// Output epoch statistics
-			LOG.info("Epoch stats:");
-			LOG.info(stats);
-			
-			// Intermediate testing with exact match statistics only
-			if (tester != null) {
-				LOG.info("Testing:");
-				final ExactMatchTestingStatistics<SAMPLE, MR> testingStats = new ExactMatchTestingStatistics<SAMPLE, MR>();
-				tester.test(model, testingStats);
-				LOG.info("%s", testingStats);
+		} finally {
+			if (executor != null) {
+				executor.shutdownNow();
 			}
-			
+		}
+	}
+	
+	/**
+	 * Adds the given lexical entries to the model.
+	 */
+	private void addLexicalEntries(List<LexicalEntry<MR>> entries,
+			Model<SAMPLE, MR> model, int dataItemNumber, int epochNumber) {
+		int newLexicalEntries = 0;
+		for (final LexicalEntry<MR> entry : entries) {
+			if (model.addLexEntry(entry)) {
+				++newLexicalEntries;
+				LOG.info("Added LexicalEntry to model: %s [%s]", entry, model
+						.getTheta().printValues(model.computeFeatures(entry)));
+			}
+		}
+		// Record statistics
+		stats.numNewLexicalEntries(dataItemNumber, epochNumber,
+				newLexicalEntries);
+	}
+	
+	/**
+	 * Applies the parameter update of a single sample to the model.
+	 * 
+	 * @param scale
+	 *            Scaling factor for the parameter update.
+	 */
+	private void applyItemUpdate(ItemUpdate itemUpdate,
+			Model<SAMPLE, MR> model, double scale) {
+		if (itemUpdate.update != null) {
+			if (scale != 1.0) {
+				itemUpdate.update.multiplyBy(scale);
+			}
+			applyParameterUpdate(itemUpdate.update, model,
+					itemUpdate.itemNumber, itemUpdate.epochNumber);
 		}
 	}
 	
@@ -330,9 +328,15 @@ public abstract class AbstractLearner<SAMPLE extends IDataItem<?>, DI extends IL
 		return parses;
 	}
 	
+	/**
+	 * @param learnedEntries
+	 *            If not null, the learned lexical entries are added to this
+	 *            list instead of to the model.
+	 */
 	private PO lexicalInduction(final DI dataItem,
 			IDataItemModel<MR> dataItemModel, Model<SAMPLE, MR> model,
-			int dataItemNumber, int epochNumber) {
+			int dataItemNumber, int epochNumber,
+			List<LexicalEntry<MR>> learnedEntries) {
 		// Generate lexical entries
 		final ILexicon<MR> generatedLexicon = genlex.generate(dataItem, model,
 				categoryServices);
@@ -390,41 +394,33 @@ public abstract class AbstractLearner<SAMPLE extends IDataItem<?>, DI extends IL
 								parse.getAverageMaxFeatureVector()));
 			}
 			
-			// Update the model's lexicon with generated lexical
-			// entries from the max scoring valid generation parses
-			int newLexicalEntries = 0;
+			// Collect generated lexical entries from the max scoring valid
+			// generation parses
+			final List<LexicalEntry<MR>> newEntries = new LinkedList<LexicalEntry<MR>>();
 			for (final IDerivation<MR> parse : bestGenerationParses) {
 				for (final LexicalEntry<MR> entry : parse
 						.getMaxLexicalEntries()) {
-					if (model.addLexEntry(entry
-							.cloneWithDifferentOrigin(Origin.LEARNED))) {
-						++newLexicalEntries;
-						LOG.info(
-								"Added LexicalEntry to model: %s [%s]",
-								entry,
-								model.getTheta().printValues(
-										model.computeFeatures(entry)));
-					}
+					newEntries.add(entry
+							.cloneWithDifferentOrigin(Origin.LEARNED));
 					// Lexical generators might link related lexical
 					// entries, so if we add the original one, we
 					// should also add all its linked ones
 					for (final LexicalEntry<MR> linkedEntry : entry
 							.getLinkedEntries()) {
-						if (model.addLexEntry(linkedEntry
-								.cloneWithDifferentOrigin(Origin.LEARNED))) {
-							++newLexicalEntries;
-							LOG.info(
-									"Added (linked) LexicalEntry to model: %s [%s]",
-									linkedEntry,
-									model.getTheta().printValues(
-											model.computeFeatures(linkedEntry)));
-						}
+						newEntries.add(linkedEntry
+								.cloneWithDifferentOrigin(Origin.LEARNED));
 					}
 				}
 			}
-			// Record statistics
-			stats.numNewLexicalEntries(dataItemNumber, epochNumber,
-					newLexicalEntries);
+			
+			// Update the model's lexicon, or defer the update to the end of
+			// the mini-batch
+			if (learnedEntries == null) {
+				addLexicalEntries(newEntries, model, dataItemNumber,
+						epochNumber);
+			} else {
+				learnedEntries.addAll(newEntries);
+			}
 			
 			return parserOutput;
 		} else {
@@ -434,6 +430,255 @@ public abstract class AbstractLearner<SAMPLE extends IDataItem<?>, DI extends IL
 		}
 	}
 	
+	/**
+	 * Processes a mini-batch of samples in parallel against the current model,
+	 * and then applies their lexical entries and parameter updates in the
+	 * order of the samples, so the result doesn't depend on scheduling.
+	 * Samples that learned lexical entries compute their parameter update in a
+	 * second parallel pass, after all the entries of the batch were added to
+	 * the model.
+	 */
+	private void processBatch(List<DI> batch, int firstItemNumber,
+			final Model<SAMPLE, MR> model, final int epochNumber,
+			ExecutorService executor) {
+		final List<Callable<ItemUpdate>> tasks = new ArrayList<Callable<ItemUpdate>>(
+				batch.size());
+		int itemNumber = firstItemNumber;
+		for (final DI dataItem : batch) {
+			final int itemCounter = itemNumber++;
+			tasks.add(new Callable<ItemUpdate>() {
+				@Override
+				public ItemUpdate call() throws Exception {
+					return processItem(dataItem, model, itemCounter,
+							epochNumber, true);
+				}
+			});
+		}
+		
+		final List<ItemUpdate> itemUpdates = invokeAll(tasks, executor);
+		
+		// Add the learned lexical entries to the model
+		final List<Callable<IHashVector>> deferredTasks = new ArrayList<Callable<IHashVector>>();
+		final List<ItemUpdate> deferredUpdates = new ArrayList<ItemUpdate>();
+		for (final ItemUpdate itemUpdate : itemUpdates) {
+			if (itemUpdate != null && !itemUpdate.newEntries.isEmpty()) {
+				addLexicalEntries(itemUpdate.newEntries, model,
+						itemUpdate.itemNumber, itemUpdate.epochNumber);
+			}
+			if (itemUpdate != null && itemUpdate.isDeferred()) {
+				deferredUpdates.add(itemUpdate);
+				deferredTasks.add(new Callable<IHashVector>() {
+					@Override
+					public IHashVector call() throws Exception {
+						return updateParameters(itemUpdate, model);
+					}
+				});
+			}
+		}
+		
+		// Compute the deferred parameter updates against the updated model
+		final Iterator<IHashVector> deferredIterator = invokeAll(
+				deferredTasks, executor).iterator();
+		for (final ItemUpdate itemUpdate : deferredUpdates) {
+			itemUpdate.update = deferredIterator.next();
+		}
+		
+		// Merge the parameter updates into the model
+		int numUpdates = 0;
+		for (final ItemUpdate itemUpdate : itemUpdates) {
+			if (itemUpdate != null && itemUpdate.update != null) {
+				++numUpdates;
+			}
+		}
+		final double scale = averageBatchUpdates && numUpdates > 0 ? 1.0 / numUpdates
+				: 1.0;
+		LOG.info("Merging mini-batch: %d samples, %d updates, scale=%f",
+				batch.size(), numUpdates, scale);
+		for (final ItemUpdate itemUpdate : itemUpdates) {
+			if (itemUpdate != null) {
+				applyItemUpdate(itemUpdate, model, scale);
+			}
+		}
+	}
+	
+	/**
+	 * Runs the tasks and collects their results in the order of the tasks.
+	 */
+	private <T> List<T> invokeAll(List<Callable<T>> tasks,
+			ExecutorService executor) {
+		final List<T> results = new ArrayList<T>(tasks.size());
+		try {
+			for (final Future<T> future : executor.invokeAll(tasks)) {
+				results.add(future.get());
+			}
+		} catch (final InterruptedException e) {
+			throw new RuntimeException(e);
+		} catch (final ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		}
+		return results;
+	}
+	
+	/**
+	 * Processes a single training sample.
+	 * 
+	 * @param deferLexicon
+	 *            Collect learned lexical entries in the returned object,
+	 *            instead of adding them to the model. If any entries are
+	 *            learned, the parameter update is deferred until they are
+	 *            added to the model (see
+	 *            {@link #updateParameters(ItemUpdate, Model)}).
+	 * @return The parameter update and learned lexical entries of the sample,
+	 *         to be applied by the caller. null if the sample was skipped.
+	 */
+	private ItemUpdate processItem(DI dataItem, Model<SAMPLE, MR> model,
+			int itemCounter, int epochNumber, boolean deferLexicon) {
+		// Record start time
+		final long startTime = System.currentTimeMillis();
+		
+		// Log sample header
+		LOG.info("%d : ================== [%d]", itemCounter, epochNumber);
+		LOG.info("Sample type: %s", dataItem.getClass().getSimpleName());
+		LOG.info("%s", dataItem);
+		
+		// Skip sample, if over the length limit
+		if (!processingFilter.isValid(dataItem)) {
+			LOG.info("Skipped training sample, due to processing filter");
+			return null;
+		}
+		
+		try {
+			// Data item model
+			final IDataItemModel<MR> dataItemModel = model
+					.createDataItemModel(dataItem.getSample());
+			
+			// ///////////////////////////
+			// Step I: Parse with current model. If we get a valid
+			// parse, update parameters.
+			// ///////////////////////////
+			
+			// Parse with current model and record some statistics
+			final PO parserOutput = parse(dataItem, dataItemModel);
+			stats.recordModelParsing(parserOutput.getParsingTime());
+			parserOutputLogger.log(parserOutput, dataItemModel);
+			
+			final List<? extends IDerivation<MR>> modelParses = parserOutput
+					.getAllParses();
+			final List<? extends IDerivation<MR>> bestModelParses = parserOutput
+					.getBestParses();
+			
+			LOG.info("Model parsing time: %.4fsec",
+					parserOutput.getParsingTime() / 1000.0);
+			LOG.info("Output is %s", parserOutput.isExact() ? "exact"
+					: "approximate");
+			LOG.info("Created %d model parses for training sample:",
+					modelParses.size());
+			for (final IDerivation<MR> parse : modelParses) {
+				logParse(dataItem, parse,
+						validate(dataItem, parse.getSemantics()), true,
+						dataItemModel);
+			}
+			
+			// Record if the best is the gold standard, if such debug
+			// information is available
+			if (bestModelParses.size() == 1
+					&& isGoldDebugCorrect(dataItem, bestModelParses.get(0)
+							.getSemantics())) {
+				stats.goldIsOptimal(itemCounter, epochNumber);
+			}
+			
+			// Create a list of all valid parses
+			final List<? extends IDerivation<MR>> validParses = getValidParses(
+					parserOutput, dataItem);
+			
+			// If has a valid parse, call parameter update procedure
+			// and continue
+			final List<LexicalEntry<MR>> learnedEntries = new LinkedList<LexicalEntry<MR>>();
+			if (!validParses.isEmpty() && errorDriven) {
+				return new ItemUpdate(dataItem, computeParameterUpdate(
+						dataItem, parserOutput, parserOutput, model,
+						itemCounter, epochNumber), learnedEntries, itemCounter,
+						epochNumber);
+			}
+			
+			// ///////////////////////////
+			// Step II: Generate new lexical entries, prune and update
+			// the model. Keep the parser output for Step III.
+			// ///////////////////////////
+			
+			if (genlex == null) {
+				// Skip the example if not doing lexicon learning
+				return null;
+			}
+			
+			final int lexiconSize = model.getLexicon().size();
+			final PO generationParserOutput = lexicalInduction(dataItem,
+					dataItemModel, model, itemCounter, epochNumber,
+					deferLexicon ? learnedEntries : null);
+			
+			// Adding entries to the model lexicon might update the model
+			// parameters. In this case, use a new data item model, so the
+			// parser won't re-use charts scored before the update.
+			final IDataItemModel<MR> updatedDataItemModel = model.getLexicon()
+					.size() == lexiconSize ? dataItemModel : model
+					.createDataItemModel(dataItem.getSample());
+			
+			// ///////////////////////////
+			// Step III: Update parameters
+			// ///////////////////////////
+			
+			final ItemUpdate itemUpdate = new ItemUpdate(dataItem,
+					parserOutput, generationParserOutput, learnedEntries,
+					itemCounter, epochNumber);
+			if (learnedEntries.isEmpty()) {
+				itemUpdate.update = updateParameters(itemUpdate,
+						updatedDataItemModel, model);
+			}
+			return itemUpdate;
+		} finally {
+			// Record statistics
+			stats.processed(itemCounter, epochNumber);
+			LOG.info("Total sample handling time: %.4fsec",
+					(System.currentTimeMillis() - startTime) / 1000.0);
+		}
+	}
+	
+	/**
+	 * Computes the parameter update of a sample that was deferred until its
+	 * learned lexical entries were added to the model.
+	 */
+	private IHashVector updateParameters(ItemUpdate itemUpdate,
+			Model<SAMPLE, MR> model) {
+		final IHashVector update = updateParameters(itemUpdate,
+				model.createDataItemModel(itemUpdate.dataItem.getSample()),
+				model);
+		LOG.info("%d : Deferred update: %s", itemUpdate.itemNumber, update);
+		return update;
+	}
+	
+	/**
+	 * Step III: compute the parameter update. All lexical entries used by the
+	 * parser outputs must already be in the model.
+	 */
+	private IHashVector updateParameters(ItemUpdate itemUpdate,
+			IDataItemModel<MR> dataItemModel, Model<SAMPLE, MR> model) {
+		final DI dataItem = itemUpdate.dataItem;
+		if (conflateGenlexAndPrunedParses
+				&& itemUpdate.generationParserOutput != null) {
+			return computeParameterUpdate(dataItem, itemUpdate.parserOutput,
+					itemUpdate.generationParserOutput, model,
+					itemUpdate.itemNumber, itemUpdate.epochNumber);
+		} else {
+			final PO prunedParserOutput = parse(dataItem,
+					createPruningFilter(dataItem), dataItemModel);
+			LOG.info("Constrained parsing time: %.4fsec",
+					prunedParserOutput.getParsingTime() / 1000.0);
+			return computeParameterUpdate(dataItem, itemUpdate.parserOutput,
+					prunedParserOutput, model, itemUpdate.itemNumber,
+					itemUpdate.epochNumber);
+		}
+	}
+	
 	protected boolean isGoldDebugCorrect(DI dataItem, MR label) {
 		if (trainingDataDebug.containsKey(dataItem)) {
 			return trainingDataDebug.get(dataItem).equals(label);
@@ -475,16 +720,29 @@ public abstract class AbstractLearner<SAMPLE extends IDataItem<?>, DI extends IL
 	}
 	
 	/**
-	 * Parameter update method.
+	 * Applies a parameter update computed by
+	 * {@link #computeParameterUpdate(IDataItem, IParserOutput, IParserOutput, Model, int, int)}
+	 * to the model.
+	 * 
+	 * @param update
+	 * @param model
+	 */
+	protected abstract void applyParameterUpdate(IHashVector update,
+			Model<SAMPLE, MR> model, int itemCounter, int epochNumber);
+	
+	/**
+	 * Parameter update method. Computes the update without modifying the
+	 * model, so it may be called concurrently for different samples.
 	 * 
 	 * @param dataItem
 	 * @param realOutput
 	 * @param goodOutput
 	 * @param model
+	 * @return The update, or null if no update is required.
 	 */
-	protected abstract void parameterUpdate(DI dataItem, PO realOutput,
-			PO goodOutput, Model<SAMPLE, MR> model, int itemCounter,
-			int epochNumber);
+	protected abstract IHashVector computeParameterUpdate(DI dataItem,
+			PO realOutput, PO goodOutput, Model<SAMPLE, MR> model,
+			int itemCounter, int epochNumber);
 	
 	/**
 	 * Unconstrained parsing method.
@@ -530,4 +788,43 @@ public abstract class AbstractLearner<SAMPLE extends IDataItem<?>, DI extends IL
 	 * @return
 	 */
 	abstract protected boolean validate(DI dataItem, MR hypothesis);
+	
+	/**
+	 * Lexical entries and parameter update computed for a single sample. The
+	 * update is deferred if the sample learned lexical entries that are not in
+	 * the model yet.
+	 * 
+	 * @author Yoav Artzi
+	 */
+	private class ItemUpdate {
+		private final DI						dataItem;
+		private final int						epochNumber;
+		private final PO						generationParserOutput;
+		private final int						itemNumber;
+		private final List<LexicalEntry<MR>>	newEntries;
+		private final PO						parserOutput;
+		private IHashVector						update	= null;
+		
+		public ItemUpdate(DI dataItem, IHashVector update,
+				List<LexicalEntry<MR>> newEntries, int itemNumber,
+				int epochNumber) {
+			this(dataItem, null, null, newEntries, itemNumber, epochNumber);
+			this.update = update;
+		}
+		
+		public ItemUpdate(DI dataItem, PO parserOutput,
+				PO generationParserOutput, List<LexicalEntry<MR>> newEntries,
+				int itemNumber, int epochNumber) {
+			this.dataItem = dataItem;
+			this.parserOutput = parserOutput;
+			this.generationParserOutput = generationParserOutput;
+			this.newEntries = newEntries;
+			this.itemNumber = itemNumber;
+			this.epochNumber = epochNumber;
+		}
+		
+		public boolean isDeferred() {
+			return update == null && !newEntries.isEmpty();
+		}
+	}
 }
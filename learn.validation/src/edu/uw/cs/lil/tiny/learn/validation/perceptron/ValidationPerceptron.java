@@ -96,11 +96,13 @@ public class ValidationPerceptron<SAMPLE extends IDataItem<?>, DI extends ILabel
 			ICategoryServices<MR> categoryServices,
 			ILexiconGenerator<DI, MR, IModelImmutable<SAMPLE, MR>> genlex,
 			double margin, boolean hardUpdates, IValidator<DI, MR> validator,
-			IFilter<DI> processingFilter) {
+			IFilter<DI> processingFilter, int batchSize, int numThreads,
+			boolean averageBatchUpdates) {
 		super(numIterations, trainingData, trainingDataDebug,
 				lexiconGenerationBeamSize, parserOutputLogger, tester,
 				conflateGenlexAndPrunedParses, errorDriven, categoryServices,
-				genlex, processingFilter);
+				genlex, processingFilter, batchSize, numThreads,
+				averageBatchUpdates);
 		this.margin = margin;
 		this.parser = parser;
 		this.hardUpdates = hardUpdates;
@@ -264,9 +266,18 @@ public class ValidationPerceptron<SAMPLE extends IDataItem<?>, DI extends ILabel
 	}
 	
 	@Override
-	protected void parameterUpdate(DI dataItem, IParserOutput<MR> realOutput,
-			IParserOutput<MR> goodOutput, Model<SAMPLE, MR> model,
-			int itemCounter, int epochNumber) {
+	protected void applyParameterUpdate(IHashVector update,
+			Model<SAMPLE, MR> model, int itemCounter, int epochNumber) {
+		// Update the parameters vector
+		LOG.info("Update: %s", update);
+		update.addTimesInto(1.0, model.getTheta());
+		stats.triggeredUpdate(itemCounter, epochNumber);
+	}
+	
+	@Override
+	protected IHashVector computeParameterUpdate(DI dataItem,
+			IParserOutput<MR> realOutput, IParserOutput<MR> goodOutput,
+			Model<SAMPLE, MR> model, int itemCounter, int epochNumber) {
 		
 		final IDataItemModel<MR> dataItemModel = model
 				.createDataItemModel(dataItem.getSample());
@@ -291,7 +302,7 @@ public class ValidationPerceptron<SAMPLE extends IDataItem<?>, DI extends ILabel
 		// Skip update if there are no valid or invalid parses
 		if (validParses.isEmpty() || invalidParses.isEmpty()) {
 			LOG.info("No valid/invalid parses -- skipping");
-			return;
+			return null;
 		}
 		
 		// Construct margin violating sets
@@ -305,7 +316,7 @@ public class ValidationPerceptron<SAMPLE extends IDataItem<?>, DI extends ILabel
 				violatingValidParses.size(), violatingInvalidParses.size());
 		if (violatingValidParses.isEmpty()) {
 			LOG.info("There are no violating valid/invalid parses -- skipping");
-			return;
+			return null;
 		}
 		LOG.info("Violating valid parses: ");
 		for (final IDerivation<MR> pair : violatingValidParses) {
@@ -317,14 +328,8 @@ public class ValidationPerceptron<SAMPLE extends IDataItem<?>, DI extends ILabel
 		}
 		
 		// Construct weight update vector
-		final IHashVector update = constructUpdate(violatingValidParses,
-				violatingInvalidParses, model);
-		
-		// Update the parameters vector
-		LOG.info("Update: %s", update);
-		update.addTimesInto(1.0, model.getTheta());
-		stats.triggeredUpdate(itemCounter, epochNumber);
-		
+		return constructUpdate(violatingValidParses, violatingInvalidParses,
+				model);
 	}
 	
 	@Override
@@ -359,6 +364,18 @@ public class ValidationPerceptron<SAMPLE extends IDataItem<?>, DI extends ILabel
 	 */
 	public static class Builder<SAMPLE extends IDataItem<?>, DI extends ILabeledDataItem<SAMPLE, ?>, MR> {
 		
+		/**
+		 * Average the parameter updates of each mini-batch, instead of summing
+		 * them.
+		 */
+		private boolean													averageBatchUpdates				= false;
+		
+		/**
+		 * Number of samples to process in parallel before updating the model.
+		 * If 1, the model is updated after each sample.
+		 */
+		private int														batchSize						= 1;
+		
 		/**
 		 * Required for lexicon learning.
 		 */
@@ -395,6 +412,13 @@ public class ValidationPerceptron<SAMPLE extends IDataItem<?>, DI extends ILabel
 		/** Number of training iterations */
 		private int														numIterations					= 4;
 		
+		/**
+		 * Number of worker threads for mini-batch training.
+		 */
+		private int														numThreads						= Runtime
+																										.getRuntime()
+																										.availableProcessors();
+		
 		private final IParser<SAMPLE, MR>								parser;
 		private IOutputLogger<MR>										parserOutputLogger				= new IOutputLogger<MR>() {
 																											
@@ -443,7 +467,19 @@ public class ValidationPerceptron<SAMPLE extends IDataItem<?>, DI extends ILabel
 					parser, parserOutputLogger, tester,
 					conflateGenlexAndPrunedParses, errorDriven,
 					categoryServices, genlex, margin, hardUpdates, validator,
-					processingFilter);
+					processingFilter, batchSize, numThreads,
+					averageBatchUpdates);
+		}
+		
+		public Builder<SAMPLE, DI, MR> setAverageBatchUpdates(
+				boolean averageBatchUpdates) {
+			this.averageBatchUpdates = averageBatchUpdates;
+			return this;
+		}
+		
+		public Builder<SAMPLE, DI, MR> setBatchSize(int batchSize) {
+			this.batchSize = batchSize;
+			return this;
 		}
 		
 		public Builder<SAMPLE, DI, MR> setConflateGenlexAndPrunedParses(
@@ -487,6 +523,11 @@ public class ValidationPerceptron<SAMPLE extends IDataItem<?>, DI extends ILabel
 			return this;
 		}
 		
+		public Builder<SAMPLE, DI, MR> setNumThreads(int numThreads) {
+			this.numThreads = numThreads;
+			return this;
+		}
+		
 		public Builder<SAMPLE, DI, MR> setParserOutputLogger(
 				IOutputLogger<MR> parserOutputLogger) {
 			this.parserOutputLogger = parserOutputLogger;
@@ -590,6 +631,19 @@ public class ValidationPerceptron<SAMPLE extends IDataItem<?>, DI extends ILabel
 						.get("iter")));
 			}
 			
+			if (params.contains("batch")) {
+				builder.setBatchSize(Integer.valueOf(params.get("batch")));
+			}
+			
+			if (params.contains("threads")) {
+				builder.setNumThreads(Integer.valueOf(params.get("threads")));
+			}
+			
+			if (params.contains("average")) {
+				builder.setAverageBatchUpdates("true".equals(params
+						.get("average")));
+			}
+			
 			return builder.build();
 		}
 		
@@ -625,6 +679,16 @@ public class ValidationPerceptron<SAMPLE extends IDataItem<?>, DI extends ILabel
 							"errorDriven",
 							"boolean",
 							"Error driven lexical generation, if the can generate a valid parse, skip lexical induction")
+					.addParam(
+							"batch",
+							"int",
+							"Mini-batch size. Samples in a batch are processed in parallel against the same model, and the model is updated after each batch (default: 1, update after each sample)")
+					.addParam("threads", "int",
+							"Number of worker threads for mini-batch training (default: number of processors)")
+					.addParam(
+							"average",
+							"boolean",
+							"Average the updates of each mini-batch instead of summing them. Options: true, false. Default: false")
 					.build();
 		}
 		
@@ -85,11 +85,13 @@ public class ValidationStocGrad<SAMPLE extends IDataItem<SAMPLE>, DI extends ILa
 			boolean conflateGenlexAndPrunedParses, boolean errorDriven,
 			ICategoryServices<MR> categoryServices,
 			ILexiconGenerator<DI, MR, IModelImmutable<SAMPLE, MR>> genlex,
-			IFilter<DI> processingFilter) {
+			IFilter<DI> processingFilter, int batchSize, int numThreads,
+			boolean averageBatchUpdates) {
 		super(numIterations, trainingData, trainingDataDebug,
 				lexiconGenerationBeamSize, parserOutputLogger, tester,
 				conflateGenlexAndPrunedParses, errorDriven, categoryServices,
-				genlex, processingFilter);
+				genlex, processingFilter, batchSize, numThreads,
+				averageBatchUpdates);
 		this.parser = parser;
 		this.alpha0 = alpha0;
 		this.c = c;
@@ -114,7 +116,37 @@ public class ValidationStocGrad<SAMPLE extends IDataItem<SAMPLE>, DI extends ILa
 	}
 	
 	@Override
-	protected void parameterUpdate(final DI dataItem,
+	protected void applyParameterUpdate(IHashVector update,
+			Model<SAMPLE, MR> model, int itemCounter, int epochNumber) {
+		// Scale the update
+		final double scale = alpha0 / (1.0 + c * stocGradientNumUpdates);
+		update.multiplyBy(scale);
+		update.dropNoise();
+		stocGradientNumUpdates++;
+		LOG.info("Scale: %f", scale);
+		if (update.size() == 0) {
+			LOG.info("No update");
+		} else {
+			LOG.info("Update: %s", update);
+			stats.triggeredUpdate(itemCounter, epochNumber);
+		}
+		
+		// Check for NaNs and super large updates
+		if (update.isBad()) {
+			LOG.error("Bad update: %s -- features:", update);
+			LOG.error(model.getTheta().printValues(update));
+			throw new IllegalStateException("bad update");
+		} else {
+			if (!update.valuesInRange(-100, 100)) {
+				LOG.warn("Large update");
+			}
+			// Do the update
+			update.addTimesInto(1, model.getTheta());
+		}
+	}
+	
+	@Override
+	protected IHashVector computeParameterUpdate(final DI dataItem,
 			IGraphParserOutput<MR> realOutput,
 			IGraphParserOutput<MR> goodOutput, Model<SAMPLE, MR> model,
 			int itemCounter, int epochNumber) {
@@ -123,7 +155,7 @@ public class ValidationStocGrad<SAMPLE extends IDataItem<SAMPLE>, DI extends ILa
 				|| goodOutput.getAllParses().isEmpty()) {
 			// Case not parses in one of the two outputs, skip the update
 			LOG.info("Skipping parameter update, no parses");
-			return;
+			return null;
 		}
 		
 		// Create the update
@@ -142,7 +174,7 @@ public class ValidationStocGrad<SAMPLE extends IDataItem<SAMPLE>, DI extends ILa
 		if (logConditionedNorm == Double.NEGATIVE_INFINITY) {
 			// No positive update, skip the update.
 			LOG.info("No positive update");
-			return;
+			return null;
 		} else {
 			// Case have complete valid parses.
 			final IHashVector expectedFeatures = goodOutput
@@ -183,39 +215,12 @@ public class ValidationStocGrad<SAMPLE extends IDataItem<SAMPLE>, DI extends ILa
 			LOG.info("Negative update: %s", expectedFeatures);
 		}
 		
-		// Step C: Apply the update
-		
 		// Validate the update
 		if (!model.isValidWeightVector(update)) {
 			throw new IllegalStateException("invalid update: " + update);
 		}
 		
-		// Scale the update
-		final double scale = alpha0 / (1.0 + c * stocGradientNumUpdates);
-		update.multiplyBy(scale);
-		update.dropNoise();
-		stocGradientNumUpdates++;
-		LOG.info("Scale: %f", scale);
-		if (update.size() == 0) {
-			LOG.info("No update");
-		} else {
-			LOG.info("Update: %s", update);
-			stats.triggeredUpdate(itemCounter, epochNumber);
-		}
-		
-		// Check for NaNs and super large updates
-		if (update.isBad()) {
-			LOG.error("Bad update: %s -- log-norm: %.4f -- features:", update,
-					logNorm);
-			LOG.error(model.getTheta().printValues(update));
-			throw new IllegalStateException("bad update");
-		} else {
-			if (!update.valuesInRange(-100, 100)) {
-				LOG.warn("Large update");
-			}
-			// Do the update
-			update.addTimesInto(1, model.getTheta());
-		}
+		return update;
 	}
 	
 	@Override
@@ -251,6 +256,18 @@ public class ValidationStocGrad<SAMPLE extends IDataItem<SAMPLE>, DI extends ILa
 		 */
 		private double													alpha0							= 1.0;
 		
+		/**
+		 * Average the parameter updates of each mini-batch, instead of summing
+		 * them.
+		 */
+		private boolean													averageBatchUpdates				= false;
+		
+		/**
+		 * Number of samples to process in parallel before updating the model.
+		 * If 1, the model is updated after each sample.
+		 */
+		private int														batchSize						= 1;
+		
 		/**
 		 * Used to define the temperature of parameter updates. temp =
 		 * alpha_0/(1+c*tot_number_of_training_instances)
@@ -301,6 +318,13 @@ public class ValidationStocGrad<SAMPLE extends IDataItem<SAMPLE>, DI extends ILa
 		/** Number of training iterations */
 		private int														numIterations					= 4;
 		
+		/**
+		 * Number of worker threads for mini-batch training.
+		 */
+		private int														numThreads						= Runtime
+																										.getRuntime()
+																										.availableProcessors();
+		
 		private final IGraphParser<SAMPLE, MR>							parser;
 		
 		private IOutputLogger<MR>										parserOutputLogger				= new IOutputLogger<MR>() {
@@ -338,7 +362,8 @@ public class ValidationStocGrad<SAMPLE extends IDataItem<SAMPLE>, DI extends ILa
 					lexiconGenerationBeamSize, parser, parserOutputLogger,
 					alpha0, c, validator, tester,
 					conflateGenlexAndPrunedParses, errorDriven,
-					categoryServices, genlex, filter);
+					categoryServices, genlex, filter, batchSize, numThreads,
+					averageBatchUpdates);
 		}
 		
 		public Builder<SAMPLE, DI, MR> setAlpha0(double alpha0) {
@@ -346,6 +371,17 @@ public class ValidationStocGrad<SAMPLE extends IDataItem<SAMPLE>, DI extends ILa
 			return this;
 		}
 		
+		public Builder<SAMPLE, DI, MR> setAverageBatchUpdates(
+				boolean averageBatchUpdates) {
+			this.averageBatchUpdates = averageBatchUpdates;
+			return this;
+		}
+		
+		public Builder<SAMPLE, DI, MR> setBatchSize(int batchSize) {
+			this.batchSize = batchSize;
+			return this;
+		}
+		
 		public Builder<SAMPLE, DI, MR> setC(double c) {
 			this.c = c;
 			return this;
@@ -381,6 +417,11 @@ public class ValidationStocGrad<SAMPLE extends IDataItem<SAMPLE>, DI extends ILa
 			return this;
 		}
 		
+		public Builder<SAMPLE, DI, MR> setNumThreads(int numThreads) {
+			this.numThreads = numThreads;
+			return this;
+		}
+		
 		public Builder<SAMPLE, DI, MR> setParserOutputLogger(
 				IOutputLogger<MR> parserOutputLogger) {
 			this.parserOutputLogger = parserOutputLogger;
@@ -483,6 +524,19 @@ public class ValidationStocGrad<SAMPLE extends IDataItem<SAMPLE>, DI extends ILa
 						.get("conflateParses")));
 			}
 			
+			if (params.contains("batch")) {
+				builder.setBatchSize(Integer.valueOf(params.get("batch")));
+			}
+			
+			if (params.contains("threads")) {
+				builder.setNumThreads(Integer.valueOf(params.get("threads")));
+			}
+			
+			if (params.contains("average")) {
+				builder.setAverageBatchUpdates("true".equals(params
+						.get("average")));
+			}
+			
 			return builder.build();
 		}
 		
@@ -521,6 +575,16 @@ public class ValidationStocGrad<SAMPLE extends IDataItem<SAMPLE>, DI extends ILa
 							"errorDriven",
 							"boolean",
 							"Error driven lexical generation, if the can generate a valid parse, skip lexical induction")
+					.addParam(
+							"batch",
+							"int",
+							"Mini-batch size. Samples in a batch are processed in parallel against the same model, and the model is updated after each batch (default: 1, update after each sample)")
+					.addParam("threads", "int",
+							"Number of worker threads for mini-batch training (default: number of processors)")
+					.addParam(
+							"average",
+							"boolean",
+							"Average the updates of each mini-batch instead of summing them. Options: true, false. Default: false")
 					.build();
 		}
 		
@@ -60,14 +60,14 @@ public class OnlineLearningStats {
 		sampleStat[itemNumber][iterationNumber].processed = true;
 	}
 	
-	public void recordGenerationParsing(long time) {
+	public synchronized void recordGenerationParsing(long time) {
 		averageGenerationParsingTime = (averageGenerationParsingTime
 				* generationParsingCounter + time)
 				/ (generationParsingCounter + 1);
 		++generationParsingCounter;
 	}
 	
-	public void recordModelParsing(long time) {
+	public synchronized void recordModelParsing(long time) {
 		averageModelParsingTime = (averageModelParsingTime
 				* modelParsingCounter + time)
 				/ (modelParsingCounter + 1);
@@ -124,7 +124,8 @@ public class OnlineLearningStats {
 		return ret.toString();
 	}
 	
-	public void triggeredUpdate(int itemNumber, int iterationNumber) {
+	public synchronized void triggeredUpdate(int itemNumber,
+			int iterationNumber) {
 		numUpdates[iterationNumber]++;
 		sampleStat[itemNumber][iterationNumber].triggeredUpdate = true;
 	}
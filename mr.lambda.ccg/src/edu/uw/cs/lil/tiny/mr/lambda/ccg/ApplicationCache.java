@@ -0,0 +1,181 @@
+/*******************************************************************************
+ * UW SPF - The University of Washington Semantic Parsing Framework
+ * <p>
+ * Copyright (C) 2013 Yoav Artzi
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ ******************************************************************************/
+package edu.uw.cs.lil.tiny.mr.lambda.ccg;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import edu.uw.cs.lil.tiny.mr.lambda.LogicalExpression;
+
+/**
+ * Bounded memoization table for application and composition results. The
+ * table is split into independently locked segments, each evicting in LRU
+ * order, so concurrent parsing threads rarely contend. Failed combinations are
+ * cached as well, since they are the majority of attempts during parsing.
+ * 
+ * @author Yoav Artzi
+ */
+class ApplicationCache {
+	/**
+	 * Marks a cached failed combination (a null result).
+	 */
+	private static final Object			FAILED			= new Object();
+	private static final int			NUM_SEGMENTS	= 16;
+	
+	private final AtomicLong			hits			= new AtomicLong();
+	private final AtomicLong			misses			= new AtomicLong();
+	private final Segment[]				segments;
+	
+	ApplicationCache(int maxSize) {
+		final int segmentSize = Math.max(1, maxSize / NUM_SEGMENTS);
+		this.segments = new Segment[NUM_SEGMENTS];
+		for (int i = 0; i < NUM_SEGMENTS; ++i) {
+			segments[i] = new Segment(segmentSize);
+		}
+	}
+	
+	public void clear() {
+		for (final Segment segment : segments) {
+			synchronized (segment) {
+				segment.clear();
+			}
+		}
+		hits.set(0);
+		misses.set(0);
+	}
+	
+	public long getHits() {
+		return hits.get();
+	}
+	
+	public long getMisses() {
+		return misses.get();
+	}
+	
+	public int size() {
+		int size = 0;
+		for (final Segment segment : segments) {
+			synchronized (segment) {
+				size += segment.size();
+			}
+		}
+		return size;
+	}
+	
+	/**
+	 * Looks up a cached result.
+	 * 
+	 * @return true if the key is cached, in which case the result (possibly
+	 *         null) is stored in the first cell of the given array.
+	 */
+	boolean get(Key key, LogicalExpression[] result) {
+		final Segment segment = segmentFor(key);
+		final Object cached;
+		synchronized (segment) {
+			cached = segment.get(key);
+		}
+		if (cached == null) {
+			misses.incrementAndGet();
+			return false;
+		} else {
+			hits.incrementAndGet();
+			result[0] = cached == FAILED ? null
+					: (LogicalExpression) cached;
+			return true;
+		}
+	}
+	
+	void put(Key key, LogicalExpression result) {
+		final Segment segment = segmentFor(key);
+		synchronized (segment) {
+			segment.put(key, result == null ? FAILED : result);
+		}
+	}
+	
+	private Segment segmentFor(Key key) {
+		// Spread the hash bits before selecting a segment
+		final int hash = key.hashCode;
+		return segments[(hash ^ (hash >>> 16)) & (NUM_SEGMENTS - 1)];
+	}
+	
+	/**
+	 * Key of a single combination. The order of application is -1, the order
+	 * of composition is its non-negative depth.
+	 * 
+	 * @author Yoav Artzi
+	 */
+	static class Key {
+		private final LogicalExpression	argument;
+		private final LogicalExpression	function;
+		private final int				hashCode;
+		private final int				order;
+		
+		Key(LogicalExpression function, LogicalExpression argument, int order) {
+			this.function = function;
+			this.argument = argument;
+			this.order = order;
+			this.hashCode = calcHashCode();
+		}
+		
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			final Key other = (Key) obj;
+			return hashCode == other.hashCode && order == other.order
+					&& function.equals(other.function)
+					&& argument.equals(other.argument);
+		}
+		
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+		
+		private int calcHashCode() {
+			final int prime = 31;
+			int result = 1;
+			result = prime * result + argument.hashCode();
+			result = prime * result + function.hashCode();
+			result = prime * result + order;
+			return result;
+		}
+	}
+	
+	private static class Segment extends LinkedHashMap<Key, Object> {
+		private static final long	serialVersionUID	= -4163427093416389208L;
+		private final int			maxSize;
+		
+		public Segment(int maxSize) {
+			super(16, 0.75f, true);
+			this.maxSize = maxSize;
+		}
+		
+		@Override
+		protected boolean removeEldestEntry(
+				Map.Entry<Key, Object> eldest) {
+			return size() > maxSize;
+		}
+	}
+}
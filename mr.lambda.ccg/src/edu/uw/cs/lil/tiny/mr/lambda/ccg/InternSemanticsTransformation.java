@@ -0,0 +1,87 @@
+/*******************************************************************************
+ * UW SPF - The University of Washington Semantic Parsing Framework
+ * <p>
+ * Copyright (C) 2013 Yoav Artzi
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ ******************************************************************************/
+package edu.uw.cs.lil.tiny.mr.lambda.ccg;
+
+import com.google.common.base.Function;
+
+import edu.uw.cs.lil.tiny.ccg.categories.Category;
+import edu.uw.cs.lil.tiny.explat.IResourceRepository;
+import edu.uw.cs.lil.tiny.explat.ParameterizedExperiment.Parameters;
+import edu.uw.cs.lil.tiny.explat.resources.IResourceObjectCreator;
+import edu.uw.cs.lil.tiny.explat.resources.usage.ResourceUsage;
+import edu.uw.cs.lil.tiny.mr.lambda.LogicalExpression;
+import edu.uw.cs.lil.tiny.mr.lambda.LogicalExpressionInterner;
+
+/**
+ * Category transformation that replaces the semantics of each category with
+ * its canonical instance (see {@link LogicalExpressionInterner}). Used as the
+ * category transformation of a parser, it makes equality checks during chart
+ * construction mostly reference comparisons, and shares repeated
+ * sub-expressions across the chart.
+ * 
+ * @author Yoav Artzi
+ */
+public class InternSemanticsTransformation implements
+		Function<Category<LogicalExpression>, Category<LogicalExpression>> {
+	
+	@Override
+	public Category<LogicalExpression> apply(Category<LogicalExpression> input) {
+		final LogicalExpression semantics = input.getSem();
+		final LogicalExpression interned = LogicalExpressionInterner
+				.intern(semantics);
+		return interned == semantics ? input : input
+				.cloneWithNewSemantics(interned);
+	}
+	
+	public static class Creator implements
+			IResourceObjectCreator<InternSemanticsTransformation> {
+		
+		private final String	type;
+		
+		public Creator() {
+			this("transformation.intern");
+		}
+		
+		public Creator(String type) {
+			this.type = type;
+		}
+		
+		@Override
+		public InternSemanticsTransformation create(Parameters params,
+				IResourceRepository repo) {
+			return new InternSemanticsTransformation();
+		}
+		
+		@Override
+		public String type() {
+			return type;
+		}
+		
+		@Override
+		public ResourceUsage usage() {
+			return ResourceUsage
+					.builder(type, InternSemanticsTransformation.class)
+					.setDescription(
+							"Category transformation that interns the semantics of each category")
+					.build();
+		}
+		
+	}
+	
+}
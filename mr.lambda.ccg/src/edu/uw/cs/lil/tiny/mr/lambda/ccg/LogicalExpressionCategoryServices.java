@@ -41,6 +41,12 @@ public class LogicalExpressionCategoryServices extends
 	public static final ILogger					LOG					= LoggerFactory
 																			.create(LogicalExpressionCategoryServices.class);
 	
+	/**
+	 * Memoized application and composition results, null if caching is
+	 * disabled.
+	 */
+	private final ApplicationCache				cache;
+	
 	private final boolean						doTypeChecking;
 	private final Category<LogicalExpression>	EMP					= new SimpleCategory<LogicalExpression>(
 																			Syntax.EMPTY,
@@ -53,6 +59,13 @@ public class LogicalExpressionCategoryServices extends
 																			Syntax.S,
 																			null);
 	
+	/**
+	 * Check type consistency and validity using the summaries cached in each
+	 * logical expression, instead of full traversals (see
+	 * {@link LogicalExpression#isTypeConsistent()}).
+	 */
+	private final boolean						incrementalChecking;
+	
 	private final boolean						validateLogExps;
 	
 	public LogicalExpressionCategoryServices() {
@@ -65,26 +78,171 @@ public class LogicalExpressionCategoryServices extends
 	
 	public LogicalExpressionCategoryServices(boolean doTypeChecking,
 			boolean validateLogExps) {
-		this.doTypeChecking = doTypeChecking;
-		this.validateLogExps = validateLogExps;
-		LOG.info("Init :: %s: doTypeChecking=%s, validateLogExp=%s",
-				LogicalExpressionCategoryServices.class.getSimpleName(),
-				doTypeChecking, validateLogExps);
+		this(doTypeChecking, validateLogExps, true);
 	}
 	
 	public LogicalExpressionCategoryServices(boolean doTypeChecking,
 			boolean validateLogExps, boolean restrictCompositionDirection) {
+		this(doTypeChecking, validateLogExps, restrictCompositionDirection, 0);
+	}
+	
+	/**
+	 * @param cacheSize
+	 *            Maximum number of application and composition results to
+	 *            memoize. The cache is shared by all users of this object
+	 *            (e.g., all parsing threads), and may be cleared between
+	 *            parses using {@link #clearCache()}. 0 disables caching.
+	 */
+	public LogicalExpressionCategoryServices(boolean doTypeChecking,
+			boolean validateLogExps, boolean restrictCompositionDirection,
+			int cacheSize) {
+		this(doTypeChecking, validateLogExps, restrictCompositionDirection,
+				cacheSize, false);
+	}
+	
+	/**
+	 * @param incrementalChecking
+	 *            Check the results of application and composition using the
+	 *            type consistency and validity summaries cached in the logical
+	 *            expressions. Only the sub-expressions created by the
+	 *            operation are visited, instead of the complete result.
+	 */
+	public LogicalExpressionCategoryServices(boolean doTypeChecking,
+			boolean validateLogExps, boolean restrictCompositionDirection,
+			int cacheSize, boolean incrementalChecking) {
 		super(restrictCompositionDirection);
 		this.doTypeChecking = doTypeChecking;
 		this.validateLogExps = validateLogExps;
-		LOG.info("Init :: %s: doTypeChecking=%s, validateLogExp=%s",
+		this.cache = cacheSize > 0 ? new ApplicationCache(cacheSize) : null;
+		this.incrementalChecking = incrementalChecking;
+		LOG.info(
+				"Init :: %s: doTypeChecking=%s, validateLogExp=%s, cacheSize=%d, incrementalChecking=%s",
 				LogicalExpressionCategoryServices.class.getSimpleName(),
-				doTypeChecking, validateLogExps);
+				doTypeChecking, validateLogExps, cacheSize, incrementalChecking);
 	}
 	
 	@Override
 	public LogicalExpression apply(LogicalExpression function,
 			LogicalExpression argument) {
+		if (cache == null) {
+			return doApply(function, argument);
+		}
+		
+		final ApplicationCache.Key key = new ApplicationCache.Key(function,
+				argument, -1);
+		final LogicalExpression[] cached = new LogicalExpression[1];
+		if (cache.get(key, cached)) {
+			return cached[0];
+		}
+		final LogicalExpression result = doApply(function, argument);
+		cache.put(key, result);
+		return result;
+	}
+	
+	public void clearCache() {
+		if (cache != null) {
+			cache.clear();
+		}
+	}
+	
+	/**
+	 * Generalized function composition given a specific order.
+	 */
+	@Override
+	public LogicalExpression compose(LogicalExpression f, LogicalExpression g,
+			int order) {
+		if (cache == null) {
+			return doCompose(f, g, order);
+		}
+		
+		final ApplicationCache.Key key = new ApplicationCache.Key(f, g, order);
+		final LogicalExpression[] cached = new LogicalExpression[1];
+		if (cache.get(key, cached)) {
+			return cached[0];
+		}
+		final LogicalExpression result = doCompose(f, g, order);
+		cache.put(key, result);
+		return result;
+	}
+	
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null) {
+			return false;
+		}
+		if (getClass() != obj.getClass()) {
+			return false;
+		}
+		final LogicalExpressionCategoryServices other = (LogicalExpressionCategoryServices) obj;
+		if (doTypeChecking != other.doTypeChecking) {
+			return false;
+		}
+		return true;
+	}
+	
+	/**
+	 * Number of application and composition requests answered from the cache
+	 * since it was last cleared.
+	 */
+	public long getCacheHits() {
+		return cache == null ? 0 : cache.getHits();
+	}
+	
+	/**
+	 * Number of application and composition requests that were computed since
+	 * the cache was last cleared. Always 0 when caching is disabled.
+	 */
+	public long getCacheMisses() {
+		return cache == null ? 0 : cache.getMisses();
+	}
+	
+	public int getCacheSize() {
+		return cache == null ? 0 : cache.size();
+	}
+	
+	@Override
+	public Category<LogicalExpression> getEmptyCategory() {
+		return EMP;
+	}
+	
+	@Override
+	public Category<LogicalExpression> getNounPhraseCategory() {
+		return EMPTY_CATEGORY_NP;
+	}
+	
+	@Override
+	public Category<LogicalExpression> getSentenceCategory() {
+		return EMPTY_CATEGORY_S;
+	}
+	
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + (doTypeChecking ? 1231 : 1237);
+		return result;
+	}
+	
+	@Override
+	public LogicalExpression parseSemantics(String string, boolean checkType) {
+		final LogicalExpression exp = LogicalExpression.read(string);
+		if (checkType && !IsTypeConsistent.of(exp)) {
+			throw new IllegalStateException("Semantics not well typed: "
+					+ string);
+		}
+		return Simplify.of(exp);
+	}
+	
+	@Override
+	public String toString() {
+		return LogicalExpressionCategoryServices.class.getName();
+	}
+	
+	private LogicalExpression doApply(LogicalExpression function,
+			LogicalExpression argument) {
 		final LogicalExpression result;
 		
 		// Combined application and simplification
@@ -93,13 +251,13 @@ public class LogicalExpressionCategoryServices extends
 		// Verify application result is well typed, only if verification is
 		// turned on
 		if (applicationResult != null && doTypeChecking
-				&& !IsTypeConsistent.of(applicationResult)) {
+				&& !isTypeConsistent(applicationResult)) {
 			result = null;
 		} else {
 			result = applicationResult;
 		}
 		
-		if (result != null && validateLogExps && !IsValid.of(result)) {
+		if (result != null && validateLogExps && !isValid(result)) {
 			LOG.error("Application result invalid");
 			LOG.error("function=%s", function);
 			LOG.error("arg=%s", argument);
@@ -111,12 +269,8 @@ public class LogicalExpressionCategoryServices extends
 		return result;
 	}
 	
-	/**
-	 * Generalized function composition given a specific order.
-	 */
-	@Override
-	public LogicalExpression compose(LogicalExpression f, LogicalExpression g,
-			int order) {
+	private LogicalExpression doCompose(LogicalExpression f,
+			LogicalExpression g, int order) {
 		
 		final Stack<Variable> gVariableStack = new Stack<Variable>();
 		LogicalExpression currentG = g;
@@ -155,7 +309,7 @@ public class LogicalExpressionCategoryServices extends
 			if (newbody != null) {
 				final LogicalExpression newComposedExp = new Lambda(x, newbody);
 				// Do type checking, if verification is turned on
-				if (doTypeChecking && !IsTypeConsistent.of(newComposedExp)) {
+				if (doTypeChecking && !isTypeConsistent(newComposedExp)) {
 					return null;
 				} else {
 					// If gBodyWithNewVar is a variable (such as will happen
@@ -171,8 +325,7 @@ public class LogicalExpressionCategoryServices extends
 							|| gBodyWithNewVar == newbody ? Simplify
 							.of(newComposedExp) : newComposedExp;
 					
-					if (result != null && validateLogExps
-							&& !IsValid.of(result)) {
+					if (result != null && validateLogExps && !isValid(result)) {
 						LOG.error("Composition result invalid");
 						LOG.error("g=%s", g);
 						LOG.error("f=%s", f);
@@ -199,59 +352,12 @@ public class LogicalExpressionCategoryServices extends
 		return null;
 	}
 	
-	@Override
-	public boolean equals(Object obj) {
-		if (this == obj) {
-			return true;
-		}
-		if (obj == null) {
-			return false;
-		}
-		if (getClass() != obj.getClass()) {
-			return false;
-		}
-		final LogicalExpressionCategoryServices other = (LogicalExpressionCategoryServices) obj;
-		if (doTypeChecking != other.doTypeChecking) {
-			return false;
-		}
-		return true;
-	}
-	
-	@Override
-	public Category<LogicalExpression> getEmptyCategory() {
-		return EMP;
+	private boolean isTypeConsistent(LogicalExpression exp) {
+		return incrementalChecking ? exp.isTypeConsistent() : IsTypeConsistent
+				.of(exp);
 	}
 	
-	@Override
-	public Category<LogicalExpression> getNounPhraseCategory() {
-		return EMPTY_CATEGORY_NP;
-	}
-	
-	@Override
-	public Category<LogicalExpression> getSentenceCategory() {
-		return EMPTY_CATEGORY_S;
-	}
-	
-	@Override
-	public int hashCode() {
-		final int prime = 31;
-		int result = 1;
-		result = prime * result + (doTypeChecking ? 1231 : 1237);
-		return result;
-	}
-	
-	@Override
-	public LogicalExpression parseSemantics(String string, boolean checkType) {
-		final LogicalExpression exp = LogicalExpression.read(string);
-		if (checkType && !IsTypeConsistent.of(exp)) {
-			throw new IllegalStateException("Semantics not well typed: "
-					+ string);
-		}
-		return Simplify.of(exp);
-	}
-	
-	@Override
-	public String toString() {
-		return LogicalExpressionCategoryServices.class.getName();
+	private boolean isValid(LogicalExpression exp) {
+		return incrementalChecking ? exp.isValid() : IsValid.of(exp);
 	}
 }
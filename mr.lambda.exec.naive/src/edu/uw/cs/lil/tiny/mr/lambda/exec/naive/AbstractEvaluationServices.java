@@ -19,7 +19,10 @@
 package edu.uw.cs.lil.tiny.mr.lambda.exec.naive;
 
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -31,24 +34,112 @@ import edu.uw.cs.lil.tiny.mr.lambda.Variable;
 import edu.uw.cs.lil.tiny.mr.lambda.visitor.GetAllFreeVariables;
 import edu.uw.cs.utils.composites.Pair;
 
+/**
+ * Evaluation services with a cache of evaluation results. Cached entries are
+ * indexed by their free variables, so a change in the denotation of a
+ * variable only invalidates the entries that depend on it. The cache may be
+ * bounded, in which case entries are evicted in LRU or insertion (FIFO) order.
+ * The free variables of cached expressions are memoized under the same bound,
+ * and the memo is cleared together with the cache.
+ * 
+ * @author Yoav Artzi
+ * @param <S>
+ *            Type of the evaluation state.
+ */
 public abstract class AbstractEvaluationServices<S> implements
 		IEvaluationServices {
 	
-	private final Map<Pair<LogicalExpression, S>, CacheObject>	cache	= new HashMap<Pair<LogicalExpression, S>, CacheObject>();
+	/**
+	 * Default maximum number of cached results.
+	 */
+	public static final int											DEFAULT_MAX_CACHE_SIZE	= 100000;
+	
+	private final Map<Pair<LogicalExpression, S>, CacheObject>		cache;
+	private long													evictions				= 0;
+	
+	/**
+	 * Memoized free variables of cached expressions. Bounded by the maximum
+	 * cache size.
+	 */
+	private final Map<LogicalExpression, Set<Variable>>				freeVariables;
+	private long													hits					= 0;
+	private final int												maxCacheSize;
+	private long													misses					= 0;
+	
+	/**
+	 * Cache keys indexed by the free variables of their expressions.
+	 */
+	private final Map<Variable, Set<Pair<LogicalExpression, S>>>	variableIndex			= new HashMap<Variable, Set<Pair<LogicalExpression, S>>>();
+	
+	public AbstractEvaluationServices() {
+		this(DEFAULT_MAX_CACHE_SIZE, true);
+	}
+	
+	/**
+	 * @param maxCacheSize
+	 *            Maximum number of cached results.
+	 * @param lruEviction
+	 *            Evict the least recently used entry when the cache is full. If
+	 *            false, evict the oldest entry.
+	 */
+	public AbstractEvaluationServices(int maxCacheSize, boolean lruEviction) {
+		this.maxCacheSize = maxCacheSize;
+		this.cache = new LinkedHashMap<Pair<LogicalExpression, S>, CacheObject>(
+				16, 0.75f, lruEviction) {
+			private static final long	serialVersionUID	= 2829102475513637711L;
+			
+			@Override
+			protected boolean removeEldestEntry(
+					Entry<Pair<LogicalExpression, S>, CacheObject> eldest) {
+				if (size() > AbstractEvaluationServices.this.maxCacheSize) {
+					++evictions;
+					unindex(eldest.getKey(), eldest.getValue());
+					return true;
+				}
+				return false;
+			}
+		};
+		this.freeVariables = new LinkedHashMap<LogicalExpression, Set<Variable>>(
+				16, 0.75f, true) {
+			private static final long	serialVersionUID	= -2002469946339185536L;
+			
+			@Override
+			protected boolean removeEldestEntry(
+					Entry<LogicalExpression, Set<Variable>> eldest) {
+				return size() > AbstractEvaluationServices.this.maxCacheSize;
+			}
+		};
+	}
 	
 	@Override
 	public void cacheResult(LogicalExpression exp, Object result) {
-		cache.put(Pair.of(exp, currentState()), new CacheObject(
-				GetAllFreeVariables.of(exp), result));
+		final Pair<LogicalExpression, S> key = Pair.of(exp, currentState());
+		final CacheObject cacheObject = new CacheObject(getFreeVariables(exp),
+				result);
+		final CacheObject previous = cache.put(key, cacheObject);
+		if (previous != null) {
+			unindex(key, previous);
+		}
+		for (final Variable variable : cacheObject.freeVariables) {
+			Set<Pair<LogicalExpression, S>> keys = variableIndex.get(variable);
+			if (keys == null) {
+				keys = new HashSet<Pair<LogicalExpression, S>>();
+				variableIndex.put(variable, keys);
+			}
+			keys.add(key);
+		}
 	}
 	
 	@Override
 	public void denotationChanged(Variable variable) {
-		final Iterator<Entry<Pair<LogicalExpression, S>, CacheObject>> iterator = cache
-				.entrySet().iterator();
-		while (iterator.hasNext()) {
-			if (iterator.next().getValue().freeVariables.contains(variable)) {
-				iterator.remove();
+		final Set<Pair<LogicalExpression, S>> keys = variableIndex
+				.remove(variable);
+		if (keys != null) {
+			for (final Pair<LogicalExpression, S> key : keys) {
+				final CacheObject removed = cache.remove(key);
+				if (removed != null) {
+					unindex(key, removed);
+				}
 			}
 		}
 	}
@@ -77,14 +168,43 @@ public abstract class AbstractEvaluationServices<S> implements
 		return null;
 	}
 	
+	public long getCacheEvictions() {
+		return evictions;
+	}
+	
+	public long getCacheHits() {
+		return hits;
+	}
+	
+	public long getCacheMisses() {
+		return misses;
+	}
+	
+	public int getCacheSize() {
+		return cache.size();
+	}
+	
 	@Override
 	public Object getFromCache(LogicalExpression exp) {
 		return cache.get(Pair.of(exp, currentState())).cachedObject;
 	}
 	
+	@Override
+	public List<?> getSatisfyingDenotations(LogicalExpression predicate,
+			Object[] args, int position) {
+		// No indices by default
+		return null;
+	}
+	
 	@Override
 	public boolean isCached(LogicalExpression exp) {
-		return cache.containsKey(Pair.of(exp, currentState()));
+		if (cache.containsKey(Pair.of(exp, currentState()))) {
+			++hits;
+			return true;
+		} else {
+			++misses;
+			return false;
+		}
 	}
 	
 	@Override
@@ -92,14 +212,43 @@ public abstract class AbstractEvaluationServices<S> implements
 		return LogicLanguageServices.isCoordinationPredicate(constant);
 	}
 	
+	private Set<Variable> getFreeVariables(LogicalExpression exp) {
+		Set<Variable> variables = freeVariables.get(exp);
+		if (variables == null) {
+			variables = GetAllFreeVariables.of(exp);
+			freeVariables.put(exp, variables);
+		}
+		return variables;
+	}
+	
+	/**
+	 * Removes the given cache key from the variable index.
+	 */
+	private void unindex(Pair<LogicalExpression, S> key, CacheObject cacheObject) {
+		for (final Variable variable : cacheObject.freeVariables) {
+			final Set<Pair<LogicalExpression, S>> keys = variableIndex
+					.get(variable);
+			if (keys != null) {
+				keys.remove(key);
+				if (keys.isEmpty()) {
+					variableIndex.remove(variable);
+				}
+			}
+		}
+	}
+	
 	protected void clearStateFromCache(S state) {
 		final Iterator<Entry<Pair<LogicalExpression, S>, CacheObject>> iterator = cache
 				.entrySet().iterator();
 		while (iterator.hasNext()) {
-			if (iterator.next().getKey().second().equals(state)) {
+			final Entry<Pair<LogicalExpression, S>, CacheObject> entry = iterator
+					.next();
+			if (entry.getKey().second().equals(state)) {
+				unindex(entry.getKey(), entry.getValue());
 				iterator.remove();
 			}
 		}
+		freeVariables.clear();
 	}
 	
 	protected abstract S currentState();
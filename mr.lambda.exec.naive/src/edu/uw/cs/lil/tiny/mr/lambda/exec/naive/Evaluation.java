@@ -48,11 +48,11 @@ import edu.uw.cs.utils.log.thread.InterruptedRuntimeException;
  * @author Yoav Artzi
  */
 public class Evaluation implements ILogicalExpressionVisitor {
-	public static final ILogger			LOG			= LoggerFactory
-															.create(Evaluation.class);
-	private final Map<Variable, Object>	denotations	= new HashMap<Variable, Object>();
-	private final IEvaluationServices	services;
-	protected Object					result		= null;
+	public static final ILogger				LOG			= LoggerFactory
+																.create(Evaluation.class);
+	protected final Map<Variable, Object>	denotations	= new HashMap<Variable, Object>();
+	protected Object						result		= null;
+	protected final IEvaluationServices		services;
 	
 	protected Evaluation(IEvaluationServices services) {
 		this.services = services;
@@ -71,7 +71,7 @@ public class Evaluation implements ILogicalExpressionVisitor {
 	 * @return Pair of queried variables and SELECT body. If not a SELECT query,
 	 *         returns null.
 	 */
-	private static Pair<List<Variable>, LogicalExpression> decomposeLogicalExpressionAsSelect(
+	protected static Pair<List<Variable>, LogicalExpression> decomposeLogicalExpressionAsSelect(
 			LogicalExpression exp) {
 		LogicalExpression currentBody = exp;
 		final List<Variable> queryVariables = new LinkedList<Variable>();
@@ -214,7 +214,7 @@ public class Evaluation implements ILogicalExpressionVisitor {
 		result = denotations.get(variable);
 	}
 	
-	private void testInterruption() {
+	protected void testInterruption() {
 		if (Thread.interrupted()) {
 			throw new InterruptedRuntimeException(new InterruptedException(
 					"Evaluation interuppted"));
@@ -38,6 +38,17 @@ public interface IEvaluationServices {
 	
 	Object getFromCache(LogicalExpression exp);
 	
+	/**
+	 * Index lookup for {@link PlannedEvaluation}. Returns all denotations that
+	 * make the predicate evaluate to 'true' when placed at the given argument
+	 * position, together with the rest of the arguments. The argument at the
+	 * given position is null.
+	 * 
+	 * @return null if no index is available for this predicate.
+	 */
+	List<?> getSatisfyingDenotations(LogicalExpression predicate,
+			Object[] args, int position);
+	
 	boolean isCached(LogicalExpression exp);
 	
 	boolean isDenotable(Variable variable);
@@ -0,0 +1,403 @@
+/*******************************************************************************
+ * UW SPF - The University of Washington Semantic Parsing Framework
+ * <p>
+ * Copyright (C) 2013 Yoav Artzi
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ ******************************************************************************/
+package edu.uw.cs.lil.tiny.mr.lambda.exec.naive;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import edu.uw.cs.lil.tiny.mr.lambda.Lambda;
+import edu.uw.cs.lil.tiny.mr.lambda.Literal;
+import edu.uw.cs.lil.tiny.mr.lambda.LogicLanguageServices;
+import edu.uw.cs.lil.tiny.mr.lambda.LogicalConstant;
+import edu.uw.cs.lil.tiny.mr.lambda.LogicalExpression;
+import edu.uw.cs.lil.tiny.mr.lambda.Variable;
+import edu.uw.cs.lil.tiny.mr.lambda.visitor.GetAllFreeVariables;
+import edu.uw.cs.lil.tiny.mr.lambda.visitor.IsContainingVariable;
+import edu.uw.cs.utils.composites.Pair;
+import edu.uw.cs.utils.log.ILogger;
+import edu.uw.cs.utils.log.LoggerFactory;
+
+/**
+ * Evaluation visitor that executes SELECT lambda expressions using a join
+ * plan, instead of enumerating the cartesian product of the denotations of
+ * all query variables. The body of the query is split into its conjuncts.
+ * Query variables are bound one at a time, ordered to complete as many
+ * conjuncts as early as possible, preferring variables with small domains.
+ * Each conjunct is evaluated as a filter as soon as all of its query variables
+ * are bound, and its results are memoized for the duration of the query.
+ * Conjuncts of the form (pred ... x ...), where x is the variable being bound,
+ * may be answered by an index supplied through
+ * {@link IEvaluationServices#getSatisfyingDenotations(LogicalExpression, Object[], int)}
+ * . Queries with a body that is not truth-typed are evaluated by
+ * {@link Evaluation}. The result is identical to the one of
+ * {@link Evaluation}.
+ * 
+ * @author Yoav Artzi
+ */
+public class PlannedEvaluation extends Evaluation {
+	public static final ILogger	LOG	= LoggerFactory
+											.create(PlannedEvaluation.class);
+	
+	protected PlannedEvaluation(IEvaluationServices services) {
+		super(services);
+	}
+	
+	public static Object of(LogicalExpression exp, IEvaluationServices services) {
+		final PlannedEvaluation visitor = new PlannedEvaluation(services);
+		visitor.visit(exp);
+		return visitor.result;
+	}
+	
+	/**
+	 * Splits a truth-typed expression to its conjuncts.
+	 */
+	private static void collectConjuncts(LogicalExpression exp,
+			List<LogicalExpression> conjuncts) {
+		if (exp instanceof Literal
+				&& LogicLanguageServices.getConjunctionPredicate().equals(
+						((Literal) exp).getPredicate())) {
+			for (final LogicalExpression arg : ((Literal) exp).getArguments()) {
+				collectConjuncts(arg, conjuncts);
+			}
+		} else {
+			conjuncts.add(exp);
+		}
+	}
+	
+	/**
+	 * Checks if the filters of the given level pass with the current
+	 * denotations.
+	 */
+	private boolean applyFilters(List<Conjunct> filters) {
+		for (final Conjunct conjunct : filters) {
+			if (!conjunct.passes()) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Binds the variable of the given level, and recursively all the following
+	 * levels.
+	 * 
+	 * @return true if the search should stop.
+	 */
+	private boolean bind(JoinPlan plan, int level, Object[] values,
+			LambdaResult lambdaResult, boolean shortcircuit) {
+		if (level == plan.order.length) {
+			// All variables are bound and all filters passed
+			final Object[] keys = new Object[values.length];
+			for (int i = 0; i < values.length; ++i) {
+				keys[plan.positions[i]] = values[i];
+			}
+			lambdaResult.addTuple(new Tuple(keys, Boolean.TRUE));
+			return shortcircuit;
+		}
+		
+		final Variable variable = plan.order[level];
+		for (final Object denotation : getCandidates(plan, level)) {
+			testInterruption();
+			denotations.put(variable, denotation);
+			services.denotationChanged(variable);
+			values[level] = denotation;
+			if (applyFilters(plan.filters.get(level))
+					&& bind(plan, level + 1, values, lambdaResult,
+							shortcircuit)) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Creates the join plan for the given query.
+	 */
+	private JoinPlan createPlan(List<Variable> queryVariables,
+			LogicalExpression body) {
+		// Split the body to conjuncts. If the body is a single expression, it
+		// must evaluate to 'true' exactly. Conjuncts only need to avoid
+		// failing or evaluating to 'false', same as the conjunction evaluation
+		// in Evaluation.visit(Literal).
+		final List<LogicalExpression> conjunctExps = new LinkedList<LogicalExpression>();
+		collectConjuncts(body, conjunctExps);
+		final boolean strict = conjunctExps.size() == 1
+				&& conjunctExps.get(0) == body;
+		final List<Conjunct> conjuncts = new ArrayList<Conjunct>(
+				conjunctExps.size());
+		final Set<Variable> querySet = new HashSet<Variable>(queryVariables);
+		for (final LogicalExpression exp : conjunctExps) {
+			final Set<Variable> variables = GetAllFreeVariables.of(exp);
+			variables.retainAll(querySet);
+			conjuncts.add(new Conjunct(exp, variables, strict));
+		}
+		
+		final Map<Variable, List<?>> domains = new HashMap<Variable, List<?>>();
+		for (final Variable variable : queryVariables) {
+			domains.put(variable, services.getAllDenotations(variable));
+		}
+		
+		final JoinPlan plan = new JoinPlan(queryVariables.size());
+		final List<Conjunct> unassigned = new LinkedList<Conjunct>();
+		for (final Conjunct conjunct : conjuncts) {
+			if (conjunct.variables.isEmpty()) {
+				plan.constantFilters.add(conjunct);
+			} else {
+				unassigned.add(conjunct);
+			}
+		}
+		
+		// Greedily order the variables. Prefer the variable that completes
+		// the most conjuncts, and break ties by domain size.
+		final Set<Variable> bound = new HashSet<Variable>();
+		final List<Variable> remaining = new LinkedList<Variable>(
+				queryVariables);
+		for (int level = 0; level < plan.order.length; ++level) {
+			Variable best = null;
+			int bestCompleted = -1;
+			for (final Variable variable : remaining) {
+				bound.add(variable);
+				int completed = 0;
+				for (final Conjunct conjunct : unassigned) {
+					if (bound.containsAll(conjunct.variables)) {
+						++completed;
+					}
+				}
+				bound.remove(variable);
+				if (completed > bestCompleted
+						|| completed == bestCompleted
+						&& domains.get(variable).size() < domains.get(best)
+								.size()) {
+					best = variable;
+					bestCompleted = completed;
+				}
+			}
+			
+			remaining.remove(best);
+			bound.add(best);
+			plan.order[level] = best;
+			plan.positions[level] = queryVariables.indexOf(best);
+			plan.domains.add(domains.get(best));
+			
+			// Push completed conjuncts to this level and collect the ones that
+			// may be answered using an index
+			final List<Conjunct> filters = new LinkedList<Conjunct>();
+			final List<Pair<Conjunct, Integer>> indexable = new LinkedList<Pair<Conjunct, Integer>>();
+			final Iterator<Conjunct> iterator = unassigned.iterator();
+			while (iterator.hasNext()) {
+				final Conjunct conjunct = iterator.next();
+				if (bound.containsAll(conjunct.variables)) {
+					iterator.remove();
+					filters.add(conjunct);
+					final int position = getIndexPosition(conjunct.exp, best);
+					if (position >= 0) {
+						indexable.add(Pair.of(conjunct, position));
+					}
+				}
+			}
+			plan.filters.add(filters);
+			plan.indexable.add(indexable);
+		}
+		
+		LOG.debug("Join plan: order=%s, constant_filters=%d",
+				Arrays.toString(plan.order), plan.constantFilters.size());
+		
+		return plan;
+	}
+	
+	/**
+	 * Returns the denotations to iterate over for the variable of the given
+	 * level. Uses the smallest index result available, if any, restricted to
+	 * the variable's domain.
+	 */
+	private Iterable<?> getCandidates(JoinPlan plan, int level) {
+		final List<?> domain = plan.domains.get(level);
+		List<?> best = null;
+		for (final Pair<Conjunct, Integer> entry : plan.indexable.get(level)) {
+			final Literal literal = (Literal) entry.first().exp;
+			final int position = entry.second();
+			final Object[] args = new Object[literal.numArgs()];
+			boolean evaluated = true;
+			for (int i = 0; i < args.length && evaluated; ++i) {
+				if (i != position) {
+					literal.getArguments().get(i).accept(this);
+					args[i] = result;
+					evaluated = result != null;
+				}
+			}
+			if (evaluated) {
+				final List<?> satisfying = services.getSatisfyingDenotations(
+						literal.getPredicate(), args, position);
+				if (satisfying != null
+						&& (best == null || satisfying.size() < best.size())) {
+					best = satisfying;
+				}
+			}
+		}
+		
+		if (best == null || best.size() >= domain.size()) {
+			return domain;
+		}
+		
+		// Index results must not introduce values from outside the domain
+		final Set<Object> domainSet = plan.getDomainSet(level);
+		final List<Object> candidates = new ArrayList<Object>(best.size());
+		for (final Object denotation : best) {
+			if (domainSet.contains(denotation)) {
+				candidates.add(denotation);
+			}
+		}
+		return candidates;
+	}
+	
+	/**
+	 * Returns the argument position of the variable if the given conjunct can
+	 * be answered by an index when binding this variable, or -1 otherwise.
+	 */
+	private int getIndexPosition(LogicalExpression exp, Variable variable) {
+		if (!(exp instanceof Literal)) {
+			return -1;
+		}
+		final Literal literal = (Literal) exp;
+		if (!(literal.getPredicate() instanceof LogicalConstant)
+				|| LogicLanguageServices.isCoordinationPredicate(literal
+						.getPredicate()) || isPartialLiteral(literal)) {
+			return -1;
+		}
+		int position = -1;
+		for (int i = 0; i < literal.numArgs(); ++i) {
+			final LogicalExpression arg = literal.getArguments().get(i);
+			if (arg == variable && position < 0) {
+				position = i;
+			} else if (IsContainingVariable.of(arg, variable)) {
+				// The other arguments can't be evaluated without the variable
+				return -1;
+			}
+		}
+		return position;
+	}
+	
+	@Override
+	protected void visit(Lambda lambda, boolean shortcircuit) {
+		final Pair<List<Variable>, LogicalExpression> selectDecomposition = decomposeLogicalExpressionAsSelect(lambda);
+		if (selectDecomposition == null
+				|| !LogicLanguageServices.getTypeRepository()
+						.getTruthValueType()
+						.equals(selectDecomposition.second().getType())) {
+			// Case not a truth-typed SELECT, use the naive enumeration
+			super.visit(lambda, shortcircuit);
+			return;
+		}
+		
+		final List<Variable> queryVariables = selectDecomposition.first();
+		final JoinPlan plan = createPlan(queryVariables,
+				selectDecomposition.second());
+		
+		final LambdaResult lambdaResult = new LambdaResult(
+				queryVariables.size());
+		if (applyFilters(plan.constantFilters)) {
+			bind(plan, 0, new Object[queryVariables.size()], lambdaResult,
+					shortcircuit);
+		}
+		
+		// Clean the cache for all variables
+		for (final Variable variable : queryVariables) {
+			services.denotationChanged(variable);
+		}
+		
+		// Update result
+		result = lambdaResult;
+		
+		// Remove variable from denotations map
+		for (final Variable variable : queryVariables) {
+			denotations.remove(variable);
+		}
+	}
+	
+	/**
+	 * A single conjunct of the query body and the memoized results of
+	 * evaluating it, keyed by the denotations of its query variables.
+	 * 
+	 * @author Yoav Artzi
+	 */
+	private class Conjunct {
+		private final LogicalExpression			exp;
+		private final Map<List<Object>, Boolean>	memo	= new HashMap<List<Object>, Boolean>();
+		private final boolean					strict;
+		private final List<Variable>			variables;
+		
+		public Conjunct(LogicalExpression exp, Set<Variable> variables,
+				boolean strict) {
+			this.exp = exp;
+			this.variables = new ArrayList<Variable>(variables);
+			this.strict = strict;
+		}
+		
+		public boolean passes() {
+			final List<Object> key = new ArrayList<Object>(variables.size());
+			for (final Variable variable : variables) {
+				key.add(denotations.get(variable));
+			}
+			final Boolean memoized = memo.get(key);
+			if (memoized != null) {
+				return memoized;
+			}
+			
+			exp.accept(PlannedEvaluation.this);
+			final boolean passes = strict ? Boolean.TRUE.equals(result)
+					: result != null && !Boolean.FALSE.equals(result);
+			memo.put(key, passes);
+			return passes;
+		}
+	}
+	
+	private static class JoinPlan {
+		private final List<Conjunct>						constantFilters	= new LinkedList<Conjunct>();
+		private final List<List<?>>							domains			= new ArrayList<List<?>>();
+		private final List<Set<Object>>						domainSets		= new ArrayList<Set<Object>>();
+		private final List<List<Conjunct>>					filters			= new ArrayList<List<Conjunct>>();
+		private final List<List<Pair<Conjunct, Integer>>>	indexable		= new ArrayList<List<Pair<Conjunct, Integer>>>();
+		private final Variable[]							order;
+		private final int[]									positions;
+		
+		public JoinPlan(int numVariables) {
+			this.order = new Variable[numVariables];
+			this.positions = new int[numVariables];
+			for (int i = 0; i < numVariables; ++i) {
+				domainSets.add(null);
+			}
+		}
+		
+		public Set<Object> getDomainSet(int level) {
+			Set<Object> domainSet = domainSets.get(level);
+			if (domainSet == null) {
+				domainSet = new HashSet<Object>(domains.get(level));
+				domainSets.set(level, domainSet);
+			}
+			return domainSet;
+		}
+	}
+}
@@ -18,13 +18,11 @@
  ******************************************************************************/
 package edu.uw.cs.lil.tiny.mr.lambda;
 
-import java.io.StringReader;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Map.Entry;
 
-import edu.uw.cs.lil.tiny.base.LispReader;
-import edu.uw.cs.lil.tiny.mr.lambda.LogicalExpressionReader.IReader;
+import edu.uw.cs.lil.tiny.mr.lambda.LogicalExpressionReader.IStreamingReader;
 import edu.uw.cs.lil.tiny.mr.lambda.visitor.ILogicalExpressionVisitor;
 import edu.uw.cs.lil.tiny.mr.language.type.ComplexType;
 import edu.uw.cs.lil.tiny.mr.language.type.Type;
@@ -150,7 +148,19 @@ public class Lambda extends LogicalExpression {
 		return ret;
 	}
 	
-	public static class Reader implements IReader<Lambda> {
+	@Override
+	WellFormedness calcWellFormedness() {
+		return WellFormedness.of(this);
+	}
+	
+	public static class Reader implements IStreamingReader<Lambda> {
+		
+		@Override
+		public boolean isValid(LogicalExpressionTokenizer tokenizer) {
+			return LogicalExpressionTokenizer.isOpen(tokenizer.peek())
+					&& tokenizer.peekSecond() != null
+					&& tokenizer.peekSecond().startsWith(HEAD_STRING);
+		}
 		
 		@Override
 		public boolean isValid(String string) {
@@ -158,83 +168,92 @@ public class Lambda extends LogicalExpression {
 		}
 		
 		@Override
-		public Lambda read(String string,
+		public Lambda read(LogicalExpressionTokenizer tokenizer,
 				Map<String, LogicalExpression> mapping,
 				TypeRepository typeRepository, ITypeComparator typeComparator,
 				LogicalExpressionReader reader) {
 			
-			try {
-				final LispReader lispReader = new LispReader(new StringReader(
-						string));
-				
-				// The first argument is the 'lambda' keyword. We just ignore
-				// it.
-				lispReader.next();
-				
-				// Remember the size of our variable mapping table, to verify we
-				// added
-				// one later
-				final int variablesOrgSize = mapping.size();
-				
-				// The second argument is the name of the variable introduces
-				final LogicalExpression varExpression = reader.read(
-						lispReader.next(), mapping, typeRepository,
-						typeComparator);
-				
-				if (!(varExpression instanceof Variable)) {
-					throw new LogicalExpressionRuntimeException(
-							"Invalid lambda argument: " + string);
-				}
-				
-				final Variable variable = (Variable) varExpression;
-				
-				// To verify the creation of a variable, we just compare the
-				// size of variables mapping table before and after. We can do
-				// that
-				// because we don't allow overwrite.
-				if (variablesOrgSize + 1 != mapping.size()) {
-					throw new LogicalExpressionRuntimeException(
-							"Lambda expression must introduce a new variable: "
-									+ string);
+			// The opening parenthesis and the 'lambda' keyword. We just ignore
+			// them.
+			tokenizer.next();
+			tokenizer.next();
+			
+			// Remember the size of our variable mapping table, to verify we
+			// added one later
+			final int variablesOrgSize = mapping.size();
+			
+			// The second argument is the name of the variable introduces
+			final LogicalExpression varExpression = reader.read(tokenizer,
+					mapping, typeRepository, typeComparator);
+			
+			if (!(varExpression instanceof Variable)) {
+				throw new LogicalExpressionRuntimeException(
+						"Invalid lambda argument: " + varExpression);
+			}
+			
+			final Variable variable = (Variable) varExpression;
+			
+			// To verify the creation of a variable, we just compare the size of
+			// variables mapping table before and after. We can do that because
+			// we don't allow overwrite.
+			if (variablesOrgSize + 1 != mapping.size()) {
+				throw new LogicalExpressionRuntimeException(
+						"Lambda expression must introduce a new variable: "
+								+ variable);
+			}
+			
+			// The next argument is the body expression
+			final LogicalExpression lambdaBody = reader.read(tokenizer,
+					mapping, typeRepository, typeComparator);
+			
+			// Verify that we don't have any more elements
+			if (!LogicalExpressionTokenizer.isClose(tokenizer.peek())) {
+				throw new LogicalExpressionRuntimeException(String.format(
+						"Invalid lambda expression, unexpected: %s",
+						tokenizer.peek()));
+			}
+			tokenizer.nextClose();
+			
+			// Need to remove the variable from the table. Since we keep them in
+			// a map, this is going to be ugly, but we will tolerate it since
+			// it's not really going to be a large map.
+			final Iterator<Entry<String, LogicalExpression>> variablesIterator = mapping
+					.entrySet().iterator();
+			boolean removed = false;
+			while (variablesIterator.hasNext() && !removed) {
+				if (variablesIterator.next().getValue() == variable) {
+					variablesIterator.remove();
+					removed = true;
 				}
-				
-				// The next argument is the body expression
-				final LogicalExpression lambdaBody = reader.read(
-						lispReader.next(), mapping, typeRepository,
-						typeComparator);
-				
-				// Verify that we don't have any more elements
-				if (lispReader.hasNext()) {
+			}
+			if (!removed) {
+				throw new LogicalExpressionRuntimeException(
+						"Failed to remove variable from mapping. Something werid is happening: "
+								+ variable);
+			}
+			
+			return new Lambda(variable, lambdaBody);
+		}
+		
+		@Override
+		public Lambda read(String string,
+				Map<String, LogicalExpression> mapping,
+				TypeRepository typeRepository, ITypeComparator typeComparator,
+				LogicalExpressionReader reader) {
+			try {
+				final LogicalExpressionTokenizer tokenizer = new LogicalExpressionTokenizer(
+						string);
+				final Lambda lambda = read(tokenizer, mapping, typeRepository,
+						typeComparator, reader);
+				if (tokenizer.hasNext()) {
 					throw new LogicalExpressionRuntimeException(String.format(
 							"Invalid lambda expression: %s", string));
 				}
-				
-				// Need to remove the variable from the table. Since we keep
-				// them in
-				// a map, this is going to be ugly, but we will tolerate it
-				// since
-				// it's not really going to be a large map.
-				final Iterator<Entry<String, LogicalExpression>> variablesIterator = mapping
-						.entrySet().iterator();
-				boolean removed = false;
-				while (variablesIterator.hasNext() && !removed) {
-					if (variablesIterator.next().getValue() == variable) {
-						variablesIterator.remove();
-						removed = true;
-					}
-				}
-				if (!removed) {
-					throw new LogicalExpressionRuntimeException(
-							"Failed to remove variable from mapping. Something werid is happening: "
-									+ string);
-				}
-				
-				return new Lambda(variable, lambdaBody);
+				return lambda;
 			} catch (final RuntimeException e) {
 				LOG.error("Lambda syntax error: %s", string);
 				throw e;
 			}
-			
 		}
 		
 	}
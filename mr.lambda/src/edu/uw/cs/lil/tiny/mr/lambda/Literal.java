@@ -18,15 +18,13 @@
  ******************************************************************************/
 package edu.uw.cs.lil.tiny.mr.lambda;
 
-import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
-import edu.uw.cs.lil.tiny.base.LispReader;
-import edu.uw.cs.lil.tiny.mr.lambda.LogicalExpressionReader.IReader;
+import edu.uw.cs.lil.tiny.mr.lambda.LogicalExpressionReader.IStreamingReader;
 import edu.uw.cs.lil.tiny.mr.lambda.visitor.ILogicalExpressionVisitor;
 import edu.uw.cs.lil.tiny.mr.language.type.ComplexType;
 import edu.uw.cs.lil.tiny.mr.language.type.RecursiveComplexType;
@@ -313,7 +311,19 @@ public class Literal extends LogicalExpression {
 		return true;
 	}
 	
-	public static class Reader implements IReader<Literal> {
+	@Override
+	WellFormedness calcWellFormedness() {
+		return WellFormedness.of(this);
+	}
+	
+	public static class Reader implements IStreamingReader<Literal> {
+		
+		@Override
+		public boolean isValid(LogicalExpressionTokenizer tokenizer) {
+			return LogicalExpressionTokenizer.isOpen(tokenizer.peek())
+					&& !(tokenizer.peekSecond() != null && tokenizer
+							.peekSecond().startsWith(Lambda.HEAD_STRING));
+		}
 		
 		@Override
 		public boolean isValid(String string) {
@@ -321,37 +331,47 @@ public class Literal extends LogicalExpression {
 					&& !string.startsWith(Lambda.PREFIX);
 		}
 		
+		@Override
+		public Literal read(LogicalExpressionTokenizer tokenizer,
+				Map<String, LogicalExpression> mapping,
+				TypeRepository typeRepository, ITypeComparator typeComparator,
+				LogicalExpressionReader reader) {
+			// Skip the opening parenthesis
+			tokenizer.next();
+			
+			// First is the literal predicate
+			final LogicalExpression predicate = reader.read(tokenizer,
+					mapping, typeRepository, typeComparator);
+			
+			// The rest of the elements, until the closing parenthesis, are the
+			// arguments
+			final List<LogicalExpression> arguments = new ArrayList<LogicalExpression>();
+			while (!LogicalExpressionTokenizer.isClose(tokenizer.peek())) {
+				arguments.add(reader.read(tokenizer, mapping, typeRepository,
+						typeComparator));
+			}
+			tokenizer.nextClose();
+			
+			// Create the literal, all checks are done within the constructor
+			return new Literal(predicate, arguments, typeComparator,
+					typeRepository);
+		}
+		
 		@Override
 		public Literal read(String string,
 				Map<String, LogicalExpression> mapping,
 				TypeRepository typeRepository, ITypeComparator typeComparator,
 				LogicalExpressionReader reader) {
 			try {
-				final LispReader lispReader = new LispReader(new StringReader(
-						string));
-				
-				// First is the literal predicate. Get its signature and verify
-				// it
-				// exists
-				final String predicateString = lispReader.next();
-				final LogicalExpression predicate = reader.read(
-						predicateString, mapping, typeRepository,
-						typeComparator);
-				
-				// The rest of the elements are the arguments
-				final List<LogicalExpression> arguments = new ArrayList<LogicalExpression>();
-				while (lispReader.hasNext()) {
-					final String stringElement = lispReader.next();
-					final LogicalExpression argument = reader.read(
-							stringElement, mapping, typeRepository,
-							typeComparator);
-					arguments.add(argument);
+				final LogicalExpressionTokenizer tokenizer = new LogicalExpressionTokenizer(
+						string);
+				final Literal literal = read(tokenizer, mapping,
+						typeRepository, typeComparator, reader);
+				if (tokenizer.hasNext()) {
+					throw new LogicalExpressionRuntimeException(
+							"Invalid literal expression: " + string);
 				}
-				
-				// Create the literal, all checks are done within the
-				// constructor
-				return new Literal(predicate, arguments, typeComparator,
-						typeRepository);
+				return literal;
 			} catch (final RuntimeException e) {
 				LOG.error("Literal syntax error: %s", string);
 				throw e;
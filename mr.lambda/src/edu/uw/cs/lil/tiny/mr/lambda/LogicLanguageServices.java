@@ -192,11 +192,7 @@ public class LogicLanguageServices {
 				.getIndexPredicateTypeForArray(arrayType);
 		final String name = LogicalConstant.makeName(
 				ARRAY_INDEX_ACCESS_PREDICATE_NAME, predicateType);
-		if (INSTANCE.ontology != null && INSTANCE.ontology.contains(name)) {
-			return INSTANCE.ontology.get(name);
-		} else {
-			return LogicalConstant.createDynamic(name, predicateType);
-		}
+		return LogicalConstant.createDynamic(name, predicateType);
 	}
 	
 	public static LogicalConstant getNegationPredicate() {
@@ -225,11 +221,7 @@ public class LogicLanguageServices {
 				.getSubPredicateTypeForArray(arrayType);
 		final String name = LogicalConstant.makeName(ARRAY_SUB_PREDICATE_NAME,
 				predicateType);
-		if (INSTANCE.ontology != null && INSTANCE.ontology.contains(name)) {
-			return INSTANCE.ontology.get(name);
-		} else {
-			return LogicalConstant.createDynamic(name, predicateType);
-		}
+		return LogicalConstant.createDynamic(name, predicateType);
 	}
 	
 	public static LogicalConstant getTrue() {
@@ -266,22 +258,14 @@ public class LogicLanguageServices {
 	static public LogicalConstant intToIndexConstant(int i) {
 		final String name = i + Term.TYPE_SEPARATOR
 				+ INSTANCE.typeRepository.getIndexType().getName();
-		if (INSTANCE.ontology != null && INSTANCE.ontology.contains(name)) {
-			return INSTANCE.ontology.get(name);
-		} else {
-			return LogicalConstant.createDynamic(name,
-					INSTANCE.typeRepository.getIndexType());
-		}
+		return LogicalConstant.createDynamic(name,
+				INSTANCE.typeRepository.getIndexType());
 	}
 	
 	static public LogicalConstant intToLogicalExpression(long num) {
 		final String name = String.valueOf(num) + ":"
 				+ INSTANCE.numeralType.getName();
-		if (INSTANCE.ontology != null && INSTANCE.ontology.contains(name)) {
-			return INSTANCE.ontology.get(name);
-		} else {
-			return LogicalConstant.createDynamic(name, INSTANCE.numeralType);
-		}
+		return LogicalConstant.createDynamic(name, INSTANCE.numeralType);
 	}
 	
 	public static boolean isArrayIndexPredicate(LogicalExpression pred) {
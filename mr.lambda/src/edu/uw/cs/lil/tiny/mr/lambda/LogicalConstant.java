@@ -22,7 +22,7 @@ import java.io.ObjectStreamException;
 import java.util.Map;
 
 import jregex.Pattern;
-import edu.uw.cs.lil.tiny.mr.lambda.LogicalExpressionReader.IReader;
+import edu.uw.cs.lil.tiny.mr.lambda.LogicalExpressionReader.IStreamingReader;
 import edu.uw.cs.lil.tiny.mr.lambda.visitor.ILogicalExpressionVisitor;
 import edu.uw.cs.lil.tiny.mr.language.type.Type;
 import edu.uw.cs.lil.tiny.mr.language.type.TypeRepository;
@@ -74,8 +74,8 @@ public class LogicalConstant extends Term {
 		if (LogicLanguageServices.getOntology() == null) {
 			return new LogicalConstant(name, type);
 		} else {
-			return LogicLanguageServices.getOntology().getOrAdd(
-					new LogicalConstant(name, type), dynamic);
+			return LogicLanguageServices.getOntology().getOrAdd(name, type,
+					dynamic);
 		}
 	}
 	
@@ -251,13 +251,27 @@ public class LogicalConstant extends Term {
 		return create(getName(), getType());
 	}
 	
-	public static class Reader implements IReader<LogicalConstant> {
+	public static class Reader implements IStreamingReader<LogicalConstant> {
+		
+		@Override
+		public boolean isValid(LogicalExpressionTokenizer tokenizer) {
+			return LogicalExpressionTokenizer.isWord(tokenizer.peek())
+					&& isValid(tokenizer.peek());
+		}
 		
 		@Override
 		public boolean isValid(String string) {
 			return isValidName(string);
 		}
 		
+		@Override
+		public LogicalConstant read(LogicalExpressionTokenizer tokenizer,
+				Map<String, LogicalExpression> mapping,
+				TypeRepository typeRepository, ITypeComparator typeComparator,
+				LogicalExpressionReader reader) {
+			return LogicalConstant.read(tokenizer.next(), typeRepository);
+		}
+		
 		@Override
 		public LogicalConstant read(String string,
 				Map<String, LogicalExpression> mapping,
@@ -40,18 +40,32 @@ public abstract class LogicalExpression implements
 	public static char			PARENTHESIS_OPEN	= '(';
 	private static final long	serialVersionUID	= 751768060713295464L;
 	
+	/**
+	 * Mutable marker set by {@link LogicalExpressionInterner} on canonical
+	 * instances. Two canonical instances of the same (non-zero) generation are
+	 * equal only if they are identical. This field is for internal use only!
+	 */
+	transient int				canonicalGeneration	= 0;
+	
 	/**
 	 * Mutable cache for the hashing code. This field is for internal use only!
 	 * It mustn't be used when copying/comparing/storing/etc. the object.
 	 */
-	private int					hashCodeCache;
+	private int							hashCodeCache;
 	
 	/**
 	 * Mutable flag to indicate if the hash code cache is populated. This field
 	 * is for internal use only! It mustn't be used when
 	 * copying/comparing/storing/etc. the object.
 	 */
-	private boolean				hashCodeCalculated	= false;
+	private boolean						hashCodeCalculated	= false;
+	
+	/**
+	 * Mutable cache for the type consistency and validity summary, computed
+	 * on demand. This field is for internal use only! It mustn't be used when
+	 * copying/comparing/storing/etc. the object.
+	 */
+	private transient WellFormedness	wellFormedness		= null;
 	
 	public static LogicalExpression read(String string) {
 		return LogicalExpressionReader.from(string);
@@ -63,12 +77,18 @@ public abstract class LogicalExpression implements
 	 * Logical expression equals() creates an empty mapping and then compares to
 	 * the given object, while tracking variables. Before allocating the
 	 * mapping, tries to fail quickly by comparing the hash codes, which are
-	 * cached.
+	 * cached, and by checking if both objects are canonical instances (see
+	 * {@link LogicalExpressionInterner}).
 	 */
 	@Override
 	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
 		// Try to use the hash code to quickly fail on most non-equal objects.
-		return obj instanceof LogicalExpression && obj.hashCode() == hashCode()
+		return obj instanceof LogicalExpression
+				&& !bothCanonical((LogicalExpression) obj)
+				&& obj.hashCode() == hashCode()
 				&& LogicLanguageServices.isEqual(this, (LogicalExpression) obj);
 	}
 	
@@ -83,6 +103,26 @@ public abstract class LogicalExpression implements
 		return hashCodeCache;
 	}
 	
+	/**
+	 * Incremental equivalent of
+	 * {@link edu.uw.cs.lil.tiny.mr.lambda.visitor.IsTypeConsistent#of(LogicalExpression)}
+	 * . The result is cached for each sub-expression, so only sub-expressions
+	 * that weren't checked before are visited.
+	 */
+	public boolean isTypeConsistent() {
+		return getWellFormedness().isTypeConsistent();
+	}
+	
+	/**
+	 * Incremental equivalent of
+	 * {@link edu.uw.cs.lil.tiny.mr.lambda.visitor.IsValid#of(LogicalExpression)}
+	 * . The result is cached for each sub-expression, so only sub-expressions
+	 * that weren't checked before are visited.
+	 */
+	public boolean isValid() {
+		return getWellFormedness().isValid();
+	}
+	
 	@Override
 	final public String toString() {
 		return LogicLanguageServices.toString(this);
@@ -90,6 +130,12 @@ public abstract class LogicalExpression implements
 	
 	protected abstract int calcHashCode();
 	
+	/**
+	 * Compute the type consistency and validity summary from the summaries of
+	 * the direct sub-expressions.
+	 */
+	abstract WellFormedness calcWellFormedness();
+	
 	/**
 	 * Comparison with mapping.
 	 * 
@@ -112,7 +158,28 @@ public abstract class LogicalExpression implements
 	 */
 	protected boolean equals(LogicalExpression exp,
 			Map<LogicalExpression, LogicalExpression> mapping) {
-		return exp != null && exp.hashCode() == hashCode()
-				&& doEquals(exp, mapping);
+		// Canonical instances are closed, so the mapping can't affect their
+		// comparison
+		return exp != null && (exp == this || !bothCanonical(exp))
+				&& exp.hashCode() == hashCode() && doEquals(exp, mapping);
+	}
+	
+	WellFormedness getWellFormedness() {
+		// Races are harmless, the summary is immutable and always identical
+		WellFormedness summary = wellFormedness;
+		if (summary == null) {
+			summary = calcWellFormedness();
+			wellFormedness = summary;
+		}
+		return summary;
+	}
+	
+	/**
+	 * @return true iff both this object and the given one are canonical
+	 *         instances of the same generation.
+	 */
+	private boolean bothCanonical(LogicalExpression exp) {
+		return canonicalGeneration != 0
+				&& canonicalGeneration == exp.canonicalGeneration;
 	}
 }
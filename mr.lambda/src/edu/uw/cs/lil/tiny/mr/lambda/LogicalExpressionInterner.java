@@ -0,0 +1,224 @@
+/*******************************************************************************
+ * UW SPF - The University of Washington Semantic Parsing Framework
+ * <p>
+ * Copyright (C) 2013 Yoav Artzi
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ ******************************************************************************/
+package edu.uw.cs.lil.tiny.mr.lambda;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import edu.uw.cs.lil.tiny.mr.lambda.visitor.ILogicalExpressionVisitor;
+
+/**
+ * Interns logical expressions up to alpha-equivalence. Each closed expression
+ * (and each of its closed sub-expressions) is mapped to a single canonical
+ * instance. The canonical form uses De Bruijn indices for bound variables and
+ * sorts the arguments of order-insensitive predicates, so expressions that are
+ * equal according to {@link LogicalExpression#equals(Object)} get the same
+ * canonical instance. Canonical instances are marked, so comparing two of them
+ * is a reference comparison. Expressions with free variables are returned
+ * rebuilt from canonical sub-expressions, but are not interned themselves.
+ * <p>
+ * Interning is optional. Expressions that were not interned are compared as
+ * usual.
+ * 
+ * @author Yoav Artzi
+ */
+public class LogicalExpressionInterner {
+	
+	private static final AtomicInteger	GENERATIONS	= new AtomicInteger(0);
+	
+	private static volatile Table		TABLE		= new Table();
+	
+	private LogicalExpressionInterner() {
+		// Service class. Not instantiatable.
+	}
+	
+	/**
+	 * Drop all canonical instances. Instances interned before the call remain
+	 * valid expressions, but are no longer canonical.
+	 */
+	public static void clear() {
+		TABLE = new Table();
+	}
+	
+	/**
+	 * @return The canonical instance of the given expression. If the
+	 *         expression has free variables, returns an equal expression built
+	 *         from canonical sub-expressions.
+	 */
+	public static LogicalExpression intern(LogicalExpression exp) {
+		if (exp == null) {
+			return null;
+		}
+		final Table table = TABLE;
+		if (exp.canonicalGeneration == table.generation) {
+			return exp;
+		}
+		final Canonize visitor = new Canonize(table);
+		visitor.visit(exp);
+		return visitor.result;
+	}
+	
+	/**
+	 * @return Number of canonical instances.
+	 */
+	public static int size() {
+		return TABLE.instances.size();
+	}
+	
+	/**
+	 * Computes the canonical key of each sub-expression bottom-up, and replaces
+	 * every closed sub-expression with its canonical instance.
+	 */
+	private static class Canonize implements ILogicalExpressionVisitor {
+		/**
+		 * Lambda variables bound at the current position, outermost first.
+		 */
+		private final List<Variable>	binders			= new ArrayList<Variable>();
+		
+		/**
+		 * The lowest index in the binders list referenced by the last visited
+		 * expression. Integer.MAX_VALUE if it references no variable, and -1
+		 * if it references a free variable.
+		 */
+		private int						outermostBinder;
+		
+		private String					key;
+		private LogicalExpression		result;
+		private final Table				table;
+		
+		public Canonize(Table table) {
+			this.table = table;
+		}
+		
+		@Override
+		public void visit(Lambda lambda) {
+			final int depth = binders.size();
+			binders.add(lambda.getArgument());
+			lambda.getBody().accept(this);
+			binders.remove(depth);
+			
+			final LogicalExpression body = result;
+			key = new StringBuilder().append("(lambda ")
+					.append(lambda.getArgument().getType().getName())
+					.append(' ').append(key).append(')').toString();
+			result = body == lambda.getBody() ? lambda : new Lambda(
+					lambda.getArgument(), body);
+			if (outermostBinder == depth) {
+				// The variable of this lambda is not visible outside of it
+				outermostBinder = Integer.MAX_VALUE;
+			}
+			internIfClosed(depth);
+		}
+		
+		@Override
+		public void visit(Literal literal) {
+			final int depth = binders.size();
+			
+			literal.getPredicate().accept(this);
+			final LogicalExpression predicate = result;
+			final String predicateKey = key;
+			int outermost = outermostBinder;
+			boolean changed = predicate != literal.getPredicate();
+			
+			final int numArgs = literal.numArgs();
+			final List<LogicalExpression> args = new ArrayList<LogicalExpression>(
+					numArgs);
+			final List<String> argKeys = new ArrayList<String>(numArgs);
+			for (final LogicalExpression arg : literal.getArguments()) {
+				arg.accept(this);
+				args.add(result);
+				argKeys.add(key);
+				outermost = Math.min(outermost, outermostBinder);
+				changed |= result != arg;
+			}
+			
+			if (!literal.getPredicateType().isOrderSensitive()) {
+				Collections.sort(argKeys);
+			}
+			final StringBuilder keyBuilder = new StringBuilder().append('(')
+					.append(predicateKey);
+			for (final String argKey : argKeys) {
+				keyBuilder.append(' ').append(argKey);
+			}
+			key = keyBuilder.append(')').toString();
+			result = changed ? new Literal(predicate, args) : literal;
+			outermostBinder = outermost;
+			internIfClosed(depth);
+		}
+		
+		@Override
+		public void visit(LogicalConstant logicalConstant) {
+			key = logicalConstant.getName();
+			result = logicalConstant;
+			outermostBinder = Integer.MAX_VALUE;
+		}
+		
+		@Override
+		public void visit(LogicalExpression logicalExpression) {
+			logicalExpression.accept(this);
+		}
+		
+		@Override
+		public void visit(Variable variable) {
+			// Variables override equals() with instance comparison
+			final int index = binders.lastIndexOf(variable);
+			if (index < 0) {
+				// Free variable. The key is never used for interning, since
+				// no expression containing it is closed.
+				key = "?";
+				outermostBinder = -1;
+			} else {
+				// De Bruijn index
+				key = "#" + (binders.size() - 1 - index);
+				outermostBinder = index;
+			}
+			result = variable;
+		}
+		
+		/**
+		 * Replace the result with its canonical instance, if it doesn't
+		 * reference any variable bound outside of it.
+		 */
+		private void internIfClosed(int depth) {
+			if (outermostBinder >= depth) {
+				final LogicalExpression existing = table.instances.putIfAbsent(
+						key, result);
+				if (existing == null) {
+					// Mark only after winning the race, so there's a single
+					// marked instance for every key
+					result.canonicalGeneration = table.generation;
+				} else {
+					result = existing;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Canonical instances with the generation used to mark them.
+	 */
+	private static class Table {
+		private final int											generation	= GENERATIONS
+																						.incrementAndGet();
+		private final ConcurrentHashMap<String, LogicalExpression>	instances	= new ConcurrentHashMap<String, LogicalExpression>();
+	}
+}
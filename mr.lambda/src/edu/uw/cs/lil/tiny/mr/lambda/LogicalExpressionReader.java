@@ -1,12 +1,11 @@
 package edu.uw.cs.lil.tiny.mr.lambda;
 
+import java.io.Reader;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-import jregex.Pattern;
-import jregex.Replacer;
 import edu.uw.cs.lil.tiny.mr.lambda.visitor.LambdaWrapped;
 import edu.uw.cs.lil.tiny.mr.language.type.TypeRepository;
 import edu.uw.cs.utils.filter.IFilter;
@@ -14,20 +13,20 @@ import edu.uw.cs.utils.log.ILogger;
 import edu.uw.cs.utils.log.LoggerFactory;
 
 /**
- * Utility class to read logical expressions from strings.
+ * Utility class to read logical expressions from strings. Reading is done in a
+ * single pass over a token stream (see {@link LogicalExpressionTokenizer}).
+ * Readers that implement {@link IStreamingReader} consume tokens directly,
+ * while other {@link IReader}s are given the string of the complete
+ * sub-expression.
  * 
  * @author Yoav Artzi
  */
 public class LogicalExpressionReader {
-	public static LogicalExpressionReader						INSTANCE				= new LogicalExpressionReader();
-	public static final ILogger									LOG						= LoggerFactory
-																								.create(LogicalExpressionReader.class);
-	private static final Replacer								WHITE_SPACE_REPLACER	= new Replacer(
-																								new Pattern(
-																										"\\s+"),
-																								" ");
+	public static LogicalExpressionReader						INSTANCE	= new LogicalExpressionReader();
+	public static final ILogger									LOG			= LoggerFactory
+																					.create(LogicalExpressionReader.class);
 	
-	private final List<IReader<? extends LogicalExpression>>	readers					= new ArrayList<IReader<? extends LogicalExpression>>();
+	private final List<IReader<? extends LogicalExpression>>	readers		= new ArrayList<IReader<? extends LogicalExpression>>();
 	
 	private LogicalExpressionReader() {
 	}
@@ -40,6 +39,13 @@ public class LogicalExpressionReader {
 		register(new LogicalConstant.Reader());
 	}
 	
+	/**
+	 * Read a logical expression from a LISP formatted stream.
+	 */
+	public static LogicalExpression from(Reader in) {
+		return INSTANCE.read(in);
+	}
+	
 	/**
 	 * Read a logical expression from a LISP formatted string.
 	 */
@@ -60,50 +66,103 @@ public class LogicalExpressionReader {
 	}
 	
 	/**
-	 * Read a logical expression from a LISP formatted string.
+	 * Read a logical expression from a LISP formatted stream. The stream must
+	 * contain a single expression.
 	 */
-	public LogicalExpression read(String string) {
-		return read(string, LogicLanguageServices.getTypeRepository(),
+	public LogicalExpression read(Reader in) {
+		return read(new LogicalExpressionTokenizer(in),
+				LogicLanguageServices.getTypeRepository(),
 				LogicLanguageServices.getTypeComparator());
-		
 	}
 	
-	/** {@see #read(String)} */
-	private LogicalExpression read(String string,
-			TypeRepository typeRepository, ITypeComparator typeComparator) {
-		// Flatten the string. Replace all white space sequences with a single
-		// space.
-		final String flatString = WHITE_SPACE_REPLACER.replace(string);
+	/**
+	 * Read a logical expression from a LISP formatted string.
+	 */
+	public LogicalExpression read(String string) {
 		try {
-			return LambdaWrapped.of(read(flatString,
-					new HashMap<String, LogicalExpression>(), typeRepository,
-					typeComparator));
+			return read(new LogicalExpressionTokenizer(string),
+					LogicLanguageServices.getTypeRepository(),
+					LogicLanguageServices.getTypeComparator());
 		} catch (final RuntimeException e) {
-			LOG.error("Logical expression syntax error: %s", flatString);
+			LOG.error("Logical expression syntax error: %s", string);
 			throw e;
 		}
 	}
 	
+	/** {@see #read(String)} */
+	private LogicalExpression read(LogicalExpressionTokenizer tokenizer,
+			TypeRepository typeRepository, ITypeComparator typeComparator) {
+		final LogicalExpression exp = read(tokenizer,
+				new HashMap<String, LogicalExpression>(), typeRepository,
+				typeComparator);
+		if (tokenizer.hasNext()) {
+			throw new IllegalArgumentException(
+					"Unexpected input after logical expression: "
+							+ tokenizer.next());
+		}
+		return LambdaWrapped.of(exp);
+	}
+	
 	/**
-	 * Read a logical expression from a string.
+	 * Read the next logical expression from a token stream. Readers are tried
+	 * in the order they were registered. Once a reader that doesn't support
+	 * streaming is reached, the sub-expression is consumed as a string and all
+	 * remaining readers are given that string.
 	 * 
-	 * @param string
-	 *            LISP formatted string.
+	 * @param tokenizer
+	 *            Token stream of a LISP formatted expression.
 	 * @param mapping
 	 *            Mapping of labels to logical expressions created during
 	 *            parsing (for example, so we could re-use variables).
 	 */
-	protected LogicalExpression read(String string,
+	protected LogicalExpression read(LogicalExpressionTokenizer tokenizer,
 			Map<String, LogicalExpression> mapping,
 			TypeRepository typeRepository, ITypeComparator typeComparator) {
+		String string = null;
 		for (final IReader<? extends LogicalExpression> reader : readers) {
-			if (reader.isValid(string)) {
-				return reader.read(string, mapping, typeRepository,
-						typeComparator, this);
+			if (string == null && reader instanceof IStreamingReader) {
+				final IStreamingReader<? extends LogicalExpression> streamingReader = (IStreamingReader<? extends LogicalExpression>) reader;
+				if (streamingReader.isValid(tokenizer)) {
+					return streamingReader.read(tokenizer, mapping,
+							typeRepository, typeComparator, this);
+				}
+			} else {
+				if (string == null) {
+					string = tokenizer.nextExpression();
+				}
+				if (reader.isValid(string)) {
+					return reader.read(string, mapping, typeRepository,
+							typeComparator, this);
+				}
 			}
 		}
 		throw new IllegalArgumentException(
-				"Invalid logical expression syntax: " + string);
+				"Invalid logical expression syntax: "
+						+ (string == null ? tokenizer.nextExpression() : string));
+	}
+	
+	/**
+	 * Read a logical expression from a string. The string must contain a
+	 * single expression.
+	 * 
+	 * @param string
+	 *            LISP formatted string.
+	 * @param mapping
+	 *            Mapping of labels to logical expressions created during
+	 *            parsing (for example, so we could re-use variables).
+	 */
+	protected LogicalExpression read(String string,
+			Map<String, LogicalExpression> mapping,
+			TypeRepository typeRepository, ITypeComparator typeComparator) {
+		final LogicalExpressionTokenizer tokenizer = new LogicalExpressionTokenizer(
+				string);
+		final LogicalExpression exp = read(tokenizer, mapping, typeRepository,
+				typeComparator);
+		if (tokenizer.hasNext()) {
+			throw new IllegalArgumentException(
+					"Invalid logical expression syntax: " + string);
+		}
+		return exp;
 	}
 	
 	public static interface IReader<LOGEXP extends LogicalExpression> extends
@@ -115,4 +174,29 @@ public class LogicalExpressionReader {
 		
 	}
 	
+	/**
+	 * Reader that consumes its expression directly from the token stream,
+	 * without creating a string for it first.
+	 * 
+	 * @author Yoav Artzi
+	 */
+	public static interface IStreamingReader<LOGEXP extends LogicalExpression>
+			extends IReader<LOGEXP> {
+		
+		/**
+		 * Checks if the next expression in the token stream can be read by
+		 * this reader. Must not consume any tokens.
+		 */
+		boolean isValid(LogicalExpressionTokenizer tokenizer);
+		
+		/**
+		 * Read the next expression, consuming all of its tokens.
+		 */
+		LOGEXP read(LogicalExpressionTokenizer tokenizer,
+				Map<String, LogicalExpression> mapping,
+				TypeRepository typeRepository, ITypeComparator typeComparator,
+				LogicalExpressionReader reader);
+		
+	}
+	
 }
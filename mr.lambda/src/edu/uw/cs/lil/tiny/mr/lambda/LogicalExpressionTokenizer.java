@@ -0,0 +1,273 @@
+/*******************************************************************************
+ * UW SPF - The University of Washington Semantic Parsing Framework
+ * <p>
+ * Copyright (C) 2013 Yoav Artzi
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ ******************************************************************************/
+package edu.uw.cs.lil.tiny.mr.lambda;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Single-pass tokenizer for LISP formatted logical expressions. Tokens are
+ * parentheses and words, where a word is a maximal sequence of characters that
+ * are neither white space nor parentheses. Reads directly from a
+ * {@link CharSequence} or a {@link Reader}, without flattening or copying the
+ * input.
+ * 
+ * @author Yoav Artzi
+ */
+public class LogicalExpressionTokenizer {
+	private static final int	BUFFER_SIZE	= 4096;
+	
+	/**
+	 * Buffer for characters read from {@link #in}, null when reading from a
+	 * character sequence.
+	 */
+	private final char[]		buffer;
+	
+	/**
+	 * The input stream, null when reading from a character sequence.
+	 */
+	private final Reader		in;
+	
+	/**
+	 * Number of valid characters in {@link #buffer}, or the length of
+	 * {@link #sequence}.
+	 */
+	private int					limit;
+	
+	/**
+	 * Look-ahead tokens. {@link #lookahead} holds the next token and
+	 * {@link #secondLookahead} the one following it. Each is null if not read
+	 * yet or if the input ended.
+	 */
+	private String				lookahead;
+	
+	/**
+	 * Position of the next character to read, either in {@link #buffer} or in
+	 * {@link #sequence}.
+	 */
+	private int					position;
+	
+	private String				secondLookahead;
+	
+	/**
+	 * The input sequence, null when reading from a stream.
+	 */
+	private final CharSequence	sequence;
+	
+	public LogicalExpressionTokenizer(CharSequence sequence) {
+		this.sequence = sequence;
+		this.in = null;
+		this.buffer = null;
+		this.limit = sequence.length();
+	}
+	
+	public LogicalExpressionTokenizer(Reader in) {
+		this.sequence = null;
+		this.in = in;
+		this.buffer = new char[BUFFER_SIZE];
+		this.limit = 0;
+	}
+	
+	/**
+	 * Checks if the given token is a closing parenthesis.
+	 */
+	public static boolean isClose(String token) {
+		return token != null && token.length() == 1
+				&& token.charAt(0) == LogicalExpression.PARENTHESIS_CLOSE;
+	}
+	
+	/**
+	 * Checks if the given token is an opening parenthesis.
+	 */
+	public static boolean isOpen(String token) {
+		return token != null && token.length() == 1
+				&& token.charAt(0) == LogicalExpression.PARENTHESIS_OPEN;
+	}
+	
+	/**
+	 * Checks if the given token is a word (not a parenthesis).
+	 */
+	public static boolean isWord(String token) {
+		return token != null && !isOpen(token) && !isClose(token);
+	}
+	
+	public boolean hasNext() {
+		return peek() != null;
+	}
+	
+	/**
+	 * Consume the next token.
+	 * 
+	 * @throws LogicalExpressionRuntimeException
+	 *             If the input ended.
+	 */
+	public String next() {
+		final String token = peek();
+		if (token == null) {
+			throw new LogicalExpressionRuntimeException(
+					"Unexpected end of logical expression");
+		}
+		lookahead = secondLookahead;
+		secondLookahead = null;
+		return token;
+	}
+	
+	/**
+	 * Consume the next token, which must be a closing parenthesis.
+	 * 
+	 * @throws LogicalExpressionRuntimeException
+	 *             If the next token is not a closing parenthesis.
+	 */
+	public void nextClose() {
+		final String token = next();
+		if (!isClose(token)) {
+			throw new LogicalExpressionRuntimeException(
+					"Expected closing parenthesis, found: " + token);
+		}
+	}
+	
+	/**
+	 * Consume a complete expression (a single word or a balanced list) and
+	 * return it as a string. Tokens of a list are separated by a single space,
+	 * with no space after an opening parenthesis or before a closing one.
+	 */
+	public String nextExpression() {
+		final String first = next();
+		if (isClose(first)) {
+			throw new LogicalExpressionRuntimeException(
+					"Unexpected closing parenthesis");
+		}
+		if (isWord(first)) {
+			return first;
+		}
+		final StringBuilder sb = new StringBuilder(first);
+		int depth = 1;
+		String previous = first;
+		while (depth > 0) {
+			final String token = next();
+			if (isOpen(token)) {
+				++depth;
+			} else if (isClose(token)) {
+				--depth;
+			}
+			if (!isOpen(previous) && !isClose(token)) {
+				sb.append(' ');
+			}
+			sb.append(token);
+			previous = token;
+		}
+		return sb.toString();
+	}
+	
+	/**
+	 * Return the next token without consuming it, or null if the input ended.
+	 */
+	public String peek() {
+		if (lookahead == null) {
+			lookahead = readToken();
+		}
+		return lookahead;
+	}
+	
+	/**
+	 * Return the token following the next one without consuming any tokens, or
+	 * null if the input ends before it.
+	 */
+	public String peekSecond() {
+		if (peek() != null && secondLookahead == null) {
+			secondLookahead = readToken();
+		}
+		return secondLookahead;
+	}
+	
+	private static boolean isDelimiter(int c) {
+		return Character.isWhitespace(c)
+				|| c == LogicalExpression.PARENTHESIS_OPEN
+				|| c == LogicalExpression.PARENTHESIS_CLOSE;
+	}
+	
+	/**
+	 * Return the next character without consuming it, reading more of the
+	 * stream if needed.
+	 * 
+	 * @return The character, or -1 if the input ended.
+	 */
+	private int peekChar() {
+		if (position == limit) {
+			if (in == null) {
+				return -1;
+			}
+			try {
+				limit = in.read(buffer);
+			} catch (final IOException e) {
+				throw new LogicalExpressionRuntimeException(
+						"Failed to read logical expression: " + e.getMessage());
+			}
+			position = 0;
+			if (limit <= 0) {
+				limit = 0;
+				return -1;
+			}
+		}
+		return sequence == null ? buffer[position] : sequence.charAt(position);
+	}
+	
+	/**
+	 * Read the next token from the input.
+	 * 
+	 * @return The token, or null if the input ended.
+	 */
+	private String readToken() {
+		// Skip white space
+		int c = peekChar();
+		while (c != -1 && Character.isWhitespace(c)) {
+			++position;
+			c = peekChar();
+		}
+		
+		if (c == -1) {
+			return null;
+		}
+		
+		if (c == LogicalExpression.PARENTHESIS_OPEN
+				|| c == LogicalExpression.PARENTHESIS_CLOSE) {
+			++position;
+			return String.valueOf((char) c);
+		}
+		
+		if (sequence != null) {
+			// Case reading from a sequence, the word is a sub-sequence of it
+			final int start = position;
+			while (c != -1 && !isDelimiter(c)) {
+				++position;
+				c = peekChar();
+			}
+			return sequence.subSequence(start, position).toString();
+		} else {
+			// Case reading from a stream, the word may cross buffer boundaries
+			final StringBuilder word = new StringBuilder();
+			while (c != -1 && !isDelimiter(c)) {
+				word.append((char) c);
+				++position;
+				c = peekChar();
+			}
+			return word.toString();
+		}
+	}
+}
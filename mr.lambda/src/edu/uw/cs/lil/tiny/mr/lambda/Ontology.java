@@ -18,31 +18,31 @@
  ******************************************************************************/
 package edu.uw.cs.lil.tiny.mr.lambda;
 
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
-import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import edu.uw.cs.lil.tiny.mr.language.type.Type;
 
 /**
  * A collection of constants forms and ontology. The ontology can be closed
- * (i.e., immutable) or not (i.e., constants can be added).
+ * (i.e., immutable) or not (i.e., constants can be added). Constants are
+ * indexed by their unique name in a concurrent table, so look-ups never lock
+ * and additions don't block readers.
  * 
  * @author Yoav Artzi
  */
 public class Ontology implements Iterable<LogicalConstant> {
 	
-	private final Map<WrappedConstant, LogicalConstant>	constants;
-	private final Map<String, LogicalConstant>			constantsByName;
-	private final boolean								isClosed;
+	private final ConcurrentHashMap<String, LogicalConstant>	constants;
+	private final boolean										isClosed;
 	
 	public Ontology(Iterable<LogicalConstant> constants, boolean isClosed) {
 		this.isClosed = isClosed;
-		this.constants = new HashMap<WrappedConstant, LogicalConstant>();
-		this.constantsByName = new HashMap<String, LogicalConstant>();
+		this.constants = new ConcurrentHashMap<String, LogicalConstant>();
 		for (final LogicalConstant constant : constants) {
-			this.constants.put(new WrappedConstant(constant), constant);
-			this.constantsByName.put(constant.getName(), constant);
+			this.constants.put(constant.getName(), constant);
 		}
 	}
 	
@@ -54,17 +54,23 @@ public class Ontology implements Iterable<LogicalConstant> {
 	 * @return
 	 */
 	public LogicalConstant add(LogicalConstant constant, boolean force) {
-		synchronized (constants) {
-			if (!contains(constant)) {
-				if (force || !isClosed) {
-					constants.put(new WrappedConstant(constant), constant);
-					constantsByName.put(constant.getName(), constant);
-				} else {
-					throw new LogicalExpressionRuntimeException(String.format(
-							"Closed ontology. Failed to add: %s", constant));
-				}
-			}
-			return get(constant);
+		final LogicalConstant existing = constants.get(constant.getName());
+		if (existing != null) {
+			return verifyType(existing, constant.getType());
+		}
+		
+		if (!force && isClosed) {
+			throw new LogicalExpressionRuntimeException(String.format(
+					"Closed ontology. Failed to add: %s", constant));
+		}
+		
+		final LogicalConstant previous = constants.putIfAbsent(
+				constant.getName(), constant);
+		if (previous == null) {
+			return constant;
+		} else {
+			// Case another thread added the constant concurrently
+			return verifyType(previous, constant.getType());
 		}
 	}
 	
@@ -72,22 +78,24 @@ public class Ontology implements Iterable<LogicalConstant> {
 	 * Checks if a constant is included in the ontology.
 	 */
 	public boolean contains(LogicalConstant constant) {
-		return constants.containsKey(new WrappedConstant(constant));
+		return get(constant) != null;
 	}
 	
 	/**
 	 * Checks if a constant with the given name is included in the ontology.
 	 */
 	public boolean contains(String name) {
-		return constantsByName.containsKey(name);
+		return constants.containsKey(name);
 	}
 	
 	public LogicalConstant get(LogicalConstant constant) {
-		return constants.get(new WrappedConstant(constant));
+		final LogicalConstant existing = constants.get(constant.getName());
+		return existing != null && existing.doEquals(constant) ? existing
+				: null;
 	}
 	
 	public LogicalConstant get(String name) {
-		return constantsByName.get(name);
+		return constants.get(name);
 	}
 	
 	public Set<LogicalConstant> getAllConstants() {
@@ -107,10 +115,20 @@ public class Ontology implements Iterable<LogicalConstant> {
 	}
 	
 	public LogicalConstant getOrAdd(LogicalConstant constant, boolean force) {
-		if (contains(constant)) {
-			return get(constant);
+		return add(constant, force);
+	}
+	
+	/**
+	 * Get the constant with the given name and type, creating and adding it if
+	 * needed. Unlike {@link #getOrAdd(LogicalConstant, boolean)}, doesn't
+	 * create a constant if one already exists.
+	 */
+	public LogicalConstant getOrAdd(String name, Type type, boolean force) {
+		final LogicalConstant existing = constants.get(name);
+		if (existing != null) {
+			return verifyType(existing, type);
 		} else {
-			return add(constant, force);
+			return add(new LogicalConstant(name, type), force);
 		}
 	}
 	
@@ -126,28 +144,13 @@ public class Ontology implements Iterable<LogicalConstant> {
 		return constants.values().iterator();
 	}
 	
-	/**
-	 * Wrapper used to force using content comparison (over instance comparison)
-	 * when indexing constants in the ontology.
-	 * 
-	 * @author Yoav Artzi
-	 */
-	private static class WrappedConstant {
-		private final LogicalConstant	constant;
-		
-		public WrappedConstant(LogicalConstant constant) {
-			this.constant = constant;
-		}
-		
-		@Override
-		public boolean equals(Object obj) {
-			return obj instanceof WrappedConstant
-					&& constant.doEquals(((WrappedConstant) obj).constant);
-		}
-		
-		@Override
-		public int hashCode() {
-			return constant.hashCode();
+	private LogicalConstant verifyType(LogicalConstant constant, Type type) {
+		if (constant.getType().equals(type)) {
+			return constant;
+		} else {
+			throw new LogicalExpressionRuntimeException(String.format(
+					"Constant %s already exists with a different type: %s",
+					constant, type));
 		}
 	}
 }
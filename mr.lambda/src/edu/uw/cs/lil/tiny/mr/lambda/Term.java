@@ -79,4 +79,9 @@ public abstract class Term extends LogicalExpression {
 		}
 		return true;
 	}
+	
+	@Override
+	WellFormedness calcWellFormedness() {
+		return WellFormedness.TERM;
+	}
 }
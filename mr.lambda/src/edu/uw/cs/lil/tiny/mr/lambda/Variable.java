@@ -20,7 +20,7 @@ package edu.uw.cs.lil.tiny.mr.lambda;
 
 import java.util.Map;
 
-import edu.uw.cs.lil.tiny.mr.lambda.LogicalExpressionReader.IReader;
+import edu.uw.cs.lil.tiny.mr.lambda.LogicalExpressionReader.IStreamingReader;
 import edu.uw.cs.lil.tiny.mr.lambda.visitor.ILogicalExpressionVisitor;
 import edu.uw.cs.lil.tiny.mr.language.type.Type;
 import edu.uw.cs.lil.tiny.mr.language.type.TypeRepository;
@@ -75,13 +75,28 @@ public class Variable extends Term {
 		}
 	}
 	
-	public static class Reader implements IReader<Variable> {
+	public static class Reader implements IStreamingReader<Variable> {
+		
+		@Override
+		public boolean isValid(LogicalExpressionTokenizer tokenizer) {
+			return LogicalExpressionTokenizer.isWord(tokenizer.peek())
+					&& isValid(tokenizer.peek());
+		}
 		
 		@Override
 		public boolean isValid(String string) {
 			return string.startsWith(Variable.PREFIX);
 		}
 		
+		@Override
+		public Variable read(LogicalExpressionTokenizer tokenizer,
+				Map<String, LogicalExpression> mapping,
+				TypeRepository typeRepository, ITypeComparator typeComparator,
+				LogicalExpressionReader reader) {
+			return read(tokenizer.next(), mapping, typeRepository,
+					typeComparator, reader);
+		}
+		
 		@Override
 		public Variable read(String string,
 				Map<String, LogicalExpression> mapping,
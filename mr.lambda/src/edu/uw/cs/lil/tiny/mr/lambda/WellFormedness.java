@@ -0,0 +1,281 @@
+/*******************************************************************************
+ * UW SPF - The University of Washington Semantic Parsing Framework
+ * <p>
+ * Copyright (C) 2013 Yoav Artzi
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ ******************************************************************************/
+package edu.uw.cs.lil.tiny.mr.lambda;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import edu.uw.cs.lil.tiny.mr.language.type.Type;
+import edu.uw.cs.utils.composites.Pair;
+
+/**
+ * Type consistency and validity summary of a logical expression. Computed
+ * from the summaries of the direct sub-expressions, so checking a new
+ * expression only requires visiting the nodes that were created with it. The
+ * results are identical to
+ * {@link edu.uw.cs.lil.tiny.mr.lambda.visitor.IsTypeConsistent} and
+ * {@link edu.uw.cs.lil.tiny.mr.lambda.visitor.IsValid}. Summaries are
+ * immutable and may share their sets, maps and lists.
+ * 
+ * @author Yoav Artzi
+ */
+final class WellFormedness {
+	/** Summary of terms (constants and variables). */
+	static final WellFormedness				TERM	= new WellFormedness(
+														Collections
+																.<Variable> emptySet(),
+														true,
+														true,
+														Collections
+																.<Variable, List<Type>> emptyMap());
+	
+	/** Variables bound by lambda operators in the expression. */
+	private final Set<Variable>				boundVariables;
+	
+	/**
+	 * Type consistency of the expression, not including the types of its free
+	 * variables.
+	 */
+	private final boolean					typeConsistent;
+	
+	/** Each variable is bound by at most one lambda operator. */
+	private final boolean					valid;
+	
+	/**
+	 * For each free variable that is used as a literal argument, the signature
+	 * types it's used with, in the order they are visited by
+	 * {@link edu.uw.cs.lil.tiny.mr.lambda.visitor.IsTypeConsistent}.
+	 */
+	private final Map<Variable, List<Type>>	variableUsages;
+	
+	private WellFormedness(Set<Variable> boundVariables,
+			boolean typeConsistent, boolean valid,
+			Map<Variable, List<Type>> variableUsages) {
+		this.boundVariables = boundVariables;
+		this.typeConsistent = typeConsistent;
+		this.valid = valid;
+		this.variableUsages = variableUsages;
+	}
+	
+	static WellFormedness of(Lambda lambda) {
+		final WellFormedness body = lambda.getBody().getWellFormedness();
+		final Variable argument = lambda.getArgument();
+		
+		final Set<Variable> boundVariables = new HashSet<Variable>(
+				body.boundVariables);
+		final boolean valid = boundVariables.add(argument) && body.valid;
+		
+		// The variable is leaving its scope, check its usages against its type
+		final List<Type> usages = body.variableUsages.get(argument);
+		final boolean typeConsistent = body.typeConsistent
+				&& (usages == null || isConsistentUsage(argument.getType(),
+						usages, false));
+		final Map<Variable, List<Type>> variableUsages;
+		if (usages == null) {
+			variableUsages = body.variableUsages;
+		} else {
+			variableUsages = new HashMap<Variable, List<Type>>(
+					body.variableUsages);
+			variableUsages.remove(argument);
+		}
+		
+		return new WellFormedness(boundVariables, typeConsistent, valid,
+				variableUsages);
+	}
+	
+	static WellFormedness of(Literal literal) {
+		final Pair<Type, List<Type>> literalTyping = LogicLanguageServices
+				.computeLiteralTypingFromArgs(literal.getPredicateType(),
+						literal.getArguments());
+		if (literalTyping == null) {
+			throw new IllegalStateException(
+					String.format(
+							"Failed to compute literal typing for. This should never have happened, typing is computed during creation: %s",
+							literal));
+		}
+		
+		final WellFormedness predicate = literal.getPredicate()
+				.getWellFormedness();
+		final Merger merger = new Merger(predicate);
+		final Iterator<Type> signatureIterator = literalTyping.second()
+				.iterator();
+		for (final LogicalExpression arg : literal.getArguments()) {
+			final Type signatureType = signatureIterator.next();
+			merger.add(arg.getWellFormedness());
+			if (arg instanceof Variable) {
+				merger.addUsage((Variable) arg, signatureType);
+			} else if (signatureType.isArray() != arg.getType().isArray()
+					|| !arg.getType().isExtendingOrExtendedBy(signatureType)) {
+				merger.typeConsistent = false;
+			}
+		}
+		
+		return merger.create();
+	}
+	
+	/**
+	 * Checks the usages of a variable the same way
+	 * {@link edu.uw.cs.lil.tiny.mr.lambda.visitor.IsTypeConsistent} does:
+	 * each usage is compared against the narrowest type so far, starting with
+	 * the type of the variable. Usages are not required to be comparable with
+	 * each other, since complex types are covariant and don't form a tree.
+	 * 
+	 * @param free
+	 *            The variable is free. The first usage of a free variable is
+	 *            checked like a constant and doesn't narrow its type.
+	 */
+	private static boolean isConsistentUsage(Type type, List<Type> usages,
+			boolean free) {
+		final Iterator<Type> iterator = usages.iterator();
+		if (free && !type.isExtendingOrExtendedBy(iterator.next())) {
+			return false;
+		}
+		Type narrowest = type;
+		while (iterator.hasNext()) {
+			final Type usage = iterator.next();
+			if (usage.isExtending(narrowest)) {
+				narrowest = usage;
+			} else if (!narrowest.isExtending(usage)) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Equivalent to
+	 * {@link edu.uw.cs.lil.tiny.mr.lambda.visitor.IsTypeConsistent#of(LogicalExpression)}
+	 * . Free variables are treated like constants.
+	 */
+	boolean isTypeConsistent() {
+		if (!typeConsistent) {
+			return false;
+		}
+		for (final Entry<Variable, List<Type>> entry : variableUsages
+				.entrySet()) {
+			if (!isConsistentUsage(entry.getKey().getType(), entry.getValue(),
+					true)) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Equivalent to
+	 * {@link edu.uw.cs.lil.tiny.mr.lambda.visitor.IsValid#of(LogicalExpression)}
+	 * .
+	 */
+	boolean isValid() {
+		return valid;
+	}
+	
+	/**
+	 * Merges the summaries of sibling expressions. Re-uses the sets and maps
+	 * of a single contributing summary instead of copying them.
+	 */
+	private static class Merger {
+		private Set<Variable>				boundVariables;
+		private boolean						boundVariablesCopied	= false;
+		private boolean						typeConsistent;
+		private boolean						valid;
+		private Map<Variable, List<Type>>	variableUsages;
+		private boolean						variableUsagesCopied	= false;
+		
+		public Merger(WellFormedness first) {
+			this.boundVariables = first.boundVariables;
+			this.typeConsistent = first.typeConsistent;
+			this.valid = first.valid;
+			this.variableUsages = first.variableUsages;
+		}
+		
+		public void add(WellFormedness summary) {
+			typeConsistent &= summary.typeConsistent;
+			valid &= summary.valid;
+			
+			if (!summary.boundVariables.isEmpty()) {
+				if (boundVariables.isEmpty()) {
+					boundVariables = summary.boundVariables;
+				} else {
+					if (!boundVariablesCopied) {
+						boundVariables = new HashSet<Variable>(boundVariables);
+						boundVariablesCopied = true;
+					}
+					for (final Variable variable : summary.boundVariables) {
+						// A variable bound in two sibling expressions is
+						// invalid
+						valid &= boundVariables.add(variable);
+					}
+				}
+			}
+			
+			if (!summary.variableUsages.isEmpty()) {
+				if (variableUsages.isEmpty()) {
+					variableUsages = summary.variableUsages;
+				} else {
+					for (final Entry<Variable, List<Type>> entry : summary.variableUsages
+							.entrySet()) {
+						addUsages(entry.getKey(), entry.getValue());
+					}
+				}
+			}
+		}
+		
+		/**
+		 * Record the usage of a variable with the given type. Usages are only
+		 * checked once the variable's scope is known (see
+		 * {@link WellFormedness#isConsistentUsage(Type, List, boolean)}).
+		 */
+		public void addUsage(Variable variable, Type type) {
+			addUsages(variable, Collections.singletonList(type));
+		}
+		
+		public WellFormedness create() {
+			return new WellFormedness(boundVariables, typeConsistent, valid,
+					variableUsages);
+		}
+		
+		private void addUsages(Variable variable, List<Type> usages) {
+			if (!variableUsagesCopied) {
+				variableUsages = new HashMap<Variable, List<Type>>(
+						variableUsages);
+				variableUsagesCopied = true;
+			}
+			final List<Type> current = variableUsages.get(variable);
+			if (current == null) {
+				variableUsages.put(variable, usages);
+			} else {
+				// Lists may be shared with other summaries, so never modify
+				// them in place
+				final List<Type> merged = new ArrayList<Type>(current.size()
+						+ usages.size());
+				merged.addAll(current);
+				merged.addAll(usages);
+				variableUsages.put(variable, merged);
+			}
+		}
+	}
+}
@@ -24,6 +24,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import edu.uw.cs.lil.tiny.base.time.ThreadTimer;
 import edu.uw.cs.lil.tiny.mr.lambda.Lambda;
 import edu.uw.cs.lil.tiny.mr.lambda.Literal;
 import edu.uw.cs.lil.tiny.mr.lambda.LogicLanguageServices;
@@ -40,6 +41,14 @@ import edu.uw.cs.lil.tiny.mr.lambda.Variable;
  * @author Luke Zettlemoyer
  */
 public class ApplyAndSimplify extends AbstrcatSimplify {
+	/**
+	 * Times calls to {@link #of(LogicalExpression, LogicalExpression)}, when
+	 * thread timers are enabled.
+	 */
+	public static final ThreadTimer			TIMER				= ThreadTimer
+																		.create(ApplyAndSimplify.class
+																				.getSimpleName());
+	
 	/**
 	 * Indicates if the arguments was applied once already. We need to track if
 	 * the argument is used more than once in the consuming function.
@@ -86,6 +95,16 @@ public class ApplyAndSimplify extends AbstrcatSimplify {
 	
 	public static LogicalExpression of(LogicalExpression func,
 			LogicalExpression arg) {
+		TIMER.start();
+		try {
+			return apply(func, arg);
+		} finally {
+			TIMER.stop();
+		}
+	}
+	
+	private static LogicalExpression apply(LogicalExpression func,
+			LogicalExpression arg) {
 		// Verify type matching. The functor must be have a complex type, and
 		// need to be in some kind of parent-child relationship with the
 		// argument, as we allow flexible typing syntax-wise.
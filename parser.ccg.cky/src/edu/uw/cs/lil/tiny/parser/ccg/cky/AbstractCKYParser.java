@@ -19,9 +19,16 @@
 package edu.uw.cs.lil.tiny.parser.ccg.cky;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
 
 import com.google.common.base.Function;
 
@@ -30,10 +37,14 @@ import edu.uw.cs.lil.tiny.ccg.categories.ICategoryServices;
 import edu.uw.cs.lil.tiny.ccg.categories.syntax.Syntax;
 import edu.uw.cs.lil.tiny.ccg.lexicon.ILexicon;
 import edu.uw.cs.lil.tiny.ccg.lexicon.ILexiconImmutable;
+import edu.uw.cs.lil.tiny.ccg.lexicon.IPhraseIndexedLexicon;
 import edu.uw.cs.lil.tiny.ccg.lexicon.LexicalEntry;
 import edu.uw.cs.lil.tiny.ccg.lexicon.Lexicon;
 import edu.uw.cs.lil.tiny.data.sentence.Sentence;
 import edu.uw.cs.lil.tiny.parser.ISentenceLexiconGenerator;
+import edu.uw.cs.lil.tiny.parser.ccg.cky.ParserMetrics.Counter;
+import edu.uw.cs.lil.tiny.parser.ccg.cky.ParserMetrics.Phase;
+import edu.uw.cs.lil.tiny.parser.ccg.cky.ParserMetrics.Recorder;
 import edu.uw.cs.lil.tiny.parser.ccg.cky.chart.AbstractCKYParseStep;
 import edu.uw.cs.lil.tiny.parser.ccg.cky.chart.AbstractCellFactory;
 import edu.uw.cs.lil.tiny.parser.ccg.cky.chart.CKYLexicalStep;
@@ -53,42 +64,89 @@ import edu.uw.cs.utils.log.LoggerFactory;
 
 public abstract class AbstractCKYParser<MR> extends
 		AbstractGraphParser<Sentence, MR> {
-	public static final ILogger							LOG	= LoggerFactory
-																	.create(AbstractCKYParser.class);
+	public static final ILogger										LOG	= LoggerFactory
+																				.create(AbstractCKYParser.class);
 	
 	/**
 	 * The maximum number of cells to hold for each span.
 	 */
-	private final int									beamSize;
+	private final int												beamSize;
+	
+	/**
+	 * Names of the binary rules, indexed the same as {@link #binaryRules}. Used
+	 * for metrics.
+	 */
+	private final List<String>										binaryRuleNames;
 	
 	/**
 	 * Binary CCG parsing rules.
 	 */
-	private final List<CKYBinaryParsingRule<MR>>		binaryRules;
+	private final List<CKYBinaryParsingRule<MR>>					binaryRules;
 	
 	/**
 	 * A transformation applied to each category before it's added to the chart.
 	 */
-	private final Function<Category<MR>, Category<MR>>	categoryTransformation;
+	private final Function<Category<MR>, Category<MR>>				categoryTransformation;
+	
+	/**
+	 * Syntax of complete parses for coarse-to-fine pruning. If not null, each
+	 * parse first builds a syntax-only chart (see {@link CoarseSyntaxChart}),
+	 * and only lexical entries and rule applications that can participate in a
+	 * complete parse with one of these syntaxes are processed.
+	 */
+	private final Set<Syntax>										coarseFullParseSyntaxes;
+	
+	/**
+	 * Collect {@link ParserMetrics} for each parse. Adds a small overhead, so
+	 * disabled by default.
+	 */
+	private final boolean											collectMetrics;
+	
+	private final IFilter<Category<MR>>								completeParseFilter;
+	
+	/**
+	 * Dispatch binary rules using the syntax index keys of rules that declare
+	 * them (see {@link BinaryRuleDispatch}), instead of applying every rule to
+	 * all pairs of cells. Doesn't change the order cells are created in.
+	 */
+	private final boolean											indexBinaryRules;
+	
+	/**
+	 * Charts of previous parses, kept for re-use as long as the data item
+	 * model they were parsed with is in use. When the same sentence is parsed
+	 * again with the same data item model (e.g., several times during a single
+	 * learning step), spans with the same lexical entries are carried over
+	 * instead of being processed again. Null if charts are not re-used.
+	 */
+	private final Map<IDataItemModel<MR>, List<ReusableChart<MR>>>	reusableCharts;
 	
-	private final IFilter<Category<MR>>					completeParseFilter;
+	/**
+	 * Metrics aggregated over all parses, when {@link #collectMetrics} is set.
+	 */
+	private final ParserMetrics										runMetrics;
 	
 	/**
 	 * List of lexical generators that use the sentence itself to generate
 	 * lexical entries.
 	 */
-	private final List<ISentenceLexiconGenerator<MR>>	sentenceLexiconGenerators;
+	private final List<ISentenceLexiconGenerator<MR>>				sentenceLexiconGenerators;
+	
+	/**
+	 * Names of the unary rules, indexed the same as {@link #unaryRules}. Used
+	 * for metrics.
+	 */
+	private final List<String>										unaryRuleNames;
 	
-	private final List<CKYUnaryParsingRule<MR>>			unaryRules;
+	private final List<CKYUnaryParsingRule<MR>>						unaryRules;
 	
 	/**
 	 * Lexical generator to create lexical entries that enable word-skipping.
 	 */
-	private final ISentenceLexiconGenerator<MR>			wordSkippingLexicalGenerator;
+	private final ISentenceLexiconGenerator<MR>						wordSkippingLexicalGenerator;
 	
-	protected final ICategoryServices<MR>				categoryServices;
+	protected final ICategoryServices<MR>							categoryServices;
 	
-	protected final boolean								pruneLexicalCells;
+	protected final boolean											pruneLexicalCells;
 	
 	protected AbstractCKYParser(int beamSize,
 			List<CKYBinaryParsingRule<MR>> binaryRules,
@@ -97,9 +155,11 @@ public abstract class AbstractCKYParser<MR> extends
 			ICategoryServices<MR> categoryServices, boolean pruneLexicalCells,
 			IFilter<Category<MR>> completeParseFilter,
 			List<CKYUnaryParsingRule<MR>> unaryRules,
-			Function<Category<MR>, Category<MR>> categoryTransformation) {
+			Function<Category<MR>, Category<MR>> categoryTransformation,
+			boolean indexBinaryRules, boolean collectMetrics,
+			Set<Syntax> coarseFullParseSyntaxes, boolean reuseCharts) {
 		this.beamSize = beamSize;
-		this.binaryRules = binaryRules;
+		this.binaryRules = new ArrayList<CKYBinaryParsingRule<MR>>(binaryRules);
 		this.sentenceLexiconGenerators = sentenceLexiconGenerators;
 		this.wordSkippingLexicalGenerator = wordSkippingLexicalGenerator;
 		this.categoryServices = categoryServices;
@@ -107,13 +167,54 @@ public abstract class AbstractCKYParser<MR> extends
 		this.completeParseFilter = completeParseFilter;
 		this.unaryRules = unaryRules;
 		this.categoryTransformation = categoryTransformation;
+		this.indexBinaryRules = indexBinaryRules;
+		this.collectMetrics = collectMetrics;
+		this.runMetrics = collectMetrics ? new ParserMetrics() : null;
+		this.binaryRuleNames = new ArrayList<String>(binaryRules.size());
+		for (final CKYBinaryParsingRule<MR> rule : binaryRules) {
+			binaryRuleNames.add(rule.getName().toString());
+		}
+		this.unaryRuleNames = new ArrayList<String>(unaryRules.size());
+		for (final CKYUnaryParsingRule<MR> rule : unaryRules) {
+			unaryRuleNames.add(rule.getName().toString());
+		}
+		this.coarseFullParseSyntaxes = coarseFullParseSyntaxes == null
+				|| supportsCoarsePruning() ? coarseFullParseSyntaxes : null;
+		if (reuseCharts && this.coarseFullParseSyntaxes != null) {
+			// The coarse chart depends on the entire sentence, so the content
+			// of a span is not determined by the spans it contains
+			LOG.warn("Chart re-use disabled: not supported with coarse-to-fine pruning");
+			this.reusableCharts = null;
+		} else {
+			this.reusableCharts = reuseCharts ? Collections
+					.synchronizedMap(new WeakHashMap<IDataItemModel<MR>, List<ReusableChart<MR>>>())
+					: null;
+		}
 		LOG.info("Init :: %s: binary rules=%s",
 				AbstractCKYParser.class.getSimpleName(), binaryRules);
+		LOG.info("Init :: %s: coarse full parse syntax=%s",
+				AbstractCKYParser.class.getSimpleName(),
+				this.coarseFullParseSyntaxes);
+		LOG.info("Init :: %s: collect metrics=%s",
+				AbstractCKYParser.class.getSimpleName(), collectMetrics);
+		LOG.info("Init :: %s: index binary rules=%s",
+				AbstractCKYParser.class.getSimpleName(), indexBinaryRules);
+		LOG.info("Init :: %s: reuse charts=%s",
+				AbstractCKYParser.class.getSimpleName(),
+				reusableCharts != null);
 		LOG.info("Init :: %s: unary rules=%s",
 				AbstractCKYParser.class.getSimpleName(), unaryRules);
 		
 	}
 	
+	/**
+	 * Metrics aggregated over all parses done by this parser, or null if
+	 * metrics are not collected.
+	 */
+	public ParserMetrics getRunMetrics() {
+		return runMetrics;
+	}
+	
 	@Override
 	public CKYParserOutput<MR> parse(Sentence dataItem, IDataItemModel<MR> model) {
 		return parse(dataItem, model, false);
@@ -198,9 +299,8 @@ public abstract class AbstractCKYParser<MR> extends
 		}
 		
 		// Create a chart and add the input words
-		final Chart<MR> chart = new Chart<MR>(tokens,
-				altBeamSize == null ? beamSize : altBeamSize, cellFactory,
-				!pruneLexicalCells);
+		final ParserMetrics metrics = collectMetrics ? new ParserMetrics()
+				: null;
 		
 		// Create the list of active lexicons
 		final List<ILexiconImmutable<MR>> lexicons = new ArrayList<ILexiconImmutable<MR>>();
@@ -226,12 +326,540 @@ public abstract class AbstractCKYParser<MR> extends
 			lexicons.add(tempLexicon);
 		}
 		
-		return new CKYParserOutput<MR>(doParse(pruningFilter, model, chart,
-				tokens.size(), cellFactory, lexicons),
-				System.currentTimeMillis() - start);
+		// Coarse pass: syntax-only chart to prune the full parse
+		final CoarseSyntaxChart<MR> coarseChart;
+		if (coarseFullParseSyntaxes == null || tokens.isEmpty()) {
+			coarseChart = null;
+		} else {
+			final Recorder recorder = metrics == null ? null : metrics
+					.startRecording(0, tokens.size() - 1, Phase.COARSE, null);
+			coarseChart = new CoarseSyntaxChart<MR>(tokens, lexicons,
+					binaryRules, unaryRules, categoryTransformation,
+					coarseFullParseSyntaxes);
+			if (recorder != null) {
+				recorder.stop();
+			}
+		}
+		
+		// Lexical entries of each span, to identify spans that can be carried
+		// over from previous charts. Charts created with an external scoring
+		// function are never re-used.
+		final List<List<Set<LexicalEntry<MR>>>> spanLexicalEntries = reusableCharts == null
+				|| scoreSensitiveFactory != null || tokens.isEmpty() ? null
+				: getSpanLexicalEntries(tokens, lexicons);
+		
+		final Chart<MR> chart = new Chart<MR>(tokens,
+				altBeamSize == null ? beamSize : altBeamSize, cellFactory,
+				!pruneLexicalCells, metrics, coarseChart);
+		
+		if (spanLexicalEntries != null) {
+			reuseSpans(chart, pruningFilter, model, spanLexicalEntries);
+		}
+		
+		final Chart<MR> parsedChart = doParse(pruningFilter, model, chart,
+				tokens.size(), cellFactory, lexicons);
+		
+		if (spanLexicalEntries != null) {
+			storeReusableChart(parsedChart, pruningFilter, model,
+					spanLexicalEntries);
+		}
+		
+		if (metrics != null) {
+			// Collect the pruning and merging counts of the chart itself
+			final int numTokens = tokens.size();
+			for (int begin = 0; begin < numTokens; ++begin) {
+				for (int end = begin; end < numTokens; ++end) {
+					metrics.count(begin, end, Counter.BEAM_PRUNED,
+							parsedChart.getBeamPrunedCount(begin, end));
+					metrics.count(begin, end, Counter.MERGED,
+							parsedChart.getMergedCount(begin, end));
+				}
+			}
+			metrics.parseCompleted();
+			runMetrics.add(metrics);
+		}
+		
+		return new CKYParserOutput<MR>(parsedChart, System.currentTimeMillis()
+				- start, metrics);
 		
 	}
 	
+	/**
+	 * Applies a single binary rule to a pair of adjacent cells. This is the
+	 * only place binary rules are applied, so all parsing strategies prune,
+	 * score and record the results the same way.
+	 * 
+	 * @param recorder
+	 *            Metrics recorder for the span covered by both cells. May be
+	 *            null.
+	 * @param newCells
+	 *            Cells created from the rule results that passed hard pruning
+	 *            are added to this list.
+	 * @return Number of rule results.
+	 */
+	private int applyBinaryRule(int ruleIndex, Cell<MR> left, Cell<MR> right,
+			int sentenceLength, Chart<MR> chart,
+			AbstractCellFactory<MR> cellFactory, IFilter<MR> pruningFilter,
+			IDataItemModel<MR> model, Recorder recorder, List<Cell<MR>> newCells) {
+		final CKYBinaryParsingRule<MR> rule = binaryRules.get(ruleIndex);
+		if (coarsePrune(chart, rule, left, right, recorder)) {
+			return 0;
+		}
+		if (CKYLogging.DEBUG) {
+			LOG.debug("Processing: left=%d , right=%d", left.hashCode(),
+					right.hashCode());
+		}
+		final int start = left.getStart();
+		final int end = right.getEnd();
+		final long ruleStart = recorder == null ? 0 : System.nanoTime();
+		final Collection<ParseRuleResult<MR>> results = rule.apply(left, right);
+		if (recorder != null) {
+			recorder.ruleApplied(ruleIndex, ruleStart, results.size());
+		}
+		for (final ParseRuleResult<MR> prr : results) {
+			final ParseRuleResult<MR> transformed = transformRuleResult(prr);
+			if (CKYLogging.DEBUG) {
+				LOG.debug("Applied %s --> %s", transformed.getRuleName(),
+						transformed.getResultCategory());
+			}
+			if (recorder != null) {
+				recorder.count(Counter.GENERATED);
+			}
+			// Filter cells, only keep cells that pass pruning over the
+			// semantics, if there's a pruning filter and they have semantics
+			if (prune(pruningFilter, transformed.getResultCategory(), start,
+					end, sentenceLength, true)) {
+				if (CKYLogging.DEBUG) {
+					LOG.debug("Pruned (hard pruning): [%d,%d] %s", start, end,
+							transformed);
+				}
+				if (recorder != null) {
+					recorder.count(Counter.HARD_PRUNED);
+				}
+			} else {
+				final long scoringStart = recorder == null ? 0 : System
+						.nanoTime();
+				// Create the parse step and the chart cell
+				final Cell<MR> newCell = cellFactory.create(
+						new CKYParseStep<MR>(transformed.getResultCategory(),
+								left, right, isFullParse(start, end,
+										transformed.getResultCategory(),
+										sentenceLength), transformed
+										.getRuleName(), model), start, end);
+				if (recorder != null) {
+					recorder.scored(scoringStart);
+				}
+				if (CKYLogging.DEBUG) {
+					LOG.debug("Created new cell: %s", newCell);
+				}
+				newCells.add(newCell);
+			}
+		}
+		return results.size();
+	}
+	
+	/**
+	 * Applies a single unary rule to a cell. Each created cell combines the
+	 * unary step with one of the steps of the given cell, so it doesn't depend
+	 * on cells in the same span (which might be pruned). This is the only
+	 * place unary rules are applied.
+	 * 
+	 * @param recorder
+	 *            Metrics recorder for the span of the cell. May be null.
+	 * @param newCells
+	 *            Cells created from the rule results that passed hard pruning
+	 *            are added to this list.
+	 * @return Number of cells generated, before pruning.
+	 */
+	private int applyUnaryRule(int ruleIndex, Cell<MR> cell,
+			int sentenceLength, Chart<MR> chart,
+			AbstractCellFactory<MR> cellFactory, IFilter<MR> pruningFilter,
+			IDataItemModel<MR> model, Recorder recorder, List<Cell<MR>> newCells) {
+		final CKYUnaryParsingRule<MR> rule = unaryRules.get(ruleIndex);
+		if (coarsePrune(chart, rule, cell, recorder)) {
+			return 0;
+		}
+		final int start = cell.getStart();
+		final int end = cell.getEnd();
+		final long ruleStart = recorder == null ? 0 : System.nanoTime();
+		final Collection<ParseRuleResult<MR>> results = rule.apply(cell);
+		if (recorder != null) {
+			recorder.ruleApplied(ruleIndex, ruleStart, results.size());
+		}
+		int counter = 0;
+		for (final ParseRuleResult<MR> prr : results) {
+			final ParseRuleResult<MR> transformed = transformRuleResult(prr);
+			if (CKYLogging.DEBUG) {
+				LOG.debug("Applied %s --> %s", transformed.getRuleName(),
+						transformed.getResultCategory());
+			}
+			counter += cell.numSteps();
+			if (recorder != null) {
+				recorder.count(Counter.GENERATED, cell.numSteps());
+			}
+			// Filter cells, only keep cells that pass pruning over the
+			// semantics, if there's a pruning filter and they have semantics.
+			if (prune(pruningFilter, transformed.getResultCategory(), start,
+					end, sentenceLength, false)) {
+				if (CKYLogging.DEBUG) {
+					LOG.debug("Pruned (hard pruning): [%d,%d] %s", start, end,
+							transformed);
+				}
+				if (recorder != null) {
+					recorder.count(Counter.HARD_PRUNED, cell.numSteps());
+				}
+			} else {
+				final boolean fullParse = isFullParse(start, end,
+						transformed.getResultCategory(), sentenceLength);
+				// Create combined parse step. Each step combine all binary
+				// steps that lead to this cell, and the unary step just
+				// created.
+				for (final AbstractCKYParseStep<MR> step : cell.getSteps()) {
+					final long scoringStart = recorder == null ? 0 : System
+							.nanoTime();
+					final Cell<MR> newCell = cellFactory.create(
+							step.cloneWithUnary(transformed, model, fullParse),
+							start, end);
+					if (recorder != null) {
+						recorder.scored(scoringStart);
+					}
+					if (CKYLogging.DEBUG) {
+						LOG.debug("Created new cell: %s", newCell);
+					}
+					newCells.add(newCell);
+				}
+			}
+		}
+		return counter;
+	}
+	
+	/**
+	 * Coarse-to-fine pruning of a binary rule application, before the rule is
+	 * applied.
+	 * 
+	 * @return 'true' if the result can't participate in a complete parse.
+	 */
+	private boolean coarsePrune(Chart<MR> chart,
+			CKYBinaryParsingRule<MR> rule, Cell<MR> left, Cell<MR> right,
+			Recorder recorder) {
+		final CoarseSyntaxChart<MR> coarseChart = chart.getCoarseChart();
+		if (coarseChart == null) {
+			return false;
+		}
+		final Syntax syntax = rule.applySyntax(left.getCategory().getSyntax(),
+				right.getCategory().getSyntax());
+		if (syntax == null) {
+			// The rule can't be applied, no need to try it
+			return true;
+		}
+		if (coarseChart.isUseful(left.getStart(), right.getEnd(), syntax)) {
+			return false;
+		}
+		if (recorder != null) {
+			recorder.count(Counter.COARSE_PRUNED);
+		}
+		return true;
+	}
+	
+	/**
+	 * Coarse-to-fine pruning of a unary rule application, before the rule is
+	 * applied.
+	 * 
+	 * @return 'true' if the result can't participate in a complete parse.
+	 */
+	private boolean coarsePrune(Chart<MR> chart, CKYUnaryParsingRule<MR> rule,
+			Cell<MR> cell, Recorder recorder) {
+		final CoarseSyntaxChart<MR> coarseChart = chart.getCoarseChart();
+		if (coarseChart == null) {
+			return false;
+		}
+		final Syntax syntax = rule.applySyntax(cell.getCategory().getSyntax());
+		if (syntax == null) {
+			// The rule can't be applied, no need to try it
+			return true;
+		}
+		if (coarseChart.isUseful(cell.getStart(), cell.getEnd(), syntax)) {
+			return false;
+		}
+		if (recorder != null) {
+			recorder.count(Counter.COARSE_PRUNED);
+		}
+		return true;
+	}
+	
+	/**
+	 * Identifies the spans of a previous chart that can be carried over to the
+	 * given chart. A span can be carried over if it has the same lexical
+	 * entries, all the spans it contains can be carried over, and all its cells
+	 * pass the current pruning filter (unless the previous chart was parsed
+	 * with the same filter).
+	 * 
+	 * @return Reusable span flags, indexed by start and end, or null if the
+	 *         previous chart is incompatible.
+	 */
+	private boolean[][] getReusableSpans(ReusableChart<MR> previous,
+			Chart<MR> chart, IFilter<MR> pruningFilter,
+			List<List<Set<LexicalEntry<MR>>>> spanLexicalEntries) {
+		if (previous.chart.getBeamSize() != chart.getBeamSize()
+				|| !previous.chart.getTokens().equals(chart.getTokens())
+				|| previous.pruningFilter != null
+				&& previous.pruningFilter != pruningFilter) {
+			return null;
+		}
+		final IFilter<MR> addedFilter = previous.pruningFilter == null ? pruningFilter
+				: null;
+		final int numTokens = chart.getSentenceLength();
+		final boolean[][] reusable = new boolean[numTokens][numTokens];
+		for (int len = 0; len < numTokens; ++len) {
+			for (int start = 0; start < numTokens - len; ++start) {
+				final int end = start + len;
+				reusable[start][end] = (len == 0 || reusable[start][end - 1]
+						&& reusable[start + 1][end])
+						&& spanLexicalEntries.get(start).get(len)
+								.equals(previous.lexicalEntries.get(start)
+										.get(len))
+						&& (addedFilter == null || passesFilter(
+								previous.chart, start, end, addedFilter));
+			}
+		}
+		return reusable;
+	}
+	
+	/**
+	 * Collects the lexical entries for each span of the sentence from all
+	 * lexicons, similar to
+	 * {@link #generateLexicalCells(int, int, Chart, List, int[][], IDataItemModel)}.
+	 * 
+	 * @return Sets of lexical entries, indexed by start and span length.
+	 */
+	private List<List<Set<LexicalEntry<MR>>>> getSpanLexicalEntries(
+			List<String> tokens, List<ILexiconImmutable<MR>> lexicons) {
+		final int numTokens = tokens.size();
+		final int[][] phraseLengths = getLongestPhraseLengths(tokens, lexicons);
+		final List<List<Set<LexicalEntry<MR>>>> entries = new ArrayList<List<Set<LexicalEntry<MR>>>>(
+				numTokens);
+		for (int start = 0; start < numTokens; ++start) {
+			final List<Set<LexicalEntry<MR>>> startEntries = new ArrayList<Set<LexicalEntry<MR>>>(
+					numTokens - start);
+			final int maxEnd = start
+					+ getLongestPhraseLength(phraseLengths, start);
+			for (int end = start; end < numTokens; ++end) {
+				final Set<LexicalEntry<MR>> spanEntries = new HashSet<LexicalEntry<MR>>();
+				if (end < maxEnd) {
+					final List<String> subString = CollectionUtils.subList(
+							tokens, start, end + 1);
+					final int numLexicons = lexicons.size();
+					for (int i = 0; i < numLexicons; ++i) {
+						if (phraseLengths[i][start] < subString.size()) {
+							continue;
+						}
+						spanEntries.addAll(lexicons.get(i).getLexEntries(
+								subString));
+					}
+				}
+				startEntries.add(spanEntries);
+			}
+			entries.add(startEntries);
+		}
+		return entries;
+	}
+	
+	/**
+	 * Offers a new cell to a pre-chart pruning queue. If a cell with the same
+	 * signature is already queued, the new cell is merged into it.
+	 * 
+	 * @return 'true' if a cell was pruned from the queue (pruning external to
+	 *         the chart).
+	 */
+	private boolean offerToQueue(DirectAccessBoundedPriorityQueue<Cell<MR>> queue,
+			Cell<MR> newCell, Recorder recorder) {
+		boolean pruned = false;
+		if (queue.contains(newCell)) {
+			if (recorder != null) {
+				recorder.count(Counter.MERGED);
+			}
+			// Case the cell signature is already contained in the queue.
+			// Remove the old cell, add the new one to it, which might change
+			// its score, and then re-add to the queue.
+			final Cell<MR> oldCell = queue.get(newCell);
+			if (CKYLogging.DEBUG) {
+				LOG.debug(
+						"Adding new cell to existing one in pre-chart queue: %s",
+						oldCell);
+			}
+			// Add the new cell to the old one.
+			if (oldCell.addCell(newCell)) {
+				// Max-children changed, score might have changed, so need to
+				// remove and re-queue.
+				if (CKYLogging.DEBUG) {
+					LOG.debug("Cell viterbi score updated: %s", oldCell);
+				}
+				
+				// Remove the old cell, to re-add it.
+				queue.remove(oldCell);
+				// Adding here, not offering, since we just removed it, it
+				// should be added without any fear of exception.
+				queue.add(oldCell);
+			}
+		} else {
+			// Case new cell signature.
+			if (CKYLogging.DEBUG) {
+				LOG.debug("Adding new cell to pre-chart queue.");
+			}
+			final int preOfferSize = queue.size();
+			if (!queue.offer(newCell)) {
+				if (CKYLogging.DEBUG) {
+					LOG.debug("Pruned (pre-chart pruning): %s", newCell);
+				}
+				pruned = true;
+			}
+			if (recorder != null) {
+				// If the queue was full, either the new cell or the lowest
+				// scoring cell was dropped
+				recorder.count(Counter.PRE_CHART_PRUNED, preOfferSize + 1
+						- queue.size());
+			}
+		}
+		if (CKYLogging.DEBUG) {
+			LOG.debug("Pre-chart queue size = %d", queue.size());
+		}
+		return pruned;
+	}
+	
+	/**
+	 * Checks if all cells in the given span pass the pruning filter.
+	 */
+	private boolean passesFilter(Chart<MR> chart, int start, int end,
+			IFilter<MR> pruningFilter) {
+		final Iterator<Cell<MR>> iterator = chart.getSpanIterator(start, end);
+		while (iterator.hasNext()) {
+			final MR semantics = iterator.next().getCategory().getSem();
+			if (semantics != null && !pruningFilter.isValid(semantics)) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Carry over spans from the most compatible previous chart of the same
+	 * sentence and data item model, if one exists.
+	 */
+	private void reuseSpans(Chart<MR> chart, IFilter<MR> pruningFilter,
+			IDataItemModel<MR> model,
+			List<List<Set<LexicalEntry<MR>>>> spanLexicalEntries) {
+		final List<ReusableChart<MR>> previousCharts = reusableCharts
+				.get(model);
+		if (previousCharts == null) {
+			return;
+		}
+		
+		// Select the previous chart with the most reusable spans
+		ReusableChart<MR> best = null;
+		boolean[][] bestReusable = null;
+		int bestCount = 0;
+		synchronized (previousCharts) {
+			for (final ReusableChart<MR> previous : previousCharts) {
+				final boolean[][] reusable = getReusableSpans(previous, chart,
+						pruningFilter, spanLexicalEntries);
+				if (reusable != null) {
+					int count = 0;
+					for (final boolean[] row : reusable) {
+						for (final boolean flag : row) {
+							if (flag) {
+								++count;
+							}
+						}
+					}
+					if (count > bestCount) {
+						best = previous;
+						bestReusable = reusable;
+						bestCount = count;
+					}
+				}
+			}
+		}
+		
+		if (best == null) {
+			return;
+		}
+		
+		// Copy the spans bottom-up, so children are copied before their
+		// parents
+		final Map<Cell<MR>, Cell<MR>> copies = new IdentityHashMap<Cell<MR>, Cell<MR>>();
+		final int numTokens = chart.getSentenceLength();
+		for (int len = 0; len < numTokens; ++len) {
+			for (int start = 0; start < numTokens - len; ++start) {
+				if (bestReusable[start][start + len]) {
+					final int numCells = chart.reuseSpan(best.chart, start,
+							start + len, copies);
+					if (chart.getMetrics() != null) {
+						chart.getMetrics().count(start, start + len,
+								Counter.REUSED, numCells);
+					}
+				}
+			}
+		}
+		if (CKYLogging.DEBUG) {
+			LOG.debug("Re-used %d spans from a previous chart", bestCount);
+		}
+	}
+	
+	/**
+	 * Store a chart for re-use by later parses with the same data item model.
+	 * A previous chart with the same beam and pruning filter is replaced.
+	 */
+	private void storeReusableChart(Chart<MR> chart, IFilter<MR> pruningFilter,
+			IDataItemModel<MR> model,
+			List<List<Set<LexicalEntry<MR>>>> spanLexicalEntries) {
+		final List<ReusableChart<MR>> previousCharts;
+		synchronized (reusableCharts) {
+			if (reusableCharts.containsKey(model)) {
+				previousCharts = reusableCharts.get(model);
+			} else {
+				previousCharts = new LinkedList<ReusableChart<MR>>();
+				reusableCharts.put(model, previousCharts);
+			}
+		}
+		synchronized (previousCharts) {
+			final Iterator<ReusableChart<MR>> iterator = previousCharts
+					.iterator();
+			while (iterator.hasNext()) {
+				final ReusableChart<MR> previous = iterator.next();
+				if (previous.pruningFilter == pruningFilter
+						&& previous.chart.getBeamSize() == chart.getBeamSize()) {
+					iterator.remove();
+				}
+			}
+			previousCharts.add(new ReusableChart<MR>(chart, spanLexicalEntries,
+					pruningFilter));
+		}
+	}
+	
+	/**
+	 * Coarse-to-fine pruning requires all rules to support syntax-only
+	 * application.
+	 */
+	private boolean supportsCoarsePruning() {
+		for (final CKYBinaryParsingRule<MR> rule : binaryRules) {
+			if (!rule.isSyntactic()) {
+				LOG.warn(
+						"Coarse-to-fine pruning disabled: binary rule %s doesn't support syntax-only application",
+						rule);
+				return false;
+			}
+		}
+		for (final CKYUnaryParsingRule<MR> rule : unaryRules) {
+			if (!rule.isSyntactic()) {
+				LOG.warn(
+						"Coarse-to-fine pruning disabled: unary rule %s doesn't support syntax-only application",
+						rule);
+				return false;
+			}
+		}
+		return true;
+	}
+	
 	private ParseRuleResult<MR> transformRuleResult(ParseRuleResult<MR> prr) {
 		if (categoryTransformation == null) {
 			return prr;
@@ -246,6 +874,190 @@ public abstract class AbstractCKYParser<MR> extends
 		}
 	}
 	
+	/**
+	 * Add all the cells to the chart.
+	 * 
+	 * @param newCells
+	 *            list of new cells.
+	 * @param chart
+	 *            Chart to add the cells to.
+	 */
+	protected static <MR> void addAllToChart(List<Cell<MR>> newCells,
+			Chart<MR> chart) {
+		for (final Cell<MR> newCell : newCells) {
+			chart.add(newCell);
+		}
+	}
+	
+	/**
+	 * @param phraseLengths
+	 *            Phrase length bounds, as computed by
+	 *            {@link #getLongestPhraseLengths(List, List)}.
+	 * @return Number of tokens in the longest phrase that starts at 'start'
+	 *         and may have an entry in any of the lexicons.
+	 */
+	protected static int getLongestPhraseLength(int[][] phraseLengths,
+			int start) {
+		int max = 0;
+		for (final int[] lexiconLengths : phraseLengths) {
+			if (lexiconLengths[start] > max) {
+				max = lexiconLengths[start];
+			}
+		}
+		return max;
+	}
+	
+	/**
+	 * Computes for each lexicon and start index the length of the longest
+	 * phrase that may have an entry in the lexicon. The bound is computed once
+	 * per start index, so span loops can stop early instead of querying each
+	 * span. Lexicons that are not phrase indexed are only bounded by the end of
+	 * the sentence.
+	 * 
+	 * @return Phrase length bounds, indexed by lexicon (in the order of
+	 *         'lexicons') and start index.
+	 */
+	protected static <MR> int[][] getLongestPhraseLengths(List<String> tokens,
+			List<ILexiconImmutable<MR>> lexicons) {
+		final int numTokens = tokens.size();
+		final int[][] phraseLengths = new int[lexicons.size()][numTokens];
+		int i = 0;
+		for (final ILexiconImmutable<MR> lexicon : lexicons) {
+			for (int start = 0; start < numTokens; ++start) {
+				if (lexicon instanceof IPhraseIndexedLexicon) {
+					phraseLengths[i][start] = ((IPhraseIndexedLexicon<MR>) lexicon)
+							.getLongestPhraseLength(tokens, start);
+				} else {
+					phraseLengths[i][start] = numTokens - start;
+				}
+			}
+			++i;
+		}
+		return phraseLengths;
+	}
+	
+	/**
+	 * Applies all binary rules to a pair of adjacent cells.
+	 * 
+	 * @param recorder
+	 *            Metrics recorder for the span covered by both cells. May be
+	 *            null.
+	 * @return Cells created from the rule results that passed hard pruning.
+	 */
+	protected List<Cell<MR>> applyBinaryRules(Cell<MR> left, Cell<MR> right,
+			Chart<MR> chart, AbstractCellFactory<MR> cellFactory,
+			IFilter<MR> pruningFilter, IDataItemModel<MR> model,
+			Recorder recorder) {
+		final List<Cell<MR>> newCells = new LinkedList<Cell<MR>>();
+		final int numRules = binaryRules.size();
+		for (int i = 0; i < numRules; ++i) {
+			applyBinaryRule(i, left, right, chart.getSentenceLength(), chart,
+					cellFactory, pruningFilter, model, recorder, newCells);
+		}
+		return newCells;
+	}
+	
+	/**
+	 * Applies all unary rules to a single cell. Each created cell combines the
+	 * unary step with each of the steps of the given cell.
+	 * 
+	 * @param recorder
+	 *            Metrics recorder for the span of the cell. May be null.
+	 * @return Cells created from the rule results that passed hard pruning.
+	 */
+	protected List<Cell<MR>> applyUnaryRules(Cell<MR> cell, Chart<MR> chart,
+			AbstractCellFactory<MR> cellFactory, IFilter<MR> pruningFilter,
+			IDataItemModel<MR> model, Recorder recorder) {
+		final List<Cell<MR>> newCells = new LinkedList<Cell<MR>>();
+		final int numRules = unaryRules.size();
+		for (int i = 0; i < numRules; ++i) {
+			applyUnaryRule(i, cell, chart.getSentenceLength(), chart,
+					cellFactory, pruningFilter, model, recorder, newCells);
+		}
+		return newCells;
+	}
+	
+	/**
+	 * Exhaustive CKY parsing: lexical cells are added to all spans, and then
+	 * all spans are processed bottom-up.
+	 */
+	protected Chart<MR> doExhaustiveParse(final IFilter<MR> pruningFilter,
+			IDataItemModel<MR> model, Chart<MR> chart, int numTokens,
+			AbstractCellFactory<MR> cellFactory,
+			List<ILexiconImmutable<MR>> lexicons) {
+		
+		final int sentenceLength = chart.getSentenceLength();
+		final int[][] phraseLengths = getLongestPhraseLengths(
+				chart.getTokens(), lexicons);
+		
+		// Add lexical entries from all active lexicons
+		for (int start = 0; start < numTokens; start++) {
+			final int maxEnd = Math.min(numTokens, start
+					+ getLongestPhraseLength(phraseLengths, start));
+			for (int end = start; end < maxEnd; end++) {
+				final List<Cell<MR>> newCells = generateLexicalCells(start,
+						end, chart, lexicons, phraseLengths, model);
+				
+				// Filter cells, only keep cells that have semantics and pass
+				// pruning (if there's a pruning filter)
+				final int numGenerated = newCells.size();
+				if (CollectionUtils.filterInPlace(newCells,
+						new IFilter<Cell<MR>>() {
+							@Override
+							public boolean isValid(Cell<MR> e) {
+								return !prune(pruningFilter, e.getCategory(),
+										e.getStart(), e.getEnd(),
+										sentenceLength, true);
+							}
+						})) {
+					chart.externalPruning(start, end);
+				}
+				if (chart.getMetrics() != null) {
+					chart.getMetrics().count(start, end, Counter.HARD_PRUNED,
+							numGenerated - newCells.size());
+				}
+				
+				for (final Cell<MR> newCell : newCells) {
+					chart.add(newCell);
+				}
+				// Apply unary rules to cells added by lexical entries.
+				final Pair<List<Cell<MR>>, Boolean> unaryProcessingResult = unaryProcessSpan(
+						start, end, sentenceLength, chart, cellFactory,
+						pruningFilter, model);
+				if (unaryProcessingResult.second()) {
+					chart.externalPruning(start, end);
+				}
+				for (final Cell<MR> cell : unaryProcessingResult.first()) {
+					chart.add(cell);
+				}
+			}
+		}
+		
+		// now do the CKY parsing:
+		for (int len = 1; len < numTokens; len++) {
+			for (int begin = 0; begin < numTokens - len; begin++) {
+				for (int split = 0; split < len; split++) {
+					final Pair<List<Cell<MR>>, Boolean> processingPair = processSplit(
+							begin, begin + len, split, sentenceLength, chart,
+							cellFactory, pruningFilter, model);
+					addAllToChart(processingPair.first(), chart);
+					if (processingPair.second()) {
+						chart.externalPruning(begin, begin + len);
+					}
+				}
+				final Pair<List<Cell<MR>>, Boolean> processingPair = unaryProcessSpan(
+						begin, begin + len, sentenceLength, chart, cellFactory,
+						pruningFilter, model);
+				addAllToChart(processingPair.first(), chart);
+				if (processingPair.second()) {
+					chart.externalPruning(begin, begin + len);
+				}
+			}
+		}
+		
+		return chart;
+	}
+	
 	protected abstract Chart<MR> doParse(IFilter<MR> pruningFilter,
 			IDataItemModel<MR> model, Chart<MR> currentChart, int numTokens,
 			AbstractCellFactory<MR> cellFactory,
@@ -255,31 +1067,80 @@ public abstract class AbstractCKYParser<MR> extends
 	 * Adds all of the cells to the chart that can be created by lexical
 	 * insertion in the given span. The work to find valid lexical entries for
 	 * each split is done by getLexEntries.
+	 * 
+	 * @param phraseLengths
+	 *            Phrase length bounds of the lexicons, as computed by
+	 *            {@link #getLongestPhraseLengths(List, List)}.
 	 */
 	protected List<Cell<MR>> generateLexicalCells(int begin, int end,
 			Chart<MR> chart, List<ILexiconImmutable<MR>> lexicons,
-			IDataItemModel<MR> model) {
+			int[][] phraseLengths, IDataItemModel<MR> model) {
+		if (chart.isReused(begin, end)) {
+			// Case the span was carried over from a previous chart
+			return new LinkedList<Cell<MR>>();
+		}
 		final AbstractCellFactory<MR> cellFactory = chart.getCellFactory();
 		final List<String> subString = CollectionUtils.subList(
 				chart.getTokens(), begin, end + 1);
 		final List<Cell<MR>> cells = new LinkedList<Cell<MR>>();
+		final CoarseSyntaxChart<MR> coarseChart = chart.getCoarseChart();
+		final Recorder recorder = startRecording(chart, begin, end,
+				Phase.LEXICAL);
 		// Iterate over all lexicons and get lexical entries
-		for (final ILexiconImmutable<MR> lexicon : lexicons) {
-			final List<? extends LexicalEntry<MR>> matchingEntries = lexicon
-					.getLexEntries(subString);
+		final int numLexicons = lexicons.size();
+		for (int i = 0; i < numLexicons; ++i) {
+			if (phraseLengths[i][begin] < subString.size()) {
+				// Case no entry in this lexicon can match a phrase this long,
+				// skip it
+				continue;
+			}
+			final List<? extends LexicalEntry<MR>> matchingEntries = lexicons
+					.get(i).getLexEntries(subString);
 			// For each item containing the current word sequence, create a
 			// cell and add it the chart
 			for (final LexicalEntry<MR> entry : matchingEntries) {
+				final Category<MR> category = categoryTransformation == null ? entry
+						.getCategory() : categoryTransformation.apply(entry
+						.getCategory());
+				if (coarseChart != null
+						&& !coarseChart.isUseful(begin, end,
+								category.getSyntax())) {
+					// Case the entry can't participate in a complete parse
+					if (recorder != null) {
+						recorder.count(Counter.COARSE_PRUNED);
+					}
+					continue;
+				}
+				final long scoringStart = recorder == null ? 0 : System
+						.nanoTime();
 				cells.add(cellFactory.create(
-						new CKYLexicalStep<MR>(
-								categoryTransformation == null ? entry
-										.getCategory() : categoryTransformation
-										.apply(entry.getCategory()), entry,
-								isFullParse(begin, end, entry.getCategory(),
-										chart.getSentenceLength()), model),
-						begin, end));
+						new CKYLexicalStep<MR>(category, entry, isFullParse(
+								begin, end, entry.getCategory(),
+								chart.getSentenceLength()), model), begin, end));
+				if (recorder != null) {
+					recorder.scored(scoringStart);
+					recorder.count(Counter.GENERATED);
+				}
 			}
 		}
+		if (recorder != null) {
+			recorder.stop();
+		}
+		return cells;
+	}
+	
+	/**
+	 * Collects the cells of the given span into a list, so they can be
+	 * iterated multiple times without re-creating the span iterator, or while
+	 * the chart is modified.
+	 */
+	protected List<Cell<MR>> getSpanCells(Chart<MR> chart, int start, int end) {
+		final List<Cell<MR>> cells = new ArrayList<Cell<MR>>(chart.spanSize(
+				start, end));
+		final Iterator<Cell<MR>> iterator = chart.getSpanIterator(start, end);
+		while (iterator.hasNext()) {
+			cells.add(iterator.next());
+		}
 		return cells;
 	}
 	
@@ -312,65 +1173,54 @@ public abstract class AbstractCKYParser<MR> extends
 			IDataItemModel<MR> model) {
 		// Processing a (single) split of a (single) span
 		
-		LOG.debug("Processing split (%d, %d)[%d] with %d x %d cells", start,
-				end, split, chart.spanSize(start, start + split),
-				chart.spanSize(start + split + 1, end));
+		if (chart.isReused(start, end)) {
+			// Case the span was carried over from a previous chart
+			return Pair.of((List<Cell<MR>>) new LinkedList<Cell<MR>>(), false);
+		}
+		
+		if (CKYLogging.DEBUG) {
+			LOG.debug("Processing split (%d, %d)[%d] with %d x %d cells", start,
+					end, split, chart.spanSize(start, start + split),
+					chart.spanSize(start + split + 1, end));
+		}
 		
 		final List<Cell<MR>> newCells = new LinkedList<Cell<MR>>();
 		int counter = 0;
+		final List<Cell<MR>> rightCells = getSpanCells(chart, start + split
+				+ 1, end);
+		final BinaryRuleDispatch<MR> dispatch = indexBinaryRules ? new BinaryRuleDispatch<MR>(
+				binaryRules, rightCells) : null;
+		final int numRightCells = rightCells.size();
+		final int numRules = binaryRules.size();
+		final Recorder recorder = startRecording(chart, start, end,
+				Phase.BINARY);
 		final Iterator<Cell<MR>> leftIter = chart.getSpanIterator(start, start
 				+ split);
 		while (leftIter.hasNext()) {
 			final Cell<MR> left = leftIter.next();
-			final Iterator<Cell<MR>> rightIter = chart.getSpanIterator(start
-					+ split + 1, end);
-			while (rightIter.hasNext()) {
-				final Cell<MR> right = rightIter.next();
-				LOG.debug("Processing: left=%d , right=%d", left.hashCode(),
-						right.hashCode());
-				final Iterator<CKYBinaryParsingRule<MR>> rules = binaryRules
-						.iterator();
-				while (rules.hasNext()) {
-					for (final ParseRuleResult<MR> prr : rules.next().apply(
-							left, right)) {
-						final ParseRuleResult<MR> transformed = transformRuleResult(prr);
-						LOG.debug("Applied %s --> %s",
-								transformed.getRuleName(),
-								transformed.getResultCategory());
-						counter += 1;
-						// Filter cells, only keep cells that pass
-						// pruning over the semantics, if there's a pruning
-						// filter and
-						// they have semantics
-						if (prune(pruningFilter,
-								transformed.getResultCategory(), start, end,
-								sentenceLength, true)) {
-							LOG.debug("Pruned (hard pruning): [%d,%d] %s",
-									start, end, transformed);
-						} else {
-							// Create the parse step
-							final CKYParseStep<MR> parseStep = new CKYParseStep<MR>(
-									transformed.getResultCategory(), left,
-									right, isFullParse(start, end,
-											transformed.getResultCategory(),
-											chart.getSentenceLength()),
-									transformed.getRuleName(), model);
-							
-							// Create the chart cell
-							final Cell<MR> newCell = cellFactory.create(
-									parseStep, start, end);
-							LOG.debug("Created new cell: %s", newCell);
-							
-							newCells.add(newCell);
-						}
+			final Syntax[] leftKeys = dispatch == null ? null : dispatch
+					.getLeftKeys(left);
+			for (int j = 0; j < numRightCells; ++j) {
+				final Cell<MR> right = rightCells.get(j);
+				for (int i = 0; i < numRules; ++i) {
+					if (dispatch == null || dispatch.isValid(i, leftKeys, j)) {
+						counter += applyBinaryRule(i, left, right,
+								sentenceLength, chart, cellFactory,
+								pruningFilter, model, recorder, newCells);
 					}
 				}
 			}
 		}
 		
-		LOG.debug(
-				"Finished processing split (%d, %d)[%d], generated %d cells, returning %d cells",
-				start, end, split, counter, newCells.size());
+		if (CKYLogging.DEBUG) {
+			LOG.debug(
+					"Finished processing split (%d, %d)[%d], generated %d cells, returning %d cells",
+					start, end, split, counter, newCells.size());
+		}
+		
+		if (recorder != null) {
+			recorder.stop();
+		}
 		
 		return Pair.of(newCells, false);
 	}
@@ -390,9 +1240,16 @@ public abstract class AbstractCKYParser<MR> extends
 			int chartBeamSize, IDataItemModel<MR> model) {
 		// Processing a (single) split of a (single) span.
 		
-		LOG.debug("Processing split (%d, %d)[%d] with %d x %d cells", start,
-				end, split, chart.spanSize(start, start + split),
-				chart.spanSize(start + split + 1, end));
+		if (chart.isReused(start, end)) {
+			// Case the span was carried over from a previous chart
+			return Pair.of((List<Cell<MR>>) new LinkedList<Cell<MR>>(), false);
+		}
+		
+		if (CKYLogging.DEBUG) {
+			LOG.debug("Processing split (%d, %d)[%d] with %d x %d cells", start,
+					end, split, chart.spanSize(start, start + split),
+					chart.spanSize(start + split + 1, end));
+		}
 		
 		final DirectAccessBoundedPriorityQueue<Cell<MR>> queue = new DirectAccessBoundedPriorityQueue<Cell<MR>>(
 				chartBeamSize * 2 + 1, new Cell.ScoreComparator<MR>());
@@ -401,94 +1258,46 @@ public abstract class AbstractCKYParser<MR> extends
 		boolean pruned = false;
 		
 		int counter = 0;
+		final List<Cell<MR>> newCells = new ArrayList<Cell<MR>>();
+		final List<Cell<MR>> rightCells = getSpanCells(chart, start + split
+				+ 1, end);
+		final BinaryRuleDispatch<MR> dispatch = indexBinaryRules ? new BinaryRuleDispatch<MR>(
+				binaryRules, rightCells) : null;
+		final int numRightCells = rightCells.size();
+		final int numRules = binaryRules.size();
+		final Recorder recorder = startRecording(chart, start, end,
+				Phase.BINARY);
 		final Iterator<Cell<MR>> leftIter = chart.getSpanIterator(start, start
 				+ split);
 		while (leftIter.hasNext()) {
 			final Cell<MR> left = leftIter.next();
-			final Iterator<Cell<MR>> rightIter = chart.getSpanIterator(start
-					+ split + 1, end);
-			while (rightIter.hasNext()) {
-				final Cell<MR> right = rightIter.next();
-				LOG.debug("Processing: left=%d , right=%d", left.hashCode(),
-						right.hashCode());
-				LOG.debug("Left: %s", left);
-				LOG.debug("Right: %s", right);
-				final Iterator<CKYBinaryParsingRule<MR>> rules = binaryRules
-						.iterator();
-				while (rules.hasNext()) {
-					final CKYBinaryParsingRule<MR> rule = rules.next();
-					LOG.debug("Applying %s", rule);
-					for (final ParseRuleResult<MR> prr : rule
-							.apply(left, right)) {
-						final ParseRuleResult<MR> transformed = transformRuleResult(prr);
-						LOG.debug("Applied %s --> %s",
-								transformed.getRuleName(),
-								transformed.getResultCategory());
-						counter += 1;
-						// Prune, only keep categories that pass pruning over
-						// the semantics, if there's a pruning filter and they
-						// have semantics.
-						if (prune(pruningFilter,
-								transformed.getResultCategory(), start, end,
-								sentenceLength, true)) {
-							LOG.debug("Pruned (hard pruning): [%d,%d] %s",
-									start, end, transformed);
-						} else {
-							// Create a CKY parse step from the result.
-							final CKYParseStep<MR> parseStep = new CKYParseStep<MR>(
-									transformed.getResultCategory(), left,
-									right, isFullParse(start, end,
-											transformed.getResultCategory(),
-											chart.getSentenceLength()),
-									transformed.getRuleName(), model);
-							
-							// Create the cell.
-							final Cell<MR> newCell = cellFactory.create(
-									parseStep, start, end);
-							LOG.debug("Created new cell: %s", newCell);
-							if (queue.contains(newCell)) {
-								// Case the cell signature is already contained
-								// in the queue. Remove the old cell, add the
-								// new one to it, which might change its score,
-								// and then re-add to the queue.
-								
-								final Cell<MR> oldCell = queue.get(newCell);
-								LOG.debug(
-										"Adding new cell to existing one in pre-chart queue: %s",
-										oldCell);
-								// Add the new cell to the old one.
-								if (oldCell.addCell(newCell)) {
-									// Max-children changed, score might have
-									// changed, so need to remove and re-queue.
-									LOG.debug("Cell viterbi score updated: %s",
-											oldCell);
-									
-									// Remove the old cell, to re-add it.
-									queue.remove(oldCell);
-									// Adding here, not offering, since we just
-									// removed it, it should be added without
-									// any fear of exception.
-									queue.add(oldCell);
-								}
-							} else {
-								// Case new cell signature.
-								LOG.debug("Adding new cell to pre-chart queue.");
-								if (!queue.offer(newCell)) {
-									LOG.debug("Pruned (pre-chart pruning): %s",
-											newCell);
-									pruned = true;
-								}
-							}
-							LOG.debug("Pre-chart queue size = %d", queue.size());
+			final Syntax[] leftKeys = dispatch == null ? null : dispatch
+					.getLeftKeys(left);
+			for (int j = 0; j < numRightCells; ++j) {
+				final Cell<MR> right = rightCells.get(j);
+				for (int i = 0; i < numRules; ++i) {
+					if (dispatch == null || dispatch.isValid(i, leftKeys, j)) {
+						counter += applyBinaryRule(i, left, right,
+								sentenceLength, chart, cellFactory,
+								pruningFilter, model, recorder, newCells);
+						for (final Cell<MR> newCell : newCells) {
+							pruned |= offerToQueue(queue, newCell, recorder);
 						}
+						newCells.clear();
 					}
 				}
 			}
 		}
 		
-		LOG.debug(
-				"Finished processing split (%d, %d)[%d], generated %d cells, returning %d cells",
-				start, end, split, counter, queue.size());
+		if (CKYLogging.DEBUG) {
+			LOG.debug(
+					"Finished processing split (%d, %d)[%d], generated %d cells, returning %d cells",
+					start, end, split, counter, queue.size());
+		}
+		
+		if (recorder != null) {
+			recorder.stop();
+		}
 		
 		final List<Cell<MR>> cells = new ArrayList<Cell<MR>>(queue);
 		return Pair.of(cells, pruned);
@@ -547,6 +1356,28 @@ public abstract class AbstractCKYParser<MR> extends
 		return false;
 	}
 	
+	/**
+	 * Starts recording metrics for processing a span in the given phase.
+	 * 
+	 * @return The recorder, or null if metrics are not collected for the
+	 *         chart.
+	 */
+	protected Recorder startRecording(Chart<MR> chart, int start, int end,
+			Phase phase) {
+		if (chart.getMetrics() == null) {
+			return null;
+		}
+		final List<String> ruleNames;
+		if (phase == Phase.BINARY) {
+			ruleNames = binaryRuleNames;
+		} else if (phase == Phase.UNARY) {
+			ruleNames = unaryRuleNames;
+		} else {
+			ruleNames = null;
+		}
+		return chart.getMetrics().startRecording(start, end, phase, ruleNames);
+	}
+	
 	/**
 	 * Apply unary rules to all cells in the span. The cells generated combine
 	 * the unary step and the binary step that lead to it, so they don't depend
@@ -557,57 +1388,42 @@ public abstract class AbstractCKYParser<MR> extends
 			int end, int sentenceLength, Chart<MR> chart,
 			AbstractCellFactory<MR> cellFactory, IFilter<MR> pruningFilter,
 			IDataItemModel<MR> model) {
-		LOG.debug("Unary processing span (%d, %d) with %d  cells", start, end,
-				chart.spanSize(start, end));
+		if (chart.isReused(start, end)) {
+			// Case the span was carried over from a previous chart
+			return Pair.of((List<Cell<MR>>) new LinkedList<Cell<MR>>(), false);
+		}
+		
+		if (CKYLogging.DEBUG) {
+			LOG.debug("Unary processing span (%d, %d) with %d  cells", start,
+					end, chart.spanSize(start, end));
+		}
 		
 		final List<Cell<MR>> newCells = new LinkedList<Cell<MR>>();
 		int counter = 0;
+		final int numRules = unaryRules.size();
+		final Recorder recorder = startRecording(chart, start, end,
+				Phase.UNARY);
 		final Iterator<Cell<MR>> iterator = chart.getSpanIterator(start, end);
 		while (iterator.hasNext()) {
 			final Cell<MR> cell = iterator.next();
-			LOG.debug("Processing: cell=%d", cell.hashCode());
-			final Iterator<CKYUnaryParsingRule<MR>> rulesIterator = unaryRules
-					.iterator();
-			while (rulesIterator.hasNext()) {
-				for (final ParseRuleResult<MR> prr : rulesIterator.next()
-						.apply(cell)) {
-					final ParseRuleResult<MR> transformed = transformRuleResult(prr);
-					LOG.debug("Applied %s --> %s", transformed.getRuleName(),
-							transformed.getResultCategory());
-					counter += cell.numSteps();
-					// Filter cells, only keep cells that pass pruning over the
-					// semantics, if there's a pruning filter and they have
-					// semantics.
-					if (prune(pruningFilter, transformed.getResultCategory(),
-							start, end, sentenceLength, false)) {
-						LOG.debug("Pruned (hard pruning): [%d,%d] %s", start,
-								end, transformed);
-					} else {
-						// Create combined parse step. Each step combine all
-						// binary steps that lead to this cell, and the unary
-						// step just created.
-						for (final AbstractCKYParseStep<MR> step : cell
-								.getSteps()) {
-							// Create the combined parse step and the new cell.
-							final Cell<MR> newCell = cellFactory.create(step
-									.cloneWithUnary(
-											transformed,
-											model,
-											isFullParse(start, end, transformed
-													.getResultCategory(),
-													sentenceLength)), start,
-									end);
-							LOG.debug("Created new cell: %s", newCell);
-							newCells.add(newCell);
-						}
-					}
-				}
+			if (CKYLogging.DEBUG) {
+				LOG.debug("Processing: cell=%d", cell.hashCode());
+			}
+			for (int i = 0; i < numRules; ++i) {
+				counter += applyUnaryRule(i, cell, sentenceLength, chart,
+						cellFactory, pruningFilter, model, recorder, newCells);
 			}
 		}
 		
-		LOG.debug(
-				"Finished unary processing span (%d, %d), generated %d cells, returning %d cells",
-				start, end, counter, newCells.size());
+		if (CKYLogging.DEBUG) {
+			LOG.debug(
+					"Finished unary processing span (%d, %d), generated %d cells, returning %d cells",
+					start, end, counter, newCells.size());
+		}
+		
+		if (recorder != null) {
+			recorder.stop();
+		}
 		
 		return Pair.of(newCells, false);
 	}
@@ -623,8 +1439,15 @@ public abstract class AbstractCKYParser<MR> extends
 			int end, int sentenceLength, Chart<MR> chart,
 			AbstractCellFactory<MR> cellFactory, IFilter<MR> pruningFilter,
 			int chartBeamSize, IDataItemModel<MR> model) {
-		LOG.debug("Unary processing span (%d, %d) with %d  cells", start, end,
-				chart.spanSize(start, end));
+		if (chart.isReused(start, end)) {
+			// Case the span was carried over from a previous chart
+			return Pair.of((List<Cell<MR>>) new LinkedList<Cell<MR>>(), false);
+		}
+		
+		if (CKYLogging.DEBUG) {
+			LOG.debug("Unary processing span (%d, %d) with %d  cells", start,
+					end, chart.spanSize(start, end));
+		}
 		
 		final DirectAccessBoundedPriorityQueue<Cell<MR>> queue = new DirectAccessBoundedPriorityQueue<Cell<MR>>(
 				chartBeamSize * 2 + 1, new Cell.ScoreComparator<MR>());
@@ -633,88 +1456,62 @@ public abstract class AbstractCKYParser<MR> extends
 		boolean pruned = false;
 		
 		int counter = 0;
+		final List<Cell<MR>> newCells = new ArrayList<Cell<MR>>();
+		final int numRules = unaryRules.size();
+		final Recorder recorder = startRecording(chart, start, end,
+				Phase.UNARY);
 		final Iterator<Cell<MR>> iterator = chart.getSpanIterator(start, end);
 		while (iterator.hasNext()) {
 			final Cell<MR> cell = iterator.next();
-			LOG.debug("Processing: cell=%d", cell.hashCode());
-			final Iterator<CKYUnaryParsingRule<MR>> rulesIterator = unaryRules
-					.iterator();
-			while (rulesIterator.hasNext()) {
-				for (final ParseRuleResult<MR> prr : rulesIterator.next()
-						.apply(cell)) {
-					final ParseRuleResult<MR> transformed = transformRuleResult(prr);
-					LOG.debug("Applied %s --> %s", transformed.getRuleName(),
-							transformed.getResultCategory());
-					counter += cell.numSteps();
-					// Filter cells, only keep cells that pass pruning over the
-					// semantics, if there's a pruning filter and they have
-					// semantics.
-					if (prune(pruningFilter, transformed.getResultCategory(),
-							start, end, sentenceLength, false)) {
-						LOG.debug("Pruned (hard pruning): [%d,%d] %s", start,
-								end, transformed);
-					} else {
-						// Create combined parse step. Each step combine all
-						// binary steps that lead to this cell, and the unary
-						// step just created.
-						for (final AbstractCKYParseStep<MR> step : cell
-								.getSteps()) {
-							// Create the combined parse step and the new cell.
-							final Cell<MR> newCell = cellFactory.create(step
-									.cloneWithUnary(
-											transformed,
-											model,
-											isFullParse(start, end, transformed
-													.getResultCategory(),
-													sentenceLength)), start,
-									end);
-							LOG.debug("Created new cell: %s", newCell);
-							
-							if (queue.contains(newCell)) {
-								// Case the cell signature is already in the
-								// queue. Remove the old cell, add the new one
-								// to it, which might change its score, and then
-								// re-add to the queue.
-								
-								final Cell<MR> oldCell = queue.get(newCell);
-								LOG.debug(
-										"Adding new cell to existing one in pre-chart queue: %s",
-										oldCell);
-								// Add the new cell to the old one
-								if (oldCell.addCell(newCell)) {
-									// Max-children changed, score might have
-									// changed, so need to remove and re-queue
-									LOG.debug("Cell viterbi score updated: %s",
-											oldCell);
-									
-									// Remove the old cell, to re-add it
-									queue.remove(oldCell);
-									// Adding here, not offering, since we just
-									// removed it, it should be added without
-									// any fear of exception
-									queue.add(oldCell);
-								}
-							} else {
-								// Case new cell signature.
-								LOG.debug("Adding new cell to pre-chart queue.");
-								if (!queue.offer(newCell)) {
-									LOG.debug("Pruned (pre-chart pruning): %s",
-											newCell);
-									pruned = true;
-								}
-							}
-							LOG.debug("Pre-chart queue size = %d", queue.size());
-						}
-					}
+			if (CKYLogging.DEBUG) {
+				LOG.debug("Processing: cell=%d", cell.hashCode());
+			}
+			for (int i = 0; i < numRules; ++i) {
+				counter += applyUnaryRule(i, cell, sentenceLength, chart,
+						cellFactory, pruningFilter, model, recorder, newCells);
+				for (final Cell<MR> newCell : newCells) {
+					pruned |= offerToQueue(queue, newCell, recorder);
 				}
+				newCells.clear();
 			}
 		}
 		
-		LOG.debug(
-				"Finished unary processing span (%d, %d), generated %d cells, returning %d cells",
-				start, end, counter, queue.size());
+		if (CKYLogging.DEBUG) {
+			LOG.debug(
+					"Finished unary processing span (%d, %d), generated %d cells, returning %d cells",
+					start, end, counter, queue.size());
+		}
+		
+		if (recorder != null) {
+			recorder.stop();
+		}
 		
 		final List<Cell<MR>> cells = new ArrayList<Cell<MR>>(queue);
 		return Pair.of(cells, pruned);
 	}
+	
+	/**
+	 * A chart stored for re-use, with the information required to decide
+	 * which of its spans can be carried over.
+	 * 
+	 * @author Yoav Artzi
+	 */
+	private static class ReusableChart<MR> {
+		private final Chart<MR>							chart;
+		
+		/**
+		 * Lexical entries of each span, indexed by start and span length.
+		 */
+		private final List<List<Set<LexicalEntry<MR>>>>	lexicalEntries;
+		
+		private final IFilter<MR>						pruningFilter;
+		
+		public ReusableChart(Chart<MR> chart,
+				List<List<Set<LexicalEntry<MR>>>> lexicalEntries,
+				IFilter<MR> pruningFilter) {
+			this.chart = chart;
+			this.lexicalEntries = lexicalEntries;
+			this.pruningFilter = pruningFilter;
+		}
+	}
 }
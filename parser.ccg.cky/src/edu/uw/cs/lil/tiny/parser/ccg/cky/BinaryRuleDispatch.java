@@ -0,0 +1,97 @@
+/*******************************************************************************
+ * UW SPF - The University of Washington Semantic Parsing Framework
+ * <p>
+ * Copyright (C) 2013 Yoav Artzi
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ ******************************************************************************/
+package edu.uw.cs.lil.tiny.parser.ccg.cky;
+
+import java.util.List;
+
+import edu.uw.cs.lil.tiny.ccg.categories.syntax.Syntax;
+import edu.uw.cs.lil.tiny.parser.ccg.cky.chart.Cell;
+
+/**
+ * Dispatches binary rules for the cells of a single split. For syntax indexed
+ * rules, a pair of cells is only given to the rule if the rule's left key of
+ * the left cell is equal to its right key of the right cell. Other rules get
+ * all pairs. Pairs are still visited in the same order as without dispatch,
+ * so ties in the chart's beam are broken the same way. The keys of the right
+ * cells are computed lazily, once per rule.
+ * 
+ * @author Yoav Artzi
+ */
+class BinaryRuleDispatch<MR> {
+	private final List<Cell<MR>>					rightCells;
+	
+	/**
+	 * Right keys, indexed by rule and then by the index of the right cell.
+	 */
+	private final Syntax[][]						rightKeys;
+	private final List<CKYBinaryParsingRule<MR>>	rules;
+	
+	public BinaryRuleDispatch(List<CKYBinaryParsingRule<MR>> rules,
+			List<Cell<MR>> rightCells) {
+		this.rules = rules;
+		this.rightCells = rightCells;
+		this.rightKeys = new Syntax[rules.size()][];
+	}
+	
+	/**
+	 * Left keys of the given cell, indexed by rule. The key is null for rules
+	 * that are not syntax indexed, and for indexed rules that can't take the
+	 * cell as their left argument.
+	 */
+	public Syntax[] getLeftKeys(Cell<MR> left) {
+		final Syntax[] leftKeys = new Syntax[rules.size()];
+		for (int i = 0; i < leftKeys.length; ++i) {
+			final CKYBinaryParsingRule<MR> rule = rules.get(i);
+			if (rule.isSyntaxIndexed()) {
+				leftKeys[i] = rule.getLeftKey(left);
+			}
+		}
+		return leftKeys;
+	}
+	
+	/**
+	 * Checks if the rule at the given index may combine the left cell with the
+	 * right cell at the given index.
+	 * 
+	 * @param leftKeys
+	 *            Left keys of the left cell (see {@link #getLeftKeys(Cell)}).
+	 */
+	public boolean isValid(int ruleIndex, Syntax[] leftKeys, int rightIndex) {
+		final CKYBinaryParsingRule<MR> rule = rules.get(ruleIndex);
+		if (!rule.isSyntaxIndexed()) {
+			return true;
+		}
+		
+		final Syntax leftKey = leftKeys[ruleIndex];
+		if (leftKey == null) {
+			return false;
+		}
+		
+		Syntax[] ruleRightKeys = rightKeys[ruleIndex];
+		if (ruleRightKeys == null) {
+			ruleRightKeys = new Syntax[rightCells.size()];
+			for (int j = 0; j < ruleRightKeys.length; ++j) {
+				ruleRightKeys[j] = rule.getRightKey(rightCells.get(j));
+			}
+			rightKeys[ruleIndex] = ruleRightKeys;
+		}
+		
+		return leftKey.equals(ruleRightKeys[rightIndex]);
+	}
+}
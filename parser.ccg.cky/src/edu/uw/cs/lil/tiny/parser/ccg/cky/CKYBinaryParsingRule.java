@@ -20,9 +20,13 @@ package edu.uw.cs.lil.tiny.parser.ccg.cky;
 
 import java.util.Collection;
 
+import edu.uw.cs.lil.tiny.ccg.categories.syntax.Syntax;
 import edu.uw.cs.lil.tiny.parser.ccg.cky.chart.Cell;
 import edu.uw.cs.lil.tiny.parser.ccg.rules.IBinaryParseRule;
+import edu.uw.cs.lil.tiny.parser.ccg.rules.ISyntacticBinaryRule;
+import edu.uw.cs.lil.tiny.parser.ccg.rules.ISyntaxIndexedBinaryRule;
 import edu.uw.cs.lil.tiny.parser.ccg.rules.ParseRuleResult;
+import edu.uw.cs.lil.tiny.parser.ccg.rules.RuleName;
 
 public class CKYBinaryParsingRule<MR> {
 	private final IBinaryParseRule<MR>	rule;
@@ -54,6 +58,10 @@ public class CKYBinaryParsingRule<MR> {
 		return true;
 	}
 	
+	public RuleName getName() {
+		return rule.getName();
+	}
+	
 	@Override
 	public int hashCode() {
 		final int prime = 31;
@@ -62,6 +70,22 @@ public class CKYBinaryParsingRule<MR> {
 		return result;
 	}
 	
+	/**
+	 * 'true' if the rule can be applied to syntax alone, see
+	 * {@link ISyntacticBinaryRule}.
+	 */
+	public boolean isSyntactic() {
+		return rule instanceof ISyntacticBinaryRule;
+	}
+	
+	/**
+	 * 'true' if the rule declares index keys for its arguments, see
+	 * {@link ISyntaxIndexedBinaryRule}.
+	 */
+	public boolean isSyntaxIndexed() {
+		return rule instanceof ISyntaxIndexedBinaryRule;
+	}
+	
 	@Override
 	public String toString() {
 		return String.format("%s[%s]",
@@ -76,4 +100,27 @@ public class CKYBinaryParsingRule<MR> {
 			Cell<MR> right) {
 		return rule.apply(left.getCategory(), right.getCategory());
 	}
+	
+	/**
+	 * Syntax-only application. Only valid for syntactic rules.
+	 */
+	protected Syntax applySyntax(Syntax left, Syntax right) {
+		return ((ISyntacticBinaryRule<MR>) rule).applySyntax(left, right);
+	}
+	
+	/**
+	 * Index key of the left cell. Only valid for syntax indexed rules.
+	 */
+	protected Syntax getLeftKey(Cell<MR> left) {
+		return ((ISyntaxIndexedBinaryRule<MR>) rule).getLeftKey(left
+				.getCategory());
+	}
+	
+	/**
+	 * Index key of the right cell. Only valid for syntax indexed rules.
+	 */
+	protected Syntax getRightKey(Cell<MR> right) {
+		return ((ISyntaxIndexedBinaryRule<MR>) rule).getRightKey(right
+				.getCategory());
+	}
 }
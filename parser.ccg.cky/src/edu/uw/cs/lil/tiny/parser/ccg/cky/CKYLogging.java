@@ -0,0 +1,41 @@
+/*******************************************************************************
+ * UW SPF - The University of Washington Semantic Parsing Framework
+ * <p>
+ * Copyright (C) 2013 Yoav Artzi
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ ******************************************************************************/
+package edu.uw.cs.lil.tiny.parser.ccg.cky;
+
+/**
+ * Static guard for debug logging on the hot paths of the CKY parsers (rule
+ * application, pruning and chart insertion). Logging calls there are executed
+ * for every pair of cells, and even when the log level filters them out, they
+ * allocate their argument arrays and box their arguments. Since the guard is a
+ * static final constant, the JIT removes the guarded code entirely when it's
+ * off. To get debug output from these paths, run with
+ * -Dtiny.parser.cky.debug=true and set the log level to debug.
+ * 
+ * @author Yoav Artzi
+ */
+public class CKYLogging {
+	
+	public static final boolean	DEBUG	= Boolean
+												.getBoolean("tiny.parser.cky.debug");
+	
+	private CKYLogging() {
+		// Service class. Not instantiatable.
+	}
+	
+}
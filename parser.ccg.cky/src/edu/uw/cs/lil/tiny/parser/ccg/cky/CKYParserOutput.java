@@ -50,12 +50,21 @@ public class CKYParserOutput<MR> implements IGraphParserOutput<MR> {
 	/** The CKY chart */
 	private final Chart<MR>				chart;
 	
+	/** Parsing metrics, null if the parser doesn't collect metrics */
+	private final ParserMetrics			metrics;
+	
 	/** Total parsing time */
 	private final long					parsingTime;
 	
 	public CKYParserOutput(Chart<MR> chart, long parsingTime) {
+		this(chart, parsingTime, null);
+	}
+	
+	public CKYParserOutput(Chart<MR> chart, long parsingTime,
+			ParserMetrics metrics) {
 		this.chart = chart;
 		this.parsingTime = parsingTime;
+		this.metrics = metrics;
 		this.allParses = Collections.unmodifiableList(chart.getParseResults());
 		this.bestParses = Collections
 				.unmodifiableList(findBestParses(allParses));
@@ -102,6 +111,14 @@ public class CKYParserOutput<MR> implements IGraphParserOutput<MR> {
 		return findBestParses(allParses, filter);
 	}
 	
+	/**
+	 * Metrics collected while parsing, or null if the parser was not set to
+	 * collect metrics.
+	 */
+	public ParserMetrics getMetrics() {
+		return metrics;
+	}
+	
 	@Override
 	public List<? extends IGraphDerivation<MR>> getParses(final IFilter<MR> filter) {
 		final List<? extends IGraphDerivation<MR>> parses = new ArrayList<IGraphDerivation<MR>>(
@@ -3,9 +3,12 @@ package edu.uw.cs.lil.tiny.parser.ccg.cky;
 import java.util.Collection;
 
 import edu.uw.cs.lil.tiny.ccg.categories.Category;
+import edu.uw.cs.lil.tiny.ccg.categories.syntax.Syntax;
 import edu.uw.cs.lil.tiny.parser.ccg.cky.chart.Cell;
+import edu.uw.cs.lil.tiny.parser.ccg.rules.ISyntacticUnaryRule;
 import edu.uw.cs.lil.tiny.parser.ccg.rules.IUnaryParseRule;
 import edu.uw.cs.lil.tiny.parser.ccg.rules.ParseRuleResult;
+import edu.uw.cs.lil.tiny.parser.ccg.rules.RuleName;
 
 /**
  * A CKY rule wrapping a {@link IUnaryParseRule}.
@@ -22,6 +25,18 @@ public class CKYUnaryParsingRule<MR> {
 		this.rule = rule;
 	}
 	
+	public RuleName getName() {
+		return rule.getName();
+	}
+	
+	/**
+	 * 'true' if the rule can be applied to syntax alone, see
+	 * {@link ISyntacticUnaryRule}.
+	 */
+	public boolean isSyntactic() {
+		return rule instanceof ISyntacticUnaryRule;
+	}
+	
 	@Override
 	public String toString() {
 		return String.format("%s[%s]",
@@ -35,6 +50,13 @@ public class CKYUnaryParsingRule<MR> {
 		return rule.apply(cell.getCategory());
 	}
 	
+	/**
+	 * Syntax-only application. Only valid for syntactic rules.
+	 */
+	protected Syntax applySyntax(Syntax syntax) {
+		return ((ISyntacticUnaryRule<MR>) rule).applySyntax(syntax);
+	}
+	
 	/**
 	 * @see IUnaryParseRule#isValidArgument(Category)
 	 */
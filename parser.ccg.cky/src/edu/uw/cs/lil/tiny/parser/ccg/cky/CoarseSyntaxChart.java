@@ -0,0 +1,257 @@
+/*******************************************************************************
+ * UW SPF - The University of Washington Semantic Parsing Framework
+ * <p>
+ * Copyright (C) 2013 Yoav Artzi
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ ******************************************************************************/
+package edu.uw.cs.lil.tiny.parser.ccg.cky;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.base.Function;
+
+import edu.uw.cs.lil.tiny.ccg.categories.Category;
+import edu.uw.cs.lil.tiny.ccg.categories.syntax.Syntax;
+import edu.uw.cs.lil.tiny.ccg.lexicon.ILexiconImmutable;
+import edu.uw.cs.lil.tiny.ccg.lexicon.LexicalEntry;
+import edu.uw.cs.lil.tiny.parser.ccg.rules.ISyntacticBinaryRule;
+import edu.uw.cs.lil.tiny.parser.ccg.rules.ISyntacticUnaryRule;
+import edu.uw.cs.utils.collections.CollectionUtils;
+import edu.uw.cs.utils.log.ILogger;
+import edu.uw.cs.utils.log.LoggerFactory;
+
+/**
+ * Syntax-only CKY chart for coarse-to-fine parsing. Each item is a (span,
+ * syntax) pair. The chart is filled with the syntactic versions of the parsing
+ * rules (see {@link ISyntacticBinaryRule} and {@link ISyntacticUnaryRule}),
+ * and then the items that participate in at least one complete parse are
+ * marked as useful. Since the syntactic rules over-approximate the full rules,
+ * any cell of the full chart that is part of a complete parse has a useful
+ * item.
+ * 
+ * @author Yoav Artzi
+ * @param <MR>
+ *            Meaning representation.
+ */
+public class CoarseSyntaxChart<MR> {
+	public static final ILogger			LOG	= LoggerFactory
+												.create(CoarseSyntaxChart.class);
+	
+	/** Items of each span, indexed by start and end indices. */
+	private final Map<Syntax, Item>[][]	chart;
+	
+	private int							numItems;
+	
+	private int							numUsefulItems;
+	
+	/** Number of words in input sentence. */
+	private final int					sentenceLength;
+	
+	/**
+	 * @param fullParseSyntaxes
+	 *            Syntax of complete parses. Items are marked as useful only if
+	 *            they participate in a derivation of a category with one of
+	 *            these syntaxes over the complete sentence.
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	CoarseSyntaxChart(List<String> tokens,
+			List<ILexiconImmutable<MR>> lexicons,
+			List<CKYBinaryParsingRule<MR>> binaryRules,
+			List<CKYUnaryParsingRule<MR>> unaryRules,
+			Function<Category<MR>, Category<MR>> categoryTransformation,
+			Set<Syntax> fullParseSyntaxes) {
+		this.sentenceLength = tokens.size();
+		this.chart = new Map[sentenceLength][sentenceLength];
+		for (int i = 0; i < sentenceLength; i++) {
+			for (int j = i; j < sentenceLength; j++) {
+				chart[i][j] = new HashMap<Syntax, Item>();
+			}
+		}
+		
+		// Inside pass, mirrors the order of CKY parsing
+		final int[][] phraseLengths = AbstractCKYParser
+				.getLongestPhraseLengths(tokens, lexicons);
+		for (int len = 0; len < sentenceLength; len++) {
+			for (int begin = 0; begin < sentenceLength - len; begin++) {
+				final int end = begin + len;
+				addLexicalItems(tokens, begin, end, lexicons, phraseLengths,
+						categoryTransformation);
+				for (int split = 0; split < len; split++) {
+					addBinaryItems(begin, end, split, binaryRules);
+				}
+				addUnaryItems(begin, end, unaryRules);
+			}
+		}
+		
+		// Outside pass, mark all items reachable from a complete parse
+		if (sentenceLength > 0) {
+			final LinkedList<Item> queue = new LinkedList<Item>();
+			for (final Item item : chart[0][sentenceLength - 1].values()) {
+				if (fullParseSyntaxes.contains(item.syntax)) {
+					item.useful = true;
+					queue.add(item);
+				}
+			}
+			while (!queue.isEmpty()) {
+				++numUsefulItems;
+				for (final Item child : queue.removeFirst().children) {
+					if (!child.useful) {
+						child.useful = true;
+						queue.add(child);
+					}
+				}
+			}
+		}
+		
+		if (CKYLogging.DEBUG) {
+			LOG.debug("Coarse chart: %d items, %d useful", numItems,
+					numUsefulItems);
+		}
+	}
+	
+	/**
+	 * 'true' if any syntax can participate in a complete parse.
+	 */
+	public boolean hasFullParse() {
+		return numUsefulItems > 0;
+	}
+	
+	/**
+	 * 'true' if the given syntax in the given span can participate in a
+	 * complete parse.
+	 */
+	public boolean isUseful(int start, int end, Syntax syntax) {
+		final Item item = chart[start][end].get(syntax);
+		return item != null && item.useful;
+	}
+	
+	/**
+	 * Total number of (span, syntax) items in the chart.
+	 */
+	public int numItems() {
+		return numItems;
+	}
+	
+	/**
+	 * Number of items that can participate in a complete parse.
+	 */
+	public int numUsefulItems() {
+		return numUsefulItems;
+	}
+	
+	private void addBinaryItems(int begin, int end, int split,
+			List<CKYBinaryParsingRule<MR>> binaryRules) {
+		final Map<Syntax, Item> span = chart[begin][end];
+		final Collection<Item> leftItems = chart[begin][begin + split].values();
+		final Collection<Item> rightItems = chart[begin + split + 1][end]
+				.values();
+		for (final Item left : leftItems) {
+			for (final Item right : rightItems) {
+				for (final CKYBinaryParsingRule<MR> rule : binaryRules) {
+					final Syntax syntax = rule.applySyntax(left.syntax,
+							right.syntax);
+					if (syntax != null) {
+						final Item item = getItem(span, syntax);
+						item.children.add(left);
+						item.children.add(right);
+					}
+				}
+			}
+		}
+	}
+	
+	private void addLexicalItems(List<String> tokens, int begin, int end,
+			List<ILexiconImmutable<MR>> lexicons, int[][] phraseLengths,
+			Function<Category<MR>, Category<MR>> categoryTransformation) {
+		if (AbstractCKYParser.getLongestPhraseLength(phraseLengths, begin) < end
+				- begin + 1) {
+			// Case no lexicon has a phrase this long at 'begin'
+			return;
+		}
+		final Map<Syntax, Item> span = chart[begin][end];
+		final List<String> subString = CollectionUtils.subList(tokens, begin,
+				end + 1);
+		final int numLexicons = lexicons.size();
+		for (int i = 0; i < numLexicons; ++i) {
+			if (phraseLengths[i][begin] < subString.size()) {
+				continue;
+			}
+			for (final LexicalEntry<MR> entry : lexicons.get(i).getLexEntries(
+					subString)) {
+				getItem(span,
+						categoryTransformation == null ? entry.getCategory()
+								.getSyntax() : categoryTransformation.apply(
+								entry.getCategory()).getSyntax());
+			}
+		}
+	}
+	
+	/**
+	 * Applies unary rules until no new syntax is created in the span. Parsers
+	 * may apply unary rules more than once to a span, so the closure
+	 * over-approximates all of them.
+	 */
+	private void addUnaryItems(int begin, int end,
+			List<CKYUnaryParsingRule<MR>> unaryRules) {
+		final Map<Syntax, Item> span = chart[begin][end];
+		final LinkedList<Item> queue = new LinkedList<Item>(span.values());
+		while (!queue.isEmpty()) {
+			final Item item = queue.removeFirst();
+			for (final CKYUnaryParsingRule<MR> rule : unaryRules) {
+				final Syntax syntax = rule.applySyntax(item.syntax);
+				if (syntax != null) {
+					final boolean exists = span.containsKey(syntax);
+					final Item result = getItem(span, syntax);
+					result.children.add(item);
+					if (!exists) {
+						queue.add(result);
+					}
+				}
+			}
+		}
+	}
+	
+	private Item getItem(Map<Syntax, Item> span, Syntax syntax) {
+		Item item = span.get(syntax);
+		if (item == null) {
+			item = new Item(syntax);
+			span.put(syntax, item);
+			++numItems;
+		}
+		return item;
+	}
+	
+	/**
+	 * A (span, syntax) item. The span is implied by the position in the chart.
+	 */
+	private static class Item {
+		/**
+		 * All items used to derive this item, in any derivation.
+		 */
+		private final Set<Item>	children	= new HashSet<Item>();
+		private final Syntax	syntax;
+		private boolean			useful		= false;
+		
+		public Item(Syntax syntax) {
+			this.syntax = syntax;
+		}
+	}
+}
@@ -0,0 +1,445 @@
+/*******************************************************************************
+ * UW SPF - The University of Washington Semantic Parsing Framework
+ * <p>
+ * Copyright (C) 2013 Yoav Artzi
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ ******************************************************************************/
+package edu.uw.cs.lil.tiny.parser.ccg.cky;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+import edu.uw.cs.lil.tiny.base.time.ThreadTimer;
+import edu.uw.cs.utils.composites.Pair;
+
+/**
+ * Counters and timings of CKY parsing: cells generated, pruned and merged per
+ * span, rule applications per rule and time spent in each parsing phase and in
+ * each registered {@link ThreadTimer} (e.g., ApplyAndSimplify). Collected per
+ * parse (see {@link CKYParserOutput#getMetrics()}) and aggregated across all
+ * parses of a parser (see {@link AbstractCKYParser#getRunMetrics()}).
+ * Thread-safe. The parser records counts in batches using {@link Recorder}s
+ * (e.g., once per split), so synchronization is not on the hot path.
+ * 
+ * @author Yoav Artzi
+ */
+public class ParserMetrics {
+	
+	/**
+	 * Cell counters, indexed by {@link Counter#ordinal()}, per span.
+	 */
+	private final Map<Pair<Integer, Integer>, long[]>	counters		= new HashMap<Pair<Integer, Integer>, long[]>();
+	
+	/**
+	 * Time (nanoseconds) spent in each registered {@link ThreadTimer}.
+	 */
+	private final Map<String, Long>						externalTimes	= new LinkedHashMap<String, Long>();
+	
+	private int											numParses		= 0;
+	
+	/**
+	 * Time (nanoseconds) spent in each phase, indexed by
+	 * {@link Phase#ordinal()}.
+	 */
+	private final long[]								phaseTimes		= new long[Phase
+																				.values().length];
+	
+	/**
+	 * Rule counters, indexed by {@link RuleCounter#ordinal()}, per rule name.
+	 */
+	private final Map<String, long[]>					ruleCounters	= new TreeMap<String, long[]>();
+	
+	/**
+	 * Adds all the counts and times of the given metrics to this object.
+	 */
+	public void add(ParserMetrics other) {
+		// Copy under the other object's lock, to avoid holding both locks
+		final Map<Pair<Integer, Integer>, long[]> otherCounters = new HashMap<Pair<Integer, Integer>, long[]>();
+		final Map<String, long[]> otherRuleCounters = new HashMap<String, long[]>();
+		final Map<String, Long> otherExternalTimes;
+		final long[] otherPhaseTimes;
+		final int otherNumParses;
+		synchronized (other) {
+			for (final Entry<Pair<Integer, Integer>, long[]> entry : other.counters
+					.entrySet()) {
+				otherCounters.put(entry.getKey(), entry.getValue().clone());
+			}
+			for (final Entry<String, long[]> entry : other.ruleCounters
+					.entrySet()) {
+				otherRuleCounters.put(entry.getKey(), entry.getValue().clone());
+			}
+			otherExternalTimes = new HashMap<String, Long>(other.externalTimes);
+			otherPhaseTimes = other.phaseTimes.clone();
+			otherNumParses = other.numParses;
+		}
+		
+		synchronized (this) {
+			for (final Entry<Pair<Integer, Integer>, long[]> entry : otherCounters
+					.entrySet()) {
+				addAll(getSpanCounters(entry.getKey().first(), entry.getKey()
+						.second()), entry.getValue());
+			}
+			for (final Entry<String, long[]> entry : otherRuleCounters
+					.entrySet()) {
+				addAll(getRuleCounters(entry.getKey()), entry.getValue());
+			}
+			for (final Entry<String, Long> entry : otherExternalTimes
+					.entrySet()) {
+				addExternalTime(entry.getKey(), entry.getValue());
+			}
+			addAll(phaseTimes, otherPhaseTimes);
+			numParses += otherNumParses;
+		}
+	}
+	
+	/**
+	 * Adds the given count to a cell counter of a span.
+	 */
+	public synchronized void count(int start, int end, Counter counter,
+			long count) {
+		if (count != 0) {
+			getSpanCounters(start, end)[counter.ordinal()] += count;
+		}
+	}
+	
+	/**
+	 * Total count over all spans.
+	 */
+	public synchronized long getCount(Counter counter) {
+		long sum = 0;
+		for (final long[] spanCounts : counters.values()) {
+			sum += spanCounts[counter.ordinal()];
+		}
+		return sum;
+	}
+	
+	public synchronized long getCount(Counter counter, int start, int end) {
+		final long[] spanCounts = counters.get(Pair.of(start, end));
+		return spanCounts == null ? 0 : spanCounts[counter.ordinal()];
+	}
+	
+	/**
+	 * Total count over all spans of the given length (number of tokens).
+	 */
+	public synchronized long getCountBySpanLength(Counter counter, int length) {
+		long sum = 0;
+		for (final Entry<Pair<Integer, Integer>, long[]> entry : counters
+				.entrySet()) {
+			if (entry.getKey().second() - entry.getKey().first() + 1 == length) {
+				sum += entry.getValue()[counter.ordinal()];
+			}
+		}
+		return sum;
+	}
+	
+	/**
+	 * Time (nanoseconds) recorded for the {@link ThreadTimer} with the given
+	 * name.
+	 */
+	public synchronized long getExternalTime(String timerName) {
+		final Long time = externalTimes.get(timerName);
+		return time == null ? 0L : time;
+	}
+	
+	public synchronized List<String> getExternalTimerNames() {
+		return Collections.unmodifiableList(new ArrayList<String>(
+				externalTimes.keySet()));
+	}
+	
+	/**
+	 * Number of parses aggregated into this object.
+	 */
+	public synchronized int getNumParses() {
+		return numParses;
+	}
+	
+	public synchronized long getRuleCount(String ruleName, RuleCounter counter) {
+		final long[] ruleCounts = ruleCounters.get(ruleName);
+		return ruleCounts == null ? 0 : ruleCounts[counter.ordinal()];
+	}
+	
+	public synchronized List<String> getRuleNames() {
+		return Collections.unmodifiableList(new ArrayList<String>(ruleCounters
+				.keySet()));
+	}
+	
+	/**
+	 * Time (nanoseconds) spent in the given phase.
+	 */
+	public synchronized long getTime(Phase phase) {
+		return phaseTimes[phase.ordinal()];
+	}
+	
+	/**
+	 * Marks the end of a complete parse.
+	 */
+	public synchronized void parseCompleted() {
+		++numParses;
+	}
+	
+	/**
+	 * Starts recording the processing of a span in the given phase. The
+	 * recorder must only be used by the current thread.
+	 * 
+	 * @param ruleNames
+	 *            Names of the rules applied in this phase, rules are referred
+	 *            to by their index in this list. May be null if no rules are
+	 *            applied.
+	 */
+	public Recorder startRecording(int start, int end, Phase phase,
+			List<String> ruleNames) {
+		return new Recorder(start, end, phase, ruleNames);
+	}
+	
+	@Override
+	public synchronized String toString() {
+		final StringBuilder sb = new StringBuilder();
+		sb.append("Parses: ").append(numParses);
+		sb.append("\nCells:");
+		for (final Counter counter : Counter.values()) {
+			sb.append(' ').append(counter).append('=')
+					.append(getCount(counter));
+		}
+		sb.append("\nTime (ms):");
+		for (final Phase phase : Phase.values()) {
+			sb.append(' ').append(phase).append('=')
+					.append(phaseTimes[phase.ordinal()] / 1000000);
+		}
+		for (final Entry<String, Long> entry : externalTimes.entrySet()) {
+			sb.append(' ').append(entry.getKey()).append('=')
+					.append(entry.getValue() / 1000000);
+		}
+		sb.append("\nRules:");
+		for (final Entry<String, long[]> entry : ruleCounters.entrySet()) {
+			sb.append(' ').append(entry.getKey()).append('=')
+					.append(entry.getValue()[RuleCounter.SUCCESSES.ordinal()])
+					.append('/')
+					.append(entry.getValue()[RuleCounter.APPLICATIONS.ordinal()]);
+		}
+		return sb.toString();
+	}
+	
+	private static void addAll(long[] target, long[] source) {
+		for (int i = 0; i < source.length; ++i) {
+			target[i] += source[i];
+		}
+	}
+	
+	/**
+	 * Samples the current time and the thread time of all registered
+	 * {@link ThreadTimer}s. Timers are enabled for the current thread until
+	 * {@link #stopTiming(Phase, long[])} is called.
+	 */
+	private static long[] startTiming() {
+		ThreadTimer.enableThread();
+		final List<ThreadTimer> timers = ThreadTimer.getTimers();
+		final long[] sample = new long[timers.size() + 1];
+		int i = 1;
+		for (final ThreadTimer timer : timers) {
+			sample[i++] = timer.getThreadTime();
+		}
+		sample[0] = System.nanoTime();
+		return sample;
+	}
+	
+	private void addExternalTime(String name, long time) {
+		final Long current = externalTimes.get(name);
+		externalTimes.put(name, current == null ? time : current + time);
+	}
+	
+	private long[] getRuleCounters(String ruleName) {
+		long[] ruleCounts = ruleCounters.get(ruleName);
+		if (ruleCounts == null) {
+			ruleCounts = new long[RuleCounter.values().length];
+			ruleCounters.put(ruleName, ruleCounts);
+		}
+		return ruleCounts;
+	}
+	
+	private long[] getSpanCounters(int start, int end) {
+		final Pair<Integer, Integer> span = Pair.of(start, end);
+		long[] spanCounts = counters.get(span);
+		if (spanCounts == null) {
+			spanCounts = new long[Counter.values().length];
+			counters.put(span, spanCounts);
+		}
+		return spanCounts;
+	}
+	
+	/**
+	 * Records the time spent in the given phase since the sample was taken
+	 * (see {@link #startTiming()}), including the time spent in each
+	 * {@link ThreadTimer}. Must be called on the thread that took the sample.
+	 */
+	private void stopTiming(Phase phase, long[] sample) {
+		final long time = System.nanoTime() - sample[0];
+		final List<ThreadTimer> timers = ThreadTimer.getTimers();
+		phaseTimes[phase.ordinal()] += time;
+		// Timers registered after the sample was taken are ignored
+		for (int i = 1; i < sample.length; ++i) {
+			final ThreadTimer timer = timers.get(i - 1);
+			addExternalTime(timer.getName(), timer.getThreadTime() - sample[i]);
+		}
+		ThreadTimer.disableThread();
+	}
+	
+	/**
+	 * Cell counters.
+	 */
+	public static enum Counter {
+		/**
+		 * Cells pruned by the chart, since the span beam was full.
+		 */
+		BEAM_PRUNED,
+		/**
+		 * Lexical cells and rule applications skipped, since the coarse
+		 * syntax-only chart shows they can't participate in a complete parse
+		 * (see {@link CoarseSyntaxChart}).
+		 */
+		COARSE_PRUNED,
+		/**
+		 * Lexical cells and rule results, before any pruning.
+		 */
+		GENERATED,
+		/**
+		 * Lexical cells and rule results pruned by hard constraints (e.g., the
+		 * pruning filter).
+		 */
+		HARD_PRUNED,
+		/**
+		 * Cells merged into an existing cell with the same signature, either in
+		 * the chart or in a pre-chart queue.
+		 */
+		MERGED,
+		/**
+		 * Cells pruned by pre-chart pruning.
+		 */
+		PRE_CHART_PRUNED,
+		/**
+		 * Cells carried over from a previous chart of the same sentence,
+		 * instead of being generated again.
+		 */
+		REUSED;
+	}
+	
+	/**
+	 * Parsing phases. Binary and unary processing times include the time spent
+	 * applying rules and scoring the created cells. The coarse phase is the
+	 * construction of the syntax-only chart (see {@link CoarseSyntaxChart}).
+	 */
+	public static enum Phase {
+		BINARY, COARSE, LEXICAL, RULE_APPLICATION, SCORING, UNARY;
+	}
+	
+	/**
+	 * Records the processing of a single span in a single phase by one thread.
+	 * Counts are accumulated locally and added to the metrics when
+	 * {@link #stop()} is called.
+	 */
+	public class Recorder {
+		private final long[]		counts		= new long[Counter.values().length];
+		private final int			end;
+		private final Phase			phase;
+		private final long[][]		ruleCounts;
+		private final List<String>	ruleNames;
+		private long				ruleTime	= 0;
+		private final long[]		sample;
+		private long				scoringTime	= 0;
+		private final int			start;
+		
+		private Recorder(int start, int end, Phase phase,
+				List<String> ruleNames) {
+			this.start = start;
+			this.end = end;
+			this.phase = phase;
+			this.ruleNames = ruleNames;
+			this.ruleCounts = ruleNames == null ? null : new long[ruleNames
+					.size()][RuleCounter.values().length];
+			this.sample = startTiming();
+		}
+		
+		public void count(Counter counter) {
+			++counts[counter.ordinal()];
+		}
+		
+		public void count(Counter counter, long count) {
+			counts[counter.ordinal()] += count;
+		}
+		
+		/**
+		 * Records a single application of a rule.
+		 * 
+		 * @param ruleIndex
+		 *            Index of the rule in the list of rule names.
+		 * @param startTime
+		 *            Time (see {@link System#nanoTime()}) the application
+		 *            started.
+		 * @param numResults
+		 *            Number of results generated by the rule.
+		 */
+		public void ruleApplied(int ruleIndex, long startTime, int numResults) {
+			ruleTime += System.nanoTime() - startTime;
+			final long[] ruleCount = ruleCounts[ruleIndex];
+			++ruleCount[RuleCounter.APPLICATIONS.ordinal()];
+			if (numResults > 0) {
+				++ruleCount[RuleCounter.SUCCESSES.ordinal()];
+				ruleCount[RuleCounter.RESULTS.ordinal()] += numResults;
+			}
+		}
+		
+		/**
+		 * Records the creation and scoring of a cell (or a parse step).
+		 * 
+		 * @param startTime
+		 *            Time (see {@link System#nanoTime()}) the scoring started.
+		 */
+		public void scored(long startTime) {
+			scoringTime += System.nanoTime() - startTime;
+		}
+		
+		/**
+		 * Adds the recorded counts and times to the metrics.
+		 */
+		public void stop() {
+			synchronized (ParserMetrics.this) {
+				stopTiming(phase, sample);
+				phaseTimes[Phase.RULE_APPLICATION.ordinal()] += ruleTime;
+				phaseTimes[Phase.SCORING.ordinal()] += scoringTime;
+				addAll(getSpanCounters(start, end), counts);
+				if (ruleCounts != null) {
+					for (int i = 0; i < ruleCounts.length; ++i) {
+						addAll(getRuleCounters(ruleNames.get(i)), ruleCounts[i]);
+					}
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Rule counters: number of times the rule was applied, number of
+	 * applications that succeeded (generated at least one result) and total
+	 * number of results.
+	 */
+	public static enum RuleCounter {
+		APPLICATIONS, RESULTS, SUCCESSES;
+	}
+	
+}
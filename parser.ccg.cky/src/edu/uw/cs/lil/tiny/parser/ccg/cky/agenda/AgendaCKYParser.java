@@ -0,0 +1,633 @@
+/*******************************************************************************
+ * UW SPF - The University of Washington Semantic Parsing Framework
+ * <p>
+ * Copyright (C) 2013 Yoav Artzi
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ ******************************************************************************/
+package edu.uw.cs.lil.tiny.parser.ccg.cky.agenda;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import com.google.common.base.Function;
+
+import edu.uw.cs.lil.tiny.ccg.categories.Category;
+import edu.uw.cs.lil.tiny.ccg.categories.ICategoryServices;
+import edu.uw.cs.lil.tiny.ccg.categories.syntax.Syntax;
+import edu.uw.cs.lil.tiny.ccg.lexicon.ILexiconImmutable;
+import edu.uw.cs.lil.tiny.explat.DistributedExperiment;
+import edu.uw.cs.lil.tiny.explat.IResourceRepository;
+import edu.uw.cs.lil.tiny.explat.ParameterizedExperiment.Parameters;
+import edu.uw.cs.lil.tiny.explat.resources.IResourceObjectCreator;
+import edu.uw.cs.lil.tiny.explat.resources.usage.ResourceUsage;
+import edu.uw.cs.lil.tiny.parser.ISentenceLexiconGenerator;
+import edu.uw.cs.lil.tiny.parser.ccg.cky.AbstractCKYParser;
+import edu.uw.cs.lil.tiny.parser.ccg.cky.CKYBinaryParsingRule;
+import edu.uw.cs.lil.tiny.parser.ccg.cky.CKYLogging;
+import edu.uw.cs.lil.tiny.parser.ccg.cky.CKYUnaryParsingRule;
+import edu.uw.cs.lil.tiny.parser.ccg.cky.CoarseSyntaxChart;
+import edu.uw.cs.lil.tiny.parser.ccg.cky.ParserMetrics;
+import edu.uw.cs.lil.tiny.parser.ccg.cky.ParserMetrics.Counter;
+import edu.uw.cs.lil.tiny.parser.ccg.cky.ParserMetrics.Phase;
+import edu.uw.cs.lil.tiny.parser.ccg.cky.ParserMetrics.Recorder;
+import edu.uw.cs.lil.tiny.parser.ccg.cky.SimpleWordSkippingLexicalGenerator;
+import edu.uw.cs.lil.tiny.parser.ccg.cky.chart.AbstractCellFactory;
+import edu.uw.cs.lil.tiny.parser.ccg.cky.chart.Cell;
+import edu.uw.cs.lil.tiny.parser.ccg.cky.chart.Chart;
+import edu.uw.cs.lil.tiny.parser.ccg.cky.single.CKYParser;
+import edu.uw.cs.lil.tiny.parser.ccg.model.IDataItemModel;
+import edu.uw.cs.lil.tiny.parser.ccg.rules.BinaryRuleSet;
+import edu.uw.cs.lil.tiny.parser.ccg.rules.IBinaryParseRule;
+import edu.uw.cs.lil.tiny.parser.ccg.rules.IUnaryParseRule;
+import edu.uw.cs.utils.collections.CollectionUtils;
+import edu.uw.cs.utils.filter.IFilter;
+import edu.uw.cs.utils.log.ILogger;
+import edu.uw.cs.utils.log.LoggerFactory;
+
+/**
+ * Agenda-based best-first (A*) CKY parser. Instead of filling every span to
+ * the beam, cells are taken from an agenda ordered by their viterbi score plus
+ * an estimate of their outside score, and are combined with their neighbors
+ * already in the chart. Parsing stops once the best complete parse is taken
+ * from the agenda. The outside estimate of a span is the sum of the best
+ * scores of the tokens outside it, taken over lexical cells and unary cells
+ * created from them, where the score of a multi-token cell is divided evenly
+ * between its tokens. The first complete parse is the viterbi parse as long as
+ * no cell has a higher priority than the cell it was created from. Once such a
+ * cell is created (e.g., due to a rule feature with a positive weight), the
+ * search is abandoned and the sentence is parsed with exhaustive CKY, same as
+ * {@link CKYParser}. Otherwise, the output chart only contains
+ * the cells explored before the search stopped, so this parser is intended for
+ * inference when only the viterbi parse is required, not for computing
+ * expectations.
+ * 
+ * @author Yoav Artzi
+ * @param <MR>
+ *            type of semantics.
+ */
+public class AgendaCKYParser<MR> extends AbstractCKYParser<MR> {
+	public static final ILogger	LOG					= LoggerFactory
+															.create(AgendaCKYParser.class);
+	
+	/**
+	 * Tolerance for floating point errors when comparing the priority of a
+	 * cell to the priority of the item it was created from.
+	 */
+	private static final double	PRIORITY_TOLERANCE	= 1e-10;
+	
+	private AgendaCKYParser(int maxNumberOfCellsInSpan,
+			List<CKYBinaryParsingRule<MR>> binaryRules,
+			List<ISentenceLexiconGenerator<MR>> sentenceLexiconGenerators,
+			ISentenceLexiconGenerator<MR> wordSkippingLexicalGenerator,
+			ICategoryServices<MR> categoryServices, boolean pruneLexicalCells,
+			IFilter<Category<MR>> completeParseFilter,
+			List<CKYUnaryParsingRule<MR>> unaryRules,
+			Function<Category<MR>, Category<MR>> categoryTransformation,
+			boolean collectMetrics, Set<Syntax> coarseFullParseSyntaxes) {
+		super(maxNumberOfCellsInSpan, binaryRules, sentenceLexiconGenerators,
+				wordSkippingLexicalGenerator, categoryServices,
+				pruneLexicalCells, completeParseFilter, unaryRules,
+				categoryTransformation, false, collectMetrics,
+				coarseFullParseSyntaxes, false);
+	}
+	
+	@Override
+	protected Chart<MR> doParse(final IFilter<MR> pruningFilter,
+			IDataItemModel<MR> model, Chart<MR> chart, int numTokens,
+			AbstractCellFactory<MR> cellFactory,
+			List<ILexiconImmutable<MR>> lexicons) {
+		
+		final int sentenceLength = chart.getSentenceLength();
+		
+		// The search records into its own metrics, which are only kept if the
+		// search is not abandoned
+		final ParserMetrics searchMetrics = chart.getMetrics() == null ? null
+				: new ParserMetrics();
+		final Chart<MR> searchChart = new Chart<MR>(chart.getTokens(),
+				chart.getBeamSize(), cellFactory, !pruneLexicalCells,
+				searchMetrics, chart.getCoarseChart());
+		
+		// Generate all lexical cells and apply unary rules to them. The best
+		// score of each token is taken over both.
+		final List<Cell<MR>> lexicalCells = new LinkedList<Cell<MR>>();
+		final double[] bestTokenScores = new double[numTokens];
+		Arrays.fill(bestTokenScores, Double.NEGATIVE_INFINITY);
+		final int[][] phraseLengths = getLongestPhraseLengths(
+				chart.getTokens(), lexicons);
+		for (int start = 0; start < numTokens; start++) {
+			final int maxEnd = Math.min(numTokens, start
+					+ getLongestPhraseLength(phraseLengths, start));
+			for (int end = start; end < maxEnd; end++) {
+				final List<Cell<MR>> newCells = generateLexicalCells(start,
+						end, searchChart, lexicons, phraseLengths, model);
+				
+				if (pruneLexicalCells) {
+					// Hard pruning
+					final int numGenerated = newCells.size();
+					if (CollectionUtils.filterInPlace(newCells,
+							new IFilter<Cell<MR>>() {
+								@Override
+								public boolean isValid(Cell<MR> e) {
+									return !prune(pruningFilter,
+											e.getCategory(), e.getStart(),
+											e.getEnd(), sentenceLength, true);
+								}
+							})) {
+						searchChart.externalPruning(start, end);
+					}
+					if (searchMetrics != null) {
+						searchMetrics.count(start, end, Counter.HARD_PRUNED,
+								numGenerated - newCells.size());
+					}
+				}
+				
+				final Recorder recorder = startRecording(searchChart, start,
+						end, Phase.UNARY);
+				final List<Cell<MR>> unaryCells = new LinkedList<Cell<MR>>();
+				for (final Cell<MR> cell : newCells) {
+					unaryCells.addAll(applyUnaryRules(cell, searchChart,
+							cellFactory, pruningFilter, model, recorder));
+				}
+				if (recorder != null) {
+					recorder.stop();
+				}
+				newCells.addAll(unaryCells);
+				
+				for (final Cell<MR> cell : newCells) {
+					final double tokenScore = cell.getViterbiScore()
+							/ (end - start + 1);
+					for (int i = start; i <= end; ++i) {
+						if (tokenScore > bestTokenScores[i]) {
+							bestTokenScores[i] = tokenScore;
+						}
+					}
+				}
+				lexicalCells.addAll(newCells);
+			}
+		}
+		
+		// Prefix sums of the best token scores, for the outside estimates
+		final double[] prefixScores = new double[numTokens + 1];
+		for (int i = 0; i < numTokens; ++i) {
+			if (bestTokenScores[i] == Double.NEGATIVE_INFINITY) {
+				// Case a token is not covered by any lexical cell, so no
+				// complete parse is possible
+				if (CKYLogging.DEBUG) {
+					LOG.debug("No lexical cells for token %d, skipping search",
+							i);
+				}
+				for (final Cell<MR> cell : lexicalCells) {
+					searchChart.add(cell);
+				}
+				return completeSearch(chart, searchChart);
+			}
+			prefixScores[i + 1] = prefixScores[i] + bestTokenScores[i];
+		}
+		
+		// Lexical cells and the unary cells over them are all bounded by the
+		// token scores. Unary rules were already applied to lexical cells.
+		final PriorityQueue<AgendaItem<MR>> agenda = new PriorityQueue<AgendaItem<MR>>();
+		for (final Cell<MR> cell : lexicalCells) {
+			agenda.add(new AgendaItem<MR>(cell, outsideEstimate(prefixScores,
+					cell.getStart(), cell.getEnd()), true));
+		}
+		
+		// Best-first search. Once a complete parse is found, keep taking items
+		// that may tie with it.
+		double bestCompleteScore = Double.NEGATIVE_INFINITY;
+		int numPopped = 0;
+		while (!agenda.isEmpty()) {
+			final AgendaItem<MR> item = agenda.poll();
+			if (item.priority < bestCompleteScore) {
+				break;
+			}
+			++numPopped;
+			
+			final Cell<MR> cell = item.cell;
+			final boolean isNew = searchChart.getCell(cell) == null;
+			searchChart.add(cell);
+			if (!isNew || searchChart.getCell(cell) != cell) {
+				// Case the cell was merged into an existing one, which was
+				// already expanded, or rejected by the span's beam
+				continue;
+			}
+			
+			if (CKYLogging.DEBUG) {
+				LOG.debug("Popped cell (priority=%f): %s", item.priority, cell);
+			}
+			
+			if (cell.isFullParse()) {
+				if (bestCompleteScore == Double.NEGATIVE_INFINITY) {
+					bestCompleteScore = cell.getViterbiScore();
+				}
+				continue;
+			}
+			
+			final int start = cell.getStart();
+			final int end = cell.getEnd();
+			
+			// Unary rules are applied once to cells created by binary steps,
+			// same as in CKY parsing
+			if (!item.unaryApplied) {
+				final Recorder recorder = startRecording(searchChart, start,
+						end, Phase.UNARY);
+				final List<Cell<MR>> newCells = applyUnaryRules(cell,
+						searchChart, cellFactory, pruningFilter, model,
+						recorder);
+				if (recorder != null) {
+					recorder.stop();
+				}
+				if (!addToAgenda(agenda, newCells, outsideEstimate(
+						prefixScores, start, end), item, true)) {
+					return doExhaustiveParse(pruningFilter, model, chart,
+							numTokens, cellFactory, lexicons);
+				}
+			}
+			
+			// Combine with the cells already in the chart to the left
+			for (int leftStart = 0; leftStart < start; ++leftStart) {
+				final Recorder recorder = startRecording(searchChart,
+						leftStart, end, Phase.BINARY);
+				final List<Cell<MR>> newCells = new LinkedList<Cell<MR>>();
+				for (final Cell<MR> left : getSpanCells(searchChart, leftStart,
+						start - 1)) {
+					newCells.addAll(applyBinaryRules(left, cell, searchChart,
+							cellFactory, pruningFilter, model, recorder));
+				}
+				if (recorder != null) {
+					recorder.stop();
+				}
+				if (!addToAgenda(agenda, newCells, outsideEstimate(
+						prefixScores, leftStart, end), item, false)) {
+					return doExhaustiveParse(pruningFilter, model, chart,
+							numTokens, cellFactory, lexicons);
+				}
+			}
+			
+			// Combine with the cells already in the chart to the right
+			for (int rightEnd = end + 1; rightEnd < numTokens; ++rightEnd) {
+				final Recorder recorder = startRecording(searchChart, start,
+						rightEnd, Phase.BINARY);
+				final List<Cell<MR>> newCells = new LinkedList<Cell<MR>>();
+				for (final Cell<MR> right : getSpanCells(searchChart, end + 1,
+						rightEnd)) {
+					newCells.addAll(applyBinaryRules(cell, right, searchChart,
+							cellFactory, pruningFilter, model, recorder));
+				}
+				if (recorder != null) {
+					recorder.stop();
+				}
+				if (!addToAgenda(agenda, newCells, outsideEstimate(
+						prefixScores, start, rightEnd), item, false)) {
+					return doExhaustiveParse(pruningFilter, model, chart,
+							numTokens, cellFactory, lexicons);
+				}
+			}
+		}
+		
+		if (CKYLogging.DEBUG) {
+			LOG.debug(
+					"Agenda search done: popped %d items, %d items left, best complete score %f",
+					numPopped, agenda.size(), bestCompleteScore);
+		}
+		
+		return completeSearch(chart, searchChart);
+	}
+	
+	/**
+	 * Adds new cells to the agenda. The estimate is consistent, and the search
+	 * returns the viterbi parse, only if no cell has a higher priority than
+	 * the item it was created from.
+	 * 
+	 * @return 'false' if a new cell violates the estimate, so the search must
+	 *         be abandoned. No cells are added in this case.
+	 */
+	private static <MR> boolean addToAgenda(
+			PriorityQueue<AgendaItem<MR>> agenda, List<Cell<MR>> newCells,
+			double outsideEstimate, AgendaItem<MR> parent, boolean unaryApplied) {
+		final List<AgendaItem<MR>> items = new ArrayList<AgendaItem<MR>>(
+				newCells.size());
+		for (final Cell<MR> newCell : newCells) {
+			final AgendaItem<MR> newItem = new AgendaItem<MR>(newCell,
+					outsideEstimate, unaryApplied);
+			if (newItem.priority > parent.priority + PRIORITY_TOLERANCE) {
+				LOG.debug(
+						"Cell priority above its parent's (%f > %f), falling back to exhaustive CKY parsing: %s",
+						newItem.priority, parent.priority, newCell);
+				return false;
+			}
+			items.add(newItem);
+		}
+		agenda.addAll(items);
+		return true;
+	}
+	
+	/**
+	 * Keeps the metrics of a completed search, and returns its chart.
+	 */
+	private static <MR> Chart<MR> completeSearch(Chart<MR> chart,
+			Chart<MR> searchChart) {
+		if (chart.getMetrics() != null) {
+			chart.getMetrics().add(searchChart.getMetrics());
+		}
+		return searchChart;
+	}
+	
+	/**
+	 * Outside estimate of the given span: the sum of the best token scores of
+	 * all the tokens outside of it.
+	 */
+	private static double outsideEstimate(double[] prefixScores, int start,
+			int end) {
+		return prefixScores[start] + prefixScores[prefixScores.length - 1]
+				- prefixScores[end + 1];
+	}
+	
+	/**
+	 * Builder for {@link AgendaCKYParser}.
+	 * 
+	 * @author Yoav Artzi
+	 */
+	public static class Builder<MR> {
+		
+		private final List<CKYBinaryParsingRule<MR>>		binaryRules					= new ArrayList<CKYBinaryParsingRule<MR>>();
+		
+		private final ICategoryServices<MR>					categoryServices;
+		
+		private Function<Category<MR>, Category<MR>>		categoryTransformation		= new Function<Category<MR>, Category<MR>>() {
+																							
+																							@Override
+																							public Category<MR> apply(
+																									Category<MR> input) {
+																								return input;
+																							}
+																						};
+		
+		/**
+		 * Syntax of complete parses for coarse-to-fine pruning, null to
+		 * disable.
+		 */
+		private Set<Syntax>									coarseFullParseSyntaxes		= null;
+		
+		private boolean										collectMetrics				= false;
+		
+		private final IFilter<Category<MR>>					completeParseFilter;
+		
+		/**
+		 * The maximum number of cells allowed in each span. The search rarely
+		 * fills a span, so this is mostly a memory safeguard.
+		 */
+		private int											maxNumberOfCellsInSpan		= 50;
+		
+		private boolean										pruneLexicalCells			= false;
+		
+		private final List<ISentenceLexiconGenerator<MR>>	sentenceLexicalGenerators	= new LinkedList<ISentenceLexiconGenerator<MR>>();
+		
+		private final List<CKYUnaryParsingRule<MR>>			unaryRules					= new ArrayList<CKYUnaryParsingRule<MR>>();
+		
+		private ISentenceLexiconGenerator<MR>				wordSkippingLexicalGenerator;
+		
+		public Builder(ICategoryServices<MR> categoryServices,
+				IFilter<Category<MR>> completeParseFilter) {
+			this.categoryServices = categoryServices;
+			this.completeParseFilter = completeParseFilter;
+			this.wordSkippingLexicalGenerator = new SimpleWordSkippingLexicalGenerator<MR>(
+					categoryServices);
+		}
+		
+		public Builder<MR> addParseRule(CKYBinaryParsingRule<MR> rule) {
+			binaryRules.add(rule);
+			return this;
+		}
+		
+		public Builder<MR> addParseRule(CKYUnaryParsingRule<MR> rule) {
+			unaryRules.add(rule);
+			return this;
+		}
+		
+		public Builder<MR> addSentenceLexicalGenerator(
+				ISentenceLexiconGenerator<MR> generator) {
+			sentenceLexicalGenerators.add(generator);
+			return this;
+		}
+		
+		public AgendaCKYParser<MR> build() {
+			return new AgendaCKYParser<MR>(maxNumberOfCellsInSpan, binaryRules,
+					sentenceLexicalGenerators, wordSkippingLexicalGenerator,
+					categoryServices, pruneLexicalCells, completeParseFilter,
+					unaryRules, categoryTransformation, collectMetrics,
+					coarseFullParseSyntaxes);
+		}
+		
+		public Builder<MR> setCategoryTransformation(
+				Function<Category<MR>, Category<MR>> categoryTransformation) {
+			this.categoryTransformation = categoryTransformation;
+			return this;
+		}
+		
+		/**
+		 * Enables coarse-to-fine pruning with a syntax-only chart (see
+		 * {@link CoarseSyntaxChart}). Requires all rules to support
+		 * syntax-only application, otherwise disabled.
+		 * 
+		 * @param coarseFullParseSyntaxes
+		 *            Syntax of complete parses, null to disable.
+		 */
+		public Builder<MR> setCoarseFullParseSyntaxes(
+				Set<Syntax> coarseFullParseSyntaxes) {
+			this.coarseFullParseSyntaxes = coarseFullParseSyntaxes;
+			return this;
+		}
+		
+		public Builder<MR> setCollectMetrics(boolean collectMetrics) {
+			this.collectMetrics = collectMetrics;
+			return this;
+		}
+		
+		public Builder<MR> setMaxNumberOfCellsInSpan(int maxNumberOfCellsInSpan) {
+			this.maxNumberOfCellsInSpan = maxNumberOfCellsInSpan;
+			return this;
+		}
+		
+		public Builder<MR> setPruneLexicalCells(boolean pruneLexicalCells) {
+			this.pruneLexicalCells = pruneLexicalCells;
+			return this;
+		}
+		
+		public Builder<MR> setWordSkippingLexicalGenerator(
+				ISentenceLexiconGenerator<MR> wordSkippingLexicalGenerator) {
+			this.wordSkippingLexicalGenerator = wordSkippingLexicalGenerator;
+			return this;
+		}
+	}
+	
+	public static class Creator<MR> implements
+			IResourceObjectCreator<AgendaCKYParser<MR>> {
+		
+		private String	type;
+		
+		public Creator() {
+			this("parser.cky.agenda");
+		}
+		
+		public Creator(String type) {
+			this.type = type;
+		}
+		
+		@SuppressWarnings("unchecked")
+		@Override
+		public AgendaCKYParser<MR> create(Parameters params,
+				IResourceRepository repo) {
+			final Builder<MR> builder = new Builder<MR>(
+					(ICategoryServices<MR>) repo
+							.getResource(DistributedExperiment.CATEGORY_SERVICES_RESOURCE),
+					(IFilter<Category<MR>>) repo.getResource(params
+							.get("parseFilter")));
+			
+			if (params.contains("beam")) {
+				builder.setMaxNumberOfCellsInSpan(params.getAsInteger("beam"));
+			}
+			
+			if (params.contains("coarseSyntax")) {
+				final Set<Syntax> syntaxes = new HashSet<Syntax>();
+				for (final String syntax : params.getSplit("coarseSyntax")) {
+					syntaxes.add(Syntax.valueOf(syntax));
+				}
+				builder.setCoarseFullParseSyntaxes(syntaxes);
+			}
+			
+			if (params.contains("metrics")) {
+				builder.setCollectMetrics(params.getAsBoolean("metrics"));
+			}
+			
+			if (params.contains("pruneLexicalCells")) {
+				builder.setPruneLexicalCells(params
+						.getAsBoolean("pruneLexicalCells"));
+			}
+			
+			if (params.contains("wordSkippingLexGen")) {
+				builder.setWordSkippingLexicalGenerator((ISentenceLexiconGenerator<MR>) repo
+						.getResource(params.get("wordSkippingLexGen")));
+			}
+			
+			for (final String id : params.getSplit("generators")) {
+				builder.addSentenceLexicalGenerator((ISentenceLexiconGenerator<MR>) repo
+						.getResource(id));
+			}
+			
+			if (params.contains("transformation")) {
+				builder.setCategoryTransformation((Function<Category<MR>, Category<MR>>) repo
+						.getResource(params.get("transformation")));
+			}
+			
+			for (final String id : params.getSplit("rules")) {
+				final Object rule = repo.getResource(id);
+				if (rule instanceof BinaryRuleSet) {
+					for (final IBinaryParseRule<MR> singleRule : (BinaryRuleSet<MR>) rule) {
+						addRule(builder, singleRule);
+					}
+				} else {
+					addRule(builder, rule);
+				}
+			}
+			
+			return builder.build();
+		}
+		
+		@Override
+		public String type() {
+			return type;
+		}
+		
+		@Override
+		public ResourceUsage usage() {
+			return ResourceUsage
+					.builder(type, AgendaCKYParser.class)
+					.addParam("parseFilter", IFilter.class,
+							"Filter to determine complete parses.")
+					.addParam("beam", Integer.class,
+							"Maximum number of cells in each span (default: 50).")
+					.addParam("coarseSyntax", Syntax.class,
+							"Syntax of complete parses for coarse-to-fine pruning with a syntax-only chart (default: none, no coarse pass)")
+					.addParam("metrics", Boolean.class,
+							"Collect per-span, per-rule and per-phase parsing metrics (default: false)")
+					.addParam("pruneLexicalCells", Boolean.class,
+							"Prune lexical entries similarly to conventional categories (default: false)")
+					.addParam("wordSkippingLexGen",
+							ISentenceLexiconGenerator.class,
+							"Lexical generator for word skipping (defaults to simple skipping).")
+					.addParam("generators", ISentenceLexiconGenerator.class,
+							"List of dynamic sentence lexical generators.")
+					.addParam(
+							"transformation",
+							Function.class,
+							"Transformation to be applied to each category before it's added to the chart (default: none).")
+					.addParam("rules", IBinaryParseRule.class,
+							"Binary parsing rules.").build();
+		}
+		
+		@SuppressWarnings("unchecked")
+		private void addRule(Builder<MR> builder, Object rule) {
+			if (rule instanceof IBinaryParseRule) {
+				builder.addParseRule(new CKYBinaryParsingRule<MR>(
+						(IBinaryParseRule<MR>) rule));
+			} else if (rule instanceof IUnaryParseRule) {
+				builder.addParseRule(new CKYUnaryParsingRule<MR>(
+						(IUnaryParseRule<MR>) rule));
+			} else if (rule instanceof CKYBinaryParsingRule) {
+				builder.addParseRule((CKYBinaryParsingRule<MR>) rule);
+			} else if (rule instanceof CKYUnaryParsingRule) {
+				builder.addParseRule((CKYUnaryParsingRule<MR>) rule);
+			} else {
+				throw new IllegalArgumentException("Invalid rule class: "
+						+ rule);
+			}
+		}
+		
+	}
+	
+	/**
+	 * Agenda item. Items are ordered by decreasing priority, which is the
+	 * viterbi score of the cell plus the outside estimate of its span.
+	 */
+	private static class AgendaItem<MR> implements
+			Comparable<AgendaItem<MR>> {
+		private final Cell<MR>	cell;
+		private final double	priority;
+		
+		/**
+		 * Unary rules were already applied to the cell, or it was created by
+		 * one, so they are not applied to it again.
+		 */
+		private final boolean	unaryApplied;
+		
+		public AgendaItem(Cell<MR> cell, double outsideEstimate,
+				boolean unaryApplied) {
+			this.cell = cell;
+			this.priority = cell.getViterbiScore() + outsideEstimate;
+			this.unaryApplied = unaryApplied;
+		}
+		
+		@Override
+		public int compareTo(AgendaItem<MR> o) {
+			return Double.compare(o.priority, priority);
+		}
+	}
+}
@@ -106,6 +106,31 @@ public abstract class AbstractCKYParseStep<MR> implements Iterable<Cell<MR>>,
 		this.localScore = model.score(this);
 	}
 	
+	/**
+	 * Copy a step with new children. The local features and score are not
+	 * re-computed.
+	 */
+	protected AbstractCKYParseStep(AbstractCKYParseStep<MR> step,
+			List<Cell<MR>> children) {
+		this.root = step.root;
+		this.lexicalEntry = step.lexicalEntry;
+		this.isFullParse = step.isFullParse;
+		this.isUnary = step.isUnary;
+		this.ruleName = step.ruleName;
+		this.children = Collections.unmodifiableList(new ArrayList<Cell<MR>>(
+				children));
+		this.localFeatures = step.localFeatures;
+		this.localScore = step.localScore;
+	}
+	
+	/**
+	 * Create a copy of this step with the given children (in the same order),
+	 * re-using the local features and score. Used to carry over steps from one
+	 * chart to another.
+	 */
+	public abstract AbstractCKYParseStep<MR> cloneWithChildren(
+			List<Cell<MR>> newChildren);
+	
 	/**
 	 * Create a new step by replacing the root with the category of the result
 	 * and appending the result rule name to the step rule name.
@@ -18,6 +18,8 @@
  ******************************************************************************/
 package edu.uw.cs.lil.tiny.parser.ccg.cky.chart;
 
+import java.util.List;
+
 import edu.uw.cs.lil.tiny.ccg.categories.Category;
 import edu.uw.cs.lil.tiny.ccg.lexicon.LexicalEntry;
 import edu.uw.cs.lil.tiny.parser.ccg.ILexicalParseStep;
@@ -46,6 +48,16 @@ public class CKYLexicalStep<MR> extends AbstractCKYParseStep<MR> implements
 		super(root, lexicalEntry, ruleName, isFullParse, model);
 	}
 	
+	private CKYLexicalStep(CKYLexicalStep<MR> step, List<Cell<MR>> children) {
+		super(step, children);
+	}
+	
+	@Override
+	public AbstractCKYParseStep<MR> cloneWithChildren(
+			List<Cell<MR>> newChildren) {
+		return new CKYLexicalStep<MR>(this, newChildren);
+	}
+	
 	@Override
 	public AbstractCKYParseStep<MR> cloneWithUnary(
 			ParseRuleResult<MR> unaryRuleResult, IDataItemModel<MR> model,
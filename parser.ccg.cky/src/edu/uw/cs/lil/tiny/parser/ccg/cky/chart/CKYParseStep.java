@@ -18,6 +18,8 @@
  ******************************************************************************/
 package edu.uw.cs.lil.tiny.parser.ccg.cky.chart;
 
+import java.util.List;
+
 import edu.uw.cs.lil.tiny.ccg.categories.Category;
 import edu.uw.cs.lil.tiny.parser.ccg.model.IDataItemModel;
 import edu.uw.cs.lil.tiny.parser.ccg.rules.ParseRuleResult;
@@ -43,6 +45,15 @@ public class CKYParseStep<MR> extends AbstractCKYParseStep<MR> {
 		super(root, leftChild, rightChild, isFullParse, ruleName, model);
 	}
 	
+	private CKYParseStep(CKYParseStep<MR> step, List<Cell<MR>> children) {
+		super(step, children);
+	}
+	
+	@Override
+	public CKYParseStep<MR> cloneWithChildren(List<Cell<MR>> newChildren) {
+		return new CKYParseStep<MR>(this, newChildren);
+	}
+	
 	@Override
 	public CKYParseStep<MR> cloneWithUnary(ParseRuleResult<MR> unaryRuleResult,
 			IDataItemModel<MR> model, boolean fullParseAfterUnary) {
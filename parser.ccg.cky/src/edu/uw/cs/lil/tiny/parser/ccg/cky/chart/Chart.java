@@ -19,6 +19,7 @@
 package edu.uw.cs.lil.tiny.parser.ccg.cky.chart;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -27,10 +28,16 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import edu.uw.cs.lil.tiny.base.hashvector.HashVectorFactory;
 import edu.uw.cs.lil.tiny.base.hashvector.IHashVector;
 import edu.uw.cs.lil.tiny.parser.ccg.cky.CKYDerivation;
+import edu.uw.cs.lil.tiny.parser.ccg.cky.CKYLogging;
+import edu.uw.cs.lil.tiny.parser.ccg.cky.CoarseSyntaxChart;
+import edu.uw.cs.lil.tiny.parser.ccg.cky.ParserMetrics;
 import edu.uw.cs.utils.collections.CollectionUtils;
 import edu.uw.cs.utils.collections.CompositeIterator;
 import edu.uw.cs.utils.collections.IScorer;
@@ -63,6 +70,18 @@ public class Chart<MR> implements Iterable<Cell<MR>> {
 	/** An array of spans for every starting and end indices. */
 	private final AbstractSpan<MR>[][]		chart;
 	
+	/**
+	 * Syntax-only chart used for coarse-to-fine pruning, null if the parse is
+	 * not pruned this way.
+	 */
+	private final CoarseSyntaxChart<MR>		coarseChart;
+	
+	/**
+	 * Metrics of the parse that creates this chart, null if metrics are not
+	 * collected.
+	 */
+	private final ParserMetrics				metrics;
+	
 	/** Number of words in input sentence. */
 	private final int						sentenceLength;
 	
@@ -71,10 +90,26 @@ public class Chart<MR> implements Iterable<Cell<MR>> {
 	 */
 	private final List<String>				tokens;
 	
-	@SuppressWarnings("unchecked")
 	public Chart(List<String> tokens, int maxNumberOfCellPerSpan,
 			AbstractCellFactory<MR> cellFactory, boolean separateLexicalQueue) {
+		this(tokens, maxNumberOfCellPerSpan, cellFactory, separateLexicalQueue,
+				null);
+	}
+	
+	public Chart(List<String> tokens, int maxNumberOfCellPerSpan,
+			AbstractCellFactory<MR> cellFactory, boolean separateLexicalQueue,
+			ParserMetrics metrics) {
+		this(tokens, maxNumberOfCellPerSpan, cellFactory, separateLexicalQueue,
+				metrics, null);
+	}
+	
+	@SuppressWarnings("unchecked")
+	public Chart(List<String> tokens, int maxNumberOfCellPerSpan,
+			AbstractCellFactory<MR> cellFactory, boolean separateLexicalQueue,
+			ParserMetrics metrics, CoarseSyntaxChart<MR> coarseChart) {
 		this.beamSize = maxNumberOfCellPerSpan;
+		this.coarseChart = coarseChart;
+		this.metrics = metrics;
 		this.tokens = Collections.unmodifiableList(tokens);
 		this.cellFactory = cellFactory;
 		this.sentenceLength = tokens.size();
@@ -102,12 +137,18 @@ public class Chart<MR> implements Iterable<Cell<MR>> {
 			addNew(cell);
 		} else {
 			// Case adding the content of this cell to an existing cell.
-			LOG.debug("Adding to existing cell: %s --> %s", cell, existingCell);
+			if (CKYLogging.DEBUG) {
+				LOG.debug("Adding to existing cell: %s --> %s", cell,
+						existingCell);
+			}
+			++span.merged;
 			// Adding to existing is done through a special model. In some cases
 			// it requires special operations on the queue, due to the potential
 			// of changing the score of the original cell.
 			span.addToExisting(existingCell, cell);
-			LOG.debug("Added to cell: %s", existingCell);
+			if (CKYLogging.DEBUG) {
+				LOG.debug("Added to cell: %s", existingCell);
+			}
 		}
 	}
 	
@@ -119,6 +160,14 @@ public class Chart<MR> implements Iterable<Cell<MR>> {
 		chart[start][end].externallyPruned = true;
 	}
 	
+	/**
+	 * Number of cells that were pruned from the given span (or rejected by it)
+	 * since it was full.
+	 */
+	public int getBeamPrunedCount(int start, int end) {
+		return chart[start][end].beamPruned;
+	}
+	
 	public int getBeamSize() {
 		return beamSize;
 	}
@@ -131,6 +180,28 @@ public class Chart<MR> implements Iterable<Cell<MR>> {
 		return cellFactory;
 	}
 	
+	/**
+	 * Syntax-only chart used for coarse-to-fine pruning, null if the parse is
+	 * not pruned this way.
+	 */
+	public CoarseSyntaxChart<MR> getCoarseChart() {
+		return coarseChart;
+	}
+	
+	/**
+	 * Number of cells that were merged into existing cells of the given span.
+	 */
+	public int getMergedCount(int start, int end) {
+		return chart[start][end].merged;
+	}
+	
+	/**
+	 * Metrics of the current parse, null if metrics are not collected.
+	 */
+	public ParserMetrics getMetrics() {
+		return metrics;
+	}
+	
 	public List<CKYDerivation<MR>> getParseResults() {
 		// Need a bounded queue here to make sure we don't return more than the
 		// beam, because lexical cells might exist outside of the beam.
@@ -195,6 +266,15 @@ public class Chart<MR> implements Iterable<Cell<MR>> {
 		return tokens;
 	}
 	
+	/**
+	 * Checks if the given span was carried over from another chart (see
+	 * {@link #reuseSpan(Chart, int, int, Map)}), in which case it must not be
+	 * processed again.
+	 */
+	public boolean isReused(int start, int end) {
+		return chart[start][end].reused;
+	}
+	
 	@Override
 	public Iterator<Cell<MR>> iterator() {
 		return iterator(null);
@@ -257,6 +337,51 @@ public class Chart<MR> implements Iterable<Cell<MR>> {
 		return LogSumExp.of(logInsideScores);
 	}
 	
+	/**
+	 * Add all cells staged for the given span (see
+	 * {@link #stage(int, int, Collection)}) to the chart. Cells with the same
+	 * signature were already merged when staged, so each staged cell is added
+	 * once. Must not be called concurrently with staging or other
+	 * modifications of the span.
+	 * 
+	 * @return Number of cells added.
+	 */
+	public int mergeStaged(int start, int end) {
+		final AbstractSpan<MR> span = chart[start][end];
+		int counter = 0;
+		for (final Cell<MR> cell : span.staged.values()) {
+			add(cell);
+			++counter;
+		}
+		span.staged.clear();
+		span.merged += span.stagedMerged.getAndSet(0);
+		return counter;
+	}
+	
+	/**
+	 * Carry over all cells of a span from another chart of the same sentence,
+	 * instead of processing it again. Cells and their derivation steps are
+	 * copied, so the two charts share no state. The children of copied steps
+	 * are mapped to their copies using the given map, which is updated with
+	 * each new copy. Therefore, all spans within the given span should be
+	 * carried over before it.
+	 * 
+	 * @return Number of cells copied into the span.
+	 */
+	public int reuseSpan(Chart<MR> other, int start, int end,
+			Map<Cell<MR>, Cell<MR>> copies) {
+		final AbstractSpan<MR> span = chart[start][end];
+		int counter = 0;
+		for (final Cell<MR> cell : other.chart[start][end]) {
+			add(copyCell(cell, copies));
+			++counter;
+		}
+		// Pruning of the original span applies to the copy as well
+		span.externallyPruned = other.chart[start][end].isPruned();
+		span.reused = true;
+		return counter;
+	}
+	
 	/**
 	 * Flag all cells that participate in the parses with the highest score that
 	 * lead to given semantics.
@@ -293,6 +418,29 @@ public class Chart<MR> implements Iterable<Cell<MR>> {
 		return chart[begin][end].size();
 	}
 	
+	/**
+	 * Stage cells to be added to the given span. Unlike {@link #add(Cell)},
+	 * staging is safe to call concurrently, including for the same span, and
+	 * doesn't lock the span. A staged cell with the same signature as one
+	 * already staged is merged into it by the staging thread, locking only the
+	 * existing cell. Staged cells are not visible in the chart until added
+	 * using {@link #mergeStaged(int, int)}. Since the span queues are order
+	 * invariant, the span contains the same cells regardless of the order
+	 * they were staged in.
+	 */
+	public void stage(int start, int end, Collection<Cell<MR>> cells) {
+		final AbstractSpan<MR> span = chart[start][end];
+		for (final Cell<MR> cell : cells) {
+			final Cell<MR> existingCell = span.staged.putIfAbsent(cell, cell);
+			if (existingCell != null) {
+				synchronized (existingCell) {
+					existingCell.addCell(cell);
+				}
+				span.stagedMerged.incrementAndGet();
+			}
+		}
+	}
+	
 	@Override
 	public String toString() {
 		return toString(true);
@@ -336,16 +484,50 @@ public class Chart<MR> implements Iterable<Cell<MR>> {
 		final int end = cell.getEnd();
 		final AbstractSpan<MR> span = chart[begin][end];
 		
-		LOG.debug("Offering a new cell: %s", cell);
-		LOG.debug("Pre-offer size of span: %d", span.size());
-		LOG.debug("Pre-offer span minimum score: %s", span.minNonLexicalScore());
-		if (span.offer(cell)) {
-			LOG.debug("Cell added");
-		} else {
-			LOG.debug("Cell rejected");
+		if (CKYLogging.DEBUG) {
+			LOG.debug("Offering a new cell: %s", cell);
+			LOG.debug("Pre-offer size of span: %d", span.size());
+			LOG.debug("Pre-offer span minimum score: %s",
+					span.minNonLexicalScore());
+		}
+		final int preOfferSize = span.size();
+		final boolean added = span.offer(cell);
+		// The offer may either reject the cell or prune another one
+		span.beamPruned += preOfferSize + 1 - span.size();
+		if (CKYLogging.DEBUG) {
+			LOG.debug(added ? "Cell added" : "Cell rejected");
+			LOG.debug("Size of span: %d", span.size());
+			LOG.debug("Span minimum score: %s", span.minNonLexicalScore());
+		}
+	}
+	
+	/**
+	 * Copy a cell of another chart, including all of its steps. Children that
+	 * were not copied yet are copied recursively.
+	 */
+	private Cell<MR> copyCell(Cell<MR> cell, Map<Cell<MR>, Cell<MR>> copies) {
+		final Cell<MR> existingCopy = copies.get(cell);
+		if (existingCopy != null) {
+			return existingCopy;
+		}
+		Cell<MR> copy = null;
+		for (final AbstractCKYParseStep<MR> step : cell.getSteps()) {
+			final List<Cell<MR>> children = new ArrayList<Cell<MR>>(
+					step.numChildren());
+			for (final Cell<MR> child : step) {
+				children.add(copyCell(child, copies));
+			}
+			final Cell<MR> stepCell = cellFactory.create(
+					step.cloneWithChildren(children), cell.getStart(),
+					cell.getEnd());
+			if (copy == null) {
+				copy = stepCell;
+			} else {
+				copy.addCell(stepCell);
+			}
 		}
-		LOG.debug("Size of span: %d", span.size());
-		LOG.debug("Span minimum score: %s", span.minNonLexicalScore());
+		copies.put(cell, copy);
+		return copy;
 	}
 	
 	/**
@@ -468,11 +650,41 @@ public class Chart<MR> implements Iterable<Cell<MR>> {
 	 */
 	private static abstract class AbstractSpan<MR> implements
 			Iterable<Cell<MR>> {
+		/**
+		 * Number of cells pruned by this span or rejected by it, since it was
+		 * full.
+		 */
+		protected int										beamPruned			= 0;
+		
 		/**
 		 * A flag to indicate if this abstract was pruned externally (i.e.,
 		 * outside the chart).
 		 */
-		protected boolean	externallyPruned	= false;
+		protected volatile boolean							externallyPruned	= false;
+		
+		/**
+		 * Number of cells merged into existing cells of this span.
+		 */
+		protected int										merged				= 0;
+		
+		/**
+		 * A flag to indicate that this span was carried over from another
+		 * chart.
+		 */
+		protected boolean									reused				= false;
+		
+		/**
+		 * Cells staged for this span by concurrent writers, waiting to be
+		 * added to the span. Each cell is mapped to itself, so cells with the
+		 * same signature can be merged when staged.
+		 */
+		protected final ConcurrentMap<Cell<MR>, Cell<MR>>	staged				= new ConcurrentHashMap<Cell<MR>, Cell<MR>>();
+		
+		/**
+		 * Number of cells merged into staged cells, added to {@link #merged}
+		 * when the staged cells are added to the span.
+		 */
+		protected final AtomicInteger						stagedMerged		= new AtomicInteger();
 		
 		public abstract void addToExisting(Cell<MR> existingCell,
 				Cell<MR> newCell);
@@ -24,12 +24,16 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.google.common.base.Function;
 
 import edu.uw.cs.lil.tiny.base.concurrency.ITinyExecutor;
 import edu.uw.cs.lil.tiny.ccg.categories.Category;
 import edu.uw.cs.lil.tiny.ccg.categories.ICategoryServices;
+import edu.uw.cs.lil.tiny.ccg.categories.syntax.Syntax;
 import edu.uw.cs.lil.tiny.ccg.lexicon.ILexiconImmutable;
 import edu.uw.cs.lil.tiny.explat.DistributedExperiment;
 import edu.uw.cs.lil.tiny.explat.IResourceRepository;
@@ -40,7 +44,9 @@ import edu.uw.cs.lil.tiny.explat.resources.usage.ResourceUsage;
 import edu.uw.cs.lil.tiny.parser.ISentenceLexiconGenerator;
 import edu.uw.cs.lil.tiny.parser.ccg.cky.AbstractCKYParser;
 import edu.uw.cs.lil.tiny.parser.ccg.cky.CKYBinaryParsingRule;
+import edu.uw.cs.lil.tiny.parser.ccg.cky.CKYLogging;
 import edu.uw.cs.lil.tiny.parser.ccg.cky.CKYUnaryParsingRule;
+import edu.uw.cs.lil.tiny.parser.ccg.cky.ParserMetrics.Counter;
 import edu.uw.cs.lil.tiny.parser.ccg.cky.SimpleWordSkippingLexicalGenerator;
 import edu.uw.cs.lil.tiny.parser.ccg.cky.chart.AbstractCellFactory;
 import edu.uw.cs.lil.tiny.parser.ccg.cky.chart.Cell;
@@ -58,6 +64,9 @@ import edu.uw.cs.utils.log.thread.LoggingRunnable;
 
 /**
  * Multi threaded CKY parser. Work is distributed on the level of span splits.
+ * Optionally, work is distributed using a work-stealing fork-join pool on the
+ * level of spans. In this mode, all the splits of a span are processed by a
+ * single task, which is forked once all of its sub-spans are complete.
  * 
  * @author Yoav Artzi
  * @param <MR>
@@ -69,6 +78,13 @@ public class MultiCKYParser<MR> extends AbstractCKYParser<MR> {
 	private final ITinyExecutor	executor;
 	private final boolean		preChartPruning;
 	
+	/**
+	 * Fork-join pool for work-stealing parsing. If null, the parser
+	 * distributes split jobs using the executor. The pool's worker threads are
+	 * daemon threads, so the pool doesn't need to be shut down.
+	 */
+	private final ForkJoinPool	workStealingPool;
+	
 	private MultiCKYParser(int maxNumberOfCellsInSpan,
 			List<CKYBinaryParsingRule<MR>> binaryRules,
 			List<ISentenceLexiconGenerator<MR>> sentenceLexiconGenerators,
@@ -77,13 +93,18 @@ public class MultiCKYParser<MR> extends AbstractCKYParser<MR> {
 			boolean pruneLexicalCells, boolean preChartPruning,
 			IFilter<Category<MR>> completeParseFilter,
 			List<CKYUnaryParsingRule<MR>> unaryRules,
-			Function<Category<MR>, Category<MR>> categoryTransformation) {
+			Function<Category<MR>, Category<MR>> categoryTransformation,
+			ForkJoinPool workStealingPool, boolean indexBinaryRules,
+			boolean collectMetrics, Set<Syntax> coarseFullParseSyntaxes,
+			boolean reuseCharts) {
 		super(maxNumberOfCellsInSpan, binaryRules, sentenceLexiconGenerators,
 				wordSkippingLexicalGenerator, categoryServices,
 				pruneLexicalCells, completeParseFilter, unaryRules,
-				categoryTransformation);
+				categoryTransformation, indexBinaryRules, collectMetrics,
+				coarseFullParseSyntaxes, reuseCharts);
 		this.executor = executor;
 		this.preChartPruning = preChartPruning;
+		this.workStealingPool = workStealingPool;
 	}
 	
 	@Override
@@ -92,6 +113,11 @@ public class MultiCKYParser<MR> extends AbstractCKYParser<MR> {
 			AbstractCellFactory<MR> cellFactory,
 			List<ILexiconImmutable<MR>> lexicons) {
 		
+		if (workStealingPool != null) {
+			return doWorkStealingParse(pruningFilter, model, chart, numTokens,
+					cellFactory, lexicons);
+		}
+		
 		LOG.debug("Starting a multi-threaded CKY parse (chart already populated)");
 		
 		// Generate all triplets of span and splits <begin,end,split> and
@@ -135,11 +161,14 @@ public class MultiCKYParser<MR> extends AbstractCKYParser<MR> {
 				LOG.debug("Creating initial lexical jobs");
 				
 				// Create all lexical jobs
+				final int[][] phraseLengths = getLongestPhraseLengths(
+						chart.getTokens(), lexicons);
 				for (int i = 0; i < numTokens; i++) {
 					for (int j = i; j < numTokens; j++) {
 						executor.execute(new LexicalJob(cellFactory, chart,
 								listener, lock, model, new SpanPair(i, j),
-								lexicons, pruningFilter, numTokens));
+								lexicons, phraseLengths, pruningFilter,
+								numTokens));
 					}
 				}
 				
@@ -154,6 +183,20 @@ public class MultiCKYParser<MR> extends AbstractCKYParser<MR> {
 		return chart;
 	}
 	
+	private Chart<MR> doWorkStealingParse(IFilter<MR> pruningFilter,
+			IDataItemModel<MR> model, Chart<MR> chart, int numTokens,
+			AbstractCellFactory<MR> cellFactory,
+			List<ILexiconImmutable<MR>> lexicons) {
+		
+		LOG.debug("Starting a work-stealing CKY parse (chart already populated)");
+		
+		final WorkStealingParse parse = new WorkStealingParse(pruningFilter,
+				model, chart, numTokens, cellFactory, lexicons);
+		workStealingPool.invoke(parse);
+		
+		return chart;
+	}
+	
 	public static class Builder<MR> {
 		
 		private final List<CKYBinaryParsingRule<MR>>		binaryRules					= new LinkedList<CKYBinaryParsingRule<MR>>();
@@ -169,13 +212,30 @@ public class MultiCKYParser<MR> extends AbstractCKYParser<MR> {
 																							}
 																						};
 		
+		/**
+		 * Syntax of complete parses for coarse-to-fine pruning, null to
+		 * disable.
+		 */
+		private Set<Syntax>									coarseFullParseSyntaxes		= null;
+		
+		private boolean										collectMetrics				= false;
+		
 		private final IFilter<Category<MR>>					completeParseFilter;
 		
 		private final ITinyExecutor							executor;
 		
+		private boolean										indexBinaryRules			= false;
+		
 		/** The maximum number of cells allowed in each span */
 		private int											maxNumberOfCellsInSpan		= 50;
 		
+		/**
+		 * Number of threads in the work-stealing pool.
+		 */
+		private int											numThreads					= Runtime
+																								.getRuntime()
+																								.availableProcessors();
+		
 		/**
 		 * Pre-chart pruning creates a further approximation of the packed chart
 		 * which influences non-maximal children. It does mean that worker
@@ -187,12 +247,23 @@ public class MultiCKYParser<MR> extends AbstractCKYParser<MR> {
 		
 		private boolean										pruneLexicalCells			= false;
 		
+		/**
+		 * Carry over unchanged spans from previous charts when a sentence is
+		 * parsed again with the same data item model.
+		 */
+		private boolean										reuseCharts					= false;
+		
 		private final List<ISentenceLexiconGenerator<MR>>	sentenceLexicalGenerators	= new LinkedList<ISentenceLexiconGenerator<MR>>();
 		
 		private final List<CKYUnaryParsingRule<MR>>			unaryRules					= new LinkedList<CKYUnaryParsingRule<MR>>();
 		
 		private ISentenceLexiconGenerator<MR>				wordSkippingLexicalGenerator;
 		
+		/**
+		 * Use a work-stealing fork-join pool instead of the executor.
+		 */
+		private boolean										workStealing				= false;
+		
 		public Builder(ICategoryServices<MR> categoryServices,
 				ITinyExecutor executor,
 				IFilter<Category<MR>> completeParseFilter) {
@@ -224,7 +295,9 @@ public class MultiCKYParser<MR> extends AbstractCKYParser<MR> {
 					sentenceLexicalGenerators, wordSkippingLexicalGenerator,
 					categoryServices, executor, pruneLexicalCells,
 					preChartPruning, completeParseFilter, unaryRules,
-					categoryTransformation);
+					categoryTransformation, workStealing ? new ForkJoinPool(
+							numThreads) : null, indexBinaryRules,
+					collectMetrics, coarseFullParseSyntaxes, reuseCharts);
 		}
 		
 		public Builder<MR> setCategoryTransformation(
@@ -233,11 +306,41 @@ public class MultiCKYParser<MR> extends AbstractCKYParser<MR> {
 			return this;
 		}
 		
+		/**
+		 * Enables coarse-to-fine pruning with a syntax-only chart. Requires all
+		 * rules to support syntax-only application, otherwise disabled. Doesn't
+		 * change the results if no beam pruning happens and complete parses
+		 * are limited to the given syntaxes.
+		 * 
+		 * @param coarseFullParseSyntaxes
+		 *            Syntax of complete parses, null to disable.
+		 */
+		public Builder<MR> setCoarseFullParseSyntaxes(
+				Set<Syntax> coarseFullParseSyntaxes) {
+			this.coarseFullParseSyntaxes = coarseFullParseSyntaxes;
+			return this;
+		}
+		
+		public Builder<MR> setCollectMetrics(boolean collectMetrics) {
+			this.collectMetrics = collectMetrics;
+			return this;
+		}
+		
+		public Builder<MR> setIndexBinaryRules(boolean indexBinaryRules) {
+			this.indexBinaryRules = indexBinaryRules;
+			return this;
+		}
+		
 		public Builder<MR> setMaxNumberOfCellsInSpan(int maxNumberOfCellsInSpan) {
 			this.maxNumberOfCellsInSpan = maxNumberOfCellsInSpan;
 			return this;
 		}
 		
+		public Builder<MR> setNumThreads(int numThreads) {
+			this.numThreads = numThreads;
+			return this;
+		}
+		
 		public Builder<MR> setPreChartPruning(boolean preChartPruning) {
 			if (preChartPruning) {
 				LOG.warn("Pre-chart pruning creates instability for gradient-based learners.");
@@ -251,11 +354,21 @@ public class MultiCKYParser<MR> extends AbstractCKYParser<MR> {
 			return this;
 		}
 		
+		public Builder<MR> setReuseCharts(boolean reuseCharts) {
+			this.reuseCharts = reuseCharts;
+			return this;
+		}
+		
 		public Builder<MR> setWordSkippingLexicalGenerator(
 				ISentenceLexiconGenerator<MR> wordSkippingLexicalGenerator) {
 			this.wordSkippingLexicalGenerator = wordSkippingLexicalGenerator;
 			return this;
 		}
+		
+		public Builder<MR> setWorkStealing(boolean workStealing) {
+			this.workStealing = workStealing;
+			return this;
+		}
 	}
 	
 	public static class Creator<MR> implements
@@ -287,6 +400,22 @@ public class MultiCKYParser<MR> extends AbstractCKYParser<MR> {
 				builder.setMaxNumberOfCellsInSpan(params.getAsInteger("beam"));
 			}
 			
+			if (params.contains("coarseSyntax")) {
+				final Set<Syntax> syntaxes = new HashSet<Syntax>();
+				for (final String syntax : params.getSplit("coarseSyntax")) {
+					syntaxes.add(Syntax.valueOf(syntax));
+				}
+				builder.setCoarseFullParseSyntaxes(syntaxes);
+			}
+			
+			if (params.contains("metrics")) {
+				builder.setCollectMetrics(params.getAsBoolean("metrics"));
+			}
+			
+			if (params.contains("indexRules")) {
+				builder.setIndexBinaryRules(params.getAsBoolean("indexRules"));
+			}
+			
 			if (params.contains("preChartPruning")) {
 				builder.setPreChartPruning(params
 						.getAsBoolean("preChartPruning"));
@@ -297,6 +426,10 @@ public class MultiCKYParser<MR> extends AbstractCKYParser<MR> {
 						.getAsBoolean("pruneLexicalCells"));
 			}
 			
+			if (params.contains("reuseCharts")) {
+				builder.setReuseCharts(params.getAsBoolean("reuseCharts"));
+			}
+			
 			if (params.contains("wordSkippingLexGen")) {
 				builder.setWordSkippingLexicalGenerator((ISentenceLexiconGenerator<MR>) repo
 						.getResource(params.get("wordSkippingLexGen")));
@@ -307,6 +440,14 @@ public class MultiCKYParser<MR> extends AbstractCKYParser<MR> {
 						.getResource(id));
 			}
 			
+			if (params.contains("workStealing")) {
+				builder.setWorkStealing(params.getAsBoolean("workStealing"));
+			}
+			
+			if (params.contains("threads")) {
+				builder.setNumThreads(params.getAsInteger("threads"));
+			}
+			
 			if (params.contains("transformation")) {
 				builder.setCategoryTransformation((Function<Category<MR>, Category<MR>>) repo
 						.getResource(params.get("transformation")));
@@ -339,10 +480,18 @@ public class MultiCKYParser<MR> extends AbstractCKYParser<MR> {
 							"Filter to determine complete parses.")
 					.addParam("beam", Integer.class,
 							"Beam to use for cell pruning (default: 50).")
+					.addParam("indexRules", Boolean.class,
+							"Only pair cells that binary rules declare as compatible by their syntax (default: false)")
+					.addParam("coarseSyntax", Syntax.class,
+							"Syntax of complete parses for coarse-to-fine pruning with a syntax-only chart (default: none, no coarse pass)")
+					.addParam("metrics", Boolean.class,
+							"Collect per-span, per-rule and per-phase parsing metrics (default: false)")
 					.addParam("preChartPruning", Boolean.class,
 							"Prune categories before adding to the chart (default: false)")
 					.addParam("pruneLexicalCells", Boolean.class,
 							"Prune lexical entries similarly to conventional categories (default: false)")
+					.addParam("reuseCharts", Boolean.class,
+							"Carry over unchanged spans when a sentence is parsed again with the same data item model, e.g., during learning (default: false)")
 					.addParam("wordSkippingLexGen",
 							ISentenceLexiconGenerator.class,
 							"Lexical generator for word skipping (defaults to simple skipping).")
@@ -352,6 +501,10 @@ public class MultiCKYParser<MR> extends AbstractCKYParser<MR> {
 							"transformation",
 							Function.class,
 							"Transformation to be applied to each category before it's added to the chart (default: none).")
+					.addParam("workStealing", Boolean.class,
+							"Schedule span jobs on a work-stealing fork-join pool instead of the executor (default: false)")
+					.addParam("threads", Integer.class,
+							"Number of threads for work-stealing parsing (default: number of processors)")
 					.addParam("rules", IBinaryParseRule.class,
 							"Binary parsing rules.").build();
 		}
@@ -401,29 +554,38 @@ public class MultiCKYParser<MR> extends AbstractCKYParser<MR> {
 	private class LexicalJob extends AbstractJob {
 		
 		private final List<ILexiconImmutable<MR>>	lexicons;
+		private final int[][]						phraseLengths;
 		private final IFilter<MR>					pruningFilter;
 		
 		public LexicalJob(AbstractCellFactory<MR> cellFactory, Chart<MR> chart,
 				Listener listener, SpanLock lock, IDataItemModel<MR> model,
 				SpanPair span, List<ILexiconImmutable<MR>> lexicons,
-				IFilter<MR> pruningFilter, int sentenceLength) {
+				int[][] phraseLengths, IFilter<MR> pruningFilter,
+				int sentenceLength) {
 			super(cellFactory, chart, listener, lock, model, new SplitTriplet(
 					span.start, span.end, -1), sentenceLength);
 			this.lexicons = lexicons;
+			this.phraseLengths = phraseLengths;
 			this.pruningFilter = pruningFilter;
 		}
 		
 		@Override
 		public void loggedRun() {
-			LOG.debug("%s Lexical job started", split.span);
+			if (CKYLogging.DEBUG) {
+				LOG.debug("%s Lexical job started", split.span);
+			}
 			
 			final List<Cell<MR>> newCells = generateLexicalCells(split.begin,
-					split.end, chart, lexicons, model);
+					split.end, chart, lexicons, phraseLengths, model);
 			
-			LOG.debug("%s: %d new lexical cells", split.span, newCells.size());
+			if (CKYLogging.DEBUG) {
+				LOG.debug("%s: %d new lexical cells", split.span,
+						newCells.size());
+			}
 			
 			if (pruneLexicalCells) {
 				// Hard pruning
+				final int numGenerated = newCells.size();
 				CollectionUtils.filterInPlace(newCells,
 						new IFilter<Cell<MR>>() {
 							@Override
@@ -433,19 +595,24 @@ public class MultiCKYParser<MR> extends AbstractCKYParser<MR> {
 										sentenceLength, true);
 							}
 						});
-				LOG.debug("%s: %d new lexical cells passed hard pruning",
-						split.span, newCells.size());
+				if (chart.getMetrics() != null) {
+					chart.getMetrics().count(split.span.start, split.span.end,
+							Counter.HARD_PRUNED, numGenerated - newCells.size());
+				}
+				if (CKYLogging.DEBUG) {
+					LOG.debug("%s: %d new lexical cells passed hard pruning",
+							split.span, newCells.size());
+				}
 			}
 			
-			// Add all the valid cells under a span lock
-			lock.lock(split.begin, split.end);
-			for (final Cell<MR> newCell : newCells) {
-				chart.add(newCell);
-			}
-			lock.unlock(split.begin, split.end);
+			// Stage the valid cells, they are added to the chart before the
+			// span is processed with unary rules
+			chart.stage(split.begin, split.end, newCells);
 			
-			LOG.debug("%s: Lexical job completed, tried to add %d entries",
-					split.span, newCells.size());
+			if (CKYLogging.DEBUG) {
+				LOG.debug("%s: Lexical job completed, tried to add %d entries",
+						split.span, newCells.size());
+			}
 			
 			// Signal the job is complete
 			listener.jobComplete(this);
@@ -531,7 +698,9 @@ public class MultiCKYParser<MR> extends AbstractCKYParser<MR> {
 			if (spanComplete) {
 				// Case the span is complete, including processing with unary
 				// rules.
-				LOG.debug("Span completed: %s", job.split.span);
+				if (CKYLogging.DEBUG) {
+					LOG.debug("Span completed: %s", job.split.span);
+				}
 				
 				// Iterate over all neighboring completed spans, and
 				// create and queue split jobs with them. For each
@@ -649,12 +818,16 @@ public class MultiCKYParser<MR> extends AbstractCKYParser<MR> {
 			super(cellFactory, chart, listener, lock, model, split,
 					sentenceLength);
 			this.pruningFilter = pruningFilter;
-			LOG.debug("Created split job for %s", split);
+			if (CKYLogging.DEBUG) {
+				LOG.debug("Created split job for %s", split);
+			}
 		}
 		
 		@Override
 		public void loggedRun() {
-			LOG.debug("%s: Split job started", split);
+			if (CKYLogging.DEBUG) {
+				LOG.debug("%s: Split job started", split);
+			}
 			
 			final Pair<List<Cell<MR>>, Boolean> processingPair = preChartPruning ? processSplitAndPrune(
 					split.begin, split.end, split.split, sentenceLength, chart,
@@ -665,19 +838,21 @@ public class MultiCKYParser<MR> extends AbstractCKYParser<MR> {
 			
 			final List<Cell<MR>> newCells = processingPair.first();
 			
-			LOG.debug("%s: %d new cells", split, newCells.size());
-			
-			// Add all the valid cells under a span lock
-			lock.lock(split.begin, split.end);
-			for (final Cell<MR> newCell : newCells) {
-				chart.add(newCell);
+			if (CKYLogging.DEBUG) {
+				LOG.debug("%s: %d new cells", split, newCells.size());
 			}
+			
+			// Stage the new cells without locking the span, so splits of the
+			// same span don't serialize. The cells are added to the chart once
+			// all splits are complete.
+			chart.stage(split.begin, split.end, newCells);
 			if (processingPair.second()) {
 				chart.externalPruning(split.begin, split.end);
 			}
-			lock.unlock(split.begin, split.end);
 			
-			LOG.debug("%s: Split job completed", split);
+			if (CKYLogging.DEBUG) {
+				LOG.debug("%s: Split job completed", split);
+			}
 			
 			// Signal the job is complete
 			listener.jobComplete(this);
@@ -761,12 +936,25 @@ public class MultiCKYParser<MR> extends AbstractCKYParser<MR> {
 			super(cellFactory, chart, listener, lock, model, new SplitTriplet(
 					span.start, span.end, -1), sentenceLength);
 			this.pruningFilter = pruningFilter;
-			LOG.debug("Created unary job for %s", split);
+			if (CKYLogging.DEBUG) {
+				LOG.debug("Created unary job for %s", split);
+			}
 		}
 		
 		@Override
 		public void loggedRun() {
-			LOG.debug("%s: Unary span job started", split);
+			if (CKYLogging.DEBUG) {
+				LOG.debug("%s: Unary span job started", split);
+			}
+			
+			// All lexical and split jobs of the span are complete, and no other
+			// job accesses the span until it's complete, so the staged cells
+			// are added without locking. Duplicates were already merged
+			// concurrently by the staging jobs.
+			final int merged = chart.mergeStaged(split.begin, split.end);
+			if (CKYLogging.DEBUG) {
+				LOG.debug("%s: %d staged cells merged", split, merged);
+			}
 			
 			final Pair<List<Cell<MR>>, Boolean> processingPair = preChartPruning ? unaryProcessSpanAndPrune(
 					split.begin, split.end, sentenceLength, chart, cellFactory,
@@ -776,7 +964,9 @@ public class MultiCKYParser<MR> extends AbstractCKYParser<MR> {
 			
 			final List<Cell<MR>> newCells = processingPair.first();
 			
-			LOG.debug("%s: %d new cells", split, newCells.size());
+			if (CKYLogging.DEBUG) {
+				LOG.debug("%s: %d new cells", split, newCells.size());
+			}
 			
 			// Add all the valid cells under a span lock.
 			lock.lock(split.begin, split.end);
@@ -788,11 +978,226 @@ public class MultiCKYParser<MR> extends AbstractCKYParser<MR> {
 			}
 			lock.unlock(split.begin, split.end);
 			
-			LOG.debug("%s: Unary span job completed", split);
+			if (CKYLogging.DEBUG) {
+				LOG.debug("%s: Unary span job completed", split);
+			}
 			
 			// Signal the job is complete
 			listener.jobComplete(this);
 		}
 	}
 	
+	/**
+	 * Lexical job for the work-stealing mode. Once complete, counts down the
+	 * dependencies of its span.
+	 * 
+	 * @author Yoav Artzi
+	 */
+	private class WorkStealingLexicalTask extends CountedCompleter<Void> {
+		private static final long			serialVersionUID	= 2187370253491180424L;
+		private final WorkStealingParse		parse;
+		private final WorkStealingSpanTask	spanTask;
+		
+		public WorkStealingLexicalTask(WorkStealingParse parse,
+				WorkStealingSpanTask spanTask) {
+			super(parse);
+			this.parse = parse;
+			this.spanTask = spanTask;
+		}
+		
+		@Override
+		public void compute() {
+			final int begin = spanTask.begin;
+			final int end = spanTask.end;
+			
+			final List<Cell<MR>> newCells = generateLexicalCells(begin, end,
+					parse.chart, parse.lexicons, parse.phraseLengths,
+					parse.model);
+			
+			if (pruneLexicalCells) {
+				// Hard pruning
+				final int numGenerated = newCells.size();
+				CollectionUtils.filterInPlace(newCells,
+						new IFilter<Cell<MR>>() {
+							@Override
+							public boolean isValid(Cell<MR> e) {
+								return !prune(parse.pruningFilter,
+										e.getCategory(), begin, end,
+										parse.numTokens, true);
+							}
+						});
+				if (parse.chart.getMetrics() != null) {
+					parse.chart.getMetrics().count(begin, end,
+							Counter.HARD_PRUNED, numGenerated - newCells.size());
+				}
+			}
+			
+			// The span task is only forked once this job completes, so no
+			// other task writes to this span
+			for (final Cell<MR> newCell : newCells) {
+				parse.chart.add(newCell);
+			}
+			
+			if (CKYLogging.DEBUG) {
+				LOG.debug(
+						"(%d, %d): Lexical task completed, tried to add %d entries",
+						begin, end, newCells.size());
+			}
+			
+			spanTask.dependencyComplete();
+			tryComplete();
+		}
+	}
+	
+	/**
+	 * Root task of a work-stealing parse. Forks all lexical jobs and completes
+	 * once all lexical and span tasks complete.
+	 * 
+	 * @author Yoav Artzi
+	 */
+	private class WorkStealingParse extends CountedCompleter<Void> {
+		private static final long					serialVersionUID	= -6713062429153532447L;
+		private final AbstractCellFactory<MR>		cellFactory;
+		private final Chart<MR>						chart;
+		private final List<ILexiconImmutable<MR>>	lexicons;
+		private final IDataItemModel<MR>			model;
+		private final int							numTokens;
+		
+		/**
+		 * Phrase length bounds of the lexicons, indexed by lexicon and start.
+		 */
+		private final int[][]						phraseLengths;
+		private final IFilter<MR>					pruningFilter;
+		
+		/**
+		 * Span tasks indexed by begin and end indices.
+		 */
+		private final WorkStealingSpanTask[][]		spanTasks;
+		
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		public WorkStealingParse(IFilter<MR> pruningFilter,
+				IDataItemModel<MR> model, Chart<MR> chart, int numTokens,
+				AbstractCellFactory<MR> cellFactory,
+				List<ILexiconImmutable<MR>> lexicons) {
+			// Each span has a lexical task and a span task. The root
+			// completes when all of them complete.
+			super(null, numTokens * (numTokens + 1));
+			this.pruningFilter = pruningFilter;
+			this.model = model;
+			this.chart = chart;
+			this.numTokens = numTokens;
+			this.cellFactory = cellFactory;
+			this.lexicons = lexicons;
+			this.phraseLengths = getLongestPhraseLengths(chart.getTokens(),
+					lexicons);
+			this.spanTasks = new MultiCKYParser.WorkStealingSpanTask[numTokens][numTokens];
+			for (int begin = 0; begin < numTokens; ++begin) {
+				for (int end = begin; end < numTokens; ++end) {
+					spanTasks[begin][end] = new WorkStealingSpanTask(this,
+							begin, end);
+				}
+			}
+		}
+		
+		@Override
+		public void compute() {
+			for (int begin = 0; begin < numTokens; ++begin) {
+				for (int end = begin; end < numTokens; ++end) {
+					new WorkStealingLexicalTask(this, spanTasks[begin][end])
+							.fork();
+				}
+			}
+			tryComplete();
+		}
+	}
+	
+	/**
+	 * Processes a span with all its splits and then with unary rules. The task
+	 * is forked when its lexical job and all of its sub-spans are complete.
+	 * Once complete, counts down the dependencies of all spans it's a
+	 * sub-span of.
+	 * 
+	 * @author Yoav Artzi
+	 */
+	private class WorkStealingSpanTask extends CountedCompleter<Void> {
+		private static final long		serialVersionUID	= -3281508911650532069L;
+		private final int				begin;
+		private final int				end;
+		private final WorkStealingParse	parse;
+		
+		/**
+		 * Number of dependencies not completed yet: the lexical job, and the
+		 * left and right sub-spans of each split.
+		 */
+		private final AtomicInteger		pending;
+		
+		public WorkStealingSpanTask(WorkStealingParse parse, int begin, int end) {
+			super(parse);
+			this.parse = parse;
+			this.begin = begin;
+			this.end = end;
+			this.pending = new AtomicInteger(1 + 2 * (end - begin));
+		}
+		
+		@Override
+		public void compute() {
+			final Chart<MR> chart = parse.chart;
+			
+			// All splits
+			for (int split = 0; split < end - begin; ++split) {
+				final Pair<List<Cell<MR>>, Boolean> processingPair = preChartPruning ? processSplitAndPrune(
+						begin, end, split, parse.numTokens, chart,
+						parse.cellFactory, parse.pruningFilter,
+						chart.getBeamSize(), parse.model) : processSplit(
+						begin, end, split, parse.numTokens, chart,
+						parse.cellFactory, parse.pruningFilter, parse.model);
+				addToChart(processingPair);
+			}
+			
+			// Unary rules, once all splits are processed
+			addToChart(preChartPruning ? unaryProcessSpanAndPrune(begin, end,
+					parse.numTokens, chart, parse.cellFactory,
+					parse.pruningFilter, chart.getBeamSize(), parse.model)
+					: unaryProcessSpan(begin, end, parse.numTokens, chart,
+							parse.cellFactory, parse.pruningFilter, parse.model));
+			
+			if (CKYLogging.DEBUG) {
+				LOG.debug("Span completed: (%d, %d)", begin, end);
+			}
+			
+			// Spans this span is a left sub-span of
+			for (int parentEnd = end + 1; parentEnd < parse.numTokens; ++parentEnd) {
+				parse.spanTasks[begin][parentEnd].dependencyComplete();
+			}
+			
+			// Spans this span is a right sub-span of
+			for (int parentBegin = 0; parentBegin < begin; ++parentBegin) {
+				parse.spanTasks[parentBegin][end].dependencyComplete();
+			}
+			
+			tryComplete();
+		}
+		
+		/**
+		 * Count down a completed dependency. Forks the task when it's the last
+		 * one.
+		 */
+		public void dependencyComplete() {
+			if (pending.decrementAndGet() == 0) {
+				fork();
+			}
+		}
+		
+		private void addToChart(Pair<List<Cell<MR>>, Boolean> processingPair) {
+			// This task is the only one writing to the span, so there's no
+			// need to lock it
+			for (final Cell<MR> newCell : processingPair.first()) {
+				parse.chart.add(newCell);
+			}
+			if (processingPair.second()) {
+				parse.chart.externalPruning(begin, end);
+			}
+		}
+	}
+	
 }
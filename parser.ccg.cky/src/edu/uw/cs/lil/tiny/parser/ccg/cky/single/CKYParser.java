@@ -21,11 +21,13 @@ package edu.uw.cs.lil.tiny.parser.ccg.cky.single;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
 
 import com.google.common.base.Function;
 
 import edu.uw.cs.lil.tiny.ccg.categories.Category;
 import edu.uw.cs.lil.tiny.ccg.categories.ICategoryServices;
+import edu.uw.cs.lil.tiny.ccg.categories.syntax.Syntax;
 import edu.uw.cs.lil.tiny.ccg.lexicon.ILexiconImmutable;
 import edu.uw.cs.lil.tiny.parser.ISentenceLexiconGenerator;
 import edu.uw.cs.lil.tiny.parser.ccg.cky.AbstractCKYParser;
@@ -33,11 +35,8 @@ import edu.uw.cs.lil.tiny.parser.ccg.cky.CKYBinaryParsingRule;
 import edu.uw.cs.lil.tiny.parser.ccg.cky.CKYUnaryParsingRule;
 import edu.uw.cs.lil.tiny.parser.ccg.cky.SimpleWordSkippingLexicalGenerator;
 import edu.uw.cs.lil.tiny.parser.ccg.cky.chart.AbstractCellFactory;
-import edu.uw.cs.lil.tiny.parser.ccg.cky.chart.Cell;
 import edu.uw.cs.lil.tiny.parser.ccg.cky.chart.Chart;
 import edu.uw.cs.lil.tiny.parser.ccg.model.IDataItemModel;
-import edu.uw.cs.utils.collections.CollectionUtils;
-import edu.uw.cs.utils.composites.Pair;
 import edu.uw.cs.utils.filter.IFilter;
 import edu.uw.cs.utils.log.ILogger;
 import edu.uw.cs.utils.log.LoggerFactory;
@@ -57,26 +56,14 @@ public class CKYParser<MR> extends AbstractCKYParser<MR> {
 			ICategoryServices<MR> categoryServices, boolean pruneLexicalCells,
 			IFilter<Category<MR>> completeParseFilter,
 			List<CKYUnaryParsingRule<MR>> unaryRules,
-			Function<Category<MR>, Category<MR>> categoryTransformation) {
+			Function<Category<MR>, Category<MR>> categoryTransformation,
+			boolean indexBinaryRules, boolean collectMetrics,
+			Set<Syntax> coarseFullParseSyntaxes, boolean reuseCharts) {
 		super(maxNumberOfCellsInSpan, binaryRules, sentenceLexiconGenerators,
 				wordSkippingLexicalGenerator, categoryServices,
 				pruneLexicalCells, completeParseFilter, unaryRules,
-				categoryTransformation);
-	}
-	
-	/**
-	 * Add all the cells to the chart.
-	 * 
-	 * @param newCells
-	 *            list of new cells.
-	 * @param chart
-	 *            Chart to add the cells to.
-	 */
-	protected static <MR> void addAllToChart(List<Cell<MR>> newCells,
-			Chart<MR> chart) {
-		for (final Cell<MR> newCell : newCells) {
-			chart.add(newCell);
-		}
+				categoryTransformation, indexBinaryRules, collectMetrics,
+				coarseFullParseSyntaxes, reuseCharts);
 	}
 	
 	@Override
@@ -84,68 +71,8 @@ public class CKYParser<MR> extends AbstractCKYParser<MR> {
 			IDataItemModel<MR> model, Chart<MR> chart, int numTokens,
 			AbstractCellFactory<MR> cellFactory,
 			List<ILexiconImmutable<MR>> lexicons) {
-		
-		final int sentenceLength = chart.getSentenceLength();
-		
-		// Add lexical entries from all active lexicons
-		for (int start = 0; start < numTokens; start++) {
-			for (int end = start; end < numTokens; end++) {
-				final List<Cell<MR>> newCells = generateLexicalCells(start,
-						end, chart, lexicons, model);
-				
-				// Filter cells, only keep cells that have semantics and pass
-				// pruning (if there's a pruning filter)
-				if (CollectionUtils.filterInPlace(newCells,
-						new IFilter<Cell<MR>>() {
-							@Override
-							public boolean isValid(Cell<MR> e) {
-								return !prune(pruningFilter, e.getCategory(),
-										e.getStart(), e.getEnd(),
-										sentenceLength, true);
-							}
-						})) {
-					chart.externalPruning(start, end);
-				}
-				
-				for (final Cell<MR> newCell : newCells) {
-					chart.add(newCell);
-				}
-				// Apply unary rules to cells added by lexical entries.
-				final Pair<List<Cell<MR>>, Boolean> unaryProcessingResult = unaryProcessSpan(
-						start, end, sentenceLength, chart, cellFactory,
-						pruningFilter, model);
-				if (unaryProcessingResult.second()) {
-					chart.externalPruning(start, end);
-				}
-				for (final Cell<MR> cell : unaryProcessingResult.first()) {
-					chart.add(cell);
-				}
-			}
-		}
-		
-		// now do the CKY parsing:
-		for (int len = 1; len < numTokens; len++) {
-			for (int begin = 0; begin < numTokens - len; begin++) {
-				for (int split = 0; split < len; split++) {
-					final Pair<List<Cell<MR>>, Boolean> processingPair = processSplit(
-							begin, begin + len, split, sentenceLength, chart,
-							cellFactory, pruningFilter, model);
-					addAllToChart(processingPair.first(), chart);
-					if (processingPair.second()) {
-						chart.externalPruning(begin, begin + len);
-					}
-				}
-				final Pair<List<Cell<MR>>, Boolean> processingPair = unaryProcessSpan(
-						begin, begin + len, sentenceLength, chart, cellFactory,
-						pruningFilter, model);
-				addAllToChart(processingPair.first(), chart);
-				if (processingPair.second()) {
-					chart.externalPruning(begin, begin + len);
-				}
-			}
-		}
-		
-		return chart;
+		return doExhaustiveParse(pruningFilter, model, chart, numTokens,
+				cellFactory, lexicons);
 	}
 	
 	/**
@@ -168,13 +95,29 @@ public class CKYParser<MR> extends AbstractCKYParser<MR> {
 																							}
 																						};
 		
+		/**
+		 * Syntax of complete parses for coarse-to-fine pruning, null to
+		 * disable.
+		 */
+		private Set<Syntax>									coarseFullParseSyntaxes		= null;
+		
+		private boolean										collectMetrics				= false;
+		
 		private final IFilter<Category<MR>>					completeParseFilter;
 		
+		private boolean										indexBinaryRules			= false;
+		
 		/** The maximum number of cells allowed in each span */
 		private int											maxNumberOfCellsInSpan		= 50;
 		
 		private boolean										pruneLexicalCells			= false;
 		
+		/**
+		 * Carry over unchanged spans from previous charts when a sentence is
+		 * parsed again with the same data item model.
+		 */
+		private boolean										reuseCharts					= false;
+		
 		private final List<ISentenceLexiconGenerator<MR>>	sentenceLexicalGenerators	= new LinkedList<ISentenceLexiconGenerator<MR>>();
 		
 		private final List<CKYUnaryParsingRule<MR>>			unaryRules					= new ArrayList<CKYUnaryParsingRule<MR>>();
@@ -209,7 +152,8 @@ public class CKYParser<MR> extends AbstractCKYParser<MR> {
 			return new CKYParser<MR>(maxNumberOfCellsInSpan, binaryRules,
 					sentenceLexicalGenerators, wordSkippingLexicalGenerator,
 					categoryServices, pruneLexicalCells, completeParseFilter,
-					unaryRules, categoryTransformation);
+					unaryRules, categoryTransformation, indexBinaryRules,
+					collectMetrics, coarseFullParseSyntaxes, reuseCharts);
 		}
 		
 		public Builder<MR> setCategoryTransformation(
@@ -218,6 +162,31 @@ public class CKYParser<MR> extends AbstractCKYParser<MR> {
 			return this;
 		}
 		
+		/**
+		 * Enables coarse-to-fine pruning with a syntax-only chart. Requires all
+		 * rules to support syntax-only application, otherwise disabled. Doesn't
+		 * change the results if no beam pruning happens and complete parses
+		 * are limited to the given syntaxes.
+		 * 
+		 * @param coarseFullParseSyntaxes
+		 *            Syntax of complete parses, null to disable.
+		 */
+		public Builder<MR> setCoarseFullParseSyntaxes(
+				Set<Syntax> coarseFullParseSyntaxes) {
+			this.coarseFullParseSyntaxes = coarseFullParseSyntaxes;
+			return this;
+		}
+		
+		public Builder<MR> setCollectMetrics(boolean collectMetrics) {
+			this.collectMetrics = collectMetrics;
+			return this;
+		}
+		
+		public Builder<MR> setIndexBinaryRules(boolean indexBinaryRules) {
+			this.indexBinaryRules = indexBinaryRules;
+			return this;
+		}
+		
 		public Builder<MR> setMaxNumberOfCellsInSpan(int maxNumberOfCellsInSpan) {
 			this.maxNumberOfCellsInSpan = maxNumberOfCellsInSpan;
 			return this;
@@ -228,6 +197,11 @@ public class CKYParser<MR> extends AbstractCKYParser<MR> {
 			return this;
 		}
 		
+		public Builder<MR> setReuseCharts(boolean reuseCharts) {
+			this.reuseCharts = reuseCharts;
+			return this;
+		}
+		
 		public Builder<MR> setWordSkippingLexicalGenerator(
 				ISentenceLexiconGenerator<MR> wordSkippingLexicalGenerator) {
 			this.wordSkippingLexicalGenerator = wordSkippingLexicalGenerator;
@@ -18,6 +18,8 @@
  ******************************************************************************/
 package edu.uw.cs.lil.tiny.parser.ccg.factoredlex.features;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -26,6 +28,7 @@ import java.util.Map;
 import edu.uw.cs.lil.tiny.base.hashvector.IHashVector;
 import edu.uw.cs.lil.tiny.base.hashvector.IHashVectorImmutable;
 import edu.uw.cs.lil.tiny.base.hashvector.KeyArgs;
+import edu.uw.cs.lil.tiny.base.hashvector.TaggedFeatureIndices;
 import edu.uw.cs.lil.tiny.ccg.lexicon.LexicalEntry;
 import edu.uw.cs.lil.tiny.ccg.lexicon.factored.lambda.FactoredLexicon;
 import edu.uw.cs.lil.tiny.ccg.lexicon.factored.lambda.Lexeme;
@@ -56,6 +59,11 @@ public class LexemeFeatureSet<DI extends IDataItem<?>> extends
 	
 	private static final long					serialVersionUID	= 1207002303754559846L;
 	
+	/**
+	 * Weight vector indices of the features, by lexeme ID.
+	 */
+	private transient TaggedFeatureIndices		featureIndices;
+	
 	private final String						featureTag;
 	
 	private final ISerializableScorer<Lexeme>	initialScorer;
@@ -67,6 +75,7 @@ public class LexemeFeatureSet<DI extends IDataItem<?>> extends
 			ISerializableScorer<Lexeme> initialScorer,
 			Map<Lexeme, Integer> lexemeIds, double scale) {
 		this.featureTag = featureTag;
+		this.featureIndices = new TaggedFeatureIndices(featureTag);
 		this.initialScorer = initialScorer;
 		this.lexemeIds = lexemeIds;
 		this.scale = scale;
@@ -89,10 +98,10 @@ public class LexemeFeatureSet<DI extends IDataItem<?>> extends
 		}
 		final int num = getNextId();
 		lexemeIds.put(lexeme, new Integer(num));
-		parametersVector.set(featureTag, String.valueOf(num),
+		parametersVector.set(featureIndices.get(num),
 				initialScorer.score(lexeme));
 		LOG.debug("Lexeme added to feature set: [%d] %s [score=%f]", num,
-				lexeme, parametersVector.get(featureTag, String.valueOf(num)));
+				lexeme, parametersVector.get(featureIndices.get(num)));
 		return true;
 	}
 	
@@ -140,7 +149,7 @@ public class LexemeFeatureSet<DI extends IDataItem<?>> extends
 		}
 		final int i = indexOf(lexeme);
 		if (i >= 0) {
-			return theta.get(featureTag, String.valueOf(i)) * scale;
+			return theta.get(featureIndices.get(i)) * scale;
 		}
 		// return what the initial weight would be it it were added...
 		return initialScorer.score(lexeme) * scale;
@@ -161,8 +170,8 @@ public class LexemeFeatureSet<DI extends IDataItem<?>> extends
 		}
 		final int i = indexOf(lexeme);
 		if (i >= 0) {
-			features.set(featureTag, String.valueOf(i),
-					features.get(featureTag, String.valueOf(i)) + 1.0 * scale);
+			features.set(featureIndices.get(i),
+					features.get(featureIndices.get(i)) + 1.0 * scale);
 		} else {
 			// Case no feature set for this lexeme, set the default protected
 			// feature using the initial scorer
@@ -197,6 +206,12 @@ public class LexemeFeatureSet<DI extends IDataItem<?>> extends
 		}
 	}
 	
+	private void readObject(ObjectInputStream in) throws IOException,
+			ClassNotFoundException {
+		in.defaultReadObject();
+		this.featureIndices = new TaggedFeatureIndices(featureTag);
+	}
+	
 	public static class Builder<DI extends IDataItem<?>> {
 		
 		private String						featureTag		= "XEME";
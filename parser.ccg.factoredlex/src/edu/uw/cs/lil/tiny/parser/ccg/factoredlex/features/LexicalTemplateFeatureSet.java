@@ -18,6 +18,8 @@
  ******************************************************************************/
 package edu.uw.cs.lil.tiny.parser.ccg.factoredlex.features;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -26,6 +28,7 @@ import java.util.Map;
 import edu.uw.cs.lil.tiny.base.hashvector.IHashVector;
 import edu.uw.cs.lil.tiny.base.hashvector.IHashVectorImmutable;
 import edu.uw.cs.lil.tiny.base.hashvector.KeyArgs;
+import edu.uw.cs.lil.tiny.base.hashvector.TaggedFeatureIndices;
 import edu.uw.cs.lil.tiny.ccg.lexicon.LexicalEntry;
 import edu.uw.cs.lil.tiny.ccg.lexicon.factored.lambda.FactoredLexicon;
 import edu.uw.cs.lil.tiny.ccg.lexicon.factored.lambda.LexicalTemplate;
@@ -51,6 +54,11 @@ public class LexicalTemplateFeatureSet<DI extends IDataItem<?>> extends
 	
 	private static final long							serialVersionUID	= -8421114405286202227L;
 	
+	/**
+	 * Weight vector indices of the features, by template ID.
+	 */
+	private transient TaggedFeatureIndices				featureIndices;
+	
 	private final String								featureTag;
 	
 	private final ISerializableScorer<LexicalTemplate>	initialScorer;
@@ -65,6 +73,7 @@ public class LexicalTemplateFeatureSet<DI extends IDataItem<?>> extends
 			ISerializableScorer<LexicalTemplate> initialScorer,
 			Map<LexicalTemplate, Integer> templateIds, double scale) {
 		this.featureTag = featureTag;
+		this.featureIndices = new TaggedFeatureIndices(featureTag);
 		this.initialScorer = initialScorer;
 		this.templateIds = templateIds;
 		this.scale = scale;
@@ -88,7 +97,7 @@ public class LexicalTemplateFeatureSet<DI extends IDataItem<?>> extends
 		}
 		final int num = getNextId();
 		templateIds.put(template, new Integer(num));
-		parametersVector.set(featureTag, String.valueOf(num),
+		parametersVector.set(featureIndices.get(num),
 				initialScorer.score(template));
 		return true;
 	}
@@ -139,7 +148,7 @@ public class LexicalTemplateFeatureSet<DI extends IDataItem<?>> extends
 		}
 		final int i = indexOf(template);
 		if (i >= 0) {
-			return parametersVector.get(featureTag, String.valueOf(i)) * scale;
+			return parametersVector.get(featureIndices.get(i)) * scale;
 		}
 		// return the weight that would be assigned if this feature were added
 		return initialScorer.score(template) * scale;
@@ -160,8 +169,8 @@ public class LexicalTemplateFeatureSet<DI extends IDataItem<?>> extends
 		}
 		final int i = indexOf(template);
 		if (i >= 0) {
-			features.set(featureTag, String.valueOf(i),
-					features.get(featureTag, String.valueOf(i)) + 1.0 * scale);
+			features.set(featureIndices.get(i),
+					features.get(featureIndices.get(i)) + 1.0 * scale);
 		} else {
 			// Case no feature set for this template, set the default protected
 			// feature using the initial scorer
@@ -195,6 +204,12 @@ public class LexicalTemplateFeatureSet<DI extends IDataItem<?>> extends
 		}
 	}
 	
+	private void readObject(ObjectInputStream in) throws IOException,
+			ClassNotFoundException {
+		in.defaultReadObject();
+		this.featureIndices = new TaggedFeatureIndices(featureTag);
+	}
+	
 	public static class Builder<DI extends IDataItem<?>> {
 		
 		private String									featureTag		= "XTMP";
@@ -18,6 +18,8 @@
  ******************************************************************************/
 package edu.uw.cs.lil.tiny.parser.ccg.features.basic;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -27,6 +29,7 @@ import java.util.Map.Entry;
 import edu.uw.cs.lil.tiny.base.hashvector.IHashVector;
 import edu.uw.cs.lil.tiny.base.hashvector.IHashVectorImmutable;
 import edu.uw.cs.lil.tiny.base.hashvector.KeyArgs;
+import edu.uw.cs.lil.tiny.base.hashvector.TaggedFeatureIndices;
 import edu.uw.cs.lil.tiny.ccg.categories.Category;
 import edu.uw.cs.lil.tiny.ccg.lexicon.LexicalEntry;
 import edu.uw.cs.lil.tiny.data.IDataItem;
@@ -59,6 +62,11 @@ public class LexicalFeatureSet<DI extends IDataItem<?>, MR> extends
 	
 	private static final long										serialVersionUID	= -6342057762767968195L;
 	
+	/**
+	 * Weight vector indices of the features, by entry ID.
+	 */
+	private transient TaggedFeatureIndices							featureIndices;
+	
 	private final String											featureTag;
 	
 	/**
@@ -82,6 +90,7 @@ public class LexicalFeatureSet<DI extends IDataItem<?>, MR> extends
 			Map<Pair<List<String>, Category<MR>>, Integer> idMapping) {
 		this.initialScorer = initialScorer;
 		this.featureTag = featureTag;
+		this.featureIndices = new TaggedFeatureIndices(featureTag);
 		this.idMapping = idMapping;
 		for (final Entry<Pair<List<String>, Category<MR>>, Integer> entry : this.idMapping
 				.entrySet()) {
@@ -96,11 +105,10 @@ public class LexicalFeatureSet<DI extends IDataItem<?>, MR> extends
 		if (indexOf(entry) < 0) {
 			final int index = createIndex(entry);
 			
-			theta.set(featureTag, String.valueOf(index),
-					initialScorer.score(entry));
+			theta.set(featureIndices.get(index), initialScorer.score(entry));
 			
 			LOG.debug("LexicalEntry added to feature set: [%d] %s [score=%f]",
-					index, entry, theta.get(featureTag, String.valueOf(index)));
+					index, entry, theta.get(featureIndices.get(index)));
 			
 			return true;
 		} else {
@@ -155,7 +163,7 @@ public class LexicalFeatureSet<DI extends IDataItem<?>, MR> extends
 		} else {
 			final int index = indexOf(entry);
 			if (index >= 0) {
-				return theta.get(featureTag, String.valueOf(index));
+				return theta.get(featureIndices.get(index));
 			} else {
 				// return the score that this entry would get if it were
 				// to be added to the feature set
@@ -168,11 +176,11 @@ public class LexicalFeatureSet<DI extends IDataItem<?>, MR> extends
 	public void setFeats(LexicalEntry<MR> entry, IHashVector feats) {
 		final int i = indexOf(entry);
 		if (i >= 0) {
-			if (feats.get(featureTag, String.valueOf(i)) > 100) {
+			final int featureIndex = featureIndices.get(i);
+			if (feats.get(featureIndex) > 100) {
 				LOG.error("Large %s feature: %s", featureTag, entry);
 			}
-			feats.set(featureTag, String.valueOf(i),
-					feats.get(featureTag, String.valueOf(i)) + 1.0);
+			feats.set(featureIndex, feats.get(featureIndex) + 1.0);
 		} else {
 			// Case no feature set for this entry, set the default protected
 			// feature using the initial scorer
@@ -205,6 +213,12 @@ public class LexicalFeatureSet<DI extends IDataItem<?>, MR> extends
 		return nextId++;
 	}
 	
+	private void readObject(ObjectInputStream in) throws IOException,
+			ClassNotFoundException {
+		in.defaultReadObject();
+		this.featureIndices = new TaggedFeatureIndices(featureTag);
+	}
+	
 	public static class Builder<DI extends IDataItem<?>, MR> {
 		
 		/**
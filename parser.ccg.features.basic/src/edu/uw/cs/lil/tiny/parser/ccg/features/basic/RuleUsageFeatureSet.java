@@ -18,10 +18,13 @@
  ******************************************************************************/
 package edu.uw.cs.lil.tiny.parser.ccg.features.basic;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 
-import edu.uw.cs.lil.tiny.base.hashvector.HashVectorFactory;
+import edu.uw.cs.lil.tiny.base.hashvector.FeatureRegistry;
 import edu.uw.cs.lil.tiny.base.hashvector.IHashVector;
 import edu.uw.cs.lil.tiny.base.hashvector.IHashVectorImmutable;
 import edu.uw.cs.lil.tiny.base.hashvector.KeyArgs;
@@ -51,14 +54,23 @@ public class RuleUsageFeatureSet<DI extends IDataItem<?>, MR> implements
 	
 	private static final String	FEATURE_TAG			= "RULE";
 	
-	private static final long	serialVersionUID	= -2924052883973590335L;
-	private final double		scale;
+	private static final long							serialVersionUID	= -2924052883973590335L;
 	
-	private final boolean		unaryRulesOnly;
+	/**
+	 * Weight vector indices of the features triggered by each rule name. A
+	 * label that appears several times in a rule name appears the same number
+	 * of times in its array.
+	 */
+	private transient ConcurrentHashMap<String, int[]>	ruleIndices;
+	
+	private final double								scale;
+	
+	private final boolean								unaryRulesOnly;
 	
 	public RuleUsageFeatureSet(double scale, boolean unaryRulesOnly) {
 		this.scale = scale;
 		this.unaryRulesOnly = unaryRulesOnly;
+		this.ruleIndices = new ConcurrentHashMap<String, int[]>();
 	}
 	
 	@Override
@@ -80,9 +92,16 @@ public class RuleUsageFeatureSet<DI extends IDataItem<?>, MR> implements
 	
 	@Override
 	public double score(IParseStep<MR> obj, IHashVector theta, DI dataItem) {
-		return setFeats(obj.getRuleName(), HashVectorFactory.create())
-				.vectorMultiply(theta);
+		final RuleName ruleName = obj.getRuleName();
+		if (unaryRulesOnly && !(ruleName instanceof UnaryRuleName)) {
+			return 0.0;
+		}
 		
+		double score = 0.0;
+		for (final int index : getRuleIndices(ruleName)) {
+			score += theta.get(index) * scale;
+		}
+		return score;
 	}
 	
 	@Override
@@ -91,16 +110,34 @@ public class RuleUsageFeatureSet<DI extends IDataItem<?>, MR> implements
 		
 	}
 	
-	private IHashVectorImmutable setFeats(RuleName ruleName,
-			IHashVector features) {
+	private int[] getRuleIndices(RuleName ruleName) {
+		final String label = ruleName.toString();
+		final int[] cached = ruleIndices.get(label);
+		if (cached != null) {
+			return cached;
+		}
+		
+		final String[] ruleLabels = RuleName.splitRuleLabel(label);
+		final int[] indices = new int[ruleLabels.length];
+		for (int i = 0; i < ruleLabels.length; ++i) {
+			indices[i] = FeatureRegistry.getOrAdd(FEATURE_TAG, ruleLabels[i]);
+		}
+		ruleIndices.putIfAbsent(label, indices);
+		return indices;
+	}
+	
+	private void readObject(ObjectInputStream in) throws IOException,
+			ClassNotFoundException {
+		in.defaultReadObject();
+		this.ruleIndices = new ConcurrentHashMap<String, int[]>();
+	}
+	
+	private void setFeats(RuleName ruleName, IHashVector features) {
 		if (!unaryRulesOnly || ruleName instanceof UnaryRuleName) {
-			for (final String ruleLabel : RuleName.splitRuleLabel(ruleName
-					.toString())) {
-				features.set(FEATURE_TAG, ruleLabel,
-						features.get(FEATURE_TAG, ruleLabel) + 1.0 * scale);
+			for (final int index : getRuleIndices(ruleName)) {
+				features.set(index, features.get(index) + 1.0 * scale);
 			}
 		}
-		return features;
 	}
 	
 	public static class Creator<DI extends IDataItem<?>, MR> implements
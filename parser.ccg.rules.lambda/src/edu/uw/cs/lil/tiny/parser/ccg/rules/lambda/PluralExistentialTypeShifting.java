@@ -32,6 +32,7 @@ import edu.uw.cs.lil.tiny.explat.ParameterizedExperiment.Parameters;
 import edu.uw.cs.lil.tiny.explat.resources.IResourceObjectCreator;
 import edu.uw.cs.lil.tiny.explat.resources.usage.ResourceUsage;
 import edu.uw.cs.lil.tiny.mr.lambda.LogicalExpression;
+import edu.uw.cs.lil.tiny.parser.ccg.rules.ISyntacticBinaryRule;
 import edu.uw.cs.lil.tiny.parser.ccg.rules.ParseRuleResult;
 import edu.uw.cs.lil.tiny.parser.ccg.rules.RuleName.Direction;
 import edu.uw.cs.lil.tiny.parser.ccg.rules.primitivebinary.application.AbstractApplication;
@@ -46,7 +47,8 @@ import edu.uw.cs.lil.tiny.parser.ccg.rules.primitivebinary.application.AbstractA
  * @author Luke Zettlemoyer
  */
 public class PluralExistentialTypeShifting extends
-		AbstractApplication<LogicalExpression> {
+		AbstractApplication<LogicalExpression> implements
+		ISyntacticBinaryRule<LogicalExpression> {
 	private static String								RULE_LABEL	= "plural_exists";
 	
 	private final ComplexCategory<LogicalExpression>	workerCategory;
@@ -78,6 +80,20 @@ public class PluralExistentialTypeShifting extends
 		return doApplication(first.get(0).getResultCategory(), left, false);
 	}
 	
+	@Override
+	public Syntax applySyntax(Syntax left, Syntax right) {
+		if (!(right.equals(Syntax.N))) {
+			return null;
+		}
+		
+		final Syntax first = doSyntacticApplication(workerCategory.getSyntax(),
+				right, false);
+		if (first == null) {
+			return null;
+		}
+		return doSyntacticApplication(first, left, false);
+	}
+	
 	public static class Creator implements
 			IResourceObjectCreator<PluralExistentialTypeShifting> {
 		
@@ -34,6 +34,7 @@ import edu.uw.cs.lil.tiny.explat.ParameterizedExperiment.Parameters;
 import edu.uw.cs.lil.tiny.explat.resources.IResourceObjectCreator;
 import edu.uw.cs.lil.tiny.explat.resources.usage.ResourceUsage;
 import edu.uw.cs.lil.tiny.mr.lambda.LogicalExpression;
+import edu.uw.cs.lil.tiny.parser.ccg.rules.ISyntacticBinaryRule;
 import edu.uw.cs.lil.tiny.parser.ccg.rules.ParseRuleResult;
 import edu.uw.cs.lil.tiny.parser.ccg.rules.RuleName.Direction;
 import edu.uw.cs.lil.tiny.parser.ccg.rules.primitivebinary.application.AbstractApplication;
@@ -47,7 +48,8 @@ import edu.uw.cs.lil.tiny.parser.ccg.rules.primitivebinary.application.AbstractA
  * 
  * @author Luke Zettlemoyer
  */
-public class ThatlessRelative extends AbstractApplication<LogicalExpression> {
+public class ThatlessRelative extends AbstractApplication<LogicalExpression>
+		implements ISyntacticBinaryRule<LogicalExpression> {
 	private static String								RULE_LABEL	= "thatless";
 	
 	private final ComplexCategory<LogicalExpression>	workerCategoryBackSlash;
@@ -89,6 +91,30 @@ public class ThatlessRelative extends AbstractApplication<LogicalExpression> {
 		return doApplication(first.get(0).getResultCategory(), right, false);
 	}
 	
+	@Override
+	public Syntax applySyntax(Syntax left, Syntax right) {
+		if (!(right instanceof ComplexSyntax)) {
+			return null;
+		}
+		final ComplexSyntax complexSyntax = (ComplexSyntax) right;
+		if (!complexSyntax.getLeft().equals(Syntax.S)
+				|| !complexSyntax.getRight().equals(Syntax.NP)) {
+			return null;
+		}
+		
+		final Syntax workerSyntax;
+		if (complexSyntax.getSlash().equals(Slash.FORWARD)) {
+			workerSyntax = workerCategoryForwardSlash.getSyntax();
+		} else {
+			workerSyntax = workerCategoryBackSlash.getSyntax();
+		}
+		final Syntax first = doSyntacticApplication(workerSyntax, left, false);
+		if (first == null) {
+			return null;
+		}
+		return doSyntacticApplication(first, right, false);
+	}
+	
 	public static class Creator implements
 			IResourceObjectCreator<ThatlessRelative> {
 		
@@ -36,6 +36,7 @@ import edu.uw.cs.lil.tiny.explat.resources.IResourceObjectCreator;
 import edu.uw.cs.lil.tiny.explat.resources.usage.ResourceUsage;
 import edu.uw.cs.lil.tiny.mr.lambda.LogicalExpression;
 import edu.uw.cs.lil.tiny.mr.language.type.Type;
+import edu.uw.cs.lil.tiny.parser.ccg.rules.ISyntacticBinaryRule;
 import edu.uw.cs.lil.tiny.parser.ccg.rules.ParseRuleResult;
 import edu.uw.cs.lil.tiny.parser.ccg.rules.RuleName.Direction;
 import edu.uw.cs.lil.tiny.parser.ccg.rules.primitivebinary.composition.AbstractComposition;
@@ -57,7 +58,8 @@ import edu.uw.cs.utils.filter.IFilter;
  * @author Luke Zettlemoyer
  */
 public class ForwardTypeRaisedComposition extends
-		AbstractComposition<LogicalExpression> {
+		AbstractComposition<LogicalExpression> implements
+		ISyntacticBinaryRule<LogicalExpression> {
 	private static final String			RULE_LABEL	= "trcomp";
 	private final ForwardTypeRaising	typeRaising;
 	
@@ -142,6 +144,26 @@ public class ForwardTypeRaisedComposition extends
 		return results;
 	}
 	
+	@Override
+	public Syntax applySyntax(Syntax left, Syntax right) {
+		// Same structure checks as the full rule: X (T\X)/Z => T/Z.
+		if (!(right instanceof ComplexSyntax)) {
+			return null;
+		}
+		final ComplexSyntax secondary = (ComplexSyntax) right;
+		if (secondary.getSlash().equals(Slash.BACKWARD)
+				|| !(secondary.getLeft() instanceof ComplexSyntax)
+				|| !((ComplexSyntax) secondary.getLeft()).getSlash().equals(
+						Slash.BACKWARD)
+				|| !((ComplexSyntax) secondary.getLeft()).getRight().equals(
+						left)) {
+			return null;
+		}
+		return new ComplexSyntax(
+				((ComplexSyntax) secondary.getLeft()).getLeft(),
+				secondary.getRight(), secondary.getSlash());
+	}
+	
 	public static class Creator implements
 			IResourceObjectCreator<ForwardTypeRaisedComposition> {
 		
@@ -32,7 +32,7 @@ import edu.uw.cs.lil.tiny.mr.lambda.LogicalExpression;
 import edu.uw.cs.lil.tiny.mr.lambda.Variable;
 import edu.uw.cs.lil.tiny.mr.lambda.visitor.Simplify;
 import edu.uw.cs.lil.tiny.mr.language.type.Type;
-import edu.uw.cs.lil.tiny.parser.ccg.rules.IUnaryParseRule;
+import edu.uw.cs.lil.tiny.parser.ccg.rules.ISyntacticUnaryRule;
 import edu.uw.cs.lil.tiny.parser.ccg.rules.ParseRuleResult;
 import edu.uw.cs.lil.tiny.parser.ccg.rules.RuleName;
 import edu.uw.cs.lil.tiny.parser.ccg.rules.UnaryRuleName;
@@ -44,7 +44,7 @@ import edu.uw.cs.utils.collections.ListUtils;
  * @author Yoav Artzi
  */
 public abstract class AbstractUnaryRuleForThreading implements
-		IUnaryParseRule<LogicalExpression> {
+		ISyntacticUnaryRule<LogicalExpression> {
 	private final Syntax			argumentSyntax;
 	protected final UnaryRuleName	name;
 	
@@ -70,6 +70,11 @@ public abstract class AbstractUnaryRuleForThreading implements
 		return Collections.emptyList();
 	}
 	
+	@Override
+	public Syntax applySyntax(Syntax syntax) {
+		return syntax.equals(getSourceSyntax()) ? getTargetSyntax() : null;
+	}
+	
 	@Override
 	public boolean equals(Object obj) {
 		if (this == obj) {
@@ -24,7 +24,9 @@ import java.util.List;
 import edu.uw.cs.lil.tiny.ccg.categories.Category;
 import edu.uw.cs.lil.tiny.ccg.categories.ComplexCategory;
 import edu.uw.cs.lil.tiny.ccg.categories.ICategoryServices;
+import edu.uw.cs.lil.tiny.ccg.categories.syntax.ComplexSyntax;
 import edu.uw.cs.lil.tiny.ccg.categories.syntax.Slash;
+import edu.uw.cs.lil.tiny.ccg.categories.syntax.Syntax;
 import edu.uw.cs.lil.tiny.parser.ccg.rules.IBinaryParseRule;
 import edu.uw.cs.lil.tiny.parser.ccg.rules.ParseRuleResult;
 import edu.uw.cs.lil.tiny.parser.ccg.rules.RuleName;
@@ -134,4 +136,41 @@ public abstract class AbstractApplication<MR> implements IBinaryParseRule<MR> {
 		
 		return Collections.emptyList();
 	}
+	
+	/**
+	 * Syntax-only application. Over-approximates
+	 * {@link #doApplication(Category, Category, boolean)}, which may still fail
+	 * on the semantics.
+	 * 
+	 * @param backward
+	 *            'true' if we the application direction is reversed.
+	 * @return The resulting syntax, or null if the syntax doesn't combine.
+	 */
+	protected Syntax doSyntacticApplication(Syntax function, Syntax argument,
+			boolean backward) {
+		if (function instanceof ComplexSyntax
+				&& ((ComplexSyntax) function).getSlash() == (backward ? Slash.BACKWARD
+						: Slash.FORWARD)
+				&& ((ComplexSyntax) function).getRight().equals(argument)) {
+			return ((ComplexSyntax) function).getLeft();
+		} else {
+			return null;
+		}
+	}
+	
+	/**
+	 * Index key of the function category: the syntax of its argument.
+	 * 
+	 * @param backward
+	 *            'true' if we the application direction is reversed.
+	 */
+	protected Syntax getFunctionKey(Category<MR> function, boolean backward) {
+		if (function instanceof ComplexCategory
+				&& ((ComplexCategory<MR>) function).getSlash() == (backward ? Slash.BACKWARD
+						: Slash.FORWARD)) {
+			return ((ComplexCategory<MR>) function).getSyntax().getRight();
+		} else {
+			return null;
+		}
+	}
 }
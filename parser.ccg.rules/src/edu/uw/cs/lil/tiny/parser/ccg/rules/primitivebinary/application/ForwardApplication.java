@@ -22,11 +22,14 @@ import java.util.Collection;
 
 import edu.uw.cs.lil.tiny.ccg.categories.Category;
 import edu.uw.cs.lil.tiny.ccg.categories.ICategoryServices;
+import edu.uw.cs.lil.tiny.ccg.categories.syntax.Syntax;
 import edu.uw.cs.lil.tiny.explat.IResourceRepository;
 import edu.uw.cs.lil.tiny.explat.ParameterizedExperiment;
 import edu.uw.cs.lil.tiny.explat.ParameterizedExperiment.Parameters;
 import edu.uw.cs.lil.tiny.explat.resources.IResourceObjectCreator;
 import edu.uw.cs.lil.tiny.explat.resources.usage.ResourceUsage;
+import edu.uw.cs.lil.tiny.parser.ccg.rules.ISyntacticBinaryRule;
+import edu.uw.cs.lil.tiny.parser.ccg.rules.ISyntaxIndexedBinaryRule;
 import edu.uw.cs.lil.tiny.parser.ccg.rules.ParseRuleResult;
 import edu.uw.cs.lil.tiny.parser.ccg.rules.RuleName.Direction;
 
@@ -36,7 +39,8 @@ import edu.uw.cs.lil.tiny.parser.ccg.rules.RuleName.Direction;
  * <li>X/Y Y => X</li>
  * </ul>
  */
-public class ForwardApplication<MR> extends AbstractApplication<MR> {
+public class ForwardApplication<MR> extends AbstractApplication<MR> implements
+		ISyntaxIndexedBinaryRule<MR>, ISyntacticBinaryRule<MR> {
 	
 	public ForwardApplication(ICategoryServices<MR> categoryServices) {
 		super(RULE_LABEL, Direction.FORWARD, categoryServices);
@@ -48,6 +52,21 @@ public class ForwardApplication<MR> extends AbstractApplication<MR> {
 		return doApplication(left, right, false);
 	}
 	
+	@Override
+	public Syntax applySyntax(Syntax left, Syntax right) {
+		return doSyntacticApplication(left, right, false);
+	}
+	
+	@Override
+	public Syntax getLeftKey(Category<MR> left) {
+		return getFunctionKey(left, false);
+	}
+	
+	@Override
+	public Syntax getRightKey(Category<MR> right) {
+		return right.getSyntax();
+	}
+	
 	public static class Creator<MR> implements
 			IResourceObjectCreator<ForwardApplication<MR>> {
 		
@@ -24,7 +24,9 @@ import java.util.List;
 import edu.uw.cs.lil.tiny.ccg.categories.Category;
 import edu.uw.cs.lil.tiny.ccg.categories.ComplexCategory;
 import edu.uw.cs.lil.tiny.ccg.categories.ICategoryServices;
+import edu.uw.cs.lil.tiny.ccg.categories.syntax.ComplexSyntax;
 import edu.uw.cs.lil.tiny.ccg.categories.syntax.Slash;
+import edu.uw.cs.lil.tiny.ccg.categories.syntax.Syntax;
 import edu.uw.cs.lil.tiny.parser.ccg.rules.IBinaryParseRule;
 import edu.uw.cs.lil.tiny.parser.ccg.rules.ParseRuleResult;
 import edu.uw.cs.lil.tiny.parser.ccg.rules.RuleName;
@@ -143,4 +145,84 @@ public abstract class AbstractComposition<MR> implements IBinaryParseRule<MR> {
 		
 		return Collections.emptyList();
 	}
+	
+	/**
+	 * Syntax-only composition. Over-approximates
+	 * {@link #doComposition(Category, Category, boolean)}: ignores the
+	 * restrictive composition direction setting of the category services and
+	 * the semantics.
+	 * 
+	 * @param backward
+	 *            'true' if the composition direction is reversed.
+	 * @return The resulting syntax, or null if the syntax doesn't combine.
+	 */
+	protected Syntax doSyntacticComposition(Syntax primary, Syntax secondary,
+			boolean backward) {
+		if (primary instanceof ComplexSyntax
+				&& secondary instanceof ComplexSyntax
+				&& ((ComplexSyntax) primary).getSlash() == (backward ? Slash.BACKWARD
+						: Slash.FORWARD)) {
+			return composeSyntax((ComplexSyntax) primary,
+					(ComplexSyntax) secondary, order);
+		} else {
+			return null;
+		}
+	}
+	
+	/**
+	 * Index key of the primary category: the syntax of its argument.
+	 * 
+	 * @param backward
+	 *            'true' if the composition direction is reversed.
+	 */
+	protected Syntax getPrimaryKey(Category<MR> primary, boolean backward) {
+		if (primary instanceof ComplexCategory
+				&& ((ComplexCategory<MR>) primary).getSlash() == (backward ? Slash.BACKWARD
+						: Slash.FORWARD)) {
+			return ((ComplexCategory<MR>) primary).getSyntax().getRight();
+		} else {
+			return null;
+		}
+	}
+	
+	/**
+	 * Index key of the secondary category: the result syntax at the depth of
+	 * the composition order.
+	 */
+	protected Syntax getSecondaryKey(Category<MR> secondary) {
+		if (!(secondary instanceof ComplexCategory)) {
+			return null;
+		}
+		ComplexSyntax currentSyntax = ((ComplexCategory<MR>) secondary)
+				.getSyntax();
+		for (int i = 0; i < order; ++i) {
+			if (!(currentSyntax.getLeft() instanceof ComplexSyntax)) {
+				return null;
+			}
+			currentSyntax = (ComplexSyntax) currentSyntax.getLeft();
+		}
+		return currentSyntax.getLeft();
+	}
+	
+	/**
+	 * Compose the primary syntax into the secondary syntax at the given depth.
+	 */
+	private Syntax composeSyntax(ComplexSyntax primary, ComplexSyntax secondary,
+			int depth) {
+		if (depth == 0) {
+			if (secondary.getLeft().equals(primary.getRight())) {
+				return new ComplexSyntax(primary.getLeft(), secondary.getRight(),
+						secondary.getSlash());
+			} else {
+				return null;
+			}
+		}
+		if (!(secondary.getLeft() instanceof ComplexSyntax)) {
+			return null;
+		}
+		final Syntax composed = composeSyntax(primary,
+				(ComplexSyntax) secondary.getLeft(), depth - 1);
+		return composed == null ? null : new ComplexSyntax(composed,
+				secondary.getRight(), secondary.getSlash());
+	}
 }
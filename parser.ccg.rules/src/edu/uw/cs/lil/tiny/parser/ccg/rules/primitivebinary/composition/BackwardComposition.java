@@ -22,11 +22,14 @@ import java.util.Collection;
 
 import edu.uw.cs.lil.tiny.ccg.categories.Category;
 import edu.uw.cs.lil.tiny.ccg.categories.ICategoryServices;
+import edu.uw.cs.lil.tiny.ccg.categories.syntax.Syntax;
 import edu.uw.cs.lil.tiny.explat.IResourceRepository;
 import edu.uw.cs.lil.tiny.explat.ParameterizedExperiment;
 import edu.uw.cs.lil.tiny.explat.ParameterizedExperiment.Parameters;
 import edu.uw.cs.lil.tiny.explat.resources.IResourceObjectCreator;
 import edu.uw.cs.lil.tiny.explat.resources.usage.ResourceUsage;
+import edu.uw.cs.lil.tiny.parser.ccg.rules.ISyntacticBinaryRule;
+import edu.uw.cs.lil.tiny.parser.ccg.rules.ISyntaxIndexedBinaryRule;
 import edu.uw.cs.lil.tiny.parser.ccg.rules.ParseRuleResult;
 import edu.uw.cs.lil.tiny.parser.ccg.rules.RuleName.Direction;
 
@@ -38,7 +41,8 @@ import edu.uw.cs.lil.tiny.parser.ccg.rules.RuleName.Direction;
  * 
  * @author Yoav Artzi
  */
-public class BackwardComposition<MR> extends AbstractComposition<MR> {
+public class BackwardComposition<MR> extends AbstractComposition<MR> implements
+		ISyntaxIndexedBinaryRule<MR>, ISyntacticBinaryRule<MR> {
 	
 	public BackwardComposition(ICategoryServices<MR> categoryServices, int order) {
 		super(RULE_LABEL, Direction.BACKWARD, order, categoryServices);
@@ -50,6 +54,21 @@ public class BackwardComposition<MR> extends AbstractComposition<MR> {
 		return doComposition(right, left, true);
 	}
 	
+	@Override
+	public Syntax applySyntax(Syntax left, Syntax right) {
+		return doSyntacticComposition(right, left, true);
+	}
+	
+	@Override
+	public Syntax getLeftKey(Category<MR> left) {
+		return getSecondaryKey(left);
+	}
+	
+	@Override
+	public Syntax getRightKey(Category<MR> right) {
+		return getPrimaryKey(right, true);
+	}
+	
 	public static class Creator<MR> implements
 			IResourceObjectCreator<BackwardComposition<MR>> {
 		
@@ -23,6 +23,7 @@ import java.util.List;
 
 import edu.uw.cs.lil.tiny.ccg.categories.Category;
 import edu.uw.cs.lil.tiny.ccg.categories.ICategoryServices;
+import edu.uw.cs.lil.tiny.ccg.categories.syntax.Syntax;
 import edu.uw.cs.lil.tiny.parser.ccg.rules.IBinaryParseRule;
 import edu.uw.cs.lil.tiny.parser.ccg.rules.ParseRuleResult;
 import edu.uw.cs.lil.tiny.parser.ccg.rules.RuleName;
@@ -118,4 +119,19 @@ public abstract class AbstractSkippingRule<MR> implements IBinaryParseRule<MR> {
 		
 		return Collections.emptyList();
 	}
+	
+	/**
+	 * Syntax-only skipping. Over-approximates
+	 * {@link #attemptSkipping(Category, Category, boolean)}, since it can't
+	 * tell apart the empty category from other categories with the same
+	 * syntax.
+	 */
+	protected Syntax attemptSyntacticSkipping(Syntax left, Syntax right,
+			boolean backward) {
+		if (backward) {
+			return left.equals(emptyCategory.getSyntax()) ? right : null;
+		} else {
+			return right.equals(emptyCategory.getSyntax()) ? left : null;
+		}
+	}
 }
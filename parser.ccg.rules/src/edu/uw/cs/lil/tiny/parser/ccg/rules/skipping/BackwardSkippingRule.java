@@ -22,6 +22,8 @@ import java.util.Collection;
 
 import edu.uw.cs.lil.tiny.ccg.categories.Category;
 import edu.uw.cs.lil.tiny.ccg.categories.ICategoryServices;
+import edu.uw.cs.lil.tiny.ccg.categories.syntax.Syntax;
+import edu.uw.cs.lil.tiny.parser.ccg.rules.ISyntacticBinaryRule;
 import edu.uw.cs.lil.tiny.parser.ccg.rules.ParseRuleResult;
 import edu.uw.cs.lil.tiny.parser.ccg.rules.RuleName.Direction;
 
@@ -37,7 +39,8 @@ import edu.uw.cs.lil.tiny.parser.ccg.rules.RuleName.Direction;
  * 
  * @author Yoav Artzi
  */
-public class BackwardSkippingRule<MR> extends AbstractSkippingRule<MR> {
+public class BackwardSkippingRule<MR> extends AbstractSkippingRule<MR>
+		implements ISyntacticBinaryRule<MR> {
 	
 	public BackwardSkippingRule(ICategoryServices<MR> categoryServices) {
 		super(Direction.BACKWARD, categoryServices);
@@ -49,4 +52,9 @@ public class BackwardSkippingRule<MR> extends AbstractSkippingRule<MR> {
 		return attemptSkipping(left, right, true);
 	}
 	
+	@Override
+	public Syntax applySyntax(Syntax left, Syntax right) {
+		return attemptSyntacticSkipping(left, right, true);
+	}
+	
 }
@@ -22,6 +22,8 @@ import java.util.Collection;
 
 import edu.uw.cs.lil.tiny.ccg.categories.Category;
 import edu.uw.cs.lil.tiny.ccg.categories.ICategoryServices;
+import edu.uw.cs.lil.tiny.ccg.categories.syntax.Syntax;
+import edu.uw.cs.lil.tiny.parser.ccg.rules.ISyntacticBinaryRule;
 import edu.uw.cs.lil.tiny.parser.ccg.rules.ParseRuleResult;
 import edu.uw.cs.lil.tiny.parser.ccg.rules.RuleName.Direction;
 
@@ -37,7 +39,8 @@ import edu.uw.cs.lil.tiny.parser.ccg.rules.RuleName.Direction;
  * 
  * @author Yoav Artzi
  */
-public class ForwardSkippingRule<MR> extends AbstractSkippingRule<MR> {
+public class ForwardSkippingRule<MR> extends AbstractSkippingRule<MR>
+		implements ISyntacticBinaryRule<MR> {
 	
 	public ForwardSkippingRule(ICategoryServices<MR> categoryServices) {
 		super(Direction.FORWARD, categoryServices);
@@ -49,4 +52,9 @@ public class ForwardSkippingRule<MR> extends AbstractSkippingRule<MR> {
 		return attemptSkipping(left, right, false);
 	}
 	
+	@Override
+	public Syntax applySyntax(Syntax left, Syntax right) {
+		return attemptSyntacticSkipping(left, right, false);
+	}
+	
 }
@@ -12,7 +12,7 @@ import edu.uw.cs.lil.tiny.explat.ParameterizedExperiment;
 import edu.uw.cs.lil.tiny.explat.ParameterizedExperiment.Parameters;
 import edu.uw.cs.lil.tiny.explat.resources.IResourceObjectCreator;
 import edu.uw.cs.lil.tiny.explat.resources.usage.ResourceUsage;
-import edu.uw.cs.lil.tiny.parser.ccg.rules.IUnaryParseRule;
+import edu.uw.cs.lil.tiny.parser.ccg.rules.ISyntacticUnaryRule;
 import edu.uw.cs.lil.tiny.parser.ccg.rules.ParseRuleResult;
 import edu.uw.cs.lil.tiny.parser.ccg.rules.RuleName;
 import edu.uw.cs.lil.tiny.parser.ccg.rules.UnaryRuleName;
@@ -26,7 +26,7 @@ import edu.uw.cs.utils.collections.ListUtils;
  * @param <MR>
  *            Meaning representation.
  */
-public class ApplicationTypeShifting<MR> implements IUnaryParseRule<MR> {
+public class ApplicationTypeShifting<MR> implements ISyntacticUnaryRule<MR> {
 	
 	private final ICategoryServices<MR>	categoryServices;
 	private final ComplexCategory<MR>	function;
@@ -52,6 +52,12 @@ public class ApplicationTypeShifting<MR> implements IUnaryParseRule<MR> {
 		}
 	}
 	
+	@Override
+	public Syntax applySyntax(Syntax syntax) {
+		return syntax.equals(inputSyntax) ? function.getSyntax().getLeft()
+				: null;
+	}
+	
 	@Override
 	public RuleName getName() {
 		return ruleName;
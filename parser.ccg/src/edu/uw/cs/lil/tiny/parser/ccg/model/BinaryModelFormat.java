@@ -0,0 +1,304 @@
+/*******************************************************************************
+ * UW SPF - The University of Washington Semantic Parsing Framework
+ * <p>
+ * Copyright (C) 2013 Yoav Artzi
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ ******************************************************************************/
+package edu.uw.cs.lil.tiny.parser.ccg.model;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.uw.cs.lil.tiny.base.hashvector.HashVectorFactory;
+import edu.uw.cs.lil.tiny.base.hashvector.IHashVector;
+import edu.uw.cs.lil.tiny.base.hashvector.IHashVector.EntryFunction;
+import edu.uw.cs.lil.tiny.base.hashvector.KeyArgs;
+import edu.uw.cs.lil.tiny.ccg.lexicon.ILexicon;
+import edu.uw.cs.lil.tiny.data.IDataItem;
+import edu.uw.cs.lil.tiny.parser.ccg.model.lexical.IIndependentLexicalFeatureSet;
+import edu.uw.cs.lil.tiny.parser.ccg.model.parse.IParseFeatureSet;
+
+/**
+ * Versioned binary model format. The file is composed of:
+ * <ol>
+ * <li>Header: magic number, format version and the file offset of the weights.
+ * </li>
+ * <li>String table: all strings used by feature keys, each stored once.</li>
+ * <li>Lexicon and feature sets: serialized as Java objects in a single stream,
+ * so references between them are preserved.</li>
+ * <li>Weight keys: for each weight, its arity and the string table indices of
+ * its arguments.</li>
+ * <li>Weights: a dense array of doubles, aligned to 8 bytes, in the order of
+ * the keys.</li>
+ * </ol>
+ * The weights section can be memory-mapped, so the weight values are not
+ * loaded into the heap and are shared between processes that map the same
+ * file.
+ * 
+ * @author Yoav Artzi
+ */
+class BinaryModelFormat {
+	public static final int		MAGIC		= 0x53504D46;
+	
+	public static final int		VERSION		= 1;
+	
+	/**
+	 * Magic number, version and weights offset.
+	 */
+	private static final int	HEADER_SIZE	= 16;
+	
+	private BinaryModelFormat() {
+		// Service class. Not instantiatable.
+	}
+	
+	/**
+	 * Checks if the given file starts with the magic number of the binary
+	 * format.
+	 */
+	public static boolean isBinaryModel(File file) throws IOException {
+		if (file.length() < HEADER_SIZE) {
+			return false;
+		}
+		final DataInputStream in = new DataInputStream(new FileInputStream(
+				file));
+		try {
+			return in.readInt() == MAGIC;
+		} finally {
+			in.close();
+		}
+	}
+	
+	/**
+	 * Read a model from a file.
+	 * 
+	 * @param mapWeights
+	 *            If 'true', the weights are accessed through a read-only
+	 *            memory mapping of the file, and updated weights are copied to
+	 *            the heap when first modified. Otherwise, they are copied to a
+	 *            heap-based vector. The file itself is never modified.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <DI extends IDataItem<?>, MR> Model<DI, MR> read(File file,
+			boolean mapWeights) throws IOException, ClassNotFoundException {
+		final RandomAccessFile randomAccessFile = new RandomAccessFile(file,
+				"r");
+		try {
+			final FileChannel channel = randomAccessFile.getChannel();
+			final DataInputStream in = new DataInputStream(
+					new BufferedInputStream(Channels.newInputStream(channel)));
+			
+			// Header
+			if (in.readInt() != MAGIC) {
+				throw new IOException("Not a binary model file: " + file);
+			}
+			final int version = in.readInt();
+			if (version != VERSION) {
+				throw new IOException(String.format(
+						"Unsupported binary model version: %d (expected %d)",
+						version, VERSION));
+			}
+			final long weightsOffset = in.readLong();
+			
+			// String table
+			final String[] strings = new String[in.readInt()];
+			for (int i = 0; i < strings.length; ++i) {
+				final byte[] bytes = new byte[in.readInt()];
+				in.readFully(bytes);
+				strings[i] = new String(bytes, "UTF-8");
+			}
+			
+			// Lexicon and feature sets
+			final byte[] objectBytes = new byte[in.readInt()];
+			in.readFully(objectBytes);
+			final ObjectInputStream objectInput = new ObjectInputStream(
+					new ByteArrayInputStream(objectBytes));
+			final ILexicon<MR> lexicon = (ILexicon<MR>) objectInput
+					.readObject();
+			final List<IIndependentLexicalFeatureSet<DI, MR>> lexicalFeatures = (List<IIndependentLexicalFeatureSet<DI, MR>>) objectInput
+					.readObject();
+			final List<IParseFeatureSet<DI, MR>> parseFeatures = (List<IParseFeatureSet<DI, MR>>) objectInput
+					.readObject();
+			objectInput.close();
+			
+			// Weight keys
+			final KeyArgs[] keys = new KeyArgs[in.readInt()];
+			for (int i = 0; i < keys.length; ++i) {
+				keys[i] = readKey(in, strings);
+			}
+			
+			// Weights
+			final DoubleBuffer weights = channel
+					.map(MapMode.READ_ONLY, weightsOffset, keys.length * 8L)
+					.order(ByteOrder.BIG_ENDIAN).asDoubleBuffer();
+			final IHashVector theta;
+			if (mapWeights) {
+				theta = HashVectorFactory.createMapped(keys, weights);
+			} else {
+				theta = HashVectorFactory.create();
+				for (int i = 0; i < keys.length; ++i) {
+					theta.set(keys[i], weights.get(i));
+				}
+			}
+			
+			return new Model<DI, MR>(lexicalFeatures, parseFeatures, lexicon,
+					theta);
+		} finally {
+			randomAccessFile.close();
+		}
+	}
+	
+	/**
+	 * Write a model to a file.
+	 */
+	public static <DI extends IDataItem<?>, MR> void write(Model<DI, MR> model,
+			File file) throws IOException {
+		// Collect the weights
+		final List<KeyArgs> keys = new ArrayList<KeyArgs>();
+		final List<Double> weights = new ArrayList<Double>();
+		model.getTheta().iterate(new EntryFunction() {
+			
+			@Override
+			public void apply(KeyArgs key, double value) {
+				keys.add(key);
+				weights.add(value);
+			}
+		});
+		
+		// Create the string table
+		final Map<String, Integer> stringIndices = new HashMap<String, Integer>();
+		final List<String> strings = new ArrayList<String>();
+		for (final KeyArgs key : keys) {
+			for (final String arg : getArgs(key)) {
+				if (!stringIndices.containsKey(arg)) {
+					stringIndices.put(arg, strings.size());
+					strings.add(arg);
+				}
+			}
+		}
+		
+		// Write all sections before the weights to memory, to compute the
+		// weights offset
+		final ByteArrayOutputStream sectionBytes = new ByteArrayOutputStream();
+		final DataOutputStream sections = new DataOutputStream(sectionBytes);
+		
+		// String table
+		sections.writeInt(strings.size());
+		for (final String string : strings) {
+			final byte[] bytes = string.getBytes("UTF-8");
+			sections.writeInt(bytes.length);
+			sections.write(bytes);
+		}
+		
+		// Lexicon and feature sets
+		final ByteArrayOutputStream objectBytes = new ByteArrayOutputStream();
+		final ObjectOutputStream objectOutput = new ObjectOutputStream(
+				objectBytes);
+		objectOutput.writeObject(model.getLexicon());
+		objectOutput.writeObject(new ArrayList<IIndependentLexicalFeatureSet<DI, MR>>(
+				model.getLexicalFeatures()));
+		objectOutput.writeObject(new ArrayList<IParseFeatureSet<DI, MR>>(
+				model.getParseFeatures()));
+		objectOutput.close();
+		sections.writeInt(objectBytes.size());
+		objectBytes.writeTo(sections);
+		
+		// Weight keys
+		sections.writeInt(keys.size());
+		for (final KeyArgs key : keys) {
+			final List<String> args = getArgs(key);
+			sections.writeByte(args.size());
+			for (final String arg : args) {
+				sections.writeInt(stringIndices.get(arg));
+			}
+		}
+		sections.close();
+		
+		// Align the weights to 8 bytes, so they can be mapped as doubles
+		final int padding = (8 - (HEADER_SIZE + sectionBytes.size()) % 8) % 8;
+		final long weightsOffset = HEADER_SIZE + sectionBytes.size() + padding;
+		
+		final DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(file)));
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeLong(weightsOffset);
+			sectionBytes.writeTo(out);
+			for (int i = 0; i < padding; ++i) {
+				out.writeByte(0);
+			}
+			for (final Double weight : weights) {
+				out.writeDouble(weight);
+			}
+		} finally {
+			out.close();
+		}
+	}
+	
+	private static List<String> getArgs(KeyArgs key) {
+		final List<String> args = new ArrayList<String>(5);
+		for (final String arg : new String[] { key.getArg1(), key.getArg2(),
+				key.getArg3(), key.getArg4(), key.getArg5() }) {
+			if (arg == null) {
+				break;
+			}
+			args.add(arg);
+		}
+		return args;
+	}
+	
+	private static KeyArgs readKey(DataInputStream in, String[] strings)
+			throws IOException {
+		final int arity = in.readByte();
+		final String[] args = new String[arity];
+		for (int i = 0; i < arity; ++i) {
+			args[i] = strings[in.readInt()];
+		}
+		switch (arity) {
+			case 1:
+				return new KeyArgs(args[0]);
+			case 2:
+				return new KeyArgs(args[0], args[1]);
+			case 3:
+				return new KeyArgs(args[0], args[1], args[2]);
+			case 4:
+				return new KeyArgs(args[0], args[1], args[2], args[3]);
+			case 5:
+				return new KeyArgs(args[0], args[1], args[2], args[3], args[4]);
+			default:
+				throw new IOException("Invalid key arity: " + arity);
+		}
+	}
+}
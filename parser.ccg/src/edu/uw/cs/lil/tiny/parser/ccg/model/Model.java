@@ -103,13 +103,33 @@ public class Model<DI extends IDataItem<?>, MR> implements
 	}
 	
 	/**
-	 * Read model object from a file.
+	 * Read model object from a file. Supports both Java serialization and the
+	 * binary format (see {@link #writeBinary(Model, File)}). The weights of
+	 * binary models are memory-mapped.
 	 * 
 	 * @throws ClassNotFoundException
 	 * @throws IOException
 	 */
 	public static <DI extends IDataItem<?>, MR> Model<DI, MR> read(File file)
 			throws ClassNotFoundException, IOException {
+		return read(file, true);
+	}
+	
+	/**
+	 * Read model object from a file. Supports both Java serialization and the
+	 * binary format (see {@link #writeBinary(Model, File)}).
+	 * 
+	 * @param mapWeights
+	 *            For binary models, memory-map the weights instead of loading
+	 *            them into the heap.
+	 * @throws ClassNotFoundException
+	 * @throws IOException
+	 */
+	public static <DI extends IDataItem<?>, MR> Model<DI, MR> read(File file,
+			boolean mapWeights) throws ClassNotFoundException, IOException {
+		if (BinaryModelFormat.isBinaryModel(file)) {
+			return BinaryModelFormat.read(file, mapWeights);
+		}
 		final ObjectInput input = new ObjectInputStream(
 				new BufferedInputStream(new FileInputStream(file)));
 		@SuppressWarnings("unchecked")
@@ -134,6 +154,18 @@ public class Model<DI extends IDataItem<?>, MR> implements
 		os.close();
 	}
 	
+	/**
+	 * Store model object in a file using the versioned binary format. The
+	 * weights are stored as a dense array that can be memory-mapped when the
+	 * model is read.
+	 * 
+	 * @throws IOException
+	 */
+	public static <DI extends IDataItem<?>, MR> void writeBinary(
+			Model<DI, MR> model, File file) throws IOException {
+		BinaryModelFormat.write(model, file);
+	}
+	
 	/**
 	 * Adds a batch of lexical items. The items are indifferent to one another
 	 * when getting their initial scores.
@@ -331,7 +363,9 @@ public class Model<DI extends IDataItem<?>, MR> implements
 				try {
 					LOG.info("Loading model from: %s", params.getAsFile("file")
 							.getAbsolutePath());
-					return Model.read(params.getAsFile("file"));
+					return Model.read(params.getAsFile("file"),
+							params.contains("mmap") ? params
+									.getAsBoolean("mmap") : true);
 				} catch (final ClassNotFoundException e) {
 					throw new RuntimeException(e);
 				} catch (final IOException e) {
@@ -374,6 +408,10 @@ public class Model<DI extends IDataItem<?>, MR> implements
 			return new ResourceUsage.Builder(type(), Model.class)
 					.setDescription(
 							"Parsing model, including lexicon, features and a weight vector")
+					.addParam("file", "file",
+							"Load the model from a file, either Java serialized or in binary format")
+					.addParam("mmap", "boolean",
+							"Memory-map the weights of a binary model file (default: true)")
 					.addParam("lexicon", "id", "Lexicon to use with this model")
 					.addParam("lexicalFeatures", "[id]",
 							"Lexical feature sets to use (e.g., 'lfs1,lfs2,lfs3')")
@@ -0,0 +1,37 @@
+/*******************************************************************************
+ * UW SPF - The University of Washington Semantic Parsing Framework
+ * <p>
+ * Copyright (C) 2013 Yoav Artzi
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ ******************************************************************************/
+package edu.uw.cs.lil.tiny.parser.ccg.rules;
+
+import edu.uw.cs.lil.tiny.ccg.categories.syntax.Syntax;
+
+/**
+ * Unary parse rule that can be applied to syntax alone, ignoring semantics.
+ * Used for coarse syntax-only parsing. The syntactic application must
+ * over-approximate the rule (see {@link ISyntacticBinaryRule}).
+ * 
+ * @author Yoav Artzi
+ */
+public interface ISyntacticUnaryRule<MR> extends IUnaryParseRule<MR> {
+	
+	/**
+	 * @return The syntax of the result, or null if the rule can't be applied
+	 *         to a category with the given syntax.
+	 */
+	Syntax applySyntax(Syntax syntax);
+}
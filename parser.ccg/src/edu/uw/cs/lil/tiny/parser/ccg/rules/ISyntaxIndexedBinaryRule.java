@@ -0,0 +1,45 @@
+/*******************************************************************************
+ * UW SPF - The University of Washington Semantic Parsing Framework
+ * <p>
+ * Copyright (C) 2013 Yoav Artzi
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ ******************************************************************************/
+package edu.uw.cs.lil.tiny.parser.ccg.rules;
+
+import edu.uw.cs.lil.tiny.ccg.categories.Category;
+import edu.uw.cs.lil.tiny.ccg.categories.syntax.Syntax;
+
+/**
+ * Binary parse rule that declares which pairs of categories it may combine
+ * based on their syntax. The rule may only produce a result for a left and
+ * right categories if their keys are equal. Parsers use the keys to index
+ * categories and avoid trying the rule on incompatible pairs.
+ * 
+ * @author Yoav Artzi
+ */
+public interface ISyntaxIndexedBinaryRule<MR> extends IBinaryParseRule<MR> {
+	
+	/**
+	 * @return The key of the left category, or null if the rule can't be
+	 *         applied with this category on the left.
+	 */
+	Syntax getLeftKey(Category<MR> left);
+	
+	/**
+	 * @return The key of the right category, or null if the rule can't be
+	 *         applied with this category on the right.
+	 */
+	Syntax getRightKey(Category<MR> right);
+}
@@ -18,7 +18,13 @@
  ******************************************************************************/
 package edu.uw.cs.lil.tiny.test.exec;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import edu.uw.cs.lil.tiny.data.IDataItem;
 import edu.uw.cs.lil.tiny.data.ILabeledDataItem;
@@ -30,11 +36,15 @@ import edu.uw.cs.lil.tiny.explat.IResourceRepository;
 import edu.uw.cs.lil.tiny.explat.ParameterizedExperiment.Parameters;
 import edu.uw.cs.lil.tiny.explat.resources.IResourceObjectCreator;
 import edu.uw.cs.lil.tiny.explat.resources.usage.ResourceUsage;
+import edu.uw.cs.lil.tiny.test.ItemLog;
+import edu.uw.cs.lil.tiny.test.stats.DeferredTestingStatistics;
 import edu.uw.cs.lil.tiny.test.stats.ITestingStatistics;
 import edu.uw.cs.utils.collections.ListUtils;
+import edu.uw.cs.utils.composites.Pair;
 import edu.uw.cs.utils.filter.IFilter;
 import edu.uw.cs.utils.log.ILogger;
 import edu.uw.cs.utils.log.LoggerFactory;
+import edu.uw.cs.utils.log.thread.LoggingThreadFactory;
 
 /**
  * Generic execution tester for {@link IExec}.
@@ -49,26 +59,41 @@ public class ExecTester<DI extends IDataItem<?>, RESULT> {
 																	.create(ExecTester.class
 																			.getName());
 	
+	/**
+	 * Number of items tested concurrently. When testing with more than one
+	 * thread, logs and statistics are still written in the order of the data.
+	 */
+	private final int									numThreads;
+	
 	private final IFilter<ILabeledDataItem<DI, RESULT>>	skipExecutionFilter;
 	
-	private ExecTester(IFilter<ILabeledDataItem<DI, RESULT>> skipParsingFilter) {
+	private ExecTester(IFilter<ILabeledDataItem<DI, RESULT>> skipParsingFilter,
+			int numThreads) {
 		this.skipExecutionFilter = skipParsingFilter;
-		LOG.info("Init ExecTester");
+		this.numThreads = numThreads;
+		LOG.info("Init ExecTester: numThreads=%d", numThreads);
 	}
 	
 	public void test(IExec<DI, RESULT> exec,
 			IDataCollection<? extends ILabeledDataItem<DI, RESULT>> dataset,
 			ITestingStatistics<DI, RESULT> stats) {
+		if (numThreads > 1) {
+			testConcurrently(exec, dataset, stats);
+			return;
+		}
+		
 		int itemCounter = 0;
+		// Log directly, there's no need to buffer when testing sequentially
+		final ItemLog log = new ItemLog(LOG);
 		for (final ILabeledDataItem<DI, RESULT> item : dataset) {
 			++itemCounter;
-			test(itemCounter, item, exec, stats);
+			test(itemCounter, item, exec, stats, log);
 		}
 	}
 	
 	private void processSingleBestParse(ILabeledDataItem<DI, RESULT> dataItem,
 			final IExecOutput<RESULT> execOutput, IExecution<RESULT> execution,
-			boolean sloppy, ITestingStatistics<DI, RESULT> stats) {
+			boolean sloppy, ITestingStatistics<DI, RESULT> stats, ItemLog log) {
 		final RESULT label = execution.getResult();
 		
 		// Update statistics
@@ -80,38 +105,39 @@ public class ExecTester<DI extends IDataItem<?>, RESULT> {
 		
 		if (dataItem.isCorrect(label)) {
 			// A correct parse
-			LOG.info("CORRECT: %s", execution.toString(true));
+			log.info("CORRECT: %s", execution.toString(true));
 		} else {
 			// One parse, but a wrong one
-			LOG.info("WRONG: %s", execution.toString(true));
+			log.info("WRONG: %s", execution.toString(true));
 			
 			// Check if we had the correct parse and it just wasn't the best
 			final List<IExecution<RESULT>> correctExecs = execOutput
 					.getExecutions(dataItem.getLabel());
-			LOG.info("Had correct result: %s", !correctExecs.isEmpty());
+			log.info("Had correct result: %s", !correctExecs.isEmpty());
 			for (final IExecution<RESULT> correctExec : correctExecs) {
-				LOG.info(correctExec.toString(true));
+				log.info(correctExec.toString(true));
 			}
 			
 		}
 	}
 	
 	private void test(int itemCounter, ILabeledDataItem<DI, RESULT> dataItem,
-			IExec<DI, RESULT> exec, ITestingStatistics<DI, RESULT> stats) {
-		LOG.info("%d : ==================", itemCounter);
-		LOG.info("%s", dataItem);
+			IExec<DI, RESULT> exec, ITestingStatistics<DI, RESULT> stats,
+			ItemLog log) {
+		log.info("%d : ==================", itemCounter);
+		log.info("%s", dataItem);
 		
 		// Try a simple model parse
 		final IExecOutput<RESULT> execOutput = exec.execute(dataItem
 				.getSample());
-		LOG.info("Test execution time %.2f", execOutput.getExecTime() / 1000.0);
+		log.info("Test execution time %.2f", execOutput.getExecTime() / 1000.0);
 		
 		final List<IExecution<RESULT>> bestExecs = execOutput
 				.getMaxExecutions();
 		if (bestExecs.size() == 1) {
 			// Case we have a single execution
 			processSingleBestParse(dataItem, execOutput, bestExecs.get(0),
-					false, stats);
+					false, stats, log);
 		} else if (bestExecs.size() > 1) {
 			// Multiple top executions
 			
@@ -128,41 +154,41 @@ public class ExecTester<DI extends IDataItem<?>, RESULT> {
 			// There are more than one equally high scoring
 			// logical forms. If this is the case, we abstain
 			// from returning a result.
-			LOG.info("too many results");
-			LOG.info("%d results:", bestExecs.size());
+			log.info("too many results");
+			log.info("%d results:", bestExecs.size());
 			for (final IExecution<RESULT> execution : bestExecs) {
-				LOG.info(execution.toString(true));
+				log.info(execution.toString(true));
 			}
 			// Check if we had the correct parse and it just wasn't the best
 			final List<IExecution<RESULT>> correctExecs = execOutput
 					.getExecutions(dataItem.getLabel());
-			LOG.info("Had correct result: %s", !correctExecs.isEmpty());
+			log.info("Had correct result: %s", !correctExecs.isEmpty());
 			for (final IExecution<RESULT> correctExec : correctExecs) {
-				LOG.info(correctExec.toString(true));
+				log.info(correctExec.toString(true));
 			}
 		} else {
 			// No parses
-			LOG.info("no results");
+			log.info("no results");
 			
 			// Update stats
 			stats.recordNoParse(dataItem, dataItem.getLabel());
 			
 			// Potentially re-execute -- sloppy execution
-			LOG.info("no parses");
+			log.info("no parses");
 			if (skipExecutionFilter.isValid(dataItem)) {
 				final IExecOutput<RESULT> sloppyExecOutput = exec.execute(
 						dataItem.getSample(), true);
-				LOG.info("SLOPPY execution time %f",
+				log.info("SLOPPY execution time %f",
 						sloppyExecOutput.getExecTime() / 1000.0);
 				final List<IExecution<RESULT>> bestSloppyExecutions = sloppyExecOutput
 						.getMaxExecutions();
 				
 				if (bestSloppyExecutions.size() == 1) {
 					processSingleBestParse(dataItem, sloppyExecOutput,
-							bestSloppyExecutions.get(0), true, stats);
+							bestSloppyExecutions.get(0), true, stats, log);
 				} else if (bestSloppyExecutions.isEmpty()) {
 					// No results
-					LOG.info("no results");
+					log.info("no results");
 					
 					stats.recordNoParseWithSkipping(dataItem,
 							dataItem.getLabel());
@@ -177,28 +203,74 @@ public class ExecTester<DI extends IDataItem<?>, RESULT> {
 								}
 							}));
 					
-					LOG.info("WRONG: %d results", bestSloppyExecutions.size());
+					log.info("WRONG: %d results", bestSloppyExecutions.size());
 					for (final IExecution<RESULT> execution : bestSloppyExecutions) {
-						LOG.info(execution.toString(true));
+						log.info(execution.toString(true));
 					}
 					// Check if we had the correct execution and it just wasn't
 					// the best
 					final List<IExecution<RESULT>> correctExecs = sloppyExecOutput
 							.getExecutions(dataItem.getLabel());
-					LOG.info("Had correct result: %s", !correctExecs.isEmpty());
+					log.info("Had correct result: %s", !correctExecs.isEmpty());
 					for (final IExecution<RESULT> correctExec : correctExecs) {
-						LOG.info(correctExec.toString(true));
+						log.info(correctExec.toString(true));
 					}
 				}
 			} else {
-				LOG.info("Skipping sloppy execution due to filter");
+				log.info("Skipping sloppy execution due to filter");
 				stats.recordNoParseWithSkipping(dataItem, dataItem.getLabel());
 			}
 		}
 	}
 	
+	/**
+	 * Tests the items on a pool of workers. Each item buffers its log and
+	 * statistics updates, which are flushed in the order of the dataset, so
+	 * the output and the statistics are identical to sequential testing.
+	 */
+	private void testConcurrently(final IExec<DI, RESULT> exec,
+			IDataCollection<? extends ILabeledDataItem<DI, RESULT>> dataset,
+			ITestingStatistics<DI, RESULT> stats) {
+		final ExecutorService executor = Executors.newFixedThreadPool(
+				numThreads, new LoggingThreadFactory());
+		try {
+			final List<Future<Pair<ItemLog, DeferredTestingStatistics<DI, RESULT>>>> futures = new ArrayList<Future<Pair<ItemLog, DeferredTestingStatistics<DI, RESULT>>>>(
+					dataset.size());
+			int itemCounter = 0;
+			for (final ILabeledDataItem<DI, RESULT> item : dataset) {
+				final int itemNumber = ++itemCounter;
+				futures.add(executor
+						.submit(new Callable<Pair<ItemLog, DeferredTestingStatistics<DI, RESULT>>>() {
+							@Override
+							public Pair<ItemLog, DeferredTestingStatistics<DI, RESULT>> call()
+									throws Exception {
+								final ItemLog log = new ItemLog();
+								final DeferredTestingStatistics<DI, RESULT> itemStats = new DeferredTestingStatistics<DI, RESULT>();
+								test(itemNumber, item, exec, itemStats, log);
+								return Pair.of(log, itemStats);
+							}
+						}));
+			}
+			
+			for (final Future<Pair<ItemLog, DeferredTestingStatistics<DI, RESULT>>> future : futures) {
+				final Pair<ItemLog, DeferredTestingStatistics<DI, RESULT>> result = future
+						.get();
+				result.first().flush(LOG);
+				result.second().replay(stats);
+			}
+		} catch (final InterruptedException e) {
+			throw new RuntimeException(e);
+		} catch (final ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+	
 	public static class Builder<DI extends IDataItem<?>, RESULT> {
 		
+		private int										numThreads			= 1;
+		
 		/** Filters which data items are valid for parsing with word skipping */
 		private IFilter<ILabeledDataItem<DI, RESULT>>	skipParsingFilter	= new IFilter<ILabeledDataItem<DI, RESULT>>() {
 																				
@@ -210,7 +282,12 @@ public class ExecTester<DI extends IDataItem<?>, RESULT> {
 																			};
 		
 		public ExecTester<DI, RESULT> build() {
-			return new ExecTester<DI, RESULT>(skipParsingFilter);
+			return new ExecTester<DI, RESULT>(skipParsingFilter, numThreads);
+		}
+		
+		public Builder<DI, RESULT> setNumThreads(int numThreads) {
+			this.numThreads = numThreads;
+			return this;
 		}
 		
 		public Builder<DI, RESULT> setSkipParsingFilter(
@@ -244,6 +321,10 @@ public class ExecTester<DI extends IDataItem<?>, RESULT> {
 						.getResource(params.get("sloppyFilter")));
 			}
 			
+			if (params.contains("threads")) {
+				builder.setNumThreads(Integer.valueOf(params.get("threads")));
+			}
+			
 			return builder.build();
 		}
 		
@@ -259,6 +340,8 @@ public class ExecTester<DI extends IDataItem<?>, RESULT> {
 							"sloppyFilter",
 							"id",
 							"IFilter used to decide what data items to skip when doing sloppy inference (e.g., skipping words)")
+					.addParam("threads", "int",
+							"Number of items to test concurrently (default: 1)")
 					.build();
 		}
 		
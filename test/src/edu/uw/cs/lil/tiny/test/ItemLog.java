@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * UW SPF - The University of Washington Semantic Parsing Framework
+ * <p>
+ * Copyright (C) 2013 Yoav Artzi
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ ******************************************************************************/
+package edu.uw.cs.lil.tiny.test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.uw.cs.utils.log.ILogger;
+
+/**
+ * Log of a single tested item. When items are tested concurrently, messages
+ * are buffered, so the logs can be written in the order of the data. When
+ * testing sequentially, messages are written directly to the logger.
+ * 
+ * @author Yoav Artzi
+ */
+public class ItemLog {
+	
+	private final List<Object[]>	args		= new ArrayList<Object[]>();
+	
+	/**
+	 * Logger messages are written to directly, null if messages are buffered.
+	 */
+	private final ILogger			directLog;
+	private final List<Object>		messages	= new ArrayList<Object>();
+	
+	/**
+	 * Creates a log that buffers messages until flushed.
+	 */
+	public ItemLog() {
+		this(null);
+	}
+	
+	/**
+	 * Creates a log that writes messages directly to the given logger, without
+	 * buffering.
+	 */
+	public ItemLog(ILogger directLog) {
+		this.directLog = directLog;
+	}
+	
+	/**
+	 * Write all buffered messages to the given logger and clear the buffer.
+	 */
+	public void flush(ILogger log) {
+		final int size = messages.size();
+		for (int i = 0; i < size; ++i) {
+			final Object[] messageArgs = args.get(i);
+			if (messageArgs == null) {
+				log.info(messages.get(i));
+			} else {
+				log.info((String) messages.get(i), messageArgs);
+			}
+		}
+		messages.clear();
+		args.clear();
+	}
+	
+	public void info(Object message) {
+		if (directLog == null) {
+			messages.add(message);
+			args.add(null);
+		} else {
+			directLog.info(message);
+		}
+	}
+	
+	public void info(String message, Object... messageArgs) {
+		if (directLog == null) {
+			messages.add(message);
+			args.add(messageArgs);
+		} else {
+			directLog.info(message, messageArgs);
+		}
+	}
+	
+}
@@ -18,8 +18,14 @@
  ******************************************************************************/
 package edu.uw.cs.lil.tiny.test;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import edu.uw.cs.lil.tiny.base.hashvector.IHashVector;
 import edu.uw.cs.lil.tiny.ccg.lexicon.LexicalEntry;
@@ -34,11 +40,14 @@ import edu.uw.cs.lil.tiny.parser.IDerivation;
 import edu.uw.cs.lil.tiny.parser.IParser;
 import edu.uw.cs.lil.tiny.parser.IParserOutput;
 import edu.uw.cs.lil.tiny.parser.ccg.model.IModelImmutable;
+import edu.uw.cs.lil.tiny.test.stats.DeferredTestingStatistics;
 import edu.uw.cs.lil.tiny.test.stats.ITestingStatistics;
 import edu.uw.cs.utils.collections.ListUtils;
+import edu.uw.cs.utils.composites.Pair;
 import edu.uw.cs.utils.filter.IFilter;
 import edu.uw.cs.utils.log.ILogger;
 import edu.uw.cs.utils.log.LoggerFactory;
+import edu.uw.cs.utils.log.thread.LoggingThreadFactory;
 
 public class Tester<SAMPLE extends IDataItem<?>, MR> implements
 		ITester<SAMPLE, MR> {
@@ -47,6 +56,12 @@ public class Tester<SAMPLE extends IDataItem<?>, MR> implements
 																						.create(Tester.class
 																								.getName());
 	
+	/**
+	 * Number of items tested concurrently. When testing with more than one
+	 * thread, logs and statistics are still written in the order of the data.
+	 */
+	private final int														numThreads;
+	
 	private final IParser<SAMPLE, MR>										parser;
 	
 	private final IFilter<SAMPLE>											skipParsingFilter;
@@ -55,11 +70,14 @@ public class Tester<SAMPLE extends IDataItem<?>, MR> implements
 	
 	private Tester(
 			IDataCollection<? extends ILabeledDataItem<SAMPLE, MR>> testData,
-			IFilter<SAMPLE> skipParsingFilter, IParser<SAMPLE, MR> parser) {
+			IFilter<SAMPLE> skipParsingFilter, IParser<SAMPLE, MR> parser,
+			int numThreads) {
 		this.testData = testData;
 		this.skipParsingFilter = skipParsingFilter;
 		this.parser = parser;
-		LOG.info("Init Tester:  size(testData)=%d", testData.size());
+		this.numThreads = numThreads;
+		LOG.info("Init Tester:  size(testData)=%d, numThreads=%d",
+				testData.size(), numThreads);
 	}
 	
 	@Override
@@ -86,18 +104,18 @@ public class Tester<SAMPLE extends IDataItem<?>, MR> implements
 	
 	private void logParse(ILabeledDataItem<SAMPLE, MR> dataItem,
 			IDerivation<MR> parse, boolean logLexicalItems, String tag,
-			IModelImmutable<SAMPLE, MR> model) {
-		LOG.info("%s%s[S%.2f] %s",
+			IModelImmutable<SAMPLE, MR> model, ItemLog log) {
+		log.info("%s%s[S%.2f] %s",
 				dataItem.getLabel().equals(parse.getSemantics()) ? "* " : "  ",
 				tag == null ? "" : tag + " ", parse.getScore(), parse);
-		LOG.info("Calculated score: %f", parse.getAverageMaxFeatureVector()
+		log.info("Calculated score: %f", parse.getAverageMaxFeatureVector()
 				.vectorMultiply(model.getTheta()));
-		LOG.info("Features: %s",
+		log.info("Features: %s",
 				model.getTheta()
 						.printValues(parse.getAverageMaxFeatureVector()));
 		if (logLexicalItems) {
 			for (final LexicalEntry<MR> entry : parse.getMaxLexicalEntries()) {
-				LOG.info("\t[%f] %s", model.score(entry), entry);
+				log.info("\t[%f] %s", model.score(entry), entry);
 			}
 		}
 	}
@@ -106,7 +124,8 @@ public class Tester<SAMPLE extends IDataItem<?>, MR> implements
 			final ILabeledDataItem<SAMPLE, MR> dataItem,
 			IModelImmutable<SAMPLE, MR> model,
 			final IParserOutput<MR> modelParserOutput, final IDerivation<MR> parse,
-			boolean withWordSkipping, ITestingStatistics<SAMPLE, MR> stats) {
+			boolean withWordSkipping, ITestingStatistics<SAMPLE, MR> stats,
+			ItemLog log) {
 		final Set<LexicalEntry<MR>> lexicalEntries = parse
 				.getMaxLexicalEntries();
 		final MR label = parse.getSemantics();
@@ -122,12 +141,12 @@ public class Tester<SAMPLE extends IDataItem<?>, MR> implements
 		
 		if (dataItem.isCorrect(label)) {
 			// A correct parse
-			LOG.info("CORRECT");
-			LOG.info(lexToString(lexicalEntries, model));
+			log.info("CORRECT");
+			log.info(lexToString(lexicalEntries, model));
 		} else {
 			// One parse, but a wrong one
-			LOG.info("WRONG: %s", label);
-			LOG.info(lexToString(lexicalEntries, model));
+			log.info("WRONG: %s", label);
+			log.info(lexToString(lexicalEntries, model));
 			
 			// Check if we had the correct parse and it just wasn't the best
 			final List<? extends IDerivation<MR>> correctParses = modelParserOutput
@@ -138,14 +157,14 @@ public class Tester<SAMPLE extends IDataItem<?>, MR> implements
 							return dataItem.getLabel().equals(e);
 						}
 					});
-			LOG.info("Had correct parses: %s", !correctParses.isEmpty());
+			log.info("Had correct parses: %s", !correctParses.isEmpty());
 			if (!correctParses.isEmpty()) {
 				for (final IDerivation<MR> correctParse : correctParses) {
-					LOG.info(
+					log.info(
 							"Correct parse lexical items:\n%s",
 							lexToString(correctParse.getMaxLexicalEntries(),
 									model));
-					LOG.info(
+					log.info(
 							"Correct feats: %s",
 							model.getTheta().printValues(
 									correctParse.getAverageMaxFeatureVector()));
@@ -153,10 +172,10 @@ public class Tester<SAMPLE extends IDataItem<?>, MR> implements
 							.getAverageMaxFeatureVector().addTimes(-1.0,
 									parse.getAverageMaxFeatureVector());
 					diff.dropNoise();
-					LOG.info("Diff: %s", model.getTheta().printValues(diff));
+					log.info("Diff: %s", model.getTheta().printValues(diff));
 				}
 			}
-			LOG.info(
+			log.info(
 					"Feats: %s",
 					model.getTheta().printValues(
 							parse.getAverageMaxFeatureVector()));
@@ -167,25 +186,32 @@ public class Tester<SAMPLE extends IDataItem<?>, MR> implements
 			IDataCollection<? extends ILabeledDataItem<SAMPLE, MR>> dataset,
 			IModelImmutable<SAMPLE, MR> model,
 			ITestingStatistics<SAMPLE, MR> stats) {
+		if (numThreads > 1) {
+			testConcurrently(dataset, model, stats);
+			return;
+		}
+		
 		int itemCounter = 0;
+		// Log directly, there's no need to buffer when testing sequentially
+		final ItemLog log = new ItemLog(LOG);
 		for (final ILabeledDataItem<SAMPLE, MR> item : dataset) {
 			++itemCounter;
-			test(itemCounter, item, model, stats);
+			test(itemCounter, item, model, stats, log);
 		}
 	}
 	
 	private void test(int itemCounter,
 			final ILabeledDataItem<SAMPLE, MR> dataItem,
 			IModelImmutable<SAMPLE, MR> model,
-			ITestingStatistics<SAMPLE, MR> stats) {
-		LOG.info("%d : ==================", itemCounter);
-		LOG.info("%s", dataItem);
+			ITestingStatistics<SAMPLE, MR> stats, ItemLog log) {
+		log.info("%d : ==================", itemCounter);
+		log.info("%s", dataItem);
 		
 		// Try a simple model parse
 		final IParserOutput<MR> modelParserOutput = parser.parse(
 				dataItem.getSample(),
 				model.createDataItemModel(dataItem.getSample()));
-		LOG.info("Test parsing time %.2f",
+		log.info("Test parsing time %.2f",
 				modelParserOutput.getParsingTime() / 1000.0);
 		
 		final List<? extends IDerivation<MR>> bestModelParses = modelParserOutput
@@ -193,7 +219,7 @@ public class Tester<SAMPLE extends IDataItem<?>, MR> implements
 		if (bestModelParses.size() == 1) {
 			// Case we have a single parse
 			processSingleBestParse(dataItem, model, modelParserOutput,
-					bestModelParses.get(0), false, stats);
+					bestModelParses.get(0), false, stats, log);
 		} else if (bestModelParses.size() > 1) {
 			// Multiple top parses
 			
@@ -209,10 +235,10 @@ public class Tester<SAMPLE extends IDataItem<?>, MR> implements
 			// There are more than one equally high scoring
 			// logical forms. If this is the case, we abstain
 			// from returning a result.
-			LOG.info("too many parses");
-			LOG.info("%d parses:", bestModelParses.size());
+			log.info("too many parses");
+			log.info("%d parses:", bestModelParses.size());
 			for (final IDerivation<MR> parse : bestModelParses) {
-				logParse(dataItem, parse, false, null, model);
+				logParse(dataItem, parse, false, null, model, log);
 			}
 			// Check if we had the correct parse and it just wasn't the best
 			final List<? extends IDerivation<MR>> correctParses = modelParserOutput
@@ -224,20 +250,20 @@ public class Tester<SAMPLE extends IDataItem<?>, MR> implements
 						}
 					});
 			
-			LOG.info("Had correct parses: %s", !correctParses.isEmpty());
+			log.info("Had correct parses: %s", !correctParses.isEmpty());
 			if (!correctParses.isEmpty()) {
 				for (final IDerivation<MR> correctParse : correctParses) {
-					LOG.info(
+					log.info(
 							"Correct parse lexical items:\n%s",
 							lexToString(correctParse.getMaxLexicalEntries(),
 									model));
-					LOG.info("Correct feats: %s",
+					log.info("Correct feats: %s",
 							correctParse.getAverageMaxFeatureVector());
 				}
 			}
 		} else {
 			// No parses
-			LOG.info("no parses");
+			log.info("no parses");
 			
 			// Update stats
 			stats.recordNoParse(dataItem, dataItem.getLabel());
@@ -248,7 +274,7 @@ public class Tester<SAMPLE extends IDataItem<?>, MR> implements
 						.parse(dataItem.getSample(),
 								model.createDataItemModel(dataItem.getSample()),
 								true);
-				LOG.info("EMPTY Parsing time %f",
+				log.info("EMPTY Parsing time %f",
 						parserOutputWithSkipping.getParsingTime() / 1000.0);
 				final List<? extends IDerivation<MR>> bestEmptiesParses = parserOutputWithSkipping
 						.getBestParses();
@@ -256,10 +282,10 @@ public class Tester<SAMPLE extends IDataItem<?>, MR> implements
 				if (bestEmptiesParses.size() == 1) {
 					processSingleBestParse(dataItem, model,
 							parserOutputWithSkipping, bestEmptiesParses.get(0),
-							true, stats);
+							true, stats, log);
 				} else if (bestEmptiesParses.isEmpty()) {
 					// No parses
-					LOG.info("no parses");
+					log.info("no parses");
 					
 					stats.recordNoParseWithSkipping(dataItem,
 							dataItem.getLabel());
@@ -274,9 +300,9 @@ public class Tester<SAMPLE extends IDataItem<?>, MR> implements
 								}
 							}));
 					
-					LOG.info("WRONG: %d parses", bestEmptiesParses.size());
+					log.info("WRONG: %d parses", bestEmptiesParses.size());
 					for (final IDerivation<MR> parse : bestEmptiesParses) {
-						logParse(dataItem, parse, false, null, model);
+						logParse(dataItem, parse, false, null, model, log);
 					}
 					// Check if we had the correct parse and it just wasn't
 					// the best
@@ -288,28 +314,75 @@ public class Tester<SAMPLE extends IDataItem<?>, MR> implements
 									return dataItem.getLabel().equals(e);
 								}
 							});
-					LOG.info("Had correct parses: %s", !correctParses.isEmpty());
+					log.info("Had correct parses: %s", !correctParses.isEmpty());
 					if (!correctParses.isEmpty()) {
 						for (final IDerivation<MR> correctParse : correctParses) {
-							LOG.info(
+							log.info(
 									"Correct parse lexical items:\n%s",
 									lexToString(
 											correctParse.getMaxLexicalEntries(),
 											model));
-							LOG.info("Correct feats: %s",
+							log.info("Correct feats: %s",
 									correctParse.getAverageMaxFeatureVector());
 						}
 					}
 				}
 			} else {
-				LOG.info("Skipping word-skip parsing due to length");
+				log.info("Skipping word-skip parsing due to length");
 				stats.recordNoParseWithSkipping(dataItem, dataItem.getLabel());
 			}
 		}
 	}
 	
+	/**
+	 * Tests the items on a pool of workers. Each item buffers its log and
+	 * statistics updates, which are flushed in the order of the dataset, so
+	 * the output and the statistics are identical to sequential testing.
+	 */
+	private void testConcurrently(
+			IDataCollection<? extends ILabeledDataItem<SAMPLE, MR>> dataset,
+			final IModelImmutable<SAMPLE, MR> model,
+			ITestingStatistics<SAMPLE, MR> stats) {
+		final ExecutorService executor = Executors.newFixedThreadPool(
+				numThreads, new LoggingThreadFactory());
+		try {
+			final List<Future<Pair<ItemLog, DeferredTestingStatistics<SAMPLE, MR>>>> futures = new ArrayList<Future<Pair<ItemLog, DeferredTestingStatistics<SAMPLE, MR>>>>(
+					dataset.size());
+			int itemCounter = 0;
+			for (final ILabeledDataItem<SAMPLE, MR> item : dataset) {
+				final int itemNumber = ++itemCounter;
+				futures.add(executor
+						.submit(new Callable<Pair<ItemLog, DeferredTestingStatistics<SAMPLE, MR>>>() {
+							@Override
+							public Pair<ItemLog, DeferredTestingStatistics<SAMPLE, MR>> call()
+									throws Exception {
+								final ItemLog log = new ItemLog();
+								final DeferredTestingStatistics<SAMPLE, MR> itemStats = new DeferredTestingStatistics<SAMPLE, MR>();
+								test(itemNumber, item, model, itemStats, log);
+								return Pair.of(log, itemStats);
+							}
+						}));
+			}
+			
+			for (final Future<Pair<ItemLog, DeferredTestingStatistics<SAMPLE, MR>>> future : futures) {
+				final Pair<ItemLog, DeferredTestingStatistics<SAMPLE, MR>> result = future
+						.get();
+				result.first().flush(LOG);
+				result.second().replay(stats);
+			}
+		} catch (final InterruptedException e) {
+			throw new RuntimeException(e);
+		} catch (final ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+	
 	public static class Builder<SAMPLE extends IDataItem<?>, MR> {
 		
+		private int																numThreads			= 1;
+		
 		private final IParser<SAMPLE, MR>										parser;
 		
 		/** Filters which data items are valid for parsing with word skipping */
@@ -332,7 +405,13 @@ public class Tester<SAMPLE extends IDataItem<?>, MR> implements
 		}
 		
 		public Tester<SAMPLE, MR> build() {
-			return new Tester<SAMPLE, MR>(testData, skipParsingFilter, parser);
+			return new Tester<SAMPLE, MR>(testData, skipParsingFilter, parser,
+					numThreads);
+		}
+		
+		public Builder<SAMPLE, MR> setNumThreads(int numThreads) {
+			this.numThreads = numThreads;
+			return this;
 		}
 		
 		public Builder<SAMPLE, MR> setSkipParsingFilter(
@@ -381,6 +460,10 @@ public class Tester<SAMPLE extends IDataItem<?>, MR> implements
 						.getResource(parameters.get("skippingFilter")));
 			}
 			
+			if (parameters.contains("threads")) {
+				builder.setNumThreads(Integer.valueOf(parameters.get("threads")));
+			}
+			
 			return builder.build();
 		}
 		
@@ -399,6 +482,8 @@ public class Tester<SAMPLE extends IDataItem<?>, MR> implements
 					.addParam("parser", "id", "Parser object")
 					.addParam("skippingFilter", "id",
 							"IFilter used to decide which data items to skip")
+					.addParam("threads", "int",
+							"Number of items to test concurrently (default: 1)")
 					.build();
 		}
 		
@@ -0,0 +1,133 @@
+/*******************************************************************************
+ * UW SPF - The University of Washington Semantic Parsing Framework
+ * <p>
+ * Copyright (C) 2013 Yoav Artzi
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ ******************************************************************************/
+package edu.uw.cs.lil.tiny.test.stats;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.uw.cs.lil.tiny.data.ILabeledDataItem;
+
+/**
+ * Records statistics updates without applying them, so they can be replayed
+ * later into other statistics. Used to merge the statistics of concurrently
+ * tested items in the order of the data, so the results are identical to
+ * sequential testing.
+ * 
+ * @author Yoav Artzi
+ * @param <SAMPLE>
+ * @param <LABEL>
+ */
+public class DeferredTestingStatistics<SAMPLE, LABEL> implements
+		ITestingStatistics<SAMPLE, LABEL> {
+	
+	private final List<Record<SAMPLE, LABEL>>	records	= new ArrayList<Record<SAMPLE, LABEL>>();
+	
+	@Override
+	public void recordNoParse(final ILabeledDataItem<SAMPLE, LABEL> dataItem,
+			final LABEL gold) {
+		records.add(new Record<SAMPLE, LABEL>() {
+			@Override
+			public void replay(ITestingStatistics<SAMPLE, LABEL> stats) {
+				stats.recordNoParse(dataItem, gold);
+			}
+		});
+	}
+	
+	@Override
+	public void recordNoParseWithSkipping(
+			final ILabeledDataItem<SAMPLE, LABEL> dataItem, final LABEL gold) {
+		records.add(new Record<SAMPLE, LABEL>() {
+			@Override
+			public void replay(ITestingStatistics<SAMPLE, LABEL> stats) {
+				stats.recordNoParseWithSkipping(dataItem, gold);
+			}
+		});
+	}
+	
+	@Override
+	public void recordParse(final ILabeledDataItem<SAMPLE, LABEL> dataItem,
+			final LABEL gold, final LABEL label) {
+		records.add(new Record<SAMPLE, LABEL>() {
+			@Override
+			public void replay(ITestingStatistics<SAMPLE, LABEL> stats) {
+				stats.recordParse(dataItem, gold, label);
+			}
+		});
+	}
+	
+	@Override
+	public void recordParses(final ILabeledDataItem<SAMPLE, LABEL> dataItem,
+			final LABEL gold, final List<LABEL> labels) {
+		records.add(new Record<SAMPLE, LABEL>() {
+			@Override
+			public void replay(ITestingStatistics<SAMPLE, LABEL> stats) {
+				stats.recordParses(dataItem, gold, labels);
+			}
+		});
+	}
+	
+	@Override
+	public void recordParsesWithSkipping(
+			final ILabeledDataItem<SAMPLE, LABEL> dataItem, final LABEL gold,
+			final List<LABEL> labels) {
+		records.add(new Record<SAMPLE, LABEL>() {
+			@Override
+			public void replay(ITestingStatistics<SAMPLE, LABEL> stats) {
+				stats.recordParsesWithSkipping(dataItem, gold, labels);
+			}
+		});
+	}
+	
+	@Override
+	public void recordParseWithSkipping(
+			final ILabeledDataItem<SAMPLE, LABEL> dataItem, final LABEL gold,
+			final LABEL label) {
+		records.add(new Record<SAMPLE, LABEL>() {
+			@Override
+			public void replay(ITestingStatistics<SAMPLE, LABEL> stats) {
+				stats.recordParseWithSkipping(dataItem, gold, label);
+			}
+		});
+	}
+	
+	/**
+	 * Apply all recorded updates to the given statistics, in the order they
+	 * were recorded.
+	 */
+	public void replay(ITestingStatistics<SAMPLE, LABEL> stats) {
+		for (final Record<SAMPLE, LABEL> record : records) {
+			record.replay(stats);
+		}
+	}
+	
+	@Override
+	public String toString() {
+		return "Deferred statistics: " + records.size() + " updates";
+	}
+	
+	@Override
+	public String toTabDelimitedString() {
+		return "updates=" + records.size();
+	}
+	
+	private static interface Record<SAMPLE, LABEL> {
+		void replay(ITestingStatistics<SAMPLE, LABEL> stats);
+	}
+	
+}
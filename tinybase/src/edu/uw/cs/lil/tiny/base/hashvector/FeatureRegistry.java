@@ -0,0 +1,125 @@
+/*******************************************************************************
+ * UW SPF - The University of Washington Semantic Parsing Framework
+ * <p>
+ * Copyright (C) 2013 Yoav Artzi
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ ******************************************************************************/
+package edu.uw.cs.lil.tiny.base.hashvector;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Global registry that interns feature keys to dense integer indices. Each key
+ * is assigned an index the first time it's registered, and keeps it for the
+ * lifetime of the JVM. Feature sets can resolve their keys once and then
+ * access weight vectors by index, without creating {@link KeyArgs} objects on
+ * every lookup. Indices are not stable across runs, so they must never be
+ * serialized.
+ * <p>
+ * Lookups are lock-free. Registering a new key takes a lock.
+ * 
+ * @author Yoav Artzi
+ */
+public class FeatureRegistry {
+	
+	private static final ConcurrentHashMap<KeyArgs, Integer>	INDICES	= new ConcurrentHashMap<KeyArgs, Integer>();
+	
+	/**
+	 * Keys indexed by their registry index. Replaced (not modified in place)
+	 * when it grows, so readers always see a consistent array.
+	 */
+	private static volatile KeyArgs[]							KEYS	= new KeyArgs[1024];
+	
+	private static int											nextIndex	= 0;
+	
+	private FeatureRegistry() {
+		// Service class. Not instantiatable.
+	}
+	
+	/**
+	 * @return The key for the given index.
+	 */
+	public static KeyArgs getKey(int index) {
+		return KEYS[index];
+	}
+	
+	/**
+	 * Get the index of the given key, registering it if needed.
+	 */
+	public static int getOrAdd(KeyArgs key) {
+		final Integer index = INDICES.get(key);
+		if (index == null) {
+			return add(key);
+		} else {
+			return index.intValue();
+		}
+	}
+	
+	public static int getOrAdd(String arg1) {
+		return getOrAdd(new KeyArgs(arg1));
+	}
+	
+	public static int getOrAdd(String arg1, String arg2) {
+		return getOrAdd(new KeyArgs(arg1, arg2));
+	}
+	
+	public static int getOrAdd(String arg1, String arg2, String arg3) {
+		return getOrAdd(new KeyArgs(arg1, arg2, arg3));
+	}
+	
+	public static int getOrAdd(String arg1, String arg2, String arg3,
+			String arg4) {
+		return getOrAdd(new KeyArgs(arg1, arg2, arg3, arg4));
+	}
+	
+	public static int getOrAdd(String arg1, String arg2, String arg3,
+			String arg4, String arg5) {
+		return getOrAdd(new KeyArgs(arg1, arg2, arg3, arg4, arg5));
+	}
+	
+	/**
+	 * @return The index of the given key, or -1 if it was never registered.
+	 */
+	public static int indexOf(KeyArgs key) {
+		final Integer index = INDICES.get(key);
+		return index == null ? -1 : index.intValue();
+	}
+	
+	/**
+	 * @return Number of keys registered.
+	 */
+	public static synchronized int size() {
+		return nextIndex;
+	}
+	
+	private static synchronized int add(KeyArgs key) {
+		// Verify no other thread registered the key since we checked
+		final Integer existing = INDICES.get(key);
+		if (existing != null) {
+			return existing.intValue();
+		}
+		
+		final int index = nextIndex++;
+		if (index == KEYS.length) {
+			KEYS = Arrays.copyOf(KEYS, KEYS.length * 2);
+		}
+		// Store the key before publishing the index, so any thread that reads
+		// the index can also get the key
+		KEYS[index] = key;
+		INDICES.put(key, index);
+		return index;
+	}
+}
@@ -18,6 +18,8 @@
  ******************************************************************************/
 package edu.uw.cs.lil.tiny.base.hashvector;
 
+import java.nio.DoubleBuffer;
+
 public class HashVectorFactory {
 	public static Type	DEFAULT	= Type.TREE;
 	
@@ -27,6 +29,8 @@ public class HashVectorFactory {
 				return createTree();
 			case TROVE:
 				return createTrove();
+			case INDEXED:
+				return createIndexed();
 			default:
 				throw new IllegalStateException("unhandled type");
 		}
@@ -38,11 +42,30 @@ public class HashVectorFactory {
 				return createTree(vector);
 			case TROVE:
 				return createTrove(vector);
+			case INDEXED:
+				return createIndexed(vector);
 			default:
 				throw new IllegalStateException("unhandled type");
 		}
 	}
 	
+	public static IHashVector createIndexed() {
+		return new IndexedHashVector();
+	}
+	
+	public static IHashVector createIndexed(IHashVectorImmutable vector) {
+		return new IndexedHashVector(vector);
+	}
+	
+	/**
+	 * Create a vector with its values stored in the given buffer, usually a
+	 * memory-mapped file region. The i-th value in the buffer belongs to the
+	 * i-th key.
+	 */
+	public static IHashVector createMapped(KeyArgs[] keys, DoubleBuffer values) {
+		return new MappedHashVector(keys, values);
+	}
+	
 	public static IHashVector createTree() {
 		return new TreeHashVector();
 	}
@@ -60,7 +83,7 @@ public class HashVectorFactory {
 	}
 	
 	public static enum Type {
-		TREE, TROVE;
+		TREE, TROVE, INDEXED;
 	}
 	
 }
@@ -70,6 +70,12 @@ public interface IHashVector extends IHashVectorImmutable, Serializable {
 	 */
 	void multiplyBy(double value);
 	
+	/**
+	 * Set given value for the key with the given {@link FeatureRegistry}
+	 * index.
+	 */
+	void set(int keyIndex, double value);
+	
 	/**
 	 * Set given value for the provided given.
 	 */
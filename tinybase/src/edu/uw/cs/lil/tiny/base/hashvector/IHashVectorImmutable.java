@@ -54,6 +54,11 @@ public interface IHashVectorImmutable extends Iterable<Pair<KeyArgs, Double>> {
 	
 	boolean equals(Object obj);
 	
+	/**
+	 * Get the value for the key with the given {@link FeatureRegistry} index.
+	 */
+	double get(int keyIndex);
+	
 	double get(KeyArgs key);
 	
 	/**
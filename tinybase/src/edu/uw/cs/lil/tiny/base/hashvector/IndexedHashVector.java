@@ -0,0 +1,595 @@
+/*******************************************************************************
+ * UW SPF - The University of Washington Semantic Parsing Framework
+ * <p>
+ * Copyright (C) 2013 Yoav Artzi
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ ******************************************************************************/
+package edu.uw.cs.lil.tiny.base.hashvector;
+
+import edu.uw.cs.utils.composites.Pair;
+import gnu.trove.function.TDoubleFunction;
+import gnu.trove.iterator.TIntDoubleIterator;
+import gnu.trove.map.hash.TIntDoubleHashMap;
+import gnu.trove.procedure.TDoubleProcedure;
+import gnu.trove.procedure.TIntDoubleProcedure;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Iterator;
+
+/**
+ * Sparse vector keyed by {@link FeatureRegistry} indices. Lookups by index
+ * don't allocate and don't hash strings, which makes this implementation a
+ * good fit for the model weights when feature sets resolve their keys once.
+ * Lookups by {@link KeyArgs} go through the registry and are slower than with
+ * the other implementations. Since registry indices are not stable across
+ * runs, the vector is serialized as key-value pairs and re-indexed when read.
+ * 
+ * @author Yoav Artzi
+ */
+class IndexedHashVector implements IHashVector {
+	private static final long			serialVersionUID	= 4472813624412374457L;
+	private transient TIntDoubleHashMap	values				= createMap();
+	
+	IndexedHashVector() {
+	}
+	
+	IndexedHashVector(IHashVectorImmutable other) {
+		if (other instanceof IndexedHashVector) {
+			values.putAll(((IndexedHashVector) other).values);
+		} else {
+			for (final Pair<KeyArgs, Double> o : other) {
+				values.put(FeatureRegistry.getOrAdd(o.first()), o.second());
+			}
+		}
+	}
+	
+	private static TIntDoubleHashMap createMap() {
+		return new TIntDoubleHashMap(10, 0.5f, -1, ZERO_VALUE);
+	}
+	
+	/** {@inheritDoc} */
+	@Override
+	public void add(final double num) {
+		values.transformValues(new TDoubleFunction() {
+			
+			@Override
+			public double execute(double value) {
+				return value + num;
+			}
+		});
+	}
+	
+	/** {@inheritDoc} */
+	@Override
+	public IndexedHashVector addTimes(final double times,
+			IHashVectorImmutable other) {
+		if (other instanceof IndexedHashVector) {
+			final IndexedHashVector p = (IndexedHashVector) other;
+			final IndexedHashVector ret = new IndexedHashVector(this);
+			p.values.forEachEntry(new TIntDoubleProcedure() {
+				@Override
+				public boolean execute(int a, double b) {
+					final double val = times * b;
+					ret.values.adjustOrPutValue(a, val, val);
+					return true;
+				}
+			});
+			return ret;
+		} else {
+			return addTimes(times, new IndexedHashVector(other));
+		}
+	}
+	
+	/** {@inheritDoc} */
+	@Override
+	public void addTimesInto(final double times, final IHashVector other) {
+		if (other instanceof IndexedHashVector) {
+			final IndexedHashVector p = (IndexedHashVector) other;
+			values.forEachEntry(new TIntDoubleProcedure() {
+				@Override
+				public boolean execute(int a, double b) {
+					final double val = times * b;
+					p.values.adjustOrPutValue(a, val, val + ZERO_VALUE);
+					return true;
+				}
+			});
+		} else {
+			values.forEachEntry(new TIntDoubleProcedure() {
+				@Override
+				public boolean execute(int a, double b) {
+					final KeyArgs key = FeatureRegistry.getKey(a);
+					other.set(key, times * b + other.get(key));
+					return true;
+				}
+			});
+		}
+	}
+	
+	@Override
+	public void applyFunction(final ValueFunction function) {
+		values.transformValues(new TDoubleFunction() {
+			
+			@Override
+			public double execute(double value) {
+				return function.apply(value);
+			}
+		});
+	}
+	
+	@Override
+	public void clear() {
+		values.clear();
+	}
+	
+	@Override
+	public boolean contains(KeyArgs key) {
+		final int index = FeatureRegistry.indexOf(key);
+		return index >= 0 && values.containsKey(index);
+	}
+	
+	@Override
+	public boolean contains(String arg1) {
+		return contains(new KeyArgs(arg1));
+	}
+	
+	@Override
+	public boolean contains(String arg1, String arg2) {
+		return contains(new KeyArgs(arg1, arg2));
+	}
+	
+	@Override
+	public boolean contains(String arg1, String arg2, String arg3) {
+		return contains(new KeyArgs(arg1, arg2, arg3));
+	}
+	
+	@Override
+	public boolean contains(String arg1, String arg2, String arg3, String arg4) {
+		return contains(new KeyArgs(arg1, arg2, arg3, arg4));
+	}
+	
+	@Override
+	public boolean contains(String arg1, String arg2, String arg3, String arg4,
+			String arg5) {
+		return contains(new KeyArgs(arg1, arg2, arg3, arg4, arg5));
+	}
+	
+	@Override
+	public void divideBy(final double d) {
+		values.transformValues(new TDoubleFunction() {
+			
+			@Override
+			public double execute(double value) {
+				return value / d;
+			}
+		});
+	}
+	
+	@Override
+	public void dropNoise() {
+		values.retainEntries(new TIntDoubleProcedure() {
+			
+			@Override
+			public boolean execute(int a, double b) {
+				return Math.abs(b) >= NOISE;
+			}
+		});
+	}
+	
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null) {
+			return false;
+		}
+		if (getClass() != obj.getClass()) {
+			return false;
+		}
+		final IndexedHashVector other = (IndexedHashVector) obj;
+		if (!values.equals(other.values)) {
+			return false;
+		}
+		return true;
+	}
+	
+	@Override
+	public double get(int keyIndex) {
+		return values.get(keyIndex);
+	}
+	
+	@Override
+	public double get(KeyArgs key) {
+		return get(key, ZERO_VALUE);
+	}
+	
+	@Override
+	public double get(KeyArgs key, double defaultReturn) {
+		final int index = FeatureRegistry.indexOf(key);
+		if (index >= 0 && values.containsKey(index)) {
+			return values.get(index);
+		} else {
+			return defaultReturn;
+		}
+	}
+	
+	@Override
+	public double get(String arg1) {
+		return get(new KeyArgs(arg1));
+	}
+	
+	@Override
+	public double get(String arg1, double defaultReturn) {
+		return get(new KeyArgs(arg1), defaultReturn);
+	}
+	
+	@Override
+	public double get(String arg1, String arg2) {
+		return get(new KeyArgs(arg1, arg2));
+	}
+	
+	@Override
+	public double get(String arg1, String arg2, double defaultReturn) {
+		return get(new KeyArgs(arg1, arg2), defaultReturn);
+	}
+	
+	@Override
+	public double get(String arg1, String arg2, String arg3) {
+		return get(new KeyArgs(arg1, arg2, arg3));
+	}
+	
+	@Override
+	public double get(String arg1, String arg2, String arg3,
+			double defaultReturn) {
+		return get(new KeyArgs(arg1, arg2, arg3), defaultReturn);
+	}
+	
+	@Override
+	public double get(String arg1, String arg2, String arg3, String arg4) {
+		return get(new KeyArgs(arg1, arg2, arg3, arg4));
+	}
+	
+	@Override
+	public double get(String arg1, String arg2, String arg3, String arg4,
+			double defaultReturn) {
+		return get(new KeyArgs(arg1, arg2, arg3, arg4), defaultReturn);
+	}
+	
+	@Override
+	public double get(String arg1, String arg2, String arg3, String arg4,
+			String arg5) {
+		return get(new KeyArgs(arg1, arg2, arg3, arg4, arg5));
+	}
+	
+	@Override
+	public double get(String arg1, String arg2, String arg3, String arg4,
+			String arg5, double defaultReturn) {
+		return get(new KeyArgs(arg1, arg2, arg3, arg4, arg5), defaultReturn);
+	}
+	
+	@Override
+	public IHashVector getAll(final String arg1) {
+		return getAll(1, arg1, null, null, null, null);
+	}
+	
+	@Override
+	public IHashVector getAll(final String arg1, final String arg2) {
+		return getAll(2, arg1, arg2, null, null, null);
+	}
+	
+	@Override
+	public IHashVector getAll(final String arg1, final String arg2,
+			final String arg3) {
+		return getAll(3, arg1, arg2, arg3, null, null);
+	}
+	
+	@Override
+	public IHashVector getAll(final String arg1, final String arg2,
+			final String arg3, final String arg4) {
+		return getAll(4, arg1, arg2, arg3, arg4, null);
+	}
+	
+	@Override
+	public IHashVector getAll(final String arg1, final String arg2,
+			final String arg3, final String arg4, final String arg5) {
+		return getAll(5, arg1, arg2, arg3, arg4, arg5);
+	}
+	
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + values.hashCode();
+		return result;
+	}
+	
+	@Override
+	public boolean isBad() {
+		return !values.forEachValue(new TDoubleProcedure() {
+			@Override
+			public boolean execute(double value) {
+				if (Double.isNaN(value) || Double.isInfinite(value)) {
+					return false;
+				} else {
+					return true;
+				}
+			}
+		});
+	}
+	
+	@Override
+	public void iterate(final EntryFunction function) {
+		values.forEachEntry(new TIntDoubleProcedure() {
+			
+			@Override
+			public boolean execute(int a, double b) {
+				function.apply(FeatureRegistry.getKey(a), b);
+				return true;
+			}
+		});
+	}
+	
+	@Override
+	public Iterator<Pair<KeyArgs, Double>> iterator() {
+		return new Iterator<Pair<KeyArgs, Double>>() {
+			private final TIntDoubleIterator	innerIterator	= values.iterator();
+			
+			@Override
+			public boolean hasNext() {
+				return innerIterator.hasNext();
+			}
+			
+			@Override
+			public Pair<KeyArgs, Double> next() {
+				if (innerIterator.hasNext()) {
+					innerIterator.advance();
+					return Pair.of(FeatureRegistry.getKey(innerIterator.key()),
+							innerIterator.value());
+				} else {
+					return null;
+				}
+			}
+			
+			@Override
+			public void remove() {
+				innerIterator.remove();
+			}
+		};
+	}
+	
+	@Override
+	public double l1Norm() {
+		double sum = 0.0;
+		final TIntDoubleIterator iterator = values.iterator();
+		while (iterator.hasNext()) {
+			iterator.advance();
+			sum += Math.abs(iterator.value());
+		}
+		return sum;
+	}
+	
+	@Override
+	public void multiplyBy(final double d) {
+		values.transformValues(new TDoubleFunction() {
+			
+			@Override
+			public double execute(double value) {
+				return value * d;
+			}
+		});
+	}
+	
+	@Override
+	public IndexedHashVector pairWiseProduct(final IHashVectorImmutable other) {
+		if (other instanceof IndexedHashVector) {
+			final IndexedHashVector p = (IndexedHashVector) other;
+			if (size() <= other.size()) {
+				final IndexedHashVector ret = new IndexedHashVector();
+				values.forEachEntry(new TIntDoubleProcedure() {
+					@Override
+					public boolean execute(int a, double b) {
+						if (p.values.containsKey(a)) {
+							ret.values.put(a, b * p.values.get(a));
+						}
+						return true;
+					}
+				});
+				return ret;
+			} else {
+				return p.pairWiseProduct(this);
+			}
+		} else {
+			return pairWiseProduct(new IndexedHashVector(other));
+		}
+	}
+	
+	@Override
+	public String printValues(IHashVectorImmutable other) {
+		if (other instanceof IndexedHashVector) {
+			final IndexedHashVector p = (IndexedHashVector) other;
+			final StringBuilder ret = new StringBuilder();
+			ret.append("{");
+			p.values.forEachEntry(new TIntDoubleProcedure() {
+				
+				@Override
+				public boolean execute(int a, double b) {
+					ret.append(FeatureRegistry.getKey(a)).append("=");
+					if (values.containsKey(a)) {
+						ret.append(values.get(a));
+					} else {
+						ret.append(ZERO_VALUE);
+					}
+					ret.append("(").append(b).append("),");
+					return true;
+				}
+			});
+			ret.deleteCharAt(ret.length() - 1);
+			ret.append("}");
+			return ret.toString();
+		} else {
+			return printValues(new IndexedHashVector(other));
+		}
+	}
+	
+	@Override
+	public void set(int keyIndex, double value) {
+		values.put(keyIndex, value);
+	}
+	
+	@Override
+	public void set(KeyArgs key, double value) {
+		values.put(FeatureRegistry.getOrAdd(key), value);
+	}
+	
+	@Override
+	public void set(String arg1, double value) {
+		set(new KeyArgs(arg1), value);
+	}
+	
+	@Override
+	public void set(String arg1, String arg2, double value) {
+		set(new KeyArgs(arg1, arg2), value);
+	}
+	
+	@Override
+	public void set(String arg1, String arg2, String arg3, double value) {
+		set(new KeyArgs(arg1, arg2, arg3), value);
+	}
+	
+	@Override
+	public void set(String arg1, String arg2, String arg3, String arg4,
+			double value) {
+		set(new KeyArgs(arg1, arg2, arg3, arg4), value);
+	}
+	
+	@Override
+	public void set(String arg1, String arg2, String arg3, String arg4,
+			String arg5, double value) {
+		set(new KeyArgs(arg1, arg2, arg3, arg4, arg5), value);
+	}
+	
+	@Override
+	public int size() {
+		return values.size();
+	}
+	
+	@Override
+	public String toString() {
+		final StringBuilder ret = new StringBuilder();
+		ret.append("{");
+		values.forEachEntry(new TIntDoubleProcedure() {
+			boolean	notFirst	= false;
+			
+			@Override
+			public boolean execute(int a, double b) {
+				if (notFirst) {
+					ret.append(", ");
+				}
+				ret.append(FeatureRegistry.getKey(a));
+				ret.append("=");
+				ret.append(b);
+				notFirst = true;
+				return true;
+			}
+		});
+		ret.append("}");
+		return ret.toString();
+	}
+	
+	@Override
+	public boolean valuesInRange(final double min, final double max) {
+		return values.forEachValue(new TDoubleProcedure() {
+			@Override
+			public boolean execute(double value) {
+				if (value < min || value > max) {
+					return false;
+				} else {
+					return true;
+				}
+			}
+		});
+	}
+	
+	@Override
+	public double vectorMultiply(IHashVectorImmutable other) {
+		if (other instanceof IndexedHashVector) {
+			final IndexedHashVector p = (IndexedHashVector) other;
+			final TIntDoubleHashMap small = size() <= p.size() ? values
+					: p.values;
+			final TIntDoubleHashMap large = small == values ? p.values
+					: values;
+			double sum = 0.0;
+			final TIntDoubleIterator iterator = small.iterator();
+			while (iterator.hasNext()) {
+				iterator.advance();
+				// Missing keys return the no-entry value, which is zero
+				sum += iterator.value() * large.get(iterator.key());
+			}
+			return sum;
+		} else {
+			return vectorMultiply(new IndexedHashVector(other));
+		}
+	}
+	
+	/**
+	 * Collect all entries that match the given arguments on the first argCount
+	 * positions.
+	 */
+	private IndexedHashVector getAll(final int argCount, final String arg1,
+			final String arg2, final String arg3, final String arg4,
+			final String arg5) {
+		final IndexedHashVector result = new IndexedHashVector();
+		values.forEachEntry(new TIntDoubleProcedure() {
+			
+			@Override
+			public boolean execute(int a, double b) {
+				final KeyArgs key = FeatureRegistry.getKey(a);
+				if (arg1.equals(key.arg1)
+						&& (argCount < 2 || arg2.equals(key.arg2))
+						&& (argCount < 3 || arg3.equals(key.arg3))
+						&& (argCount < 4 || arg4.equals(key.arg4))
+						&& (argCount < 5 || arg5.equals(key.arg5))) {
+					result.values.put(a, b);
+				}
+				return true;
+			}
+		});
+		return result;
+	}
+	
+	private void readObject(ObjectInputStream in) throws IOException,
+			ClassNotFoundException {
+		in.defaultReadObject();
+		values = createMap();
+		final int size = in.readInt();
+		for (int i = 0; i < size; ++i) {
+			final KeyArgs key = (KeyArgs) in.readObject();
+			values.put(FeatureRegistry.getOrAdd(key), in.readDouble());
+		}
+	}
+	
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		out.defaultWriteObject();
+		out.writeInt(values.size());
+		final TIntDoubleIterator iterator = values.iterator();
+		while (iterator.hasNext()) {
+			iterator.advance();
+			out.writeObject(FeatureRegistry.getKey(iterator.key()));
+			out.writeDouble(iterator.value());
+		}
+	}
+}
@@ -24,7 +24,11 @@ import edu.uw.cs.utils.assertion.Assert;
 
 public final class KeyArgs implements Comparable<KeyArgs>, Serializable {
 	private static final long	serialVersionUID	= -4637982636899382888L;
-	private final String		cachedString;
+	/**
+	 * String representation of the key. Created lazily, since most keys are
+	 * only hashed and never compared or printed.
+	 */
+	private String				cachedString;
 	final String				arg1;
 	final String				arg2;
 	final String				arg3;
@@ -39,7 +43,6 @@ public final class KeyArgs implements Comparable<KeyArgs>, Serializable {
 		this.arg4 = null;
 		this.arg5 = null;
 		this.hashCode = calcHashCode();
-		this.cachedString = createString();
 	}
 	
 	public KeyArgs(String arg1, String arg2) {
@@ -49,7 +52,6 @@ public final class KeyArgs implements Comparable<KeyArgs>, Serializable {
 		this.arg4 = null;
 		this.arg5 = null;
 		this.hashCode = calcHashCode();
-		this.cachedString = createString();
 	}
 	
 	public KeyArgs(String arg1, String arg2, String arg3) {
@@ -59,7 +61,6 @@ public final class KeyArgs implements Comparable<KeyArgs>, Serializable {
 		this.arg4 = null;
 		this.arg5 = null;
 		this.hashCode = calcHashCode();
-		this.cachedString = createString();
 	}
 	
 	public KeyArgs(String arg1, String arg2, String arg3, String arg4) {
@@ -69,7 +70,6 @@ public final class KeyArgs implements Comparable<KeyArgs>, Serializable {
 		this.arg4 = Assert.ifNull(arg4);
 		this.arg5 = null;
 		this.hashCode = calcHashCode();
-		this.cachedString = createString();
 	}
 	
 	public KeyArgs(String arg1, String arg2, String arg3, String arg4,
@@ -80,12 +80,11 @@ public final class KeyArgs implements Comparable<KeyArgs>, Serializable {
 		this.arg4 = Assert.ifNull(arg4);
 		this.arg5 = Assert.ifNull(arg5);
 		this.hashCode = calcHashCode();
-		this.cachedString = createString();
 	}
 	
 	@Override
 	public int compareTo(KeyArgs o) {
-		return cachedString.compareTo(o.cachedString);
+		return getString().compareTo(o.getString());
 	}
 	
 	@Override
@@ -149,11 +148,11 @@ public final class KeyArgs implements Comparable<KeyArgs>, Serializable {
 		}
 		
 		// arg5
-		if (arg4 == null) {
-			if (other.arg4 != null) {
+		if (arg5 == null) {
+			if (other.arg5 != null) {
 				return false;
 			}
-		} else if (!arg4.equals(other.arg4)) {
+		} else if (!arg5.equals(other.arg5)) {
 			return false;
 		}
 		
@@ -187,7 +186,7 @@ public final class KeyArgs implements Comparable<KeyArgs>, Serializable {
 	
 	@Override
 	public String toString() {
-		return cachedString;
+		return getString();
 	}
 	
 	private int calcHashCode() {
@@ -221,4 +220,12 @@ public final class KeyArgs implements Comparable<KeyArgs>, Serializable {
 		
 		return stringKey.toString();
 	}
+	
+	private String getString() {
+		// Benign race: all threads compute the same immutable string
+		if (cachedString == null) {
+			cachedString = createString();
+		}
+		return cachedString;
+	}
 }
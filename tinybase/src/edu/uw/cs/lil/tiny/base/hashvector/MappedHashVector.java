@@ -0,0 +1,539 @@
+/*******************************************************************************
+ * UW SPF - The University of Washington Semantic Parsing Framework
+ * <p>
+ * Copyright (C) 2013 Yoav Artzi
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ ******************************************************************************/
+package edu.uw.cs.lil.tiny.base.hashvector;
+
+import gnu.trove.iterator.TObjectIntIterator;
+import gnu.trove.map.hash.TObjectIntHashMap;
+
+import java.io.ObjectStreamException;
+import java.nio.DoubleBuffer;
+import java.util.Iterator;
+
+import edu.uw.cs.utils.composites.Pair;
+
+/**
+ * Sparse vector with its values stored in a {@link DoubleBuffer}, typically a
+ * memory-mapped region of a model file. Only the key to slot index is kept on
+ * the heap. Setting the value of a key that is not in the buffer stores it in
+ * an overflow vector. If the buffer is read-only, such as a read-only mapping
+ * of a file shared by several processes, an entry is copied to the overflow
+ * vector the first time it's modified, and the buffer is never written to.
+ * When serialized, the vector is replaced with a heap-based copy.
+ * 
+ * @author Yoav Artzi
+ */
+class MappedHashVector implements IHashVector {
+	private static final long					serialVersionUID	= -6436150419434963519L;
+	
+	/**
+	 * Entries not present in the buffer.
+	 */
+	private final TreeHashVector				overflow			= new TreeHashVector();
+	
+	/**
+	 * Mapping of keys to their slot in the values buffer.
+	 */
+	private final TObjectIntHashMap<KeyArgs>	slots;
+	
+	private final DoubleBuffer					values;
+	
+	/**
+	 * @param keys
+	 *            Keys of the values in the buffer, in order.
+	 * @param values
+	 *            Value buffer. Its capacity must be at least the number of
+	 *            keys.
+	 */
+	MappedHashVector(KeyArgs[] keys, DoubleBuffer values) {
+		if (values.capacity() < keys.length) {
+			throw new IllegalArgumentException(
+					"Value buffer is smaller than the number of keys");
+		}
+		this.values = values;
+		this.slots = new TObjectIntHashMap<KeyArgs>(keys.length * 2, 0.5f, -1);
+		for (int i = 0; i < keys.length; ++i) {
+			slots.put(keys[i], i);
+		}
+	}
+	
+	@Override
+	public void add(double num) {
+		copyOnWrite();
+		final TObjectIntIterator<KeyArgs> iterator = slots.iterator();
+		while (iterator.hasNext()) {
+			iterator.advance();
+			values.put(iterator.value(), values.get(iterator.value()) + num);
+		}
+		overflow.add(num);
+	}
+	
+	@Override
+	public IHashVector addTimes(double times, IHashVectorImmutable other) {
+		final IHashVector ret = new TreeHashVector(this);
+		other.addTimesInto(times, ret);
+		return ret;
+	}
+	
+	@Override
+	public void addTimesInto(final double times, final IHashVector other) {
+		iterate(new EntryFunction() {
+			
+			@Override
+			public void apply(KeyArgs key, double value) {
+				other.set(key, times * value + other.get(key));
+			}
+		});
+	}
+	
+	@Override
+	public void applyFunction(ValueFunction function) {
+		copyOnWrite();
+		final TObjectIntIterator<KeyArgs> iterator = slots.iterator();
+		while (iterator.hasNext()) {
+			iterator.advance();
+			final double value = values.get(iterator.value());
+			if (value != ZERO_VALUE) {
+				values.put(iterator.value(), function.apply(value));
+			}
+		}
+		overflow.applyFunction(function);
+	}
+	
+	@Override
+	public void clear() {
+		slots.clear();
+		overflow.clear();
+	}
+	
+	@Override
+	public boolean contains(KeyArgs key) {
+		return slots.containsKey(key) || overflow.contains(key);
+	}
+	
+	@Override
+	public boolean contains(String arg1) {
+		return contains(new KeyArgs(arg1));
+	}
+	
+	@Override
+	public boolean contains(String arg1, String arg2) {
+		return contains(new KeyArgs(arg1, arg2));
+	}
+	
+	@Override
+	public boolean contains(String arg1, String arg2, String arg3) {
+		return contains(new KeyArgs(arg1, arg2, arg3));
+	}
+	
+	@Override
+	public boolean contains(String arg1, String arg2, String arg3, String arg4) {
+		return contains(new KeyArgs(arg1, arg2, arg3, arg4));
+	}
+	
+	@Override
+	public boolean contains(String arg1, String arg2, String arg3, String arg4,
+			String arg5) {
+		return contains(new KeyArgs(arg1, arg2, arg3, arg4, arg5));
+	}
+	
+	@Override
+	public void divideBy(double d) {
+		copyOnWrite();
+		final TObjectIntIterator<KeyArgs> iterator = slots.iterator();
+		while (iterator.hasNext()) {
+			iterator.advance();
+			values.put(iterator.value(), values.get(iterator.value()) / d);
+		}
+		overflow.divideBy(d);
+	}
+	
+	@Override
+	public void dropNoise() {
+		final TObjectIntIterator<KeyArgs> iterator = slots.iterator();
+		while (iterator.hasNext()) {
+			iterator.advance();
+			if (Math.abs(values.get(iterator.value())) < NOISE) {
+				iterator.remove();
+			}
+		}
+		overflow.dropNoise();
+	}
+	
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null) {
+			return false;
+		}
+		if (getClass() != obj.getClass()) {
+			return false;
+		}
+		final MappedHashVector other = (MappedHashVector) obj;
+		if (size() != other.size()) {
+			return false;
+		}
+		for (final Pair<KeyArgs, Double> entry : this) {
+			if (!other.contains(entry.first())
+					|| other.get(entry.first()) != entry.second()) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	@Override
+	public double get(int keyIndex) {
+		return get(FeatureRegistry.getKey(keyIndex));
+	}
+	
+	@Override
+	public double get(KeyArgs key) {
+		return get(key, ZERO_VALUE);
+	}
+	
+	@Override
+	public double get(KeyArgs key, double defaultReturn) {
+		final int slot = slots.get(key);
+		if (slot >= 0) {
+			return values.get(slot);
+		} else {
+			return overflow.get(key, defaultReturn);
+		}
+	}
+	
+	@Override
+	public double get(String arg1) {
+		return get(new KeyArgs(arg1));
+	}
+	
+	@Override
+	public double get(String arg1, double defaultReturn) {
+		return get(new KeyArgs(arg1), defaultReturn);
+	}
+	
+	@Override
+	public double get(String arg1, String arg2) {
+		return get(new KeyArgs(arg1, arg2));
+	}
+	
+	@Override
+	public double get(String arg1, String arg2, double defaultReturn) {
+		return get(new KeyArgs(arg1, arg2), defaultReturn);
+	}
+	
+	@Override
+	public double get(String arg1, String arg2, String arg3) {
+		return get(new KeyArgs(arg1, arg2, arg3));
+	}
+	
+	@Override
+	public double get(String arg1, String arg2, String arg3,
+			double defaultReturn) {
+		return get(new KeyArgs(arg1, arg2, arg3), defaultReturn);
+	}
+	
+	@Override
+	public double get(String arg1, String arg2, String arg3, String arg4) {
+		return get(new KeyArgs(arg1, arg2, arg3, arg4));
+	}
+	
+	@Override
+	public double get(String arg1, String arg2, String arg3, String arg4,
+			double defaultReturn) {
+		return get(new KeyArgs(arg1, arg2, arg3, arg4), defaultReturn);
+	}
+	
+	@Override
+	public double get(String arg1, String arg2, String arg3, String arg4,
+			String arg5) {
+		return get(new KeyArgs(arg1, arg2, arg3, arg4, arg5));
+	}
+	
+	@Override
+	public double get(String arg1, String arg2, String arg3, String arg4,
+			String arg5, double defaultReturn) {
+		return get(new KeyArgs(arg1, arg2, arg3, arg4, arg5), defaultReturn);
+	}
+	
+	@Override
+	public IHashVector getAll(String arg1) {
+		return getAll(1, arg1, null, null, null, null);
+	}
+	
+	@Override
+	public IHashVector getAll(String arg1, String arg2) {
+		return getAll(2, arg1, arg2, null, null, null);
+	}
+	
+	@Override
+	public IHashVector getAll(String arg1, String arg2, String arg3) {
+		return getAll(3, arg1, arg2, arg3, null, null);
+	}
+	
+	@Override
+	public IHashVector getAll(String arg1, String arg2, String arg3,
+			String arg4) {
+		return getAll(4, arg1, arg2, arg3, arg4, null);
+	}
+	
+	@Override
+	public IHashVector getAll(String arg1, String arg2, String arg3,
+			String arg4, String arg5) {
+		return getAll(5, arg1, arg2, arg3, arg4, arg5);
+	}
+	
+	@Override
+	public int hashCode() {
+		// Order independent, since slot order is arbitrary
+		int result = 1;
+		for (final Pair<KeyArgs, Double> entry : this) {
+			result += entry.first().hashCode() ^ entry.second().hashCode();
+		}
+		return result;
+	}
+	
+	@Override
+	public boolean isBad() {
+		for (final Pair<KeyArgs, Double> entry : this) {
+			if (Double.isNaN(entry.second())
+					|| Double.isInfinite(entry.second())) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	@Override
+	public void iterate(EntryFunction function) {
+		final TObjectIntIterator<KeyArgs> iterator = slots.iterator();
+		while (iterator.hasNext()) {
+			iterator.advance();
+			function.apply(iterator.key(), values.get(iterator.value()));
+		}
+		overflow.iterate(function);
+	}
+	
+	@Override
+	public Iterator<Pair<KeyArgs, Double>> iterator() {
+		return new Iterator<Pair<KeyArgs, Double>>() {
+			private final Iterator<Pair<KeyArgs, Double>>	overflowIterator	= overflow
+																						.iterator();
+			private final TObjectIntIterator<KeyArgs>		slotIterator		= slots.iterator();
+			private boolean									inOverflow			= false;
+			
+			@Override
+			public boolean hasNext() {
+				return slotIterator.hasNext() || overflowIterator.hasNext();
+			}
+			
+			@Override
+			public Pair<KeyArgs, Double> next() {
+				if (slotIterator.hasNext()) {
+					slotIterator.advance();
+					return Pair.of(slotIterator.key(),
+							values.get(slotIterator.value()));
+				} else {
+					inOverflow = true;
+					return overflowIterator.next();
+				}
+			}
+			
+			@Override
+			public void remove() {
+				if (inOverflow) {
+					overflowIterator.remove();
+				} else {
+					slotIterator.remove();
+				}
+			}
+		};
+	}
+	
+	@Override
+	public double l1Norm() {
+		double sum = overflow.l1Norm();
+		final TObjectIntIterator<KeyArgs> iterator = slots.iterator();
+		while (iterator.hasNext()) {
+			iterator.advance();
+			sum += Math.abs(values.get(iterator.value()));
+		}
+		return sum;
+	}
+	
+	@Override
+	public void multiplyBy(double value) {
+		copyOnWrite();
+		final TObjectIntIterator<KeyArgs> iterator = slots.iterator();
+		while (iterator.hasNext()) {
+			iterator.advance();
+			values.put(iterator.value(), values.get(iterator.value()) * value);
+		}
+		overflow.multiplyBy(value);
+	}
+	
+	@Override
+	public IHashVector pairWiseProduct(final IHashVectorImmutable other) {
+		final TreeHashVector ret = new TreeHashVector();
+		iterate(new EntryFunction() {
+			
+			@Override
+			public void apply(KeyArgs key, double value) {
+				if (other.contains(key)) {
+					ret.set(key, value * other.get(key));
+				}
+			}
+		});
+		return ret;
+	}
+	
+	@Override
+	public String printValues(IHashVectorImmutable other) {
+		return new TreeHashVector(this).printValues(other);
+	}
+	
+	@Override
+	public void set(int keyIndex, double value) {
+		set(FeatureRegistry.getKey(keyIndex), value);
+	}
+	
+	@Override
+	public void set(KeyArgs key, double value) {
+		final int slot = slots.get(key);
+		if (slot >= 0 && !values.isReadOnly()) {
+			values.put(slot, value);
+		} else {
+			if (slot >= 0) {
+				// Case the buffer is read-only, move the entry to the overflow
+				slots.remove(key);
+			}
+			overflow.set(key, value);
+		}
+	}
+	
+	@Override
+	public void set(String arg1, double value) {
+		set(new KeyArgs(arg1), value);
+	}
+	
+	@Override
+	public void set(String arg1, String arg2, double value) {
+		set(new KeyArgs(arg1, arg2), value);
+	}
+	
+	@Override
+	public void set(String arg1, String arg2, String arg3, double value) {
+		set(new KeyArgs(arg1, arg2, arg3), value);
+	}
+	
+	@Override
+	public void set(String arg1, String arg2, String arg3, String arg4,
+			double value) {
+		set(new KeyArgs(arg1, arg2, arg3, arg4), value);
+	}
+	
+	@Override
+	public void set(String arg1, String arg2, String arg3, String arg4,
+			String arg5, double value) {
+		set(new KeyArgs(arg1, arg2, arg3, arg4, arg5), value);
+	}
+	
+	@Override
+	public int size() {
+		return slots.size() + overflow.size();
+	}
+	
+	@Override
+	public String toString() {
+		return new TreeHashVector(this).toString();
+	}
+	
+	@Override
+	public boolean valuesInRange(double min, double max) {
+		for (final Pair<KeyArgs, Double> entry : this) {
+			if (entry.second() < min || entry.second() > max) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	@Override
+	public double vectorMultiply(IHashVectorImmutable other) {
+		double sum = 0.0;
+		if (other.size() < size()) {
+			for (final Pair<KeyArgs, Double> entry : other) {
+				sum += entry.second() * get(entry.first());
+			}
+		} else {
+			for (final Pair<KeyArgs, Double> entry : this) {
+				sum += entry.second() * other.get(entry.first());
+			}
+		}
+		return sum;
+	}
+	
+	/**
+	 * If the buffer is read-only, moves all of its entries to the overflow
+	 * vector, before an operation that modifies all values.
+	 */
+	private void copyOnWrite() {
+		if (values.isReadOnly() && !slots.isEmpty()) {
+			final TObjectIntIterator<KeyArgs> iterator = slots.iterator();
+			while (iterator.hasNext()) {
+				iterator.advance();
+				overflow.set(iterator.key(), values.get(iterator.value()));
+			}
+			slots.clear();
+		}
+	}
+	
+	/**
+	 * Collect all entries that match the given arguments on the first argCount
+	 * positions.
+	 */
+	private IHashVector getAll(final int argCount, final String arg1,
+			final String arg2, final String arg3, final String arg4,
+			final String arg5) {
+		final TreeHashVector result = new TreeHashVector();
+		iterate(new EntryFunction() {
+			
+			@Override
+			public void apply(KeyArgs key, double value) {
+				if (arg1.equals(key.arg1)
+						&& (argCount < 2 || arg2.equals(key.arg2))
+						&& (argCount < 3 || arg3.equals(key.arg3))
+						&& (argCount < 4 || arg4.equals(key.arg4))
+						&& (argCount < 5 || arg5.equals(key.arg5))) {
+					result.set(key, value);
+				}
+			}
+		});
+		return result;
+	}
+	
+	/**
+	 * The mapped buffer can't be serialized, so replace with a heap-based
+	 * copy.
+	 */
+	private Object writeReplace() throws ObjectStreamException {
+		return new TreeHashVector(this);
+	}
+}
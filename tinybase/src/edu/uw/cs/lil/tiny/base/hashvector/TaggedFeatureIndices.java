@@ -0,0 +1,69 @@
+/*******************************************************************************
+ * UW SPF - The University of Washington Semantic Parsing Framework
+ * <p>
+ * Copyright (C) 2013 Yoav Artzi
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ ******************************************************************************/
+package edu.uw.cs.lil.tiny.base.hashvector;
+
+import java.util.Arrays;
+
+/**
+ * Maps the local integer IDs of a feature set to {@link FeatureRegistry}
+ * indices for keys of the form (tag, id). Used by feature sets that number
+ * their features densely, so scoring can access weights by index instead of
+ * building a string key for every lookup. Indices are resolved the first time
+ * they are requested.
+ * 
+ * @author Yoav Artzi
+ */
+public class TaggedFeatureIndices {
+	
+	/**
+	 * Registry indices by local ID. Unresolved entries are -1. Replaced when it
+	 * grows, so readers can access it without locking.
+	 */
+	private volatile int[]	indices	= new int[0];
+	private final String	tag;
+	
+	public TaggedFeatureIndices(String tag) {
+		this.tag = tag;
+	}
+	
+	/**
+	 * @return The registry index of the feature (tag, id).
+	 */
+	public int get(int id) {
+		final int[] current = indices;
+		if (id < current.length && current[id] >= 0) {
+			return current[id];
+		} else {
+			return resolve(id);
+		}
+	}
+	
+	private synchronized int resolve(int id) {
+		if (id >= indices.length) {
+			final int[] grown = Arrays.copyOf(indices,
+					Math.max(id + 1, indices.length * 2));
+			Arrays.fill(grown, indices.length, grown.length, -1);
+			indices = grown;
+		}
+		if (indices[id] < 0) {
+			indices[id] = FeatureRegistry.getOrAdd(tag, String.valueOf(id));
+		}
+		return indices[id];
+	}
+}
@@ -183,6 +183,11 @@ class TreeHashVector implements IHashVector {
 		return true;
 	}
 	
+	@Override
+	public double get(int keyIndex) {
+		return get(FeatureRegistry.getKey(keyIndex));
+	}
+	
 	@Override
 	public double get(KeyArgs key) {
 		final Double value = values.get(key);
@@ -444,6 +449,12 @@ class TreeHashVector implements IHashVector {
 		}
 	}
 	
+	/** {@inheritDoc} */
+	@Override
+	public void set(int keyIndex, double value) {
+		values.put(FeatureRegistry.getKey(keyIndex), value);
+	}
+	
 	/** {@inheritDoc} */
 	@Override
 	public void set(KeyArgs key, double value) {
@@ -199,6 +199,11 @@ class TroveHashVector implements IHashVector {
 		return true;
 	}
 	
+	@Override
+	public double get(int keyIndex) {
+		return values.get(FeatureRegistry.getKey(keyIndex));
+	}
+	
 	@Override
 	public double get(KeyArgs key) {
 		return values.get(key);
@@ -510,6 +515,11 @@ class TroveHashVector implements IHashVector {
 		}
 	}
 	
+	@Override
+	public void set(int keyIndex, double value) {
+		values.put(FeatureRegistry.getKey(keyIndex), value);
+	}
+	
 	@Override
 	public void set(KeyArgs key, double value) {
 		values.put(key, value);
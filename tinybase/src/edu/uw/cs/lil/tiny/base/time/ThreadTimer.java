@@ -0,0 +1,167 @@
+/*******************************************************************************
+ * UW SPF - The University of Washington Semantic Parsing Framework
+ * <p>
+ * Copyright (C) 2013 Yoav Artzi
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ ******************************************************************************/
+package edu.uw.cs.lil.tiny.base.time;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Accumulates the time the current thread spends in a section of code. Used to
+ * profile code that is called deep within other components (e.g., lambda
+ * calculus operations during parsing), where the caller can't time it directly.
+ * Callers sample {@link #getThreadTime()} before and after their work, on the
+ * same thread, and take the difference. Nested (re-entrant) sections are timed
+ * once. All timers are registered globally and are disabled by default, in
+ * which case {@link #start()} and {@link #stop()} only read volatile fields.
+ * Timing is enabled either for all threads (see {@link #setEnabled(boolean)})
+ * or only for the current thread, between calls to {@link #enableThread()}
+ * and {@link #disableThread()}.
+ * 
+ * @author Yoav Artzi
+ */
+public class ThreadTimer {
+	private static volatile boolean			enabled			= false;
+	
+	/**
+	 * Number of threads that enabled timing for themselves.
+	 */
+	private static final AtomicInteger		ENABLED_THREADS	= new AtomicInteger();
+	
+	/**
+	 * Per-thread enabling depth (see {@link #enableThread()}).
+	 */
+	private static final ThreadLocal<int[]>	THREAD_DEPTH	= new ThreadLocal<int[]>() {
+																@Override
+																protected int[] initialValue() {
+																	return new int[1];
+																}
+															};
+	
+	private static final List<ThreadTimer>	TIMERS			= new CopyOnWriteArrayList<ThreadTimer>();
+	
+	private final String					name;
+	
+	/**
+	 * Per-thread state: nesting depth, start time of the outermost section and
+	 * accumulated time (nanoseconds).
+	 */
+	private final ThreadLocal<long[]>		state			= new ThreadLocal<long[]>() {
+																@Override
+																protected long[] initialValue() {
+																	return new long[3];
+																}
+															};
+	
+	private ThreadTimer(String name) {
+		this.name = name;
+	}
+	
+	/**
+	 * Creates and registers a new timer.
+	 */
+	public static ThreadTimer create(String name) {
+		final ThreadTimer timer = new ThreadTimer(name);
+		TIMERS.add(timer);
+		return timer;
+	}
+	
+	/**
+	 * Disables timing for the current thread. Undoes a single call to
+	 * {@link #enableThread()}.
+	 */
+	public static void disableThread() {
+		final int[] depth = THREAD_DEPTH.get();
+		if (depth[0] > 0 && --depth[0] == 0) {
+			ENABLED_THREADS.decrementAndGet();
+		}
+	}
+	
+	/**
+	 * Enables timing for the current thread only. Calls may be nested, and
+	 * each must be matched by a call to {@link #disableThread()} on the same
+	 * thread.
+	 */
+	public static void enableThread() {
+		if (THREAD_DEPTH.get()[0]++ == 0) {
+			ENABLED_THREADS.incrementAndGet();
+		}
+	}
+	
+	/**
+	 * All registered timers, in order of creation.
+	 */
+	public static List<ThreadTimer> getTimers() {
+		return Collections.unmodifiableList(TIMERS);
+	}
+	
+	/**
+	 * @return true if timing is enabled for the current thread.
+	 */
+	public static boolean isEnabled() {
+		return enabled || ENABLED_THREADS.get() > 0
+				&& THREAD_DEPTH.get()[0] > 0;
+	}
+	
+	/**
+	 * Enables or disables all timers. Disabling while a timed section is
+	 * executing may leave its timer in an inconsistent state.
+	 */
+	public static void setEnabled(boolean enabled) {
+		ThreadTimer.enabled = enabled;
+	}
+	
+	public String getName() {
+		return name;
+	}
+	
+	/**
+	 * Total time (nanoseconds) the current thread spent in the timed section.
+	 */
+	public long getThreadTime() {
+		return state.get()[2];
+	}
+	
+	public void start() {
+		if (isEnabled()) {
+			final long[] threadState = state.get();
+			if (threadState[0]++ == 0) {
+				threadState[1] = System.nanoTime();
+			}
+		}
+	}
+	
+	public void stop() {
+		if (isEnabled()) {
+			final long[] threadState = state.get();
+			// The depth may be zero, if the timers were enabled while in the
+			// section
+			if (threadState[0] > 0 && --threadState[0] == 0) {
+				threadState[2] += System.nanoTime() - threadState[1];
+			}
+		}
+	}
+	
+	@Override
+	public String toString() {
+		return name;
+	}
+	
+}
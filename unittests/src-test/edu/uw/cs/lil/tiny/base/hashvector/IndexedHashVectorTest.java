@@ -0,0 +1,100 @@
+/*******************************************************************************
+ * UW SPF - The University of Washington Semantic Parsing Framework
+ * <p>
+ * Copyright (C) 2013 Yoav Artzi
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ ******************************************************************************/
+package edu.uw.cs.lil.tiny.base.hashvector;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.uw.cs.utils.composites.Pair;
+
+public class IndexedHashVectorTest {
+	
+	@Test
+	public void test() {
+		final IndexedHashVector vector = new IndexedHashVector();
+		
+		vector.set("p1", 1.0);
+		vector.set("p1", "p2", "p3", "p4", 2.0);
+		
+		assertTrue(vector.get("p1") == 1.0);
+		assertTrue(vector.get("p1", "p2", "p3", "p4") == 2.0);
+		assertTrue(vector.get("p9") == 0.0);
+		assertTrue(vector.get("p9", -1.0) == -1.0);
+		assertTrue(vector.size() == 2);
+		
+		vector.set("p2", 3.0);
+		
+		final IHashVector p1 = vector.getAll("p1");
+		assertTrue(p1.get("p1") == 1.0);
+		assertTrue(p1.get("p1", "p2", "p3", "p4") == 2.0);
+		assertTrue(p1.size() == 2);
+		
+		vector.set("p3", -2.5);
+		Assert.assertEquals(2.5 + 3.0 + 1.0 + 2.0, vector.l1Norm(), 0.0);
+		final IndexedHashVector pairwise = vector.pairWiseProduct(vector);
+		for (final Pair<KeyArgs, Double> entry : pairwise) {
+			Assert.assertEquals(entry.second(),
+					Math.pow(vector.get(entry.first()), 2), 0.0);
+		}
+		Assert.assertEquals(2.5 * 2.5 + 3.0 * 3.0 + 1.0 + 2.0 * 2.0,
+				vector.vectorMultiply(vector), 0.0);
+	}
+	
+	@Test
+	public void testIndexAccess() {
+		final int index = FeatureRegistry.getOrAdd("idx", "1");
+		Assert.assertEquals(index, FeatureRegistry.getOrAdd("idx", "1"));
+		Assert.assertEquals(new KeyArgs("idx", "1"),
+				FeatureRegistry.getKey(index));
+		
+		final IndexedHashVector indexed = new IndexedHashVector();
+		indexed.set(index, 4.0);
+		Assert.assertEquals(4.0, indexed.get("idx", "1"), 0.0);
+		
+		// Index access is supported by all implementations
+		final IHashVector tree = HashVectorFactory.createTree();
+		tree.set("idx", "1", 2.0);
+		Assert.assertEquals(2.0, tree.get(index), 0.0);
+		Assert.assertEquals(8.0, indexed.vectorMultiply(tree), 0.0);
+	}
+	
+	@Test
+	public void testSerialization() throws IOException, ClassNotFoundException {
+		final IndexedHashVector vector = new IndexedHashVector();
+		vector.set("a", 1.0);
+		vector.set("a", "b", 2.0);
+		vector.set("c", "d", "e", -3.0);
+		
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new ObjectOutputStream(out).writeObject(vector);
+		final IndexedHashVector object = (IndexedHashVector) new ObjectInputStream(
+				new ByteArrayInputStream(out.toByteArray())).readObject();
+		
+		Assert.assertEquals(vector, object);
+		Assert.assertEquals(-3.0, object.get("c", "d", "e"), 0.0);
+	}
+}
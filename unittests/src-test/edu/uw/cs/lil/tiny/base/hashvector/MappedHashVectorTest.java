@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * UW SPF - The University of Washington Semantic Parsing Framework
+ * <p>
+ * Copyright (C) 2013 Yoav Artzi
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ ******************************************************************************/
+package edu.uw.cs.lil.tiny.base.hashvector;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.DoubleBuffer;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MappedHashVectorTest {
+	
+	@Test
+	public void test() {
+		final KeyArgs[] keys = new KeyArgs[] { new KeyArgs("p1"),
+				new KeyArgs("p1", "p2", "p3", "p4"), new KeyArgs("p2") };
+		final DoubleBuffer buffer = DoubleBuffer.wrap(new double[] { 1.0,
+				2.0, 3.0 });
+		final IHashVector vector = HashVectorFactory.createMapped(keys, buffer);
+		
+		Assert.assertEquals(1.0, vector.get("p1"), 0.0);
+		Assert.assertEquals(2.0, vector.get("p1", "p2", "p3", "p4"), 0.0);
+		Assert.assertEquals(0.0, vector.get("p9"), 0.0);
+		Assert.assertEquals(-1.0, vector.get("p9", -1.0), 0.0);
+		Assert.assertEquals(3, vector.size());
+		
+		// Existing keys are written to the buffer, new ones to the overflow
+		vector.set("p2", 4.0);
+		vector.set("p3", -2.5);
+		Assert.assertEquals(4.0, buffer.get(2), 0.0);
+		Assert.assertEquals(-2.5, vector.get("p3"), 0.0);
+		Assert.assertEquals(4, vector.size());
+		
+		final IHashVector p1 = vector.getAll("p1");
+		Assert.assertEquals(2, p1.size());
+		Assert.assertEquals(2.5 + 4.0 + 1.0 + 2.0, vector.l1Norm(), 0.0);
+		Assert.assertEquals(2.5 * 2.5 + 4.0 * 4.0 + 1.0 + 2.0 * 2.0,
+				vector.vectorMultiply(vector), 0.0);
+		
+		vector.multiplyBy(2.0);
+		Assert.assertEquals(2.0, vector.get("p1"), 0.0);
+		Assert.assertEquals(-5.0, vector.get("p3"), 0.0);
+	}
+	
+	@Test
+	public void testReadOnly() {
+		final DoubleBuffer buffer = DoubleBuffer.wrap(new double[] { 1.0, 2.0 });
+		final IHashVector vector = HashVectorFactory.createMapped(
+				new KeyArgs[] { new KeyArgs("p1"), new KeyArgs("p2") },
+				buffer.asReadOnlyBuffer());
+		
+		// Updates are copied to the overflow, the buffer is never written
+		vector.set("p1", 3.0);
+		Assert.assertEquals(3.0, vector.get("p1"), 0.0);
+		Assert.assertEquals(1.0, buffer.get(0), 0.0);
+		Assert.assertEquals(2, vector.size());
+		
+		vector.multiplyBy(2.0);
+		Assert.assertEquals(6.0, vector.get("p1"), 0.0);
+		Assert.assertEquals(4.0, vector.get("p2"), 0.0);
+		Assert.assertEquals(2.0, buffer.get(1), 0.0);
+		Assert.assertEquals(2, vector.size());
+	}
+	
+	@Test
+	public void testSerialization() throws IOException, ClassNotFoundException {
+		final IHashVector vector = HashVectorFactory.createMapped(
+				new KeyArgs[] { new KeyArgs("a", "b") },
+				DoubleBuffer.wrap(new double[] { 0.5 }));
+		vector.set("c", 1.5);
+		
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		final ObjectOutputStream out = new ObjectOutputStream(bytes);
+		out.writeObject(vector);
+		out.close();
+		final IHashVector read = (IHashVector) new ObjectInputStream(
+				new ByteArrayInputStream(bytes.toByteArray())).readObject();
+		
+		Assert.assertEquals(2, read.size());
+		Assert.assertEquals(0.5, read.get("a", "b"), 0.0);
+		Assert.assertEquals(1.5, read.get("c"), 0.0);
+	}
+	
+}
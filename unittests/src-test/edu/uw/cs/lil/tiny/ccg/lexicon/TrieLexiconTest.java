@@ -0,0 +1,72 @@
+/*******************************************************************************
+ * UW SPF - The University of Washington Semantic Parsing Framework
+ * <p>
+ * Copyright (C) 2013 Yoav Artzi
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ ******************************************************************************/
+package edu.uw.cs.lil.tiny.ccg.lexicon;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.uw.cs.lil.tiny.TestServices;
+import edu.uw.cs.lil.tiny.mr.lambda.LogicalExpression;
+
+public class TrieLexiconTest {
+	
+	@Test
+	public void test() {
+		final TrieLexicon<LogicalExpression> lexicon = new TrieLexicon<LogicalExpression>();
+		final LexicalEntry<LogicalExpression> e1 = LexicalEntry.parse(
+				"texas :- NP : texas:s", TestServices.getCategoryServices(),
+				LexicalEntry.Origin.FIXED_DOMAIN);
+		final LexicalEntry<LogicalExpression> e2 = LexicalEntry.parse(
+				"new york :- NP : new_york:s",
+				TestServices.getCategoryServices(),
+				LexicalEntry.Origin.FIXED_DOMAIN);
+		final LexicalEntry<LogicalExpression> e3 = LexicalEntry.parse(
+				"new york city :- NP : new_york_ny:c",
+				TestServices.getCategoryServices(),
+				LexicalEntry.Origin.FIXED_DOMAIN);
+		Assert.assertEquals(1, lexicon.add(e1).size());
+		Assert.assertEquals(1, lexicon.add(e2).size());
+		Assert.assertEquals(1, lexicon.add(e3).size());
+		Assert.assertEquals(0, lexicon.add(e3).size());
+		Assert.assertEquals(3, lexicon.size());
+		
+		Assert.assertEquals(Arrays.asList(e2),
+				lexicon.getLexEntries(Arrays.asList("new", "york")));
+		Assert.assertTrue(lexicon.getLexEntries(Arrays.asList("new"))
+				.isEmpty());
+		Assert.assertTrue(lexicon.getLexEntries(
+				Arrays.asList("new", "mexico")).isEmpty());
+		
+		final List<String> sentence = Arrays.asList("what", "is", "new",
+				"york", "city");
+		Assert.assertEquals(0, lexicon.getLongestPhraseLength(sentence, 0));
+		Assert.assertEquals(3, lexicon.getLongestPhraseLength(sentence, 2));
+		
+		lexicon.retainAll(Arrays.asList(e1, e2));
+		Assert.assertEquals(2, lexicon.size());
+		Assert.assertFalse(lexicon.contains(e3));
+		Assert.assertEquals(2, lexicon.getLongestPhraseLength(sentence, 2));
+		Assert.assertTrue(lexicon.getLexEntries(
+				Arrays.asList("new", "york", "city")).isEmpty());
+	}
+	
+}
@@ -0,0 +1,120 @@
+/*******************************************************************************
+ * UW SPF - The University of Washington Semantic Parsing Framework
+ * <p>
+ * Copyright (C) 2013 Yoav Artzi
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ ******************************************************************************/
+package edu.uw.cs.lil.tiny.learn.validation.perceptron;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.LinkedList;
+import java.util.List;
+
+import org.junit.Test;
+
+import edu.uw.cs.lil.tiny.TestServices;
+import edu.uw.cs.lil.tiny.ccg.categories.Category;
+import edu.uw.cs.lil.tiny.ccg.categories.ICategoryServices;
+import edu.uw.cs.lil.tiny.ccg.lexicon.ILexicon;
+import edu.uw.cs.lil.tiny.ccg.lexicon.LexicalEntry;
+import edu.uw.cs.lil.tiny.ccg.lexicon.Lexicon;
+import edu.uw.cs.lil.tiny.data.sentence.Sentence;
+import edu.uw.cs.lil.tiny.data.singlesentence.SingleSentence;
+import edu.uw.cs.lil.tiny.data.singlesentence.SingleSentenceDataset;
+import edu.uw.cs.lil.tiny.data.utils.IValidator;
+import edu.uw.cs.lil.tiny.genlex.ccg.ILexiconGenerator;
+import edu.uw.cs.lil.tiny.mr.lambda.LogicalExpression;
+import edu.uw.cs.lil.tiny.parser.ccg.cky.single.CKYParser;
+import edu.uw.cs.lil.tiny.parser.ccg.features.basic.LexicalFeatureSet;
+import edu.uw.cs.lil.tiny.parser.ccg.model.IModelImmutable;
+import edu.uw.cs.lil.tiny.parser.ccg.model.Model;
+import edu.uw.cs.utils.filter.IFilter;
+
+public class ValidationPerceptronTest {
+	
+	public ValidationPerceptronTest() {
+		new TestServices();
+	}
+	
+	/**
+	 * Mini-batch training where GENLEX learns an entry that is used in the
+	 * parameter update.
+	 */
+	@Test
+	public void test() {
+		final LexicalEntry<LogicalExpression> wrongEntry = LexicalEntry.parse(
+				"texas :- NP : ohio:s", TestServices.getCategoryServices(),
+				LexicalEntry.Origin.FIXED_DOMAIN);
+		final LexicalEntry<LogicalExpression> correctEntry = LexicalEntry
+				.parse("texas :- NP : texas:s",
+						TestServices.getCategoryServices(),
+						LexicalEntry.Origin.FIXED_DOMAIN);
+		
+		final Model<Sentence, LogicalExpression> model = new Model.Builder<Sentence, LogicalExpression>()
+				.setLexicon(new Lexicon<LogicalExpression>())
+				.addLexicalFeatureSet(
+						new LexicalFeatureSet.Builder<Sentence, LogicalExpression>()
+								.build()).build();
+		model.addLexEntry(wrongEntry);
+		
+		final List<SingleSentence> data = new LinkedList<SingleSentence>();
+		data.add(new SingleSentence(new Sentence("texas"), correctEntry
+				.getCategory().getSem()));
+		data.add(new SingleSentence(new Sentence("texas"), correctEntry
+				.getCategory().getSem()));
+		
+		final CKYParser<LogicalExpression> parser = new CKYParser.Builder<LogicalExpression>(
+				TestServices.getCategoryServices(),
+				new IFilter<Category<LogicalExpression>>() {
+					
+					@Override
+					public boolean isValid(Category<LogicalExpression> e) {
+						return e.getSem() != null;
+					}
+				}).build();
+		
+		final ILexiconGenerator<SingleSentence, LogicalExpression, IModelImmutable<Sentence, LogicalExpression>> genlex = new ILexiconGenerator<SingleSentence, LogicalExpression, IModelImmutable<Sentence, LogicalExpression>>() {
+			
+			@Override
+			public ILexicon<LogicalExpression> generate(
+					SingleSentence dataItem,
+					IModelImmutable<Sentence, LogicalExpression> genlexModel,
+					ICategoryServices<LogicalExpression> categoryServices) {
+				final Lexicon<LogicalExpression> lexicon = new Lexicon<LogicalExpression>();
+				lexicon.add(correctEntry);
+				return lexicon;
+			}
+		};
+		
+		final ValidationPerceptron<Sentence, SingleSentence, LogicalExpression> learner = new ValidationPerceptron.Builder<Sentence, SingleSentence, LogicalExpression>(
+				new SingleSentenceDataset(data), parser,
+				new IValidator<SingleSentence, LogicalExpression>() {
+					
+					@Override
+					public boolean isValid(SingleSentence dataItem,
+							LogicalExpression label) {
+						return dataItem.getLabel().equals(label);
+					}
+				}).setGenlex(genlex, TestServices.getCategoryServices())
+				.setBatchSize(2).setNumThreads(2).setNumTrainingIterations(1)
+				.build();
+		learner.train(model);
+		
+		assertTrue(model.getLexicon().contains(correctEntry));
+		assertTrue(model.score(correctEntry) > model.score(wrongEntry));
+	}
+	
+}
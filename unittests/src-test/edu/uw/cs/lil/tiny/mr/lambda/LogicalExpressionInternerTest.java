@@ -0,0 +1,75 @@
+/*******************************************************************************
+ * UW SPF - The University of Washington Semantic Parsing Framework
+ * <p>
+ * Copyright (C) 2013 Yoav Artzi
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ ******************************************************************************/
+package edu.uw.cs.lil.tiny.mr.lambda;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.uw.cs.lil.tiny.TestServices;
+
+public class LogicalExpressionInternerTest {
+	
+	public LogicalExpressionInternerTest() {
+		new TestServices();
+	}
+	
+	@Test
+	public void test() {
+		final LogicalExpression e1 = LogicalExpressionInterner
+				.intern(LogicalExpression
+						.read("(lambda $0:e (and:<t*,t> (boo:<e,t> $0) (foo:<e,t> $0)))"));
+		final LogicalExpression e2 = LogicalExpressionInterner
+				.intern(LogicalExpression
+						.read("(lambda $1:e (and:<t*,t> (foo:<e,t> $1) (boo:<e,t> $1)))"));
+		Assert.assertSame(e1, e2);
+	}
+	
+	@Test
+	public void test2() {
+		final LogicalExpression e1 = LogicalExpressionInterner
+				.intern(LogicalExpression
+						.read("(lambda $0:e (lambda $1:e (boo:<e,<e,t>> $0 $1)))"));
+		final LogicalExpression e2 = LogicalExpressionInterner
+				.intern(LogicalExpression
+						.read("(lambda $0:e (lambda $1:e (boo:<e,<e,t>> $1 $0)))"));
+		Assert.assertNotSame(e1, e2);
+		Assert.assertFalse(e1.equals(e2));
+	}
+	
+	@Test
+	public void test3() {
+		// Free variables are not interned
+		final LogicalExpression e1 = LogicalExpressionInterner
+				.intern(LogicalExpression.read("(boo:<e,t> $0:e)"));
+		final LogicalExpression e2 = LogicalExpressionInterner
+				.intern(LogicalExpression.read("(boo:<e,t> $0:e)"));
+		Assert.assertFalse(e1.equals(e2));
+	}
+	
+	@Test
+	public void test4() {
+		// Closed sub-expressions are shared
+		final Literal e1 = (Literal) LogicalExpressionInterner
+				.intern(LogicalExpression
+						.read("(boo:<e,<e,t>> (io:<e,e> texas:e) (io:<e,e> texas:e))"));
+		Assert.assertSame(e1.getArguments().get(0), e1.getArguments().get(1));
+		Assert.assertEquals(e1, LogicalExpression
+				.read("(boo:<e,<e,t>> (io:<e,e> texas:e) (io:<e,e> texas:e))"));
+	}
+}
@@ -0,0 +1,61 @@
+/*******************************************************************************
+ * UW SPF - The University of Washington Semantic Parsing Framework
+ * <p>
+ * Copyright (C) 2013 Yoav Artzi
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ ******************************************************************************/
+package edu.uw.cs.lil.tiny.mr.lambda;
+
+import java.io.StringReader;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.uw.cs.lil.tiny.TestServices;
+
+public class LogicalExpressionReaderTest {
+	
+	public LogicalExpressionReaderTest() {
+		new TestServices();
+	}
+	
+	@Test
+	public void test() {
+		final String string = "(lambda $0:e (and:<t*,t> (boo:<e,t> $0) (foo:<e,t> $0)))";
+		final LogicalExpression exp = LogicalExpressionReader.from(string);
+		Assert.assertEquals(exp,
+				LogicalExpressionReader.from(new StringReader(string)));
+		Assert.assertEquals(exp, LogicalExpressionReader
+				.from("(lambda  $0:e\n\t(and:<t*,t> ( boo:<e,t> $0 )\n(foo:<e,t> $0) ) )"));
+	}
+	
+	@Test
+	public void test2() {
+		final LogicalExpressionTokenizer tokenizer = new LogicalExpressionTokenizer(
+				"(lambda $0:e\n  ( boo:<e,t>  $0 ) ) foo:e");
+		Assert.assertEquals("(", tokenizer.peek());
+		Assert.assertEquals("lambda", tokenizer.peekSecond());
+		Assert.assertEquals("(lambda $0:e (boo:<e,t> $0))",
+				tokenizer.nextExpression());
+		Assert.assertEquals("foo:e", tokenizer.next());
+		Assert.assertFalse(tokenizer.hasNext());
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void test3() {
+		LogicalExpressionReader.from("(boo:<e,t> foo:e) foo:e");
+	}
+	
+}
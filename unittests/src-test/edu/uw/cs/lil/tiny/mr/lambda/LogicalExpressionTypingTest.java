@@ -19,10 +19,14 @@
 package edu.uw.cs.lil.tiny.mr.lambda;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 import org.junit.Test;
 
 import edu.uw.cs.lil.tiny.TestServices;
+import edu.uw.cs.lil.tiny.mr.lambda.visitor.IsTypeConsistent;
+import edu.uw.cs.lil.tiny.mr.lambda.visitor.IsValid;
 
 public class LogicalExpressionTypingTest {
 	
@@ -40,4 +44,58 @@ public class LogicalExpressionTypingTest {
 		
 	}
 	
+	@Test
+	public void test2() {
+		final LogicalExpression exp = TestServices.CATEGORY_SERVICES
+				.parseSemantics("(lambda $0:e (intersect:<<e,t>*,<e,t>> (lambda $1:e (chair:<e,t> $1)) (lambda $2:e (front:<<e,t>,<e,t>> (lambda $3:e (at:<e,t> $3)) $2)) $0))");
+		assertTrue(exp.isTypeConsistent());
+		assertEquals(IsTypeConsistent.of(exp), exp.isTypeConsistent());
+		assertTrue(exp.isValid());
+		assertEquals(IsValid.of(exp), exp.isValid());
+	}
+	
+	@Test
+	public void test3() {
+		// The variable is used both as a state and as a city
+		final LogicalExpression exp = LogicalExpression
+				.read("(lambda $0:e (and:<t*,t> (state:<s,t> $0) (city:<c,t> $0)))");
+		assertFalse(exp.isTypeConsistent());
+		assertEquals(IsTypeConsistent.of(exp), exp.isTypeConsistent());
+		
+		// Sub-expressions keep their own summaries. In the body the variable
+		// is free, so it's treated like a constant of type e.
+		final LogicalExpression body = ((Lambda) exp).getBody();
+		assertTrue(body.isTypeConsistent());
+		assertEquals(IsTypeConsistent.of(body), body.isTypeConsistent());
+		assertTrue(((Literal) body).getArguments().get(0)
+				.isTypeConsistent());
+	}
+	
+	@Test
+	public void test4() {
+		// The same variable is bound twice
+		final LogicalExpression exp = LogicalExpression
+				.read("(lambda $0:e (state:<s,t> $0))");
+		final Variable variable = ((Lambda) exp).getArgument();
+		final LogicalExpression invalid = new Lambda(variable, exp);
+		assertTrue(exp.isValid());
+		assertFalse(invalid.isValid());
+		assertEquals(IsValid.of(invalid), invalid.isValid());
+	}
+	
+	@Test
+	public void test5() {
+		// Complex types are covariant, so the two usages of the variable are
+		// not comparable with each other, but both are comparable with its
+		// type
+		final LogicalExpression exp = LogicalExpression
+				.read("(lambda $0:<s,i> (and:<t*,t> (pred1:<<lo,i>,t> $0) (pred2:<<s,e>,t> $0)))");
+		assertTrue(exp.isTypeConsistent());
+		assertEquals(IsTypeConsistent.of(exp), exp.isTypeConsistent());
+		
+		final LogicalExpression body = ((Lambda) exp).getBody();
+		assertTrue(body.isTypeConsistent());
+		assertEquals(IsTypeConsistent.of(body), body.isTypeConsistent());
+	}
+	
 }
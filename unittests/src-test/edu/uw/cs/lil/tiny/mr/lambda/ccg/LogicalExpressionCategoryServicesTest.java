@@ -46,6 +46,27 @@ public class LogicalExpressionCategoryServicesTest {
 		assertTrue(String.format("%s != %s", r1, expected), expected.equals(r1));
 	}
 	
+	@Test
+	public void cache1() {
+		final LogicalExpressionCategoryServices cs = new LogicalExpressionCategoryServices(
+				true, true, true, 100);
+		final LogicalExpression f = cs.parseSemantics("f:<<e,t>,t>");
+		final LogicalExpression g = cs.parseSemantics("g:<<e,t>,<e,t>>");
+		final LogicalExpression a = cs.parseSemantics("boo:e");
+		final LogicalExpression expected = cs
+				.parseSemantics("(lambda $0:<e,t> (f:<<e,t>,t> (g:<<e,t>,<e,t>> $0)))");
+		assertEquals(expected, cs.compose(f, g, 0));
+		assertEquals(expected, cs.compose(f, g, 0));
+		Assert.assertNull(cs.apply(f, a));
+		Assert.assertNull(cs.apply(f, a));
+		assertEquals(2, cs.getCacheHits());
+		assertEquals(2, cs.getCacheMisses());
+		assertEquals(2, cs.getCacheSize());
+		cs.clearCache();
+		assertEquals(0, cs.getCacheHits());
+		assertEquals(0, cs.getCacheSize());
+	}
+	
 	@Test
 	public void compose1() {
 		final LogicalExpression f = TestServices.getCategoryServices()
@@ -0,0 +1,70 @@
+/*******************************************************************************
+ * UW SPF - The University of Washington Semantic Parsing Framework
+ * <p>
+ * Copyright (C) 2013 Yoav Artzi
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ ******************************************************************************/
+package edu.uw.cs.lil.tiny.mr.lambda.exec.naive;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import edu.uw.cs.lil.tiny.TestServices;
+import edu.uw.cs.lil.tiny.benchmarks.exec.SyntheticGeoEvaluationServices;
+import edu.uw.cs.lil.tiny.benchmarks.exec.SyntheticGeoEvaluationServices.Entity;
+import edu.uw.cs.lil.tiny.mr.lambda.LogicalExpression;
+
+public class PlannedEvaluationTest {
+	
+	private final List<Entity>	database;
+	
+	public PlannedEvaluationTest() {
+		new TestServices();
+		database = SyntheticGeoEvaluationServices.createDatabase(5, 3, 1L);
+	}
+	
+	@Test
+	public void test1() {
+		// Single predicate, answered by the index
+		assertSameResult("(lambda $0:e (city:<c,t> $0))");
+	}
+	
+	@Test
+	public void test2() {
+		// Two query variables joined by an indexed predicate
+		assertSameResult("(lambda $0:e (lambda $1:e (and:<t*,t> (city:<c,t> $0) (loc:<lo,<lo,t>> $0 $1))))");
+		assertSameResult("(lambda $0:e (lambda $1:e (and:<t*,t> (state:<s,t> $0) (state:<s,t> $1) (next_to:<lo,<lo,t>> $0 $1))))");
+	}
+	
+	@Test
+	public void test3() {
+		// Nested query with a non-indexed filter
+		assertSameResult("(lambda $0:e (and:<t*,t> (state:<s,t> $0) (exists:<<e,t>,t> (lambda $1:e (and:<t*,t> (city:<c,t> $1) (loc:<lo,<lo,t>> $1 $0) (>:<i,<i,t>> (population:<lo,i> $1) 1000000:i))))))");
+		assertSameResult("(count:<<e,t>,i> (lambda $0:e (and:<t*,t> (state:<s,t> $0) (exists:<<e,t>,t> (lambda $1:e (and:<t*,t> (state:<s,t> $1) (next_to:<lo,<lo,t>> $0 $1) (>:<i,<i,t>> (population:<lo,i> $1) (population:<lo,i> $0))))))))");
+	}
+	
+	private void assertSameResult(String query) {
+		final LogicalExpression exp = LogicalExpression.read(query);
+		final Object expected = Evaluation.of(exp,
+				new SyntheticGeoEvaluationServices(database));
+		assertNotNull(expected);
+		assertEquals(expected, PlannedEvaluation.of(exp,
+				new SyntheticGeoEvaluationServices(database)));
+	}
+}
@@ -0,0 +1,83 @@
+/*******************************************************************************
+ * UW SPF - The University of Washington Semantic Parsing Framework
+ * <p>
+ * Copyright (C) 2013 Yoav Artzi
+ * <p>
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 2 of the License, or any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * <p>
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ ******************************************************************************/
+package edu.uw.cs.lil.tiny.parser.ccg.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import edu.uw.cs.lil.tiny.TestServices;
+import edu.uw.cs.lil.tiny.ccg.lexicon.LexicalEntry;
+import edu.uw.cs.lil.tiny.ccg.lexicon.Lexicon;
+import edu.uw.cs.lil.tiny.data.sentence.Sentence;
+import edu.uw.cs.lil.tiny.mr.lambda.LogicalExpression;
+import edu.uw.cs.lil.tiny.parser.ccg.features.basic.LexicalFeatureSet;
+
+public class BinaryModelFormatTest {
+	
+	public BinaryModelFormatTest() {
+		new TestServices();
+	}
+	
+	@Test
+	public void test() throws IOException, ClassNotFoundException {
+		final File file = File.createTempFile("model", ".bin");
+		file.deleteOnExit();
+		final LexicalEntry<LogicalExpression> entry = LexicalEntry.parse(
+				"texas :- NP : texas:s", TestServices.getCategoryServices(),
+				LexicalEntry.Origin.FIXED_DOMAIN);
+		
+		final Model<Sentence, LogicalExpression> model = new Model.Builder<Sentence, LogicalExpression>()
+				.setLexicon(new Lexicon<LogicalExpression>())
+				.addLexicalFeatureSet(
+						new LexicalFeatureSet.Builder<Sentence, LogicalExpression>()
+								.build()).build();
+		model.addLexEntry(entry);
+		model.getTheta().set("TEST", "a", 1.5);
+		model.getTheta().set("TEST", "b", "c", -2.0);
+		Model.writeBinary(model, file);
+		
+		for (final boolean mapWeights : new boolean[] { true, false }) {
+			final Model<Sentence, LogicalExpression> read = Model.read(file,
+					mapWeights);
+			assertTrue(BinaryModelFormat.isBinaryModel(file));
+			assertEquals(model.getTheta().size(), read.getTheta().size());
+			assertEquals(1.5, read.getTheta().get("TEST", "a"), 0.0);
+			assertEquals(-2.0, read.getTheta().get("TEST", "b", "c"), 0.0);
+			assertTrue(read.getLexicon().contains(entry));
+			assertEquals(model.score(entry), read.score(entry), 0.0);
+			
+			// Updates are not written back to the file
+			read.getTheta().set("TEST", "a", 3.0);
+			read.getTheta().set("TEST", "d", 1.0);
+			assertEquals(3.0, read.getTheta().get("TEST", "a"), 0.0);
+			assertEquals(1.0, read.getTheta().get("TEST", "d"), 0.0);
+		}
+		
+		// The default read maps the weights
+		final Model<Sentence, LogicalExpression> read = Model.read(file);
+		assertEquals(1.5, read.getTheta().get("TEST", "a"), 0.0);
+		assertEquals(model.getTheta().size(), read.getTheta().size());
+	}
+	
+}